@@ -111,6 +111,15 @@ public class ConfigurationKeys {
   public static final int DEFAULT_TASK_EXECUTOR_THREADPOOL_SIZE = 2;
   public static final int DEFAULT_TASK_STATE_TRACKER_THREAD_POOL_CORE_SIZE = 1;
   public static final int DEFAULT_TASK_RETRY_THREAD_POOL_CORE_SIZE = 1;
+  // Upper bound the task thread pool may grow to while extraction threads are blocked and CPUs are idle
+  public static final String TASK_EXECUTOR_THREADPOOL_MAX_SIZE_KEY = "taskexecutor.threadpool.maxSize";
+  public static final String TASK_EXECUTOR_THREADPOOL_RESIZE_INTERVAL_SECONDS_KEY =
+      "taskexecutor.threadpool.resizeIntervalSeconds";
+  public static final long DEFAULT_TASK_EXECUTOR_THREADPOOL_RESIZE_INTERVAL_SECONDS = 10;
+  // Run parallel converters of stream-model tasks on a shared work-stealing pool sized to the available cores
+  public static final String TASK_EXECUTOR_WORK_STEALING_ENABLED_KEY = "taskexecutor.workStealing.enabled";
+  public static final boolean DEFAULT_TASK_EXECUTOR_WORK_STEALING_ENABLED = false;
+  public static final String TASK_EXECUTOR_COMPUTE_PARALLELISM_KEY = "taskexecutor.compute.parallelism";
 
   /**
    * Common flow configuration properties.
@@ -154,6 +163,10 @@ public class ConfigurationKeys {
   /** Only applicable if {@link #PARALLELIZE_DATASET_COMMIT} is true. */
   public static final String DATASET_COMMIT_THREADS = "job.commit.parallelCommits";
   public static final int DEFAULT_DATASET_COMMIT_THREADS = 20;
+  // If true, each dataset is committed as soon as all of its tasks have completed instead of after all tasks of
+  // the job have completed. The number of concurrent dataset commits is bounded by DATASET_COMMIT_THREADS.
+  public static final String EARLY_DATASET_COMMIT_ENABLED = "job.commit.earlyDatasetCommit.enabled";
+  public static final boolean DEFAULT_EARLY_DATASET_COMMIT_ENABLED = false;
 
   public static final String WORK_UNIT_RETRY_POLICY_KEY = "workunit.retry.policy";
   public static final String WORK_UNIT_RETRY_ENABLED_KEY = "workunit.retry.enabled";
@@ -272,6 +285,12 @@ public class ConfigurationKeys {
   public static final String DEFAULT_CONVERTER_CSV_TO_JSON_ENCLOSEDCHAR = "\0";
   public static final String CONVERTER_AVRO_FIELD_PICK_FIELDS = "converter.avro.fields";
   public static final String CONVERTER_AVRO_JDBC_ENTRY_FIELDS_PAIRS = "converter.avro.jdbc.entry_fields_pairs";
+  // Converters that run on a pool of threads in stream mode. They must be thread safe.
+  public static final String CONVERTER_PARALLEL_CLASSES_KEY = "converter.parallel.classes";
+  public static final String CONVERTER_PARALLELISM_KEY = "converter.parallel.threads";
+  public static final int DEFAULT_CONVERTER_PARALLELISM = Runtime.getRuntime().availableProcessors();
+  public static final String CONVERTER_PARALLEL_MAX_IN_FLIGHT_RECORDS_KEY = "converter.parallel.maxInFlightRecords";
+  public static final int DEFAULT_CONVERTER_PARALLEL_MAX_IN_FLIGHT_RECORDS = 100;
 
 
   /**
@@ -301,6 +320,7 @@ public class ConfigurationKeys {
   public static final String WRITER_OUTPUT_DIR = WRITER_PREFIX + ".output.dir";
   public static final String WRITER_BUILDER_CLASS = WRITER_PREFIX + ".builder.class";
   public static final String DEFAULT_WRITER_BUILDER_CLASS = "gobblin.writer.AvroDataWriterBuilder";
+  public static final String DEFAULT_PARQUET_WRITER_BUILDER_CLASS = "gobblin.writer.ParquetDataWriterBuilder";
   public static final String WRITER_FILE_NAME = WRITER_PREFIX + ".file.name";
   public static final String WRITER_FILE_PATH = WRITER_PREFIX + ".file.path";
   public static final String WRITER_FILE_PATH_TYPE = WRITER_PREFIX + ".file.path.type";
@@ -314,12 +334,15 @@ public class ConfigurationKeys {
   public static final String WRITER_PRESERVE_FILE_NAME = WRITER_PREFIX + ".preserve.file.name";
   public static final String WRITER_DEFLATE_LEVEL = WRITER_PREFIX + ".deflate.level";
   public static final String WRITER_CODEC_TYPE = WRITER_PREFIX + ".codec.type";
+  /** Number of threads compressing Avro blocks in parallel, see gobblin.writer.ParallelBlockDataFileWriter. */
+  public static final String WRITER_COMPRESSION_THREADS = WRITER_PREFIX + ".compression.threads";
   public static final String WRITER_EAGER_INITIALIZATION_KEY = WRITER_PREFIX + ".eager.initialization";
   public static final String WRITER_PARTITIONER_CLASS = WRITER_PREFIX + ".partitioner.class";
   public static final boolean DEFAULT_WRITER_EAGER_INITIALIZATION = false;
   public static final String WRITER_GROUP_NAME = WRITER_PREFIX + ".group.name";
   public static final String DEFAULT_WRITER_FILE_BASE_NAME = "part";
   public static final int DEFAULT_DEFLATE_LEVEL = 9;
+  public static final int DEFAULT_WRITER_COMPRESSION_THREADS = 0;
   public static final int DEFAULT_BUFFER_SIZE = 4096;
   public static final String DEFAULT_WRITER_FILE_PATH_TYPE = "default";
   public static final String SIMPLE_WRITER_DELIMITER = "simple.writer.delimiter";
@@ -696,6 +719,12 @@ public class ConfigurationKeys {
   public static final String DEFAULT_JOB_HISTORY_STORE_USER = "gobblin";
   public static final String JOB_HISTORY_STORE_PASSWORD_KEY = "job.history.store.password";
   public static final String DEFAULT_JOB_HISTORY_STORE_PASSWORD = "gobblin";
+  // Write job execution information from a background thread instead of the job launcher thread
+  public static final String JOB_HISTORY_STORE_ASYNC_ENABLED_KEY = "job.history.store.async.enabled";
+  public static final boolean DEFAULT_JOB_HISTORY_STORE_ASYNC_ENABLED = false;
+  public static final String JOB_HISTORY_STORE_ASYNC_CLOSE_TIMEOUT_SECONDS_KEY =
+      "job.history.store.async.closeTimeoutSeconds";
+  public static final long DEFAULT_JOB_HISTORY_STORE_ASYNC_CLOSE_TIMEOUT_SECONDS = 300;
 
   /**
    * Password encryption and decryption properties.
@@ -757,6 +786,8 @@ public class ConfigurationKeys {
    * Configuration properties related to Spec Store
    */
   public static final String SPECSTORE_FS_DIR_KEY = "specStore.fs.dir";
+  public static final String SPECSTORE_FS_LOAD_THREADS_KEY = "specStore.fs.loadThreads";
+  public static final int DEFAULT_SPECSTORE_FS_LOAD_THREADS = 10;
 
   /***
    * Configuration properties related to TopologySpec Store
@@ -51,6 +51,20 @@ public class GobblinClusterConfigurationKeys {
   public static final String JOB_EXECUTE_IN_SCHEDULING_THREAD = GOBBLIN_CLUSTER_PREFIX + "job.executeInSchedulingThread";
   public static final boolean JOB_EXECUTE_IN_SCHEDULING_THREAD_DEFAULT = true;
 
+  // Should work units be submitted to Helix in batches as the Source produces them?
+  public static final String STREAMING_WORK_UNIT_DISPATCH_ENABLED_KEY =
+      GOBBLIN_CLUSTER_PREFIX + "job.streamingWorkUnitDispatch.enabled";
+  public static final boolean DEFAULT_STREAMING_WORK_UNIT_DISPATCH_ENABLED = false;
+  // Number of work units in each Helix job submitted when streaming work unit dispatch is enabled
+  public static final String STREAMING_WORK_UNIT_DISPATCH_BATCH_SIZE_KEY =
+      GOBBLIN_CLUSTER_PREFIX + "job.streamingWorkUnitDispatch.batchSize";
+  public static final int DEFAULT_STREAMING_WORK_UNIT_DISPATCH_BATCH_SIZE = 1000;
+  // Maximum number of batches of a job that run at the same time when streaming work unit dispatch is enabled.
+  // Every running batch may run up to HELIX_CLUSTER_TASK_CONCURRENCY tasks on each instance.
+  public static final String STREAMING_WORK_UNIT_DISPATCH_PARALLEL_BATCHES_KEY =
+      GOBBLIN_CLUSTER_PREFIX + "job.streamingWorkUnitDispatch.parallelBatches";
+  public static final int DEFAULT_STREAMING_WORK_UNIT_DISPATCH_PARALLEL_BATCHES = 4;
+
   /**
    * A path pointing to a directory that contains job execution files to be executed by Gobblin. This directory can
    * have a nested structure.
@@ -19,6 +19,8 @@ package gobblin.cluster;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -38,10 +40,13 @@ import org.apache.helix.task.JobQueue;
 import org.apache.helix.task.TaskConfig;
 import org.apache.helix.task.TaskDriver;
 import org.apache.helix.task.TaskUtil;
+import org.apache.helix.task.WorkflowConfig;
 import org.apache.helix.task.WorkflowContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.typesafe.config.Config;
@@ -63,6 +68,7 @@ import gobblin.runtime.TaskStateCollectorService;
 import gobblin.runtime.util.StateStores;
 import gobblin.source.workunit.MultiWorkUnit;
 import gobblin.source.workunit.WorkUnit;
+import gobblin.source.workunit.WorkUnitStream;
 import gobblin.util.ConfigUtils;
 import gobblin.util.Id;
 import gobblin.util.JobLauncherUtils;
@@ -88,6 +94,16 @@ import gobblin.util.SerializationUtils;
  * </p>
  *
  * <p>
+ *   If {@link GobblinClusterConfigurationKeys#STREAMING_WORK_UNIT_DISPATCH_ENABLED_KEY} is set, the
+ *   {@link WorkUnitStream} of the job is not materialized before submission. Instead, every
+ *   {@link GobblinClusterConfigurationKeys#STREAMING_WORK_UNIT_DISPATCH_BATCH_SIZE_KEY} work units are submitted
+ *   as a separate Helix job as soon as the {@link gobblin.source.Source} produces them, so that work unit creation
+ *   and task execution overlap. The batches go to a separate {@link JobQueue} of the job that runs up to
+ *   {@link GobblinClusterConfigurationKeys#STREAMING_WORK_UNIT_DISPATCH_PARALLEL_BATCHES_KEY} of them at the same
+ *   time, since the jobs of a {@link JobQueue} otherwise run one after another.
+ * </p>
+ *
+ * <p>
  *   This class runs in the {@link GobblinClusterManager}. The actual task execution happens in the in the
  *   {@link GobblinTaskRunner}.
  * </p>
@@ -100,11 +116,11 @@ public class GobblinHelixJobLauncher extends AbstractJobLauncher {
   private static final Logger LOGGER = LoggerFactory.getLogger(GobblinHelixJobLauncher.class);
 
   private static final String WORK_UNIT_FILE_EXTENSION = ".wu";
+  private static final String STREAMING_QUEUE_SUFFIX = "_streaming";
 
   private final HelixManager helixManager;
   private final TaskDriver helixTaskDriver;
   private final String helixQueueName;
-  private final String jobResourceName;
 
   private final FileSystem fs;
   private final Path appWorkDir;
@@ -116,6 +132,14 @@ public class GobblinHelixJobLauncher extends AbstractJobLauncher {
 
   private final TaskStateCollectorService taskStateCollectorService;
 
+  private final boolean streamingWorkUnitDispatch;
+  private final int streamingWorkUnitDispatchBatchSize;
+  private final int streamingWorkUnitDispatchParallelBatches;
+
+  // Names of the Helix jobs submitted for this Gobblin job, one per batch of work units
+  private final List<String> helixJobNames = Collections.synchronizedList(Lists.<String>newArrayList());
+  private int multiTaskIdSequence = 0;
+
   private volatile boolean jobSubmitted = false;
   private volatile boolean jobComplete = false;
   private final StateStores stateStores;
@@ -134,9 +158,6 @@ public class GobblinHelixJobLauncher extends AbstractJobLauncher {
     this.outputTaskStateDir = new Path(this.appWorkDir, GobblinClusterConfigurationKeys.OUTPUT_TASK_STATE_DIR_NAME +
         Path.SEPARATOR + this.jobContext.getJobId());
 
-    this.helixQueueName = this.jobContext.getJobName();
-    this.jobResourceName = TaskUtil.getNamespacedJobName(this.helixQueueName, this.jobContext.getJobId());
-
     this.jobContext.getJobState().setJobLauncherType(LauncherTypeEnum.CLUSTER);
 
     this.stateSerDeRunnerThreads = Integer.parseInt(jobProps.getProperty(ParallelRunner.PARALLEL_RUNNER_THREADS_KEY,
@@ -144,6 +165,24 @@ public class GobblinHelixJobLauncher extends AbstractJobLauncher {
 
     jobConfig = ConfigUtils.propertiesToConfig(jobProps);
 
+    this.streamingWorkUnitDispatch = ConfigUtils.getBoolean(jobConfig,
+        GobblinClusterConfigurationKeys.STREAMING_WORK_UNIT_DISPATCH_ENABLED_KEY,
+        GobblinClusterConfigurationKeys.DEFAULT_STREAMING_WORK_UNIT_DISPATCH_ENABLED);
+    this.streamingWorkUnitDispatchBatchSize = ConfigUtils.getInt(jobConfig,
+        GobblinClusterConfigurationKeys.STREAMING_WORK_UNIT_DISPATCH_BATCH_SIZE_KEY,
+        GobblinClusterConfigurationKeys.DEFAULT_STREAMING_WORK_UNIT_DISPATCH_BATCH_SIZE);
+    Preconditions.checkArgument(this.streamingWorkUnitDispatchBatchSize > 0,
+        GobblinClusterConfigurationKeys.STREAMING_WORK_UNIT_DISPATCH_BATCH_SIZE_KEY + " must be positive");
+    this.streamingWorkUnitDispatchParallelBatches = ConfigUtils.getInt(jobConfig,
+        GobblinClusterConfigurationKeys.STREAMING_WORK_UNIT_DISPATCH_PARALLEL_BATCHES_KEY,
+        GobblinClusterConfigurationKeys.DEFAULT_STREAMING_WORK_UNIT_DISPATCH_PARALLEL_BATCHES);
+    Preconditions.checkArgument(this.streamingWorkUnitDispatchParallelBatches > 0,
+        GobblinClusterConfigurationKeys.STREAMING_WORK_UNIT_DISPATCH_PARALLEL_BATCHES_KEY + " must be positive");
+
+    // Batches of a job with streaming work unit dispatch run in parallel, so they go to a queue of their own
+    this.helixQueueName = this.streamingWorkUnitDispatch
+        ? this.jobContext.getJobName() + STREAMING_QUEUE_SUFFIX : this.jobContext.getJobName();
+
     this.stateStores = new StateStores(jobConfig, appWorkDir,
         GobblinClusterConfigurationKeys.OUTPUT_TASK_STATE_DIR_NAME, appWorkDir,
         GobblinClusterConfigurationKeys.INPUT_WORK_UNIT_DIR_NAME);
@@ -160,7 +199,6 @@ public class GobblinHelixJobLauncher extends AbstractJobLauncher {
           ConfigUtils.getString(jobConfig, GobblinClusterConfigurationKeys.HELIX_CLUSTER_NAME_KEY, "");
       final String rebalancerToReplace = "org.apache.helix.task.JobRebalancer";
       final String rebalancerClassDesired = GobblinJobRebalancer.class.getName();
-      final String jobResourceName = this.jobResourceName;
 
       if (!clusterName.isEmpty()) {
         this.helixManager.addIdealStateChangeListener(new IdealStateChangeListener() {
@@ -168,7 +206,7 @@ public class GobblinHelixJobLauncher extends AbstractJobLauncher {
           public void onIdealStateChange(List<IdealState> list, NotificationContext notificationContext) {
             HelixAdmin helixAdmin = helixManager.getClusterManagmentTool();
             for (String resource : helixAdmin.getResourcesInCluster(clusterName)) {
-              if (resource.equals(jobResourceName)) {
+              if (isHelixJobResource(resource)) {
                 IdealState idealState = helixAdmin.getResourceIdealState(clusterName, resource);
                 if (idealState != null) {
                   String rebalancerClassFound = idealState.getRebalancerClassName();
@@ -185,6 +223,21 @@ public class GobblinHelixJobLauncher extends AbstractJobLauncher {
     }
   }
 
+  /**
+   * @return whether a Helix resource is one of the Helix jobs submitted for this job, which are the batches of the
+   * job if streaming work unit dispatch is enabled
+   */
+  private boolean isHelixJobResource(String resource) {
+    synchronized (this.helixJobNames) {
+      for (String helixJobName : this.helixJobNames) {
+        if (resource.equals(TaskUtil.getNamespacedJobName(this.helixQueueName, helixJobName))) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
   @Override
   public void close() throws IOException {
     try {
@@ -202,10 +255,68 @@ public class GobblinHelixJobLauncher extends AbstractJobLauncher {
 
       TimingEvent jobSubmissionTimer =
           this.eventSubmitter.getTimingEvent(TimingEvent.RunJobTimings.HELIX_JOB_SUBMISSION);
-      submitJobToHelix(createJob(workUnits));
+      persistJobState();
+      submitJobToHelix(this.jobContext.getJobId(), createJob(workUnits));
       jobSubmissionTimer.stop();
       LOGGER.info(String.format("Submitted job %s to Helix", this.jobContext.getJobId()));
-      this.jobSubmitted = true;
+
+      TimingEvent jobRunTimer = this.eventSubmitter.getTimingEvent(TimingEvent.RunJobTimings.HELIX_JOB_RUN);
+      waitForJobCompletion();
+      jobRunTimer.stop();
+      LOGGER.info(String.format("Job %s completed", this.jobContext.getJobId()));
+      this.jobComplete = true;
+    } finally {
+      // The last iteration of output TaskState collecting will run when the collector service gets stopped
+      this.taskStateCollectorService.stopAsync().awaitTerminated();
+      deletePersistedWorkUnitsForJob();
+    }
+  }
+
+  /**
+   * Run the given {@link WorkUnitStream} without materializing it if streaming work unit dispatch is enabled.
+   *
+   * <p>
+   *   Work units are taken from the stream in batches of {@link #streamingWorkUnitDispatchBatchSize} and each
+   *   batch is enqueued as a separate Helix job in the {@link JobQueue} of this job as soon as it is complete.
+   *   Helix starts running the first batches while the {@link gobblin.source.Source} is still creating the
+   *   following ones, and runs up to {@link #streamingWorkUnitDispatchParallelBatches} batches at the same time.
+   *   The Gobblin job completes once all the Helix jobs have reached a terminal state.
+   * </p>
+   */
+  @Override
+  protected void runWorkUnitStream(WorkUnitStream workUnitStream) throws Exception {
+    if (!this.streamingWorkUnitDispatch) {
+      super.runWorkUnitStream(workUnitStream);
+      return;
+    }
+
+    try {
+      // Start the output TaskState collector service
+      this.taskStateCollectorService.startAsync().awaitRunning();
+
+      // The job state must be available to Helix tasks before the first batch is submitted
+      persistJobState();
+
+      TimingEvent jobSubmissionTimer =
+          this.eventSubmitter.getTimingEvent(TimingEvent.RunJobTimings.HELIX_JOB_SUBMISSION);
+      Iterator<List<WorkUnit>> batches =
+          Iterators.partition(workUnitStream.getWorkUnits(), this.streamingWorkUnitDispatchBatchSize);
+      int batchSequence = 0;
+      while (batches.hasNext() && !this.cancellationRequested) {
+        List<WorkUnit> batch = batches.next();
+        String helixJobName = this.jobContext.getJobId() + "_" + batchSequence++;
+        submitJobToHelix(helixJobName, createJob(batch));
+        LOGGER.info(String.format("Submitted batch %s with %d work units of job %s to Helix", helixJobName,
+            batch.size(), this.jobContext.getJobId()));
+      }
+      jobSubmissionTimer.stop();
+      LOGGER.info(String.format("Submitted job %s to Helix in %d batches", this.jobContext.getJobId(),
+          batchSequence));
+      if (batchSequence == 0) {
+        // All work units were skipped, or the job was cancelled before any batch was submitted
+        this.jobComplete = true;
+        return;
+      }
 
       TimingEvent jobRunTimer = this.eventSubmitter.getTimingEvent(TimingEvent.RunJobTimings.HELIX_JOB_RUN);
       waitForJobCompletion();
@@ -222,13 +333,17 @@ public class GobblinHelixJobLauncher extends AbstractJobLauncher {
   @Override
   protected void executeCancellation() {
     if (this.jobSubmitted) {
-      try {
-        // #HELIX-0.6.7-WORKAROUND
-        // working around helix 0.6.7 job delete issue with custom taskDriver
-        GobblinHelixTaskDriver taskDriver = new GobblinHelixTaskDriver(this.helixManager);
-        taskDriver.deleteJob(this.helixQueueName, this.jobContext.getJobId());
-      } catch (IllegalArgumentException e) {
-        LOGGER.warn(String.format("Failed to cleanup job %s in Helix", this.jobContext.getJobId()), e);
+      // #HELIX-0.6.7-WORKAROUND
+      // working around helix 0.6.7 job delete issue with custom taskDriver
+      GobblinHelixTaskDriver taskDriver = new GobblinHelixTaskDriver(this.helixManager);
+      synchronized (this.helixJobNames) {
+        for (String helixJobName : this.helixJobNames) {
+          try {
+            taskDriver.deleteJob(this.helixQueueName, helixJobName);
+          } catch (IllegalArgumentException e) {
+            LOGGER.warn(String.format("Failed to cleanup job %s in Helix", helixJobName), e);
+          }
+        }
       }
     }
   }
@@ -240,16 +355,12 @@ public class GobblinHelixJobLauncher extends AbstractJobLauncher {
     Map<String, TaskConfig> taskConfigMap = Maps.newHashMap();
 
     try (ParallelRunner stateSerDeRunner = new ParallelRunner(this.stateSerDeRunnerThreads, this.fs)) {
-      int multiTaskIdSequence = 0;
       for (WorkUnit workUnit : workUnits) {
         if (workUnit instanceof MultiWorkUnit) {
-          workUnit.setId(JobLauncherUtils.newMultiTaskId(this.jobContext.getJobId(), multiTaskIdSequence++));
+          workUnit.setId(JobLauncherUtils.newMultiTaskId(this.jobContext.getJobId(), this.multiTaskIdSequence++));
         }
         addWorkUnit(workUnit, stateSerDeRunner, taskConfigMap);
       }
-
-      Path jobStateFilePath = new Path(this.appWorkDir, this.jobContext.getJobId() + "." + JOB_STATE_FILE_NAME);
-      SerializationUtils.serializeState(this.fs, jobStateFilePath, this.jobContext.getJobState());
     }
 
     JobConfig.Builder jobConfigBuilder = new JobConfig.Builder();
@@ -263,22 +374,42 @@ public class GobblinHelixJobLauncher extends AbstractJobLauncher {
     return jobConfigBuilder;
   }
 
+  /**
+   * Persist the {@link JobState} to the file read by the Helix tasks of the job.
+   */
+  private void persistJobState() throws IOException {
+    Path jobStateFilePath = new Path(this.appWorkDir, this.jobContext.getJobId() + "." + JOB_STATE_FILE_NAME);
+    SerializationUtils.serializeState(this.fs, jobStateFilePath, this.jobContext.getJobState());
+  }
+
   /**
    * Submit a job to run.
    */
-  private void submitJobToHelix(JobConfig.Builder jobConfigBuilder) throws Exception {
+  private void submitJobToHelix(String helixJobName, JobConfig.Builder jobConfigBuilder) throws Exception {
     // Create one queue for each job with the job name being the queue name
-    if (null == this.helixTaskDriver.getWorkflowConfig(this.helixManager, this.helixQueueName)) {
-      JobQueue jobQueue = new JobQueue.Builder(this.helixQueueName).build();
-      this.helixTaskDriver.createQueue(jobQueue);
+    WorkflowConfig queueConfig = this.helixTaskDriver.getWorkflowConfig(this.helixManager, this.helixQueueName);
+    if (null == queueConfig) {
+      JobQueue.Builder jobQueueBuilder = new JobQueue.Builder(this.helixQueueName);
+      if (this.streamingWorkUnitDispatch) {
+        jobQueueBuilder.setWorkflowConfig(
+            new WorkflowConfig.Builder().setParallelJobs(this.streamingWorkUnitDispatchParallelBatches).build());
+      }
+      this.helixTaskDriver.createQueue(jobQueueBuilder.build());
       LOGGER.info("Created job queue {}", this.helixQueueName);
     } else {
       LOGGER.info("Job queue {} already exists", this.helixQueueName);
+      if (this.streamingWorkUnitDispatch
+          && queueConfig.getParallelJobs() != this.streamingWorkUnitDispatchParallelBatches) {
+        LOGGER.warn(String.format("Job queue %s runs %d batches at the same time instead of the configured %d, "
+            + "which only applies to new queues", this.helixQueueName, queueConfig.getParallelJobs(),
+            this.streamingWorkUnitDispatchParallelBatches));
+      }
     }
 
-    // Put the job into the queue
-    this.helixTaskDriver.enqueueJob(this.jobContext.getJobName(), this.jobContext.getJobId(), jobConfigBuilder);
-
+    // Put the job into the queue. The name is recorded first, so that listeners see the Helix job as soon as it exists
+    this.helixJobNames.add(helixJobName);
+    this.helixTaskDriver.enqueueJob(this.helixQueueName, helixJobName, jobConfigBuilder);
+    this.jobSubmitted = true;
   }
 
   /**
@@ -330,13 +461,25 @@ public class GobblinHelixJobLauncher extends AbstractJobLauncher {
   }
 
   private void waitForJobCompletion() throws InterruptedException {
+    List<String> pendingHelixJobNames;
+    synchronized (this.helixJobNames) {
+      pendingHelixJobNames = Lists.newArrayList(this.helixJobNames);
+    }
+
     while (true) {
       WorkflowContext workflowContext = TaskDriver.getWorkflowContext(this.helixManager, this.helixQueueName);
       if (workflowContext != null) {
-        org.apache.helix.task.TaskState helixJobState = workflowContext.getJobState(this.jobResourceName);
-        if (helixJobState == org.apache.helix.task.TaskState.COMPLETED ||
-            helixJobState == org.apache.helix.task.TaskState.FAILED ||
-            helixJobState == org.apache.helix.task.TaskState.STOPPED) {
+        Iterator<String> iterator = pendingHelixJobNames.iterator();
+        while (iterator.hasNext()) {
+          String jobResource = TaskUtil.getNamespacedJobName(this.helixQueueName, iterator.next());
+          if (isTerminalState(workflowContext.getJobState(jobResource))) {
+            iterator.remove();
+          }
+        }
+        // Jobs enqueued after a failed or stopped one in the same queue will never get to run
+        org.apache.helix.task.TaskState queueState = workflowContext.getWorkflowState();
+        if (pendingHelixJobNames.isEmpty() || queueState == org.apache.helix.task.TaskState.FAILED ||
+            queueState == org.apache.helix.task.TaskState.STOPPED) {
           return;
         }
       }
@@ -345,6 +488,12 @@ public class GobblinHelixJobLauncher extends AbstractJobLauncher {
     }
   }
 
+  private static boolean isTerminalState(org.apache.helix.task.TaskState helixState) {
+    return helixState == org.apache.helix.task.TaskState.COMPLETED ||
+        helixState == org.apache.helix.task.TaskState.FAILED ||
+        helixState == org.apache.helix.task.TaskState.STOPPED;
+  }
+
   /**
    * Delete persisted {@link WorkUnit}s upon job completion.
    */
@@ -52,7 +52,7 @@ public class GobblinHelixTaskStateTracker extends AbstractTaskStateTracker {
   private final HelixManager helixManager;
 
   // Mapping between tasks and the task state reporters associated with them
-  private final Map<String, ScheduledFuture<?>> scheduledReporters = Maps.newHashMap();
+  private final Map<String, ScheduledFuture<?>> scheduledReporters = Maps.newConcurrentMap();
 
   public GobblinHelixTaskStateTracker(Properties properties, HelixManager helixManager) {
     super(properties, LOGGER);
@@ -84,8 +84,9 @@ public class GobblinHelixTaskStateTracker extends AbstractTaskStateTracker {
     // Cancel the task state reporter associated with this task. The reporter might
     // not be found  for the given task because the task fails before the task is
     // registered. So we need to make sure the reporter exists before calling cancel.
-    if (this.scheduledReporters.containsKey(task.getTaskId())) {
-      this.scheduledReporters.remove(task.getTaskId()).cancel(false);
+    ScheduledFuture<?> scheduledReporter = this.scheduledReporters.remove(task.getTaskId());
+    if (scheduledReporter != null) {
+      scheduledReporter.cancel(false);
     }
 
     LOGGER.info(String
@@ -34,6 +34,8 @@ import org.apache.hadoop.fs.Path;
 import org.apache.helix.HelixManager;
 import org.apache.helix.HelixManagerFactory;
 import org.apache.helix.InstanceType;
+import org.apache.helix.task.TaskUtil;
+import org.apache.helix.task.WorkflowConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.testng.Assert;
@@ -41,8 +43,10 @@ import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import com.google.common.base.Joiner;
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 import com.google.common.io.Closer;
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigFactory;
@@ -54,6 +58,9 @@ import gobblin.metrics.Tag;
 import gobblin.runtime.FsDatasetStateStore;
 import gobblin.runtime.JobException;
 import gobblin.runtime.JobState;
+import gobblin.runtime.TaskState;
+import gobblin.source.workunit.BasicWorkUnitStream;
+import gobblin.source.workunit.WorkUnit;
 import gobblin.util.ConfigUtils;
 
 
@@ -85,6 +92,8 @@ public class GobblinHelixJobLauncherTest {
 
   private File jobOutputFile;
 
+  private Properties jobProperties;
+
   private GobblinHelixJobLauncher gobblinHelixJobLauncher;
 
   private GobblinTaskRunner gobblinTaskRunner;
@@ -149,6 +158,8 @@ public class GobblinHelixJobLauncherTest {
     File sourceJsonFile = new File(this.appWorkDir.toString(), TestHelper.TEST_JOB_NAME + ".json");
     TestHelper.createSourceJsonFile(sourceJsonFile);
     properties.setProperty(ConfigurationKeys.SOURCE_FILEBASED_FILES_TO_PULL, sourceJsonFile.getAbsolutePath());
+    this.jobProperties = new Properties();
+    this.jobProperties.putAll(properties);
 
     this.gobblinHelixJobLauncher = this.closer.register(
         new GobblinHelixJobLauncher(properties, this.helixManager, this.appWorkDir, ImmutableList.<Tag<?>>of()));
@@ -196,6 +207,81 @@ public class GobblinHelixJobLauncherTest {
     Assert.assertEquals(datasetState.getTaskStates().get(0).getWorkingState(), WorkUnitState.WorkingState.COMMITTED);
   }
 
+  @Test(dependsOnMethods = "testLaunchJob")
+  public void testLaunchJobWithStreamingWorkUnitDispatch() throws Exception {
+    Properties properties = new Properties();
+    properties.putAll(this.jobProperties);
+    properties.setProperty(GobblinClusterConfigurationKeys.STREAMING_WORK_UNIT_DISPATCH_ENABLED_KEY, "true");
+    properties.setProperty(GobblinClusterConfigurationKeys.STREAMING_WORK_UNIT_DISPATCH_BATCH_SIZE_KEY, "1");
+
+    try (GobblinHelixJobLauncher streamingJobLauncher =
+        new GobblinHelixJobLauncher(properties, this.helixManager, this.appWorkDir, ImmutableList.<Tag<?>>of())) {
+      streamingJobLauncher.launchJob(null);
+    }
+
+    Assert.assertTrue(this.jobOutputFile.exists());
+
+    List<JobState.DatasetState> datasetStates = this.datasetStateStore.getAll(this.jobName,
+        FsDatasetStateStore.CURRENT_DATASET_STATE_FILE_SUFFIX + FsDatasetStateStore.DATASET_STATE_STORE_TABLE_SUFFIX);
+    Assert.assertEquals(datasetStates.size(), 1);
+    JobState.DatasetState datasetState = datasetStates.get(0);
+    Assert.assertEquals(datasetState.getState(), JobState.RunningState.COMMITTED);
+    Assert.assertEquals(datasetState.getTaskStates().size(), 1);
+    Assert.assertEquals(datasetState.getTaskStates().get(0).getWorkingState(), WorkUnitState.WorkingState.COMMITTED);
+  }
+
+  @Test(dependsOnMethods = "testLaunchJobWithStreamingWorkUnitDispatch")
+  public void testLaunchJobWithStreamingWorkUnitDispatchInMultipleBatches() throws Exception {
+    // One work unit per source file, each in its own batch
+    List<String> sourceFiles = Lists.newArrayList();
+    for (int i = 0; i < 3; i++) {
+      File sourceJsonFile = new File(this.appWorkDir.toString(), TestHelper.TEST_JOB_NAME + "-" + i + ".json");
+      TestHelper.createSourceJsonFile(sourceJsonFile);
+      sourceFiles.add(sourceJsonFile.getAbsolutePath());
+    }
+
+    Properties properties = new Properties();
+    properties.putAll(this.jobProperties);
+    properties.setProperty(GobblinClusterConfigurationKeys.STREAMING_WORK_UNIT_DISPATCH_ENABLED_KEY, "true");
+    properties.setProperty(GobblinClusterConfigurationKeys.STREAMING_WORK_UNIT_DISPATCH_BATCH_SIZE_KEY, "1");
+    properties.setProperty(ConfigurationKeys.SOURCE_FILEBASED_FILES_TO_PULL, Joiner.on(",").join(sourceFiles));
+    // Tasks write files with their own names instead of the same configured file name
+    properties.remove(ConfigurationKeys.WRITER_FILE_NAME);
+
+    try (GobblinHelixJobLauncher streamingJobLauncher =
+        new GobblinHelixJobLauncher(properties, this.helixManager, this.appWorkDir, ImmutableList.<Tag<?>>of())) {
+      streamingJobLauncher.launchJob(null);
+    }
+
+    WorkflowConfig queueConfig = TaskUtil.getWorkflowCfg(this.helixManager, this.jobName + "_streaming");
+    Assert.assertEquals(queueConfig.getParallelJobs(),
+        GobblinClusterConfigurationKeys.DEFAULT_STREAMING_WORK_UNIT_DISPATCH_PARALLEL_BATCHES);
+
+    List<JobState.DatasetState> datasetStates = this.datasetStateStore.getAll(this.jobName,
+        FsDatasetStateStore.CURRENT_DATASET_STATE_FILE_SUFFIX + FsDatasetStateStore.DATASET_STATE_STORE_TABLE_SUFFIX);
+    Assert.assertEquals(datasetStates.size(), 1);
+    JobState.DatasetState datasetState = datasetStates.get(0);
+    Assert.assertEquals(datasetState.getState(), JobState.RunningState.COMMITTED);
+    Assert.assertEquals(datasetState.getCompletedTasks(), 3);
+    Assert.assertEquals(datasetState.getTaskStates().size(), 3);
+    for (TaskState taskState : datasetState.getTaskStates()) {
+      Assert.assertEquals(taskState.getWorkingState(), WorkUnitState.WorkingState.COMMITTED);
+    }
+  }
+
+  @Test(dependsOnMethods = "testLaunchJob", timeOut = 60000)
+  public void testRunEmptyWorkUnitStreamWithStreamingWorkUnitDispatch() throws Exception {
+    Properties properties = new Properties();
+    properties.putAll(this.jobProperties);
+    properties.setProperty(GobblinClusterConfigurationKeys.STREAMING_WORK_UNIT_DISPATCH_ENABLED_KEY, "true");
+
+    // Returns without waiting for Helix, since no batch is submitted
+    try (GobblinHelixJobLauncher streamingJobLauncher =
+        new GobblinHelixJobLauncher(properties, this.helixManager, this.appWorkDir, ImmutableList.<Tag<?>>of())) {
+      streamingJobLauncher.runWorkUnitStream(new BasicWorkUnitStream.Builder(Lists.<WorkUnit>newArrayList()).build());
+    }
+  }
+
   @AfterClass
   public void tearDown() throws IOException {
     try {
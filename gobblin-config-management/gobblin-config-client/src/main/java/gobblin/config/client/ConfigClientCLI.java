@@ -17,6 +17,7 @@
 
 package gobblin.config.client;
 
+import java.io.File;
 import java.net.URI;
 import java.net.URISyntaxException;
 
@@ -25,6 +26,9 @@ import com.typesafe.config.ConfigRenderOptions;
 
 import gobblin.annotation.Alias;
 import gobblin.config.client.api.VersionStabilityPolicy;
+import gobblin.config.store.api.ConfigStore;
+import gobblin.config.store.api.ConfigStoreFactory;
+import gobblin.config.store.snapshot.ConfigStoreSnapshotWriter;
 import gobblin.runtime.cli.CliApplication;
 import gobblin.runtime.cli.CliObjectFactory;
 import gobblin.runtime.cli.CliObjectSupport;
@@ -32,7 +36,8 @@ import gobblin.runtime.cli.ConstructorAndPublicMethodsCliObjectFactory;
 
 
 /**
- * A CLI for the {@link ConfigClient}. Can be used to get resolved configurations for a uri.
+ * A CLI for the {@link ConfigClient}. Can be used to get resolved configurations for a uri, or to write a snapshot of
+ * the current version of the config store of a uri for a {@link gobblin.config.store.snapshot.SnapshotConfigStore}.
  */
 @Alias(value = "config", description = "Query the config library")
 public class ConfigClientCLI implements CliApplication {
@@ -48,6 +53,16 @@ public class ConfigClientCLI implements CliApplication {
       Config resolvedConfig = configClient.getConfig(command.uri);
       System.out.println(resolvedConfig.root().render(ConfigRenderOptions.defaults()));
     }
+
+    if (command.snapshotFile != null) {
+      String scheme = command.uri.getScheme();
+      ConfigStoreFactory<?> storeFactory = new ConfigStoreFactoryRegister().getConfigStoreFactory(scheme);
+      if (storeFactory == null) {
+        throw new IllegalArgumentException("No config store factory for scheme " + scheme);
+      }
+      ConfigStore store = storeFactory.createConfigStore(command.uri);
+      ConfigStoreSnapshotWriter.write(store, store.getCurrentVersion(), command.snapshotFile);
+    }
   }
 
   /**
@@ -57,6 +72,7 @@ public class ConfigClientCLI implements CliApplication {
 
     private final URI uri;
     private boolean resolvedConfig = false;
+    private File snapshotFile = null;
 
     @CliObjectSupport(argumentNames = "configUri")
     public Command(String uri) throws URISyntaxException {
@@ -66,5 +82,9 @@ public class ConfigClientCLI implements CliApplication {
     public void resolvedConfig() {
       this.resolvedConfig = true;
     }
+
+    public void snapshot(String snapshotFile) {
+      this.snapshotFile = new File(snapshotFile);
+    }
   }
 }
@@ -152,8 +152,12 @@ public class ConfigStoreBackedValueInspector implements ConfigStoreValueInspecto
    * </p>
    */
   public Config getResolvedConfig(ConfigKeyPath configKey, Optional<Config> runtimeConfig) {
-    return getResolvedConfigRecursive(configKey, Sets.<String>newHashSet(), runtimeConfig)
-        .withFallback(ConfigFactory.defaultOverrides()).withFallback(ConfigFactory.systemEnvironment()).resolve();
+    return resolveWithDefaults(getResolvedConfigRecursive(configKey, Sets.<String>newHashSet(), runtimeConfig));
+  }
+
+  private static Config resolveWithDefaults(Config config) {
+    return config.withFallback(ConfigFactory.defaultOverrides()).withFallback(ConfigFactory.systemEnvironment())
+        .resolve();
   }
 
   @Override
@@ -161,20 +165,35 @@ public class ConfigStoreBackedValueInspector implements ConfigStoreValueInspecto
     return getResolvedConfig(configKey, Optional.<Config>absent());
   }
 
+  /**
+   * Merge the {@link Config} of the config key with the configs of its imports and ancestors, like
+   * {@link #getResolvedConfig(ConfigKeyPath)} but without falling back to system overrides and environment and
+   * without resolving substitutions. This is what {@link ConfigStoreWithResolution#getResolvedConfig} returns.
+   */
+  public Config getMergedConfig(ConfigKeyPath configKey) {
+    return getResolvedConfigRecursive(configKey, Sets.<String>newHashSet());
+  }
+
   /**
    * {@inheritDoc}.
    *
    * <p>
-   *   This implementation simply delegate the functionality to the internal {@link ConfigStore}/version
-   *   if the internal {@link ConfigStore} is {@link ConfigStoreWithBatchFetches}, otherwise, will call
-   *   configuration store for each config key path and put the result into {@link Map}
+   *   This implementation delegates the merging of configs to the internal {@link ConfigStore}/version
+   *   if the internal {@link ConfigStore} is {@link ConfigStoreWithBatchFetches}, and then resolves them like
+   *   {@link #getResolvedConfig(ConfigKeyPath)}. Otherwise, it calls {@link #getResolvedConfig(ConfigKeyPath)} for each
+   *   config key path and puts the result into {@link Map}
    * </p>
    */
   @Override
   public Map<ConfigKeyPath, Config> getResolvedConfigs(Collection<ConfigKeyPath> configKeys) {
     if (this.cs instanceof ConfigStoreWithBatchFetches) {
       ConfigStoreWithBatchFetches batchStore = (ConfigStoreWithBatchFetches) this.cs;
-      return batchStore.getResolvedConfigs(configKeys, this.version);
+      Map<ConfigKeyPath, Config> mergedConfigs = batchStore.getResolvedConfigs(configKeys, this.version);
+      Map<ConfigKeyPath, Config> result = new HashMap<>();
+      for (Map.Entry<ConfigKeyPath, Config> entry : mergedConfigs.entrySet()) {
+        result.put(entry.getKey(), resolveWithDefaults(entry.getValue()));
+      }
+      return result;
     }
 
     Map<ConfigKeyPath, Config> result = new HashMap<>();
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package gobblin.config.store.snapshot;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.google.common.base.Charsets;
+import com.typesafe.config.ConfigRenderOptions;
+
+import lombok.extern.slf4j.Slf4j;
+
+import gobblin.annotation.Alpha;
+import gobblin.config.common.impl.ConfigStoreBackedTopology;
+import gobblin.config.common.impl.ConfigStoreBackedValueInspector;
+import gobblin.config.common.impl.InMemoryTopology;
+import gobblin.config.common.impl.SingleLinkedListConfigKeyPath;
+import gobblin.config.store.api.ConfigKeyPath;
+import gobblin.config.store.api.ConfigStore;
+
+
+/**
+ * Compiles a version of a {@link ConfigStore} into a single snapshot file that a {@link SnapshotConfigStore} can
+ * memory-map.
+ *
+ * <p>
+ *   The snapshot holds, for every config key defined in the store, its own config, its own imports, its recursive
+ *   imports, and its config merged with the configs of its imports and ancestors. Imports are resolved without a
+ *   runtime config. Substitutions are left unresolved, so that they are still resolved against the system overrides
+ *   and environment of the reading process.
+ * </p>
+ *
+ * <p>
+ *   File layout: the magic number, the format version, the store version, the number of keys, then for each key in
+ *   order of its path: the path, the own imports, the recursive imports, the own config and the merged config.
+ *   Counts are ints, strings are UTF-8 bytes prefixed by their length, and configs are rendered as concise HOCON.
+ * </p>
+ */
+@Alpha
+@Slf4j
+public class ConfigStoreSnapshotWriter {
+
+  static final int MAGIC = 0x47435353; // "GCSS"
+  static final int FORMAT_VERSION = 1;
+
+  private static final ConfigRenderOptions RENDER_OPTIONS = ConfigRenderOptions.concise().setJson(false);
+
+  /**
+   * Write a snapshot of a version of a {@link ConfigStore} to a file.
+   *
+   * @param store the {@link ConfigStore} to compile
+   * @param version the version of the {@link ConfigStore} to compile
+   * @param snapshotFile the file to write, replaced if it exists
+   */
+  public static void write(ConfigStore store, String version, File snapshotFile) throws IOException {
+    long startTime = System.currentTimeMillis();
+    InMemoryTopology topology = new InMemoryTopology(new ConfigStoreBackedTopology(store, version));
+    ConfigStoreBackedValueInspector valueInspector = new ConfigStoreBackedValueInspector(store, version, topology);
+
+    // Sort keys by path, so that a snapshot of the same store version is always the same file
+    Map<String, ConfigKeyPath> configKeys = new TreeMap<>();
+    Deque<ConfigKeyPath> toVisit = new ArrayDeque<>();
+    toVisit.add(SingleLinkedListConfigKeyPath.ROOT);
+    while (!toVisit.isEmpty()) {
+      ConfigKeyPath configKey = toVisit.poll();
+      configKeys.put(configKey.getAbsolutePathString(), configKey);
+      toVisit.addAll(topology.getChildren(configKey));
+    }
+
+    File tmpFile = new File(snapshotFile.getAbsoluteFile().getParentFile(), "." + snapshotFile.getName() + ".tmp");
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(FORMAT_VERSION);
+      writeString(out, version);
+      out.writeInt(configKeys.size());
+      for (Map.Entry<String, ConfigKeyPath> entry : configKeys.entrySet()) {
+        ConfigKeyPath configKey = entry.getValue();
+        writeString(out, entry.getKey());
+        writeKeys(out, topology.getOwnImports(configKey));
+        writeKeys(out, topology.getImportsRecursively(configKey));
+        writeString(out, store.getOwnConfig(configKey, version).root().render(RENDER_OPTIONS));
+        writeString(out, valueInspector.getMergedConfig(configKey).root().render(RENDER_OPTIONS));
+      }
+    }
+    if (!tmpFile.renameTo(snapshotFile) && !(snapshotFile.delete() && tmpFile.renameTo(snapshotFile))) {
+      throw new IOException(String.format("Failed to move %s to %s", tmpFile, snapshotFile));
+    }
+    log.info("Wrote snapshot of {} config keys of version {} of {} to {} in {} ms", configKeys.size(), version,
+        store.getStoreURI(), snapshotFile, System.currentTimeMillis() - startTime);
+  }
+
+  private static void writeKeys(DataOutputStream out, List<ConfigKeyPath> configKeys) throws IOException {
+    out.writeInt(configKeys.size());
+    for (ConfigKeyPath configKey : configKeys) {
+      writeString(out, configKey.getAbsolutePathString());
+    }
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(Charsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+}
@@ -0,0 +1,278 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package gobblin.config.store.snapshot;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Optional;
+import com.google.common.base.Splitter;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+
+import gobblin.annotation.Alpha;
+import gobblin.config.common.impl.SingleLinkedListConfigKeyPath;
+import gobblin.config.store.api.ConfigKeyPath;
+import gobblin.config.store.api.ConfigStoreWithBatchFetches;
+import gobblin.config.store.api.ConfigStoreWithResolution;
+import gobblin.config.store.api.ConfigStoreWithStableVersioning;
+import gobblin.config.store.api.VersionDoesNotExistException;
+
+
+/**
+ * A read-only {@link gobblin.config.store.api.ConfigStore} backed by a memory-mapped snapshot file written by
+ * {@link ConfigStoreSnapshotWriter}.
+ *
+ * <p>
+ *   Opening the store reads the index of config keys into memory; configs stay in the mapped file until they are
+ *   requested. Resolved configs are parsed once and then served from memory, so that resolving the configs of many
+ *   datasets costs neither file system calls nor import chain walks.
+ * </p>
+ *
+ * <p>
+ *   The store only holds the version the snapshot was written from. A config key missing from the snapshot has no
+ *   own config or imports and inherits the resolved config and recursive imports of its nearest ancestor, as with
+ *   the store the snapshot was written from.
+ * </p>
+ */
+@Alpha
+@ConfigStoreWithStableVersioning
+public class SnapshotConfigStore implements ConfigStoreWithResolution, ConfigStoreWithBatchFetches {
+
+  private static final Splitter PATH_SPLITTER =
+      Splitter.on(SingleLinkedListConfigKeyPath.PATH_DELIMETER).omitEmptyStrings();
+
+  // Indexes of the sections of an entry
+  private static final int OWN_IMPORTS = 0;
+  private static final int RECURSIVE_IMPORTS = 1;
+  private static final int OWN_CONFIG = 2;
+  private static final int MERGED_CONFIG = 3;
+
+  private final URI storeURI;
+  private final String version;
+  private final ByteBuffer buffer;
+  private final Map<String, int[]> entries;
+  private final Map<String, List<ConfigKeyPath>> children;
+  private final Map<String, Config> mergedConfigs = new ConcurrentHashMap<>();
+
+  /**
+   * @param snapshotFile a snapshot written by {@link ConfigStoreSnapshotWriter}
+   * @param storeURI the logical {@link URI} of the store
+   */
+  public SnapshotConfigStore(File snapshotFile, URI storeURI) throws IOException {
+    this.storeURI = storeURI;
+    try (RandomAccessFile file = new RandomAccessFile(snapshotFile, "r"); FileChannel channel = file.getChannel()) {
+      // The mapping stays valid after the channel is closed
+      this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+
+    ByteBuffer reader = this.buffer.duplicate();
+    if (reader.getInt() != ConfigStoreSnapshotWriter.MAGIC) {
+      throw new IOException(snapshotFile + " is not a config store snapshot");
+    }
+    int formatVersion = reader.getInt();
+    if (formatVersion != ConfigStoreSnapshotWriter.FORMAT_VERSION) {
+      throw new IOException(String.format("Unsupported format version %d of config store snapshot %s", formatVersion,
+          snapshotFile));
+    }
+    this.version = readString(reader);
+
+    int numEntries = reader.getInt();
+    this.entries = new HashMap<>(numEntries * 2);
+    this.children = new HashMap<>();
+    for (int i = 0; i < numEntries; i++) {
+      String path = readString(reader);
+      int[] sections = new int[4];
+      sections[OWN_IMPORTS] = reader.position();
+      skipStrings(reader, reader.getInt());
+      sections[RECURSIVE_IMPORTS] = reader.position();
+      skipStrings(reader, reader.getInt());
+      sections[OWN_CONFIG] = reader.position();
+      skipStrings(reader, 1);
+      sections[MERGED_CONFIG] = reader.position();
+      skipStrings(reader, 1);
+      this.entries.put(path, sections);
+
+      ConfigKeyPath configKey = toConfigKeyPath(path);
+      if (!configKey.isRootPath()) {
+        String parentPath = configKey.getParent().getAbsolutePathString();
+        List<ConfigKeyPath> siblings = this.children.get(parentPath);
+        if (siblings == null) {
+          siblings = new ArrayList<>();
+          this.children.put(parentPath, siblings);
+        }
+        siblings.add(configKey);
+      }
+    }
+  }
+
+  @Override
+  public String getCurrentVersion() {
+    return this.version;
+  }
+
+  @Override
+  public URI getStoreURI() {
+    return this.storeURI;
+  }
+
+  @Override
+  public Collection<ConfigKeyPath> getChildren(ConfigKeyPath configKey, String version) {
+    checkVersion(version);
+    List<ConfigKeyPath> configKeys = this.children.get(configKey.getAbsolutePathString());
+    return configKeys == null ? Collections.<ConfigKeyPath>emptyList() : Collections.unmodifiableList(configKeys);
+  }
+
+  @Override
+  public List<ConfigKeyPath> getOwnImports(ConfigKeyPath configKey, String version) {
+    return getOwnImports(configKey, version, Optional.<Config>absent());
+  }
+
+  /**
+   * {@inheritDoc}.
+   *
+   * <p>
+   *   Imports were resolved when the snapshot was written, so the runtime config is ignored.
+   * </p>
+   */
+  @Override
+  public List<ConfigKeyPath> getOwnImports(ConfigKeyPath configKey, String version, Optional<Config> runtimeConfig) {
+    checkVersion(version);
+    int[] sections = this.entries.get(configKey.getAbsolutePathString());
+    return sections == null ? Collections.<ConfigKeyPath>emptyList() : readConfigKeys(sections[OWN_IMPORTS]);
+  }
+
+  @Override
+  public Config getOwnConfig(ConfigKeyPath configKey, String version) {
+    checkVersion(version);
+    int[] sections = this.entries.get(configKey.getAbsolutePathString());
+    return sections == null ? ConfigFactory.empty() : readConfig(sections[OWN_CONFIG]);
+  }
+
+  @Override
+  public Config getResolvedConfig(ConfigKeyPath configKey, String version) {
+    checkVersion(version);
+    ConfigKeyPath definedKey = getNearestDefinedKey(configKey);
+    String path = definedKey.getAbsolutePathString();
+    Config config = this.mergedConfigs.get(path);
+    if (config == null) {
+      config = readConfig(this.entries.get(path)[MERGED_CONFIG]);
+      this.mergedConfigs.put(path, config);
+    }
+    return config;
+  }
+
+  @Override
+  public List<ConfigKeyPath> getImportsRecursively(ConfigKeyPath configKey, String version) {
+    return getImportsRecursively(configKey, version, Optional.<Config>absent());
+  }
+
+  @Override
+  public List<ConfigKeyPath> getImportsRecursively(ConfigKeyPath configKey, String version,
+      Optional<Config> runtimeConfig) {
+    checkVersion(version);
+    ConfigKeyPath definedKey = getNearestDefinedKey(configKey);
+    return readConfigKeys(this.entries.get(definedKey.getAbsolutePathString())[RECURSIVE_IMPORTS]);
+  }
+
+  @Override
+  public Map<ConfigKeyPath, Config> getOwnConfigs(Collection<ConfigKeyPath> configKeys, String version) {
+    Map<ConfigKeyPath, Config> result = new HashMap<>();
+    for (ConfigKeyPath configKey : configKeys) {
+      result.put(configKey, getOwnConfig(configKey, version));
+    }
+    return result;
+  }
+
+  @Override
+  public Map<ConfigKeyPath, Config> getResolvedConfigs(Collection<ConfigKeyPath> configKeys, String version) {
+    Map<ConfigKeyPath, Config> result = new HashMap<>();
+    for (ConfigKeyPath configKey : configKeys) {
+      result.put(configKey, getResolvedConfig(configKey, version));
+    }
+    return result;
+  }
+
+  /**
+   * @return the config key or its nearest ancestor in the snapshot. The root is always in the snapshot.
+   */
+  private ConfigKeyPath getNearestDefinedKey(ConfigKeyPath configKey) {
+    ConfigKeyPath current = configKey;
+    while (!current.isRootPath() && !this.entries.containsKey(current.getAbsolutePathString())) {
+      current = current.getParent();
+    }
+    return current;
+  }
+
+  private void checkVersion(String version) {
+    if (!this.version.equals(version)) {
+      throw new VersionDoesNotExistException(this.storeURI, version,
+          "the snapshot only holds version " + this.version);
+    }
+  }
+
+  private List<ConfigKeyPath> readConfigKeys(int position) {
+    ByteBuffer reader = this.buffer.duplicate();
+    reader.position(position);
+    int numKeys = reader.getInt();
+    List<ConfigKeyPath> configKeys = new ArrayList<>(numKeys);
+    for (int i = 0; i < numKeys; i++) {
+      configKeys.add(toConfigKeyPath(readString(reader)));
+    }
+    return configKeys;
+  }
+
+  private Config readConfig(int position) {
+    ByteBuffer reader = this.buffer.duplicate();
+    reader.position(position);
+    return ConfigFactory.parseString(readString(reader));
+  }
+
+  private static ConfigKeyPath toConfigKeyPath(String path) {
+    ConfigKeyPath configKey = SingleLinkedListConfigKeyPath.ROOT;
+    for (String name : PATH_SPLITTER.split(path)) {
+      configKey = configKey.createChild(name);
+    }
+    return configKey;
+  }
+
+  private static String readString(ByteBuffer reader) {
+    byte[] bytes = new byte[reader.getInt()];
+    reader.get(bytes);
+    return new String(bytes, Charsets.UTF_8);
+  }
+
+  private static void skipStrings(ByteBuffer reader, int numStrings) {
+    for (int i = 0; i < numStrings; i++) {
+      int length = reader.getInt();
+      reader.position(reader.position() + length);
+    }
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package gobblin.config.store.snapshot;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+
+import gobblin.annotation.Alpha;
+import gobblin.config.store.api.ConfigStoreCreationException;
+import gobblin.config.store.api.ConfigStoreFactory;
+
+
+/**
+ * A {@link ConfigStoreFactory} that opens the {@link SnapshotConfigStore} of a local snapshot file.
+ *
+ * <p>
+ *   Config keys in the snapshot are addressed by appending their path to the path of the snapshot file, e.g.
+ *   {@code snapshot-file:/data/configs.snapshot/data/databases/db1}.
+ * </p>
+ */
+@Alpha
+public class SnapshotConfigStoreFactory implements ConfigStoreFactory<SnapshotConfigStore> {
+
+  public static final String SNAPSHOT_FILE_SCHEME = "snapshot-file";
+
+  @Override
+  public String getScheme() {
+    return SNAPSHOT_FILE_SCHEME;
+  }
+
+  @Override
+  public SnapshotConfigStore createConfigStore(URI configKey) throws ConfigStoreCreationException {
+    if (configKey.getPath() == null) {
+      throw new ConfigStoreCreationException(configKey, "No snapshot file in URI");
+    }
+
+    // Walk up the path of the config key until it names the snapshot file
+    File snapshotFile = new File(configKey.getPath());
+    while (snapshotFile != null && !snapshotFile.isFile()) {
+      snapshotFile = snapshotFile.getParentFile();
+    }
+    if (snapshotFile == null) {
+      throw new ConfigStoreCreationException(configKey, "No snapshot file found on the path of the URI");
+    }
+
+    try {
+      URI storeURI = new URI(SNAPSHOT_FILE_SCHEME, configKey.getAuthority(), snapshotFile.getPath(), null, null);
+      return new SnapshotConfigStore(snapshotFile, storeURI);
+    } catch (IOException | URISyntaxException e) {
+      throw new ConfigStoreCreationException(configKey, e);
+    }
+  }
+}
@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package gobblin.config.store.snapshot;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import com.google.common.io.Files;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+
+import gobblin.config.common.impl.ConfigStoreBackedTopology;
+import gobblin.config.common.impl.ConfigStoreBackedValueInspector;
+import gobblin.config.common.impl.InMemoryTopology;
+import gobblin.config.common.impl.SingleLinkedListConfigKeyPath;
+import gobblin.config.store.api.ConfigKeyPath;
+import gobblin.config.store.api.ConfigStore;
+import gobblin.config.store.api.VersionDoesNotExistException;
+
+
+/**
+ * Unit tests for {@link ConfigStoreSnapshotWriter}, {@link SnapshotConfigStore} and {@link SnapshotConfigStoreFactory}.
+ */
+@Test(groups = "gobblin.config.store.snapshot")
+public class SnapshotConfigStoreTest {
+
+  private static final String VERSION = "1.0";
+
+  private final ConfigKeyPath datasets = SingleLinkedListConfigKeyPath.ROOT.createChild("datasets");
+  private final ConfigKeyPath db1 = this.datasets.createChild("db1");
+  private final ConfigKeyPath tags = SingleLinkedListConfigKeyPath.ROOT.createChild("tags");
+  private final ConfigKeyPath tag1 = this.tags.createChild("tag1");
+  private final ConfigKeyPath tag2 = this.tags.createChild("tag2");
+
+  private File tmpDir;
+  private File snapshotFile;
+  private ConfigStore sourceStore;
+  private SnapshotConfigStore snapshotStore;
+
+  @BeforeClass
+  public void setUp() throws IOException {
+    this.sourceStore = mock(ConfigStore.class, Mockito.RETURNS_SMART_NULLS);
+    when(this.sourceStore.getCurrentVersion()).thenReturn(VERSION);
+    when(this.sourceStore.getStoreURI()).thenReturn(URI.create("mock:/store"));
+
+    when(this.sourceStore.getChildren(SingleLinkedListConfigKeyPath.ROOT, VERSION))
+        .thenReturn(ImmutableList.of(this.datasets, this.tags));
+    when(this.sourceStore.getChildren(this.datasets, VERSION)).thenReturn(ImmutableList.of(this.db1));
+    when(this.sourceStore.getChildren(this.tags, VERSION)).thenReturn(ImmutableList.of(this.tag1, this.tag2));
+
+    when(this.sourceStore.getOwnImports(this.db1, VERSION)).thenReturn(ImmutableList.of(this.tag1));
+    when(this.sourceStore.getOwnImports(this.tag1, VERSION)).thenReturn(ImmutableList.of(this.tag2));
+
+    when(this.sourceStore.getOwnConfig(SingleLinkedListConfigKeyPath.ROOT, VERSION))
+        .thenReturn(ConfigFactory.parseString("owner = root"));
+    when(this.sourceStore.getOwnConfig(this.datasets, VERSION))
+        .thenReturn(ConfigFactory.parseString("retention = 7d \n path = /data/${name}"));
+    when(this.sourceStore.getOwnConfig(this.db1, VERSION)).thenReturn(ConfigFactory.parseString("name = db1"));
+    when(this.sourceStore.getOwnConfig(this.tags, VERSION)).thenReturn(ConfigFactory.empty());
+    when(this.sourceStore.getOwnConfig(this.tag1, VERSION)).thenReturn(ConfigFactory.parseString("retention = 30d"));
+    when(this.sourceStore.getOwnConfig(this.tag2, VERSION))
+        .thenReturn(ConfigFactory.parseString("retention = 1y \n compaction = true"));
+
+    this.tmpDir = Files.createTempDir();
+    this.snapshotFile = new File(this.tmpDir, "configs.snapshot");
+    ConfigStoreSnapshotWriter.write(this.sourceStore, VERSION, this.snapshotFile);
+    this.snapshotStore = new SnapshotConfigStore(this.snapshotFile, URI.create("snapshot-file:" + this.snapshotFile));
+  }
+
+  @Test
+  public void testResolvedConfigsMatchSourceStore() {
+    ConfigStoreBackedValueInspector sourceInspector = new ConfigStoreBackedValueInspector(this.sourceStore, VERSION,
+        new InMemoryTopology(new ConfigStoreBackedTopology(this.sourceStore, VERSION)));
+    ConfigStoreBackedValueInspector snapshotInspector = new ConfigStoreBackedValueInspector(this.snapshotStore,
+        VERSION, new InMemoryTopology(new ConfigStoreBackedTopology(this.snapshotStore, VERSION)));
+
+    for (ConfigKeyPath configKey : ImmutableList.of(SingleLinkedListConfigKeyPath.ROOT, this.datasets, this.db1,
+        this.tags, this.tag1, this.tag2)) {
+      Assert.assertEquals(snapshotInspector.getResolvedConfig(configKey), sourceInspector.getResolvedConfig(configKey));
+      Assert.assertEquals(this.snapshotStore.getOwnConfig(configKey, VERSION),
+          this.sourceStore.getOwnConfig(configKey, VERSION));
+    }
+
+    Assert.assertEquals(snapshotInspector.getResolvedConfig(this.db1).getString("retention"), "30d");
+    Assert.assertTrue(snapshotInspector.getResolvedConfig(this.db1).getBoolean("compaction"));
+    Assert.assertEquals(snapshotInspector.getResolvedConfig(this.db1).getString("path"), "/data/db1");
+    Assert.assertEquals(snapshotInspector.getResolvedConfig(this.db1).getString("owner"), "root");
+  }
+
+  @Test
+  public void testBatchResolvedConfigs() {
+    ConfigStoreBackedValueInspector snapshotInspector = new ConfigStoreBackedValueInspector(this.snapshotStore,
+        VERSION, new InMemoryTopology(new ConfigStoreBackedTopology(this.snapshotStore, VERSION)));
+
+    // Batch fetches go through the store, but are resolved like single fetches
+    Map<ConfigKeyPath, Config> configs = snapshotInspector.getResolvedConfigs(ImmutableList.of(this.db1, this.tag1));
+    Assert.assertEquals(configs.get(this.db1).getString("path"), "/data/db1");
+    Assert.assertEquals(configs.get(this.db1), snapshotInspector.getResolvedConfig(this.db1));
+    Assert.assertEquals(configs.get(this.tag1), snapshotInspector.getResolvedConfig(this.tag1));
+  }
+
+  @Test
+  public void testTopology() {
+    Assert.assertEquals(
+        ImmutableSet.copyOf(this.snapshotStore.getChildren(SingleLinkedListConfigKeyPath.ROOT, VERSION)),
+        ImmutableSet.of(this.datasets, this.tags));
+    Assert.assertEquals(ImmutableSet.copyOf(this.snapshotStore.getChildren(this.tags, VERSION)),
+        ImmutableSet.of(this.tag1, this.tag2));
+    Assert.assertTrue(this.snapshotStore.getChildren(this.db1, VERSION).isEmpty());
+
+    Assert.assertEquals(this.snapshotStore.getOwnImports(this.db1, VERSION), ImmutableList.of(this.tag1));
+    Assert.assertEquals(Sets.newHashSet(this.snapshotStore.getImportsRecursively(this.db1, VERSION)),
+        ImmutableSet.of(this.tag1, this.tag2));
+  }
+
+  @Test
+  public void testAbsentConfigKey() {
+    ConfigKeyPath table = this.db1.createChild("table1");
+
+    Assert.assertTrue(this.snapshotStore.getOwnConfig(table, VERSION).isEmpty());
+    Assert.assertTrue(this.snapshotStore.getOwnImports(table, VERSION).isEmpty());
+    Assert.assertTrue(this.snapshotStore.getChildren(table, VERSION).isEmpty());
+    Assert.assertEquals(this.snapshotStore.getResolvedConfig(table, VERSION),
+        this.snapshotStore.getResolvedConfig(this.db1, VERSION));
+    Assert.assertEquals(this.snapshotStore.getImportsRecursively(table, VERSION),
+        this.snapshotStore.getImportsRecursively(this.db1, VERSION));
+  }
+
+  @Test(expectedExceptions = VersionDoesNotExistException.class)
+  public void testOtherVersion() {
+    this.snapshotStore.getOwnConfig(this.db1, "2.0");
+  }
+
+  @Test
+  public void testFactory() throws Exception {
+    SnapshotConfigStore store = new SnapshotConfigStoreFactory()
+        .createConfigStore(new URI("snapshot-file:" + this.snapshotFile.getAbsolutePath() + "/datasets/db1"));
+
+    Assert.assertEquals(store.getStoreURI().getPath(), this.snapshotFile.getAbsolutePath());
+    Assert.assertEquals(store.getCurrentVersion(), VERSION);
+    Assert.assertEquals(store.getResolvedConfig(this.db1, VERSION),
+        this.snapshotStore.getResolvedConfig(this.db1, VERSION));
+  }
+
+  @AfterClass
+  public void tearDown() throws IOException {
+    if (this.tmpDir != null) {
+      FileUtils.deleteDirectory(this.tmpDir);
+    }
+  }
+}
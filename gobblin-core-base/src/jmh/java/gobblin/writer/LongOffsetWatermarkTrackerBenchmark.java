@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gobblin.writer;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Control;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Optional;
+import com.typesafe.config.ConfigFactory;
+
+import gobblin.source.extractor.CheckpointableWatermark;
+import gobblin.source.extractor.DefaultCheckpointableWatermark;
+import gobblin.source.extractor.extract.LongWatermark;
+import gobblin.util.ExecutorsUtils;
+
+
+/**
+ * Benchmarks {@link LongOffsetWatermarkTracker} with the same workloads as
+ * {@link FineGrainedWatermarkTrackerBenchmark}, and compares the cost of computing committable watermarks of both
+ * trackers with 100,000 offsets in flight.
+ */
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@org.openjdk.jmh.annotations.Fork(value = 3)
+@BenchmarkMode(value = Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LongOffsetWatermarkTrackerBenchmark {
+
+  private static final int IN_FLIGHT_OFFSETS = 100000;
+
+  @State(value = Scope.Group)
+  public static class TrackerState {
+    private LongOffsetWatermarkTracker.PartitionOffsets _offsets;
+    private ScheduledExecutorService _executorService;
+    private long _index;
+    private final Random _random = new Random();
+
+    @Setup
+    public void setup() throws Exception {
+      // The ring must hold the offsets in flight during the delayed ack benchmark
+      _offsets = new LongOffsetWatermarkTracker(ConfigFactory.parseString(
+          LongOffsetWatermarkTracker.WATERMARK_TRACKER_OFFSET_CAPACITY + "=" + (1 << 24))).forPartition("0");
+      _index = 0;
+      _executorService = new ScheduledThreadPoolExecutor(40, ExecutorsUtils.newThreadFactory(
+          Optional.of(LoggerFactory.getLogger(LongOffsetWatermarkTrackerBenchmark.class))));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+      _executorService.shutdown();
+    }
+  }
+
+  /**
+   * Both trackers with all but the latest of {@link #IN_FLIGHT_OFFSETS} offsets acknowledged, and the latest offset
+   * pending, so that a committable watermark is computed over every in-flight offset.
+   */
+  @State(value = Scope.Thread)
+  public static class LaggingState {
+    private FineGrainedWatermarkTracker _fineGrainedTracker;
+    private LongOffsetWatermarkTracker _offsetTracker;
+
+    @Setup
+    public void setup() throws Exception {
+      _fineGrainedTracker = new FineGrainedWatermarkTracker(ConfigFactory.empty());
+      _fineGrainedTracker.setAutoStart(false);
+      _offsetTracker = new LongOffsetWatermarkTracker(ConfigFactory.parseString(
+          LongOffsetWatermarkTracker.WATERMARK_TRACKER_OFFSET_CAPACITY + "=" + IN_FLIGHT_OFFSETS));
+      for (long offset = 0; offset < IN_FLIGHT_OFFSETS; offset++) {
+        AcknowledgableWatermark wmark = new AcknowledgableWatermark(new DefaultCheckpointableWatermark(
+            "0", new LongWatermark(offset)));
+        _fineGrainedTracker.track(wmark);
+        _offsetTracker.track("0", offset);
+        if (offset < IN_FLIGHT_OFFSETS - 1) {
+          wmark.ack();
+          _offsetTracker.ack("0", offset);
+        }
+      }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+      _fineGrainedTracker.close();
+    }
+  }
+
+  @Benchmark
+  @Group("trackImmediate")
+  public void trackImmediateAcks(Control control, TrackerState trackerState) throws Exception {
+    if (!control.stopMeasurement) {
+      trackerState._offsets.track(trackerState._index);
+      trackerState._offsets.ack(trackerState._index);
+      trackerState._index++;
+    }
+  }
+
+  @Benchmark
+  @Group("trackDelayed")
+  public void trackWithDelayedAcks(Control control, TrackerState trackerState) throws Exception {
+    if (!control.stopMeasurement) {
+      trackerState._offsets.track(trackerState._index);
+      Ackable ackable = trackerState._offsets.ackable(trackerState._index);
+      trackerState._index++;
+      int delay = trackerState._random.nextInt(10);
+      trackerState._executorService.schedule(new Runnable() {
+        @Override
+        public void run() {
+          ackable.ack();
+        }
+      }, delay, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  @Benchmark
+  public Map<String, CheckpointableWatermark> fineGrainedCommittableWithLag(LaggingState state) {
+    return state._fineGrainedTracker.getCommittableWatermarks();
+  }
+
+  @Benchmark
+  public Map<String, CheckpointableWatermark> longOffsetCommittableWithLag(LaggingState state) {
+    return state._offsetTracker.getCommittableWatermarks();
+  }
+}
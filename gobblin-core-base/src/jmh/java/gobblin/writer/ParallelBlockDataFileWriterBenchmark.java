@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gobblin.writer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileConstants;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+
+/**
+ * Compares writing Avro container files with {@link DataFileWriter} (compressionThreads = 0) against
+ * {@link ParallelBlockDataFileWriter}. Each invocation writes {@link #RECORDS} records.
+ */
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@org.openjdk.jmh.annotations.Fork(value = 3)
+@BenchmarkMode(value = Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ParallelBlockDataFileWriterBenchmark {
+
+  private static final int RECORDS = 100000;
+  private static final Schema SCHEMA = SchemaBuilder.record("BenchmarkRecord").fields()
+      .requiredLong("id").requiredString("key").requiredString("payload").endRecord();
+
+  @State(value = Scope.Benchmark)
+  public static class WriterState {
+    @Param({DataFileConstants.DEFLATE_CODEC, DataFileConstants.SNAPPY_CODEC})
+    public String codec;
+
+    @Param({"9"})
+    public int deflateLevel;
+
+    @Param({"0", "2", "4"})
+    public int compressionThreads;
+
+    private List<GenericRecord> records;
+
+    @Setup
+    public void setup() {
+      Random random = new Random(1);
+      String[] keys = new String[100];
+      for (int i = 0; i < keys.length; i++) {
+        keys[i] = "key-" + random.nextInt();
+      }
+      this.records = new ArrayList<>(RECORDS);
+      for (int i = 0; i < RECORDS; i++) {
+        GenericRecord record = new GenericData.Record(SCHEMA);
+        record.put("id", (long) i);
+        record.put("key", keys[random.nextInt(keys.length)]);
+        StringBuilder payload = new StringBuilder();
+        for (int j = 0; j < 20; j++) {
+          payload.append(keys[random.nextInt(keys.length)]).append(' ');
+        }
+        record.put("payload", payload.toString());
+        this.records.add(record);
+      }
+    }
+  }
+
+  @Benchmark
+  public void writeRecords(WriterState state, Blackhole blackhole) throws IOException {
+    CountingOutputStream out = new CountingOutputStream();
+    if (state.compressionThreads == 0) {
+      try (DataFileWriter<GenericRecord> writer = new DataFileWriter<>(new GenericDatumWriter<GenericRecord>())) {
+        writer.setCodec(DataFileConstants.DEFLATE_CODEC.equals(state.codec)
+            ? CodecFactory.deflateCodec(state.deflateLevel) : CodecFactory.fromString(state.codec));
+        writer.create(SCHEMA, out);
+        for (GenericRecord record : state.records) {
+          writer.append(record);
+        }
+      }
+    } else {
+      try (ParallelBlockDataFileWriter<GenericRecord> writer = new ParallelBlockDataFileWriter<>(
+          new GenericDatumWriter<GenericRecord>(), SCHEMA, out, state.codec, state.deflateLevel,
+          state.compressionThreads)) {
+        for (GenericRecord record : state.records) {
+          writer.append(record);
+        }
+      }
+    }
+    blackhole.consume(out.count);
+  }
+
+  /**
+   * Discards its output, only counting the bytes written.
+   */
+  private static class CountingOutputStream extends OutputStream {
+    private long count = 0;
+
+    @Override
+    public void write(int b) {
+      this.count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      this.count += len;
+    }
+  }
+}
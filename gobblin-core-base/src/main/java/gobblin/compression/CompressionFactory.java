@@ -20,6 +20,7 @@ import java.util.Map;
 
 import gobblin.annotation.Alpha;
 import gobblin.codec.GzipCodec;
+import gobblin.codec.ParallelGzipCodec;
 import gobblin.codec.StreamCodec;
 
 
@@ -34,6 +35,8 @@ public class CompressionFactory {
     switch (type) {
       case GzipCodec.TAG:
         return new GzipCodec();
+      case ParallelGzipCodec.TYPE:
+        return new ParallelGzipCodec();
       default:
         throw new IllegalArgumentException("Can't build compressor of type " + type);
     }
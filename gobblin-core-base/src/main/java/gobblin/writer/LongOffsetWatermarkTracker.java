@@ -0,0 +1,281 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gobblin.writer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.typesafe.config.Config;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import gobblin.source.extractor.CheckpointableWatermark;
+import gobblin.source.extractor.DefaultCheckpointableWatermark;
+import gobblin.source.extractor.extract.LongWatermark;
+import gobblin.util.ConfigUtils;
+
+
+/**
+ * A watermark tracker specialized for sources whose watermarks are increasing long offsets per partition
+ * (e.g. Kafka). It is a cheaper alternative to {@link FineGrainedWatermarkTracker} for such sources.
+ *
+ * <p>
+ *   Instead of an {@link AcknowledgableWatermark} per record in a per-source deque, each partition keeps a ring of
+ *   pending bits indexed by offset. {@link PartitionOffsets#track(long)} sets the bit of an offset,
+ *   {@link PartitionOffsets#ack(long)} clears it, and the committable watermark is the offset below the first pending
+ *   offset. The low-water mark moves forward a word of 64 offsets at a time and never moves back, so computing
+ *   committable watermarks costs O(1) amortized per tracked record and needs no sweeper thread.
+ * </p>
+ *
+ * <p>
+ *   Offsets that are skipped (e.g. compacted away) are never pending, so the committable watermark may be an
+ *   offset that was not tracked; every offset up to it was either acknowledged or never tracked.
+ * </p>
+ *
+ * <p>
+ *   At most {@link #WATERMARK_TRACKER_OFFSET_CAPACITY} offsets (rounded up to a power of two) may lie between the
+ *   first pending offset and the latest tracked offset of a partition. Tracking past that fails, which bounds the
+ *   memory like the lag threshold of {@link FineGrainedWatermarkTracker}.
+ * </p>
+ */
+@ThreadSafe
+public class LongOffsetWatermarkTracker {
+
+  public static final String WATERMARK_TRACKER_OFFSET_CAPACITY = "watermark.tracker.offsetCapacity";
+  public static final long WATERMARK_TRACKER_OFFSET_CAPACITY_DEFAULT = 100000L; // 100,000 unacked offsets
+
+  private final int _capacity;
+  private final ConcurrentHashMap<String, PartitionOffsets> _partitions;
+
+  public LongOffsetWatermarkTracker(Config config) {
+    long capacity = ConfigUtils.getLong(config, WATERMARK_TRACKER_OFFSET_CAPACITY,
+        WATERMARK_TRACKER_OFFSET_CAPACITY_DEFAULT);
+    Preconditions.checkArgument(capacity > 0 && capacity <= (1 << 30),
+        WATERMARK_TRACKER_OFFSET_CAPACITY + " must be in (0, 2^30]");
+    // A power of two that is also a multiple of 64, so that a word never straddles the end of the ring
+    _capacity = Math.max(Long.SIZE, Integer.highestOneBit((int) capacity - 1) << 1);
+    _partitions = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Get the offsets of a partition, creating them on first use. Callers on a hot path should keep the returned
+   * {@link PartitionOffsets} rather than looking it up per record.
+   */
+  public PartitionOffsets forPartition(String partition) {
+    PartitionOffsets offsets = _partitions.get(partition);
+    if (offsets == null) {
+      offsets = new PartitionOffsets(partition, _capacity);
+      PartitionOffsets existing = _partitions.putIfAbsent(partition, offsets);
+      if (existing != null) {
+        offsets = existing;
+      }
+    }
+    return offsets;
+  }
+
+  /**
+   * Track an offset of a partition. See {@link PartitionOffsets#track(long)}.
+   */
+  public void track(String partition, long offset) {
+    forPartition(partition).track(offset);
+  }
+
+  /**
+   * Acknowledge an offset of a partition. See {@link PartitionOffsets#ack(long)}.
+   */
+  public void ack(String partition, long offset) {
+    forPartition(partition).ack(offset);
+  }
+
+  /**
+   * @return for each partition with a committable offset, the highest offset up to which all tracked offsets are
+   * acknowledged, as a {@link LongWatermark}.
+   */
+  public Map<String, CheckpointableWatermark> getCommittableWatermarks() {
+    Map<String, CheckpointableWatermark> committableWatermarks = new HashMap<>(_partitions.size());
+    for (PartitionOffsets offsets : _partitions.values()) {
+      long committable = offsets.getCommittableOffset();
+      if (committable >= 0) {
+        committableWatermarks.put(offsets._partition,
+            new DefaultCheckpointableWatermark(offsets._partition, new LongWatermark(committable)));
+      }
+    }
+    return committableWatermarks;
+  }
+
+  /**
+   * @return for each partition with unacknowledged offsets, the lowest unacknowledged offset as a
+   * {@link LongWatermark}.
+   */
+  public Map<String, CheckpointableWatermark> getUnacknowledgedWatermarks() {
+    Map<String, CheckpointableWatermark> unackedWatermarks = new HashMap<>(_partitions.size());
+    for (PartitionOffsets offsets : _partitions.values()) {
+      long unacked = offsets.getLowestUnacknowledgedOffset();
+      if (unacked >= 0) {
+        unackedWatermarks.put(offsets._partition,
+            new DefaultCheckpointableWatermark(offsets._partition, new LongWatermark(unacked)));
+      }
+    }
+    return unackedWatermarks;
+  }
+
+  @VisibleForTesting
+  int getCapacity() {
+    return _capacity;
+  }
+
+  /**
+   * The pending offsets of a single partition.
+   * {@link #track(long)} must be called sequentially from one thread with increasing offsets;
+   * {@link #ack(long)} and the getters may be called from any thread.
+   */
+  public static class PartitionOffsets {
+
+    private final String _partition;
+    private final int _mask;
+    private final AtomicLongArray _pending;
+
+    // Latest tracked offset, -1 before the first one. Published after the pending bit is set.
+    private volatile long _highestTracked = -1;
+    // Every tracked offset below the low-water mark is acknowledged. Written while holding this.
+    private volatile long _lowWater = -1;
+    private long _firstTracked = -1;
+
+    private PartitionOffsets(String partition, int capacity) {
+      _partition = partition;
+      _mask = capacity - 1;
+      _pending = new AtomicLongArray(capacity / Long.SIZE);
+    }
+
+    /**
+     * Start tracking an offset. Offsets must be non-negative and increasing, but need not be contiguous.
+     * @throws IllegalStateException if the offset is more than the capacity ahead of the first pending offset
+     */
+    public void track(long offset) {
+      long highestTracked = _highestTracked;
+      Preconditions.checkArgument(offset > highestTracked && offset >= 0,
+          "Offset %s of %s must be non-negative and above the latest tracked offset %s", offset, _partition,
+          highestTracked);
+      if (highestTracked < 0) {
+        synchronized (this) {
+          _firstTracked = offset;
+          _lowWater = offset;
+        }
+      } else if (offset - _lowWater > _mask) {
+        makeRoomFor(offset);
+      }
+      int slot = (int) (offset & _mask);
+      long bit = 1L << slot;
+      int word = slot >>> 6;
+      long current;
+      do {
+        current = _pending.get(word);
+      } while (!_pending.compareAndSet(word, current, current | bit));
+      _highestTracked = offset;
+    }
+
+    /**
+     * Get an {@link Ackable} that acknowledges an offset, for records that carry their acknowledgement.
+     */
+    public Ackable ackable(final long offset) {
+      return new Ackable() {
+        @Override
+        public void ack() {
+          PartitionOffsets.this.ack(offset);
+        }
+      };
+    }
+
+    /**
+     * Acknowledge a tracked offset.
+     * @throws IllegalStateException if the offset is not pending, e.g. if it is acknowledged twice
+     */
+    public void ack(long offset) {
+      int slot = (int) (offset & _mask);
+      long bit = 1L << slot;
+      int word = slot >>> 6;
+      long current;
+      do {
+        current = _pending.get(word);
+        if ((current & bit) == 0 || offset > _highestTracked || offset < _lowWater) {
+          throw new IllegalStateException(String.format("Offset %d of %s is not pending", offset, _partition));
+        }
+      } while (!_pending.compareAndSet(word, current, current & ~bit));
+    }
+
+    /**
+     * @return the highest offset up to which all tracked offsets are acknowledged, or -1 if the first tracked
+     * offset is still pending.
+     */
+    public synchronized long getCommittableOffset() {
+      advance();
+      return _lowWater > _firstTracked ? _lowWater - 1 : -1;
+    }
+
+    /**
+     * @return the lowest pending offset, or -1 if no offset is pending.
+     */
+    public synchronized long getLowestUnacknowledgedOffset() {
+      advance();
+      return _firstTracked >= 0 && _lowWater <= _highestTracked ? _lowWater : -1;
+    }
+
+    /**
+     * Move the low-water mark past acknowledged offsets so the given offset fits in the ring. If no offset is
+     * pending, jump straight to the new offset, skipping a gap wider than the ring.
+     */
+    private synchronized void makeRoomFor(long offset) {
+      advance();
+      if (offset - _lowWater > _mask) {
+        if (_lowWater <= _highestTracked) {
+          throw new IllegalStateException(String.format("Cannot track offset %d of %s: offset %d is still pending and "
+              + "at most %d offsets can be pending", offset, _partition, _lowWater, _mask + 1));
+        }
+        _lowWater = offset;
+      }
+    }
+
+    /**
+     * Move the low-water mark to the first pending offset, or past the latest tracked offset if none is pending.
+     * Every offset is passed over once and whole words of acknowledged offsets are skipped at a time.
+     */
+    private void advance() {
+      long highestTracked = _highestTracked;
+      if (highestTracked < 0) {
+        return;
+      }
+      long lowWater = _lowWater;
+      while (lowWater <= highestTracked) {
+        int slot = (int) (lowWater & _mask);
+        long pendingFromLowWater = _pending.get(slot >>> 6) >>> (slot & 63);
+        if (pendingFromLowWater != 0) {
+          lowWater += Long.numberOfTrailingZeros(pendingFromLowWater);
+          break;
+        }
+        lowWater += Long.SIZE - (slot & 63);
+      }
+      _lowWater = Math.min(lowWater, highestTracked + 1);
+    }
+  }
+}
@@ -0,0 +1,291 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gobblin.writer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import org.apache.avro.Schema;
+import org.apache.avro.file.DataFileConstants;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.EncoderFactory;
+import org.xerial.snappy.Snappy;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableSet;
+
+import gobblin.annotation.Alpha;
+import gobblin.util.ExecutorsUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * A writer for Avro container files that compresses data blocks on a pool of worker threads.
+ *
+ * <p>
+ *   Like {@link DataFileWriter}, records are serialized on the calling thread into an in-memory block, and a block is
+ *   completed when it reaches {@link DataFileConstants#DEFAULT_SYNC_INTERVAL} bytes. Completed blocks are compressed by
+ *   the worker pool, and written to the output stream in order, each followed by the sync marker of the file, so the
+ *   output is a regular Avro container file. At most {@link #maxPendingBlocks} blocks are held in memory; appends block
+ *   when that limit is reached.
+ * </p>
+ *
+ * <p>
+ *   Only the {@link #SUPPORTED_CODECS} are supported; use {@link DataFileWriter} for other codecs.
+ * </p>
+ *
+ * @param <D> record type
+ */
+@Alpha
+@Slf4j
+public class ParallelBlockDataFileWriter<D> implements Closeable, Flushable {
+
+  public static final ImmutableSet<String> SUPPORTED_CODECS = ImmutableSet.of(DataFileConstants.NULL_CODEC,
+      DataFileConstants.DEFLATE_CODEC, DataFileConstants.SNAPPY_CODEC);
+
+  private static final int SYNC_SIZE = 16;
+
+  private final DatumWriter<D> datumWriter;
+  private final OutputStream out;
+  private final BinaryEncoder outEncoder;
+  private final String codec;
+  private final int deflateLevel;
+  private final byte[] sync;
+  private final ExecutorService compressionPool;
+  private final int maxPendingBlocks;
+  private final Deque<Future<CompressedBlock>> pendingBlocks = new ArrayDeque<>();
+
+  private ByteArrayOutputStream blockBuffer;
+  private BinaryEncoder blockEncoder;
+  private long blockCount = 0;
+  private boolean closed = false;
+
+  /**
+   * @param datumWriter writer used to serialize records
+   * @param schema schema of the records
+   * @param out stream the container file is written to, closed when this writer is closed
+   * @param codec name of the compression codec, one of {@link #SUPPORTED_CODECS}
+   * @param deflateLevel compression level, only used by the deflate codec
+   * @param compressionThreads number of threads compressing blocks
+   */
+  public ParallelBlockDataFileWriter(DatumWriter<D> datumWriter, Schema schema, OutputStream out, String codec,
+      int deflateLevel, int compressionThreads) throws IOException {
+    Preconditions.checkArgument(isSupportedCodec(codec), "Unsupported codec " + codec);
+    Preconditions.checkArgument(compressionThreads > 0, "Number of compression threads must be positive.");
+
+    this.datumWriter = datumWriter;
+    this.datumWriter.setSchema(schema);
+    this.out = out;
+    this.outEncoder = EncoderFactory.get().directBinaryEncoder(out, null);
+    this.codec = codec.toLowerCase(Locale.ROOT);
+    this.deflateLevel = deflateLevel;
+    this.sync = generateSync();
+    this.compressionPool = Executors.newFixedThreadPool(compressionThreads,
+        ExecutorsUtils.newDaemonThreadFactory(Optional.of(log), Optional.of("AvroBlockCompression-%d")));
+    this.maxPendingBlocks = 2 * compressionThreads;
+
+    writeHeader(schema);
+    newBlock();
+  }
+
+  /**
+   * @return whether the given codec is supported by this writer.
+   */
+  public static boolean isSupportedCodec(String codec) {
+    return codec != null && SUPPORTED_CODECS.contains(codec.toLowerCase(Locale.ROOT));
+  }
+
+  /**
+   * Append a record to the current block, handing the block to the compression pool if it is full.
+   */
+  public void append(D datum) throws IOException {
+    Preconditions.checkState(!this.closed, "Writer is closed.");
+    this.datumWriter.write(datum, this.blockEncoder);
+    this.blockCount++;
+    if (this.blockBuffer.size() >= DataFileConstants.DEFAULT_SYNC_INTERVAL) {
+      submitBlock();
+      writeCompletedBlocks(false);
+      while (this.pendingBlocks.size() > this.maxPendingBlocks) {
+        writeNextBlock();
+      }
+    }
+  }
+
+  /**
+   * Compress and write all buffered records and flush the underlying stream.
+   */
+  @Override
+  public void flush() throws IOException {
+    if (this.blockCount > 0) {
+      submitBlock();
+    }
+    writeCompletedBlocks(true);
+    this.outEncoder.flush();
+    this.out.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (this.closed) {
+      return;
+    }
+    try {
+      flush();
+    } finally {
+      this.closed = true;
+      ExecutorsUtils.shutdownExecutorService(this.compressionPool, Optional.of(log));
+      this.out.close();
+    }
+  }
+
+  private void writeHeader(Schema schema) throws IOException {
+    this.outEncoder.writeFixed(DataFileConstants.MAGIC);
+    this.outEncoder.writeMapStart();
+    this.outEncoder.setItemCount(2);
+    this.outEncoder.startItem();
+    this.outEncoder.writeString(DataFileConstants.SCHEMA);
+    this.outEncoder.writeBytes(schema.toString().getBytes(StandardCharsets.UTF_8));
+    this.outEncoder.startItem();
+    this.outEncoder.writeString(DataFileConstants.CODEC);
+    this.outEncoder.writeBytes(this.codec.getBytes(StandardCharsets.UTF_8));
+    this.outEncoder.writeMapEnd();
+    this.outEncoder.writeFixed(this.sync);
+    this.outEncoder.flush();
+  }
+
+  private void newBlock() {
+    this.blockBuffer = new ByteArrayOutputStream(DataFileConstants.DEFAULT_SYNC_INTERVAL + DataFileConstants.DEFAULT_SYNC_INTERVAL / 4);
+    this.blockEncoder = EncoderFactory.get().directBinaryEncoder(this.blockBuffer, this.blockEncoder);
+    this.blockCount = 0;
+  }
+
+  private void submitBlock() throws IOException {
+    this.blockEncoder.flush();
+    final long count = this.blockCount;
+    final ByteArrayOutputStream data = this.blockBuffer;
+    this.pendingBlocks.add(this.compressionPool.submit(new Callable<CompressedBlock>() {
+      @Override
+      public CompressedBlock call() throws Exception {
+        return new CompressedBlock(count, compress(data));
+      }
+    }));
+    newBlock();
+  }
+
+  /**
+   * Write blocks at the head of the queue that have been compressed, waiting for all of them if wait is set.
+   */
+  private void writeCompletedBlocks(boolean wait) throws IOException {
+    while (!this.pendingBlocks.isEmpty() && (wait || this.pendingBlocks.peek().isDone())) {
+      writeNextBlock();
+    }
+  }
+
+  private void writeNextBlock() throws IOException {
+    CompressedBlock block;
+    try {
+      block = this.pendingBlocks.poll().get();
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while compressing Avro block.", ie);
+    } catch (ExecutionException ee) {
+      throw new IOException("Failed to compress Avro block.", ee.getCause());
+    }
+    this.outEncoder.writeLong(block.count);
+    this.outEncoder.writeLong(block.data.remaining());
+    this.outEncoder.writeFixed(block.data.array(), block.data.position(), block.data.remaining());
+    this.outEncoder.writeFixed(this.sync);
+  }
+
+  /**
+   * Compress a block in the same way as the corresponding Avro codec.
+   */
+  private ByteBuffer compress(ByteArrayOutputStream data) throws IOException {
+    switch (this.codec) {
+      case DataFileConstants.DEFLATE_CODEC:
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(data.size() / 2);
+        Deflater deflater = new Deflater(this.deflateLevel, true);
+        try (DeflaterOutputStream deflaterStream = new DeflaterOutputStream(compressed, deflater)) {
+          data.writeTo(deflaterStream);
+        } finally {
+          deflater.end();
+        }
+        return ByteBuffer.wrap(compressed.toByteArray());
+      case DataFileConstants.SNAPPY_CODEC:
+        byte[] uncompressed = data.toByteArray();
+        byte[] output = new byte[Snappy.maxCompressedLength(uncompressed.length) + 4];
+        int size = Snappy.compress(uncompressed, 0, uncompressed.length, output, 0);
+        // The snappy codec appends the CRC32 checksum of the uncompressed data
+        CRC32 crc32 = new CRC32();
+        crc32.update(uncompressed, 0, uncompressed.length);
+        ByteBuffer buffer = ByteBuffer.wrap(output, 0, size + 4);
+        buffer.putInt(size, (int) crc32.getValue());
+        return buffer;
+      default:
+        return ByteBuffer.wrap(data.toByteArray());
+    }
+  }
+
+  private static byte[] generateSync() {
+    try {
+      MessageDigest digester = MessageDigest.getInstance("MD5");
+      long time = System.currentTimeMillis();
+      digester.update((UUID.randomUUID() + "@" + time).getBytes(StandardCharsets.UTF_8));
+      byte[] sync = digester.digest();
+      Preconditions.checkState(sync.length == SYNC_SIZE);
+      return sync;
+    } catch (NoSuchAlgorithmException nsae) {
+      throw new RuntimeException(nsae);
+    }
+  }
+
+  private static class CompressedBlock {
+    private final long count;
+    private final ByteBuffer data;
+
+    private CompressedBlock(long count, ByteBuffer data) {
+      this.count = count;
+      this.data = data;
+    }
+  }
+}
@@ -0,0 +1,275 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gobblin.writer;
+
+import java.util.ArrayList;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.Futures;
+import com.typesafe.config.Config;
+
+import gobblin.annotation.Alpha;
+import gobblin.util.ConfigUtils;
+
+
+/**
+ * A lock-striped and memory bounded accumulator
+ * Records are appended to one of several open batches (stripes), chosen by the producing thread, so producers running
+ * in different threads rarely contend with each other. When an open batch is full or its TTL expires it is sealed and
+ * handed to {@link BufferedAsyncDataWriter} through a lock-free queue.
+ *
+ * Unlike {@link SequentialBasedBatchAccumulator}, which bounds the number of queued batches, back-pressure is applied
+ * with a global byte budget: once the bytes held in batches that have not been acknowledged exceed
+ * {@link #BATCH_MEMORY_BUDGET}, producers block until enough batches are acknowledged.
+ */
+@Alpha
+public class StripedBatchAccumulator<D> extends BatchAccumulator<D> {
+
+  public static final String BATCH_STRIPES = "writer.batch.stripes";
+  public static final int BATCH_STRIPES_DEFAULT = Runtime.getRuntime().availableProcessors();
+  public static final String BATCH_MEMORY_BUDGET = "writer.batch.memoryBudget";
+  public static final long BATCH_MEMORY_BUDGET_DEFAULT = Batch.BATCH_SIZE_DEFAULT * Batch.BATCH_QUEUE_CAPACITY_DEFAULT;
+
+  private static final Logger LOG = LoggerFactory.getLogger(StripedBatchAccumulator.class);
+  private static final long MAX_SENDER_WAIT_MILLIS = 100;
+
+  private final Stripe[] stripes;
+  private final Queue<BytesBoundedBatch<D>> sealed = new ConcurrentLinkedQueue<>();
+  private final Set<Batch<D>> incomplete = ConcurrentHashMap.newKeySet();
+  private final AtomicLong bytesInUse = new AtomicLong(0);
+  private final Object memoryMonitor = new Object();
+  private volatile Thread waitingSender;
+
+  private final long memSizeLimit;
+  private final double tolerance = 0.95;
+  private final long expireInMilliSecond;
+  private final long memoryBudget;
+
+  public StripedBatchAccumulator(Properties properties) {
+    this(ConfigUtils.propertiesToConfig(properties));
+  }
+
+  private StripedBatchAccumulator(Config config) {
+    this(ConfigUtils.getLong(config, Batch.BATCH_SIZE, Batch.BATCH_SIZE_DEFAULT),
+        ConfigUtils.getLong(config, Batch.BATCH_TTL, Batch.BATCH_TTL_DEFAULT),
+        ConfigUtils.getLong(config, BATCH_MEMORY_BUDGET, BATCH_MEMORY_BUDGET_DEFAULT),
+        ConfigUtils.getInt(config, BATCH_STRIPES, BATCH_STRIPES_DEFAULT));
+  }
+
+  public StripedBatchAccumulator(long batchSizeLimit, long expireInMilliSecond, long memoryBudget, int numStripes) {
+    if (numStripes <= 0) {
+      throw new IllegalArgumentException("Number of stripes must be positive, got " + numStripes);
+    }
+    this.memSizeLimit = (long) (this.tolerance * batchSizeLimit);
+    this.expireInMilliSecond = expireInMilliSecond;
+    this.memoryBudget = memoryBudget;
+    this.stripes = new Stripe[numStripes];
+    for (int i = 0; i < numStripes; i++) {
+      this.stripes[i] = new Stripe();
+    }
+  }
+
+  /**
+   * Holds the open batch of a stripe. Appends to the open batch are guarded by the monitor of the stripe
+   */
+  private class Stripe {
+    private volatile BytesBoundedBatch<D> open;
+  }
+
+  /**
+   * @return number of bytes held in batches which have not been acknowledged yet
+   */
+  public long getBytesInUse() {
+    return this.bytesInUse.get();
+  }
+
+  /**
+   * Add a record to the open batch of the stripe assigned to the current thread, sealing it if it is full.
+   * Blocks while the memory budget is exhausted.
+   */
+  public final Future<RecordMetadata> enqueue (D record, WriteCallback callback) throws InterruptedException {
+    Stripe stripe = this.stripes[(int) (Thread.currentThread().getId() % this.stripes.length)];
+    Future<RecordMetadata> future;
+    long addedBytes;
+
+    synchronized (stripe) {
+      BytesBoundedBatch<D> batch = stripe.open;
+      long sizeBefore = batch == null ? 0 : batch.getCurrentSizeInByte();
+      future = batch == null ? null : batch.tryAppend(record, callback);
+
+      if (future == null) {
+        // Create a new batch because previous one has no space
+        BytesBoundedBatch<D> newBatch = new BytesBoundedBatch<>(this.memSizeLimit, this.expireInMilliSecond);
+        LOG.debug("Batch " + newBatch.getId() + " is generated");
+        future = newBatch.tryAppend(record, callback);
+
+        // Even single record can exceed the batch size limit
+        if (future == null) {
+          LOG.error("Batch " + newBatch.getId() + " is marked as complete because it contains a huge record: " + record);
+          callback.onSuccess(WriteResponse.EMPTY);
+          return Futures.immediateFuture(new RecordMetadata(0));
+        }
+
+        if (batch != null) {
+          seal(batch);
+        }
+        this.incomplete.add(newBatch);
+        stripe.open = newBatch;
+        batch = newBatch;
+        sizeBefore = 0;
+      }
+      addedBytes = batch.getCurrentSizeInByte() - sizeBefore;
+    }
+
+    if (this.bytesInUse.addAndGet(addedBytes) > this.memoryBudget) {
+      awaitMemory();
+    }
+    return future;
+  }
+
+  /**
+   * Block until the bytes in use fall under the memory budget
+   */
+  private void awaitMemory() throws InterruptedException {
+    synchronized (this.memoryMonitor) {
+      while (this.bytesInUse.get() > this.memoryBudget && !isClosed()) {
+        // Seal open batches so the sender can ship them and memory can be released
+        sealExpiredOrAll(true);
+        this.memoryMonitor.wait(MAX_SENDER_WAIT_MILLIS);
+      }
+    }
+  }
+
+  private void seal(BytesBoundedBatch<D> batch) {
+    this.sealed.offer(batch);
+    Thread sender = this.waitingSender;
+    if (sender != null) {
+      LockSupport.unpark(sender);
+    }
+  }
+
+  /**
+   * Seal open batches whose TTL has expired, or all non-empty open batches if sealAll is set.
+   */
+  private void sealExpiredOrAll(boolean sealAll) {
+    for (Stripe stripe : this.stripes) {
+      BytesBoundedBatch<D> candidate = stripe.open;
+      if (candidate == null || !(sealAll || candidate.isTTLExpire())) {
+        continue;
+      }
+      synchronized (stripe) {
+        if (stripe.open == candidate) {
+          LOG.debug("Batch " + candidate.getId() + " is sealed" + (sealAll ? "" : " because it is expired"));
+          stripe.open = null;
+          seal(candidate);
+        }
+      }
+    }
+  }
+
+  /**
+   * If accumulator has been closed, below actions are performed:
+   *    1) seal all open batches.
+   *    2) remove and return the first sealed batch, or return null if there is none.
+   * If accumulator has not been closed, below actions are performed:
+   *    1) seal all open batches whose TTL has expired.
+   *    2) remove and return the first sealed batch if available, else wait for a batch to be sealed or for the TTL of
+   *       an open batch to expire, up to {@link #MAX_SENDER_WAIT_MILLIS}, and return null.
+   */
+  public Batch<D> getNextAvailableBatch () {
+    if (isClosed()) {
+      sealExpiredOrAll(true);
+      return this.sealed.poll();
+    }
+
+    BytesBoundedBatch<D> candidate = this.sealed.poll();
+    if (candidate != null) {
+      return candidate;
+    }
+
+    sealExpiredOrAll(false);
+    candidate = this.sealed.poll();
+    if (candidate != null) {
+      return candidate;
+    }
+
+    this.waitingSender = Thread.currentThread();
+    try {
+      // Re-check after publishing the waiting thread so a concurrent seal is not missed
+      if (this.sealed.isEmpty() && !isClosed()) {
+        LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(Math.min(this.expireInMilliSecond,
+            MAX_SENDER_WAIT_MILLIS)));
+      }
+    } finally {
+      this.waitingSender = null;
+    }
+    return this.sealed.poll();
+  }
+
+  public void close() {
+    super.close();
+    Thread sender = this.waitingSender;
+    if (sender != null) {
+      LockSupport.unpark(sender);
+    }
+    synchronized (this.memoryMonitor) {
+      this.memoryMonitor.notifyAll();
+    }
+  }
+
+  /**
+   * This will block until all the incomplete batches are acknowledged
+   */
+  public void flush() {
+    try {
+      ArrayList<Batch<D>> batches = new ArrayList<>(this.incomplete);
+      LOG.info ("flush on {} batches", batches.size());
+      for (Batch<D> batch: batches) {
+        batch.await();
+      }
+    } catch (Exception e) {
+      LOG.info ("Error happens when flushing");
+    }
+  }
+
+  /**
+   * Once batch is acknowledged, remove it from incomplete set and release its memory
+   */
+  public void deallocate (Batch<D> batch) {
+    if (!this.incomplete.remove(batch)) {
+      throw new IllegalStateException("Remove from the incomplete set failed. This should be impossible.");
+    }
+    this.bytesInUse.addAndGet(-batch.getCurrentSizeInByte());
+    synchronized (this.memoryMonitor) {
+      this.memoryMonitor.notifyAll();
+    }
+  }
+}
@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gobblin.writer;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+
+import gobblin.source.extractor.CheckpointableWatermark;
+import gobblin.source.extractor.extract.LongWatermark;
+
+
+@Test
+public class LongOffsetWatermarkTrackerTest {
+
+  /**
+   * Single threaded test that tracks offsets, acknowledges all but a few random holes,
+   * then checks that the committable and unacknowledged watermarks sit around the first hole.
+   */
+  @Test
+  public void testRandomHoles() {
+    Random random = new Random();
+    for (int j = 0; j < 100; ++j) {
+      LongOffsetWatermarkTracker tracker = new LongOffsetWatermarkTracker(ConfigFactory.empty());
+      int numOffsets = 1 + random.nextInt(1000);
+      for (int i = 0; i < numOffsets; ++i) {
+        tracker.track("default", i);
+      }
+
+      int numMissingAcks = random.nextInt(numOffsets);
+      SortedSet<Integer> holes = new TreeSet<>();
+      for (int i = 0; i < numMissingAcks; ++i) {
+        holes.add(random.nextInt(numOffsets));
+      }
+      for (int i = 0; i < numOffsets; ++i) {
+        if (!holes.contains(i)) {
+          tracker.ack("default", i);
+        }
+      }
+
+      Map<String, CheckpointableWatermark> unacked = tracker.getUnacknowledgedWatermarks();
+      Map<String, CheckpointableWatermark> committable = tracker.getCommittableWatermarks();
+      if (holes.isEmpty()) {
+        Assert.assertTrue(unacked.isEmpty());
+        Assert.assertEquals(getValue(committable.get("default")), numOffsets - 1);
+      } else {
+        Assert.assertEquals(getValue(unacked.get("default")), (long) holes.first());
+        if (holes.first() == 0) {
+          Assert.assertTrue(committable.isEmpty());
+        } else {
+          Assert.assertEquals(getValue(committable.get("default")), holes.first() - 1);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testConcurrentAcksAcrossRingWraps() throws Exception {
+    Config config = ConfigFactory.parseString(LongOffsetWatermarkTracker.WATERMARK_TRACKER_OFFSET_CAPACITY + "=1000");
+    final LongOffsetWatermarkTracker tracker = new LongOffsetWatermarkTracker(config);
+    final LongOffsetWatermarkTracker.PartitionOffsets offsets = tracker.forPartition("p0");
+    ExecutorService ackers = Executors.newFixedThreadPool(4);
+    try {
+      long numOffsets = 100 * tracker.getCapacity();
+      for (long offset = 0; offset < numOffsets; offset++) {
+        // Stay within the ring, as a bounded in-flight window does
+        long lowestPending;
+        while ((lowestPending = offsets.getLowestUnacknowledgedOffset()) >= 0
+            && offset - lowestPending >= tracker.getCapacity()) {
+          Thread.yield();
+        }
+        offsets.track(offset);
+        ackers.execute(offsets.ackable(offset)::ack);
+      }
+      ackers.shutdown();
+      Assert.assertTrue(ackers.awaitTermination(30, TimeUnit.SECONDS));
+      Assert.assertEquals(offsets.getCommittableOffset(), numOffsets - 1);
+      Assert.assertEquals(offsets.getLowestUnacknowledgedOffset(), -1);
+    } finally {
+      ackers.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testSparseOffsets() {
+    Config config = ConfigFactory.parseString(LongOffsetWatermarkTracker.WATERMARK_TRACKER_OFFSET_CAPACITY + "=64");
+    LongOffsetWatermarkTracker.PartitionOffsets offsets = new LongOffsetWatermarkTracker(config).forPartition("p0");
+    Assert.assertEquals(offsets.getCommittableOffset(), -1);
+    Assert.assertEquals(offsets.getLowestUnacknowledgedOffset(), -1);
+
+    offsets.track(10);
+    offsets.track(20);
+    Assert.assertEquals(offsets.getCommittableOffset(), -1);
+    Assert.assertEquals(offsets.getLowestUnacknowledgedOffset(), 10);
+
+    offsets.ack(20);
+    Assert.assertEquals(offsets.getCommittableOffset(), -1);
+    offsets.ack(10);
+    Assert.assertEquals(offsets.getCommittableOffset(), 20);
+
+    // A gap wider than the ring is fine once nothing is pending
+    offsets.track(1000);
+    Assert.assertEquals(offsets.getLowestUnacknowledgedOffset(), 1000);
+    offsets.ack(1000);
+    Assert.assertEquals(offsets.getCommittableOffset(), 1000);
+  }
+
+  @Test
+  public void testFullRing() {
+    Config config = ConfigFactory.parseString(LongOffsetWatermarkTracker.WATERMARK_TRACKER_OFFSET_CAPACITY + "=64");
+    LongOffsetWatermarkTracker.PartitionOffsets offsets = new LongOffsetWatermarkTracker(config).forPartition("p0");
+    for (long offset = 0; offset < 64; offset++) {
+      offsets.track(offset);
+    }
+    try {
+      offsets.track(64);
+      Assert.fail("Tracking past a pending offset a full ring behind should fail");
+    } catch (IllegalStateException ise) {
+      // expected
+    }
+    offsets.ack(0);
+    offsets.track(64);
+    Assert.assertEquals(offsets.getCommittableOffset(), 0);
+  }
+
+  @Test
+  public void testInvalidAcks() {
+    LongOffsetWatermarkTracker.PartitionOffsets offsets =
+        new LongOffsetWatermarkTracker(ConfigFactory.empty()).forPartition("p0");
+    offsets.track(5);
+    offsets.ack(5);
+    try {
+      offsets.ack(5);
+      Assert.fail("Acknowledging an offset twice should fail");
+    } catch (IllegalStateException ise) {
+      // expected
+    }
+    try {
+      offsets.ack(6);
+      Assert.fail("Acknowledging an untracked offset should fail");
+    } catch (IllegalStateException ise) {
+      // expected
+    }
+  }
+
+  private static long getValue(CheckpointableWatermark watermark) {
+    return ((LongWatermark) watermark.getWatermark()).getValue();
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gobblin.writer;
+
+import java.io.ByteArrayOutputStream;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.file.DataFileConstants;
+import org.apache.avro.file.DataFileReader;
+import org.apache.avro.file.SeekableByteArrayInput;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+
+@Test
+public class ParallelBlockDataFileWriterTest {
+
+  private static final Schema SCHEMA = SchemaBuilder.record("TestRecord").fields()
+      .requiredLong("id").requiredString("value").endRecord();
+
+  @DataProvider(name = "codecs")
+  public Object[][] codecs() {
+    return new Object[][] { { DataFileConstants.NULL_CODEC }, { DataFileConstants.DEFLATE_CODEC },
+        { DataFileConstants.SNAPPY_CODEC } };
+  }
+
+  @Test(dataProvider = "codecs")
+  public void testReadableByAvro(String codec) throws Exception {
+    int numRecords = 50000;
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (ParallelBlockDataFileWriter<GenericRecord> writer = new ParallelBlockDataFileWriter<>(
+        new GenericDatumWriter<GenericRecord>(), SCHEMA, out, codec, 9, 4)) {
+      for (int i = 0; i < numRecords; i++) {
+        writer.append(createRecord(i));
+      }
+    }
+
+    int blocks = 0;
+    try (DataFileReader<GenericRecord> reader = new DataFileReader<>(new SeekableByteArrayInput(out.toByteArray()),
+        new GenericDatumReader<GenericRecord>())) {
+      Assert.assertEquals(reader.getMetaString(DataFileConstants.CODEC), codec);
+      Assert.assertEquals(reader.getSchema(), SCHEMA);
+      long lastSync = -1;
+      for (int i = 0; i < numRecords; i++) {
+        Assert.assertTrue(reader.hasNext());
+        Assert.assertEquals(reader.next(), createRecord(i));
+        if (reader.previousSync() != lastSync) {
+          lastSync = reader.previousSync();
+          blocks++;
+        }
+      }
+      Assert.assertFalse(reader.hasNext());
+    }
+    // Records span several blocks, written in order
+    Assert.assertTrue(blocks > 1);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testUnsupportedCodec() throws Exception {
+    new ParallelBlockDataFileWriter<>(new GenericDatumWriter<GenericRecord>(), SCHEMA, new ByteArrayOutputStream(),
+        DataFileConstants.BZIP2_CODEC, 9, 1);
+  }
+
+  private static GenericRecord createRecord(long id) {
+    GenericRecord record = new GenericData.Record(SCHEMA);
+    record.put("id", id);
+    record.put("value", "value-" + id);
+    return record;
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package gobblin.writer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Strings;
+
+
+@Test
+public class StripedBatchAccumulatorTest {
+
+  @Test
+  public void testConcurrentProducers() throws Exception {
+    final StripedBatchAccumulator<String> accumulator = new StripedBatchAccumulator<>(1024, 1000, 64 * 1024, 4);
+    final int producers = 4;
+    final int recordsPerProducer = 1000;
+
+    ExecutorService executor = Executors.newFixedThreadPool(producers);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < producers; i++) {
+        final int producer = i;
+        futures.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws Exception {
+            for (int j = 0; j < recordsPerProducer; j++) {
+              accumulator.append("record-" + producer + "-" + j, WriteCallback.EMPTY);
+            }
+            return null;
+          }
+        }));
+      }
+
+      int records = 0;
+      boolean producing = true;
+      while (producing) {
+        producing = false;
+        for (Future<?> future : futures) {
+          producing |= !future.isDone();
+        }
+        records += drain(accumulator);
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+
+      accumulator.close();
+      records += drain(accumulator);
+
+      Assert.assertEquals(records, producers * recordsPerProducer);
+      Assert.assertEquals(accumulator.getBytesInUse(), 0);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testMemoryBudgetBlocksProducers() throws Exception {
+    // Each 40 character record fills a batch, and uses 55 bytes including overhead
+    final StripedBatchAccumulator<String> accumulator = new StripedBatchAccumulator<>(64, 1000, 120, 1);
+    final String record = Strings.repeat("a", 40);
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<?> producer = executor.submit(new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          for (int i = 0; i < 3; i++) {
+            accumulator.append(record, WriteCallback.EMPTY);
+          }
+          return null;
+        }
+      });
+
+      try {
+        producer.get(500, TimeUnit.MILLISECONDS);
+        Assert.fail("Producer should be blocked by the memory budget.");
+      } catch (TimeoutException te) {
+        // expected
+      }
+
+      Batch<String> batch = accumulator.getNextAvailableBatch();
+      Assert.assertNotNull(batch);
+      batch.done();
+      accumulator.deallocate(batch);
+
+      producer.get(1, TimeUnit.SECONDS);
+      Assert.assertTrue(accumulator.getBytesInUse() <= 120);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testOpenBatchIsSentAfterTTL() throws Exception {
+    StripedBatchAccumulator<String> accumulator = new StripedBatchAccumulator<>(1024, 200, 64 * 1024, 2);
+    accumulator.append("record", WriteCallback.EMPTY);
+
+    long start = System.currentTimeMillis();
+    Batch<String> batch = null;
+    while (batch == null && System.currentTimeMillis() - start < 2000) {
+      batch = accumulator.getNextAvailableBatch();
+    }
+
+    Assert.assertNotNull(batch);
+    Assert.assertTrue(System.currentTimeMillis() - start >= 200);
+    Assert.assertEquals(batch.getRecords().size(), 1);
+  }
+
+  private int drain(StripedBatchAccumulator<String> accumulator) {
+    int records = 0;
+    Batch<String> batch;
+    while ((batch = accumulator.getNextAvailableBatch()) != null) {
+      records += batch.getRecords().size();
+      batch.done();
+      accumulator.deallocate(batch);
+    }
+    return records;
+  }
+}
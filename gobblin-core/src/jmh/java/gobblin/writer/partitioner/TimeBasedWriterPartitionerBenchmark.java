@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+
+package gobblin.writer.partitioner;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import gobblin.util.DatePartitionType;
+
+
+/**
+ * Measures {@link TimeBasedWriterPartitioner#partitionForRecord(Object)} for hourly and daily partitions, both
+ * from {@link TimeBasedWriterPartitioner#WRITER_PARTITION_GRANULARITY} and from
+ * {@link TimeBasedWriterPartitioner#WRITER_PARTITION_PATTERN}. The "uncached" benchmark builds a new partition for
+ * every record, as the partitioner did before memoizing time buckets. Run with "-prof gc" to compare allocation
+ * rates.
+ *
+ * Record timestamps advance by {@link #TIMESTAMP_STEP_MILLIS} with up to {@link #MAX_JITTER_MILLIS} of jitter,
+ * so consecutive records occasionally fall into the previous or next bucket.
+ */
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@org.openjdk.jmh.annotations.Fork(value = 3)
+@BenchmarkMode(value = Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TimeBasedWriterPartitionerBenchmark {
+
+  private static final int RECORDS = 1 << 20;
+  private static final long START_MILLIS = 1483228800000L;
+  private static final long TIMESTAMP_STEP_MILLIS = 10;
+  private static final long MAX_JITTER_MILLIS = 2 * 60 * 1000;
+
+  @State(value = Scope.Benchmark)
+  public static class PartitionerState {
+    @Param({"HOUR", "DAY"})
+    public String granularity;
+
+    @Param({"false", "true"})
+    public boolean usePattern;
+
+    private long[] timestamps;
+    private TimeBasedWriterPartitioner<Long> partitioner;
+    private DateTimeZone timeZone;
+    private DateTimeFormatter formatter;
+    private Map<GenericRecord, Object> writers;
+
+    @Setup
+    public void setup() {
+      DatePartitionType partitionType = DatePartitionType.valueOf(this.granularity);
+      gobblin.configuration.State state = new gobblin.configuration.State();
+      if (this.usePattern) {
+        state.setProp(TimeBasedWriterPartitioner.WRITER_PARTITION_PATTERN, partitionType.getDateTimePattern());
+      } else {
+        state.setProp(TimeBasedWriterPartitioner.WRITER_PARTITION_GRANULARITY, this.granularity);
+      }
+      this.partitioner = new TimeBasedWriterPartitioner<Long>(state, 1, 0) {
+        @Override
+        public long getRecordTimestamp(Long record) {
+          return record;
+        }
+      };
+      this.timeZone = DateTimeZone.forID(TimeBasedWriterPartitioner.DEFAULT_WRITER_PARTITION_TIMEZONE);
+      this.formatter = DateTimeFormat.forPattern(partitionType.getDateTimePattern()).withZone(this.timeZone);
+
+      Random random = new Random(1);
+      this.timestamps = new long[RECORDS];
+      for (int i = 0; i < RECORDS; i++) {
+        long jitter = (long) ((random.nextDouble() * 2 - 1) * MAX_JITTER_MILLIS);
+        this.timestamps[i] = START_MILLIS + i * TIMESTAMP_STEP_MILLIS + jitter;
+      }
+
+      // Emulates the partition writer cache of PartitionedDataWriter
+      this.writers = new HashMap<>();
+      for (long timestamp : this.timestamps) {
+        this.writers.put(this.partitioner.partitionForRecord(timestamp), new Object());
+      }
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(RECORDS)
+  public void partitionForRecord(PartitionerState state, Blackhole blackhole) {
+    for (long timestamp : state.timestamps) {
+      blackhole.consume(state.partitioner.partitionForRecord(timestamp));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(RECORDS)
+  public void partitionAndLookupWriter(PartitionerState state, Blackhole blackhole) {
+    for (long timestamp : state.timestamps) {
+      blackhole.consume(state.writers.get(state.partitioner.partitionForRecord(timestamp)));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(RECORDS)
+  public void uncachedPartitionAndLookupWriter(PartitionerState state, Blackhole blackhole) {
+    DatePartitionType partitionType = DatePartitionType.valueOf(state.granularity);
+    for (long timestamp : state.timestamps) {
+      GenericRecord partition = new GenericData.Record(state.partitioner.partitionSchema());
+      if (state.usePattern) {
+        partition.put(TimeBasedWriterPartitioner.PARTITIONED_PATH, state.formatter.print(timestamp));
+      } else {
+        partition.put(state.granularity, partitionType.getField(new DateTime(timestamp, state.timeZone)));
+      }
+      blackhole.consume(state.writers.get(partition));
+    }
+  }
+}
@@ -17,6 +17,7 @@
 
 package gobblin.converter.avro;
 
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
@@ -38,6 +39,9 @@ import sun.util.calendar.ZoneInfo;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
 import gobblin.configuration.ConfigurationKeys;
 import gobblin.configuration.WorkUnitState;
@@ -232,6 +236,31 @@ public class JsonElementConversionFactory {
       return convertField(value);
     }
 
+    /**
+     * Convert the next value of a {@link JsonReader}, without building a {@link JsonElement} for primitive values
+     * @param reader positioned before the value
+     * @return Avro safe type
+     * @throws IOException if the value cannot be read
+     */
+    public Object convert(JsonReader reader) throws IOException {
+      if (reader.peek() == JsonToken.NULL) {
+        reader.nextNull();
+        return convertNull();
+      }
+      return convertField(reader);
+    }
+
+    /**
+     * Value of a field that is null or missing
+     * @return null if allowed
+     */
+    Object convertNull() {
+      if (this.nullable) {
+        return null;
+      }
+      throw new RuntimeException("Field: " + getName() + " is not nullable and contains a null value");
+    }
+
     /**
      * Convert JsonElement to Avro type
      * @param value
@@ -239,6 +268,17 @@ public class JsonElementConversionFactory {
      */
     abstract Object convertField(JsonElement value);
 
+    /**
+     * Convert the next non null value of a {@link JsonReader} to Avro type. Parses the value into a
+     * {@link JsonElement} unless overridden.
+     * @param reader
+     * @return
+     * @throws IOException
+     */
+    Object convertField(JsonReader reader) throws IOException {
+      return convertField(new JsonParser().parse(reader));
+    }
+
     /**
      * Avro data type after conversion
      * @return
@@ -257,6 +297,20 @@ public class JsonElementConversionFactory {
       return new Utf8(value.getAsString());
     }
 
+    @Override
+    Object convertField(JsonReader reader) throws IOException {
+      switch (reader.peek()) {
+        case BEGIN_ARRAY:
+        case BEGIN_OBJECT:
+          // Nested values are kept as their JSON text
+          return new Utf8(new JsonParser().parse(reader).toString());
+        case BOOLEAN:
+          return new Utf8(Boolean.toString(reader.nextBoolean()));
+        default:
+          return new Utf8(reader.nextString());
+      }
+    }
+
     @Override
     public org.apache.avro.Schema.Type getTargetType() {
       return Schema.Type.STRING;
@@ -275,6 +329,11 @@ public class JsonElementConversionFactory {
       return value.getAsInt();
     }
 
+    @Override
+    Object convertField(JsonReader reader) throws IOException {
+      return reader.nextInt();
+    }
+
     @Override
     public org.apache.avro.Schema.Type getTargetType() {
       return Schema.Type.INT;
@@ -293,6 +352,11 @@ public class JsonElementConversionFactory {
       return value.getAsLong();
     }
 
+    @Override
+    Object convertField(JsonReader reader) throws IOException {
+      return reader.nextLong();
+    }
+
     @Override
     public org.apache.avro.Schema.Type getTargetType() {
       return Schema.Type.LONG;
@@ -310,6 +374,11 @@ public class JsonElementConversionFactory {
       return value.getAsDouble();
     }
 
+    @Override
+    Object convertField(JsonReader reader) throws IOException {
+      return reader.nextDouble();
+    }
+
     @Override
     public org.apache.avro.Schema.Type getTargetType() {
       return Schema.Type.DOUBLE;
@@ -327,6 +396,11 @@ public class JsonElementConversionFactory {
       return value.getAsFloat();
     }
 
+    @Override
+    Object convertField(JsonReader reader) throws IOException {
+      return Float.parseFloat(reader.nextString());
+    }
+
     @Override
     public org.apache.avro.Schema.Type getTargetType() {
       return Schema.Type.FLOAT;
@@ -345,6 +419,14 @@ public class JsonElementConversionFactory {
       return value.getAsBoolean();
     }
 
+    @Override
+    Object convertField(JsonReader reader) throws IOException {
+      if (reader.peek() == JsonToken.STRING) {
+        return Boolean.parseBoolean(reader.nextString());
+      }
+      return reader.nextBoolean();
+    }
+
     @Override
     public org.apache.avro.Schema.Type getTargetType() {
       return Schema.Type.BOOLEAN;
@@ -352,41 +434,39 @@ public class JsonElementConversionFactory {
   }
 
   public static class DateConverter extends JsonElementConverter {
-    private String inputPatterns;
-    private DateTimeZone timeZone;
-    private WorkUnitState state;
+    private final List<DateTimeFormatter> formatters = new ArrayList<>();
+    private final boolean epochTimeInSeconds;
 
     public DateConverter(String fieldName, boolean nullable, String sourceType, String pattern, DateTimeZone zone,
         WorkUnitState state) {
       super(fieldName, nullable, sourceType);
-      this.inputPatterns = pattern;
-      this.timeZone = zone;
-      this.state = state;
+      for (String inputPattern : Arrays.asList(pattern.split(","))) {
+        this.formatters.add(DateTimeFormat.forPattern(inputPattern).withZone(zone));
+      }
+      this.epochTimeInSeconds = Boolean.valueOf(state.getProp(ConfigurationKeys.CONVERTER_IS_EPOCH_TIME_IN_SECONDS));
     }
 
     @Override
     Object convertField(JsonElement value) {
-      List<String> patterns = Arrays.asList(this.inputPatterns.split(","));
-      int patternFailCount = 0;
-      Object formattedDate = null;
-      for (String pattern : patterns) {
-        DateTimeFormatter dtf = DateTimeFormat.forPattern(pattern).withZone(this.timeZone);
+      return parseDate(value.getAsString());
+    }
+
+    @Override
+    Object convertField(JsonReader reader) throws IOException {
+      return parseDate(reader.nextString());
+    }
+
+    private long parseDate(String value) {
+      for (DateTimeFormatter formatter : this.formatters) {
+        long millis;
         try {
-          formattedDate = dtf.parseDateTime(value.getAsString()).withZone(DateTimeZone.forID("UTC")).getMillis();
-          if (Boolean.valueOf(this.state.getProp(ConfigurationKeys.CONVERTER_IS_EPOCH_TIME_IN_SECONDS))) {
-            formattedDate = (Long) formattedDate / 1000;
-          }
-          break;
+          millis = formatter.parseMillis(value);
         } catch (Exception e) {
-          patternFailCount++;
+          continue;
         }
+        return this.epochTimeInSeconds ? millis / 1000 : millis;
       }
-
-      if (patternFailCount == patterns.size()) {
-        throw new RuntimeException("Failed to parse the date");
-      }
-
-      return formattedDate;
+      throw new RuntimeException("Failed to parse the date");
     }
 
     @Override
@@ -412,6 +492,11 @@ public class JsonElementConversionFactory {
       }
     }
 
+    @Override
+    Object convertField(JsonReader reader) throws IOException {
+      return ByteBuffer.wrap(reader.nextString().getBytes(this.charSet));
+    }
+
     @Override
     public org.apache.avro.Schema.Type getTargetType() {
       return Schema.Type.BYTES;
@@ -435,6 +520,7 @@ public class JsonElementConversionFactory {
   }
 
   public static class ArrayConverter extends ComplexConverter {
+    private Schema schema;
 
     public ArrayConverter(String fieldName, boolean nullable, String sourceType, JsonObject schemaNode,
         WorkUnitState state) throws UnsupportedDateTypeException {
@@ -455,6 +541,19 @@ public class JsonElementConversionFactory {
       return new GenericData.Array<>(schema(), list);
     }
 
+    @Override
+    Object convertField(JsonReader reader) throws IOException {
+      List<Object> list = new ArrayList<>();
+
+      reader.beginArray();
+      while (reader.hasNext()) {
+        list.add(getElementConverter().convertField(reader));
+      }
+      reader.endArray();
+
+      return new GenericData.Array<>(schema(), list);
+    }
+
     @Override
     public org.apache.avro.Schema.Type getTargetType() {
       return Schema.Type.ARRAY;
@@ -462,13 +561,17 @@ public class JsonElementConversionFactory {
 
     @Override
     public Schema schema() {
-      Schema schema = Schema.createArray(getElementConverter().schema());
-      schema.addProp("source.type", "array");
-      return schema;
+      if (this.schema == null) {
+        Schema schema = Schema.createArray(getElementConverter().schema());
+        schema.addProp("source.type", "array");
+        this.schema = schema;
+      }
+      return this.schema;
     }
   }
 
   public static class MapConverter extends ComplexConverter {
+    private Schema schema;
 
     public MapConverter(String fieldName, boolean nullable, String sourceType, JsonObject schemaNode,
         WorkUnitState state) throws UnsupportedDateTypeException {
@@ -489,6 +592,19 @@ public class JsonElementConversionFactory {
       return map;
     }
 
+    @Override
+    Object convertField(JsonReader reader) throws IOException {
+      Map<String, Object> map = new HashMap<>();
+
+      reader.beginObject();
+      while (reader.hasNext()) {
+        map.put(reader.nextName(), getElementConverter().convertField(reader));
+      }
+      reader.endObject();
+
+      return map;
+    }
+
     @Override
     public org.apache.avro.Schema.Type getTargetType() {
       return Schema.Type.MAP;
@@ -496,9 +612,12 @@ public class JsonElementConversionFactory {
 
     @Override
     public Schema schema() {
-      Schema schema = Schema.createMap(getElementConverter().schema());
-      schema.addProp("source.type", "map");
-      return schema;
+      if (this.schema == null) {
+        Schema schema = Schema.createMap(getElementConverter().schema());
+        schema.addProp("source.type", "map");
+        this.schema = schema;
+      }
+      return this.schema;
     }
   }
 
@@ -518,7 +637,7 @@ public class JsonElementConversionFactory {
 
     @Override
     Object convertField(JsonElement value) {
-      return new GenericData.EnumSymbol(this.schema, value.getAsString());
+      return new GenericData.EnumSymbol(schema(), value.getAsString());
     }
 
     @Override
@@ -528,8 +647,10 @@ public class JsonElementConversionFactory {
 
     @Override
     public Schema schema() {
-      this.schema = Schema.createEnum(this.enumName, "", "", this.enumSet);
-      this.schema.addProp("source.type", "enum");
+      if (this.schema == null) {
+        this.schema = Schema.createEnum(this.enumName, "", "", this.enumSet);
+        this.schema.addProp("source.type", "enum");
+      }
       return this.schema;
     }
   }
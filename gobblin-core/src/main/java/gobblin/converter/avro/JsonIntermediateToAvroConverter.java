@@ -18,14 +18,12 @@
 package gobblin.converter.avro;
 
 import java.io.IOException;
+import java.io.StringReader;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 import org.apache.avro.Schema;
 import org.apache.avro.Schema.Field;
-import org.apache.avro.generic.GenericData;
 import org.apache.avro.generic.GenericRecord;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
@@ -36,6 +34,7 @@ import org.slf4j.LoggerFactory;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
 
 import gobblin.configuration.ConfigurationKeys;
 import gobblin.configuration.WorkUnitState;
@@ -51,11 +50,17 @@ import gobblin.util.WriterUtils;
 /**
  * Converts Integra's intermediate data format to avro
  *
+ * <p>
+ *   Field converters are compiled into a {@link JsonToAvroConversionPlan} for the output schema, so records are
+ *   converted by field position.
+ * </p>
+ *
  * @author kgoodhop
  *
  */
 public class JsonIntermediateToAvroConverter extends ToAvroConverterBase<JsonArray, JsonObject> {
-  private Map<String, JsonElementConversionFactory.JsonElementConverter> converters = new HashMap<>();
+  private List<JsonElementConversionFactory.JsonElementConverter> converters = new ArrayList<>();
+  private JsonToAvroConversionPlan conversionPlan;
   private static final Logger LOG = LoggerFactory.getLogger(JsonIntermediateToAvroConverter.class);
   private static final String CONVERTER_AVRO_NULLIFY_FIELDS_ENABLED = "converter.avro.nullify.fields.enabled";
   private static final boolean DEFAULT_CONVERTER_AVRO_NULLIFY_FIELDS_ENABLED = Boolean.FALSE;
@@ -67,6 +72,7 @@ public class JsonIntermediateToAvroConverter extends ToAvroConverterBase<JsonArr
   @Override
   public Schema convertSchema(JsonArray schema, WorkUnitState workUnit) throws SchemaConversionException {
     List<Schema.Field> fields = new ArrayList<>();
+    List<JsonElementConversionFactory.JsonElementConverter> fieldConverters = new ArrayList<>();
 
     for (JsonElement elem : schema) {
       JsonObject map = (JsonObject) elem;
@@ -79,7 +85,7 @@ public class JsonIntermediateToAvroConverter extends ToAvroConverterBase<JsonArr
       try {
         JsonElementConversionFactory.JsonElementConverter converter = JsonElementConversionFactory.getConvertor(
             columnName, map.get("dataType").getAsJsonObject().get("type").getAsString(), map, workUnit, nullable);
-        this.converters.put(columnName, converter);
+        fieldConverters.add(converter);
         fldSchema = converter.getSchema();
       } catch (UnsupportedDateTypeException e) {
         throw new SchemaConversionException(e);
@@ -96,9 +102,11 @@ public class JsonIntermediateToAvroConverter extends ToAvroConverterBase<JsonArr
 
     if (workUnit.getPropAsBoolean(CONVERTER_AVRO_NULLIFY_FIELDS_ENABLED,
         DEFAULT_CONVERTER_AVRO_NULLIFY_FIELDS_ENABLED)) {
-      return this.generateSchemaWithNullifiedField(workUnit, avroSchema);
+      avroSchema = this.generateSchemaWithNullifiedField(workUnit, avroSchema);
     }
 
+    this.converters = fieldConverters;
+    this.conversionPlan = new JsonToAvroConversionPlan(avroSchema, fieldConverters);
     return avroSchema;
   }
 
@@ -106,25 +114,43 @@ public class JsonIntermediateToAvroConverter extends ToAvroConverterBase<JsonArr
   public Iterable<GenericRecord> convertRecord(Schema outputSchema, JsonObject inputRecord, WorkUnitState workUnit)
       throws DataConversionException {
 
-    GenericRecord avroRecord = new GenericData.Record(outputSchema);
-    long maxFailedConversions = workUnit.getPropAsLong(ConfigurationKeys.CONVERTER_AVRO_MAX_CONVERSION_FAILURES,
-        ConfigurationKeys.DEFAULT_CONVERTER_AVRO_MAX_CONVERSION_FAILURES);
+    try {
+      return new SingleRecordIterable<>(getConversionPlan(outputSchema).convert(inputRecord));
+    } catch (Exception e) {
+      return handleConversionFailure(inputRecord, e, workUnit);
+    }
+  }
 
-    for (Map.Entry<String, JsonElement> entry : inputRecord.entrySet()) {
-      try {
-        avroRecord.put(entry.getKey(), this.converters.get(entry.getKey()).convert(entry.getValue()));
-      } catch (Exception e) {
-        this.numFailedConversion++;
-        if (this.numFailedConversion < maxFailedConversions) {
-          LOG.error("Dropping record " + inputRecord + " because it cannot be converted to Avro", e);
-          return new EmptyIterable<>();
-        }
-        throw new DataConversionException("Unable to convert field:" + entry.getKey() + " for value:" + entry.getValue()
-            + " for record: " + inputRecord, e);
-      }
+  /**
+   * Convert a JSON object in text form, reading it with a streaming parser instead of building a {@link JsonObject}.
+   * Fields that are not in the schema are skipped.
+   */
+  Iterable<GenericRecord> convertJsonString(Schema outputSchema, String inputRecord, WorkUnitState workUnit)
+      throws DataConversionException {
+    try (JsonReader reader = new JsonReader(new StringReader(inputRecord))) {
+      return new SingleRecordIterable<>(getConversionPlan(outputSchema).convert(reader));
+    } catch (Exception e) {
+      return handleConversionFailure(inputRecord, e, workUnit);
     }
+  }
+
+  private JsonToAvroConversionPlan getConversionPlan(Schema outputSchema) {
+    if (this.conversionPlan == null || this.conversionPlan.getSchema() != outputSchema) {
+      this.conversionPlan = new JsonToAvroConversionPlan(outputSchema, this.converters);
+    }
+    return this.conversionPlan;
+  }
 
-    return new SingleRecordIterable<>(avroRecord);
+  private Iterable<GenericRecord> handleConversionFailure(Object inputRecord, Exception e, WorkUnitState workUnit)
+      throws DataConversionException {
+    long maxFailedConversions = workUnit.getPropAsLong(ConfigurationKeys.CONVERTER_AVRO_MAX_CONVERSION_FAILURES,
+        ConfigurationKeys.DEFAULT_CONVERTER_AVRO_MAX_CONVERSION_FAILURES);
+    this.numFailedConversion++;
+    if (this.numFailedConversion < maxFailedConversions) {
+      LOG.error("Dropping record " + inputRecord + " because it cannot be converted to Avro", e);
+      return new EmptyIterable<>();
+    }
+    throw new DataConversionException(e.getMessage() + " for record: " + inputRecord, e);
   }
 
   /**
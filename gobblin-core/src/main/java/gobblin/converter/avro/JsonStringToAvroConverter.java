@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package gobblin.converter.avro;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericRecord;
+
+import com.google.gson.JsonParser;
+
+import gobblin.configuration.WorkUnitState;
+import gobblin.converter.DataConversionException;
+import gobblin.converter.SchemaConversionException;
+import gobblin.converter.ToAvroConverterBase;
+import gobblin.converter.json.JsonStringToJsonIntermediateConverter;
+
+
+/**
+ * Converts JSON strings straight to Avro, combining {@link JsonStringToJsonIntermediateConverter} and
+ * {@link JsonIntermediateToAvroConverter}.
+ *
+ * <p>
+ *   The input schema is a JSON array in the format of {@link JsonIntermediateToAvroConverter}. Records are read with a
+ *   streaming JSON parser into Avro records, without building a Gson tree for each record. Fields that are not in the
+ *   schema are skipped, and nested arrays and objects of string fields are kept as their JSON text.
+ * </p>
+ */
+public class JsonStringToAvroConverter extends ToAvroConverterBase<String, String> {
+
+  private final JsonIntermediateToAvroConverter intermediateToAvroConverter = new JsonIntermediateToAvroConverter();
+
+  @Override
+  public Schema convertSchema(String inputSchema, WorkUnitState workUnit) throws SchemaConversionException {
+    return this.intermediateToAvroConverter.convertSchema(new JsonParser().parse(inputSchema).getAsJsonArray(),
+        workUnit);
+  }
+
+  @Override
+  public Iterable<GenericRecord> convertRecord(Schema outputSchema, String inputRecord, WorkUnitState workUnit)
+      throws DataConversionException {
+    return this.intermediateToAvroConverter.convertJsonString(outputSchema, inputRecord, workUnit);
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package gobblin.converter.avro;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Maps;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+
+import gobblin.converter.avro.JsonElementConversionFactory.JsonElementConverter;
+
+
+/**
+ * Conversion of JSON records to Avro records of a given {@link Schema}, compiled once per schema.
+ *
+ * <p>
+ *   The {@link JsonElementConverter} of each field is stored at the position of the field in the output schema, so
+ *   converting a record only looks up field names in the input and puts values into the Avro record by position.
+ * </p>
+ */
+class JsonToAvroConversionPlan {
+
+  private final Schema schema;
+  private final String[] fieldNames;
+  private final JsonElementConverter[] converters;
+  private final Map<String, Integer> positions;
+
+  JsonToAvroConversionPlan(Schema schema, List<JsonElementConverter> converters) {
+    int numFields = schema.getFields().size();
+    this.schema = schema;
+    this.fieldNames = new String[numFields];
+    this.converters = new JsonElementConverter[numFields];
+    this.positions = Maps.newHashMapWithExpectedSize(converters.size());
+
+    for (JsonElementConverter converter : converters) {
+      Schema.Field field = schema.getField(converter.getName());
+      Preconditions.checkArgument(field != null, "Field %s is not in schema %s", converter.getName(), schema);
+      this.fieldNames[field.pos()] = field.name();
+      this.converters[field.pos()] = converter;
+      this.positions.put(field.name(), field.pos());
+    }
+  }
+
+  Schema getSchema() {
+    return this.schema;
+  }
+
+  /**
+   * Convert a {@link JsonObject}. Fields that are missing from the record are null.
+   * @throws IllegalArgumentException if the record has a field that is not in the schema.
+   */
+  GenericRecord convert(JsonObject record) {
+    GenericRecord avroRecord = new GenericData.Record(this.schema);
+
+    int convertedFields = 0;
+    for (int i = 0; i < this.converters.length; i++) {
+      if (this.converters[i] == null) {
+        continue;
+      }
+      JsonElement value = record.get(this.fieldNames[i]);
+      if (value != null) {
+        avroRecord.put(i, convertField(i, value));
+        convertedFields++;
+      }
+    }
+
+    if (convertedFields < record.entrySet().size()) {
+      for (Map.Entry<String, JsonElement> entry : record.entrySet()) {
+        if (!this.positions.containsKey(entry.getKey())) {
+          throw new IllegalArgumentException("Field: " + entry.getKey() + " is not in the schema");
+        }
+      }
+    }
+    return avroRecord;
+  }
+
+  /**
+   * Convert the JSON object read by a {@link JsonReader}, without building a {@link JsonObject}. Fields that are not
+   * in the schema are skipped, and fields that are missing from the record are null.
+   */
+  GenericRecord convert(JsonReader reader) throws IOException {
+    GenericRecord avroRecord = new GenericData.Record(this.schema);
+    boolean[] converted = new boolean[this.converters.length];
+
+    reader.beginObject();
+    while (reader.hasNext()) {
+      Integer position = this.positions.get(reader.nextName());
+      if (position == null) {
+        reader.skipValue();
+        continue;
+      }
+      try {
+        avroRecord.put(position, this.converters[position].convert(reader));
+      } catch (RuntimeException e) {
+        throw new IllegalArgumentException("Unable to convert field: " + this.fieldNames[position], e);
+      }
+      converted[position] = true;
+    }
+    reader.endObject();
+
+    for (int i = 0; i < this.converters.length; i++) {
+      if (this.converters[i] != null && !converted[i]) {
+        this.converters[i].convertNull();
+      }
+    }
+    return avroRecord;
+  }
+
+  private Object convertField(int position, JsonElement value) {
+    try {
+      return this.converters[position].convert(value);
+    } catch (RuntimeException e) {
+      throw new IllegalArgumentException(
+          "Unable to convert field: " + this.fieldNames[position] + " for value: " + value, e);
+    }
+  }
+}
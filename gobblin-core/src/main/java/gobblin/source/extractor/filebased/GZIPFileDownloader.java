@@ -21,15 +21,16 @@ import gobblin.configuration.ConfigurationKeys;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Iterator;
-import java.util.zip.GZIPInputStream;
 
 import lombok.extern.slf4j.Slf4j;
 
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
 import org.apache.commons.io.IOUtils;
 
 
 /**
- * A {@link FileDownloader} that downloads a single gzip file and iterates line by line.
+ * A {@link FileDownloader} that downloads a single gzip file and iterates line by line. Files made of several
+ * concatenated gzip members are read in full.
  *
  * @param <D> record type in the file
  */
@@ -48,7 +49,7 @@ public class GZIPFileDownloader<D> extends FileDownloader<D> {
     try {
       InputStream inputStream =
           this.fileBasedExtractor.getCloser().register(this.fileBasedExtractor.getFsHelper().getFileStream(file));
-      Iterator<D> fileItr = (Iterator<D>) IOUtils.lineIterator(new GZIPInputStream(inputStream),
+      Iterator<D> fileItr = (Iterator<D>) IOUtils.lineIterator(new GzipCompressorInputStream(inputStream, true),
           ConfigurationKeys.DEFAULT_CHARSET_ENCODING);
       if (this.fileBasedExtractor.isShouldSkipFirstRecord() && fileItr.hasNext()) {
         fileItr.next();
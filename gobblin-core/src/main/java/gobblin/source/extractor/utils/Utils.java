@@ -22,15 +22,11 @@ import java.text.SimpleDateFormat;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang3.StringUtils;
-import org.codehaus.jackson.JsonNode;
-import org.codehaus.jackson.map.ObjectMapper;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
 import org.joda.time.format.DateTimeFormat;
@@ -39,9 +35,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Strings;
-import com.google.gson.Gson;
 import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 
 import gobblin.configuration.ConfigurationKeys;
@@ -50,7 +44,6 @@ import gobblin.source.extractor.watermark.WatermarkType;
 
 public class Utils {
   private static final Logger LOG = LoggerFactory.getLogger(Utils.class);
-  private static final Gson GSON = new Gson();
   private static final String CURRENT_DAY = "CURRENTDAY";
   private static final String CURRENT_HOUR = "CURRENTHOUR";
 
@@ -227,15 +220,11 @@ public class Utils {
    * @return JsonObject
    */
   public static JsonObject csvToJsonObject(List<String> bulkRecordHeader, List<String> record, int columnCount) {
-    ObjectMapper mapper = new ObjectMapper();
-    Map<String, String> resultInfo = new HashMap<>();
+    JsonObject jsonObject = new JsonObject();
     for (int i = 0; i < columnCount; i++) {
-      resultInfo.put(bulkRecordHeader.get(i), record.get(i));
+      jsonObject.addProperty(bulkRecordHeader.get(i), record.get(i));
     }
-
-    JsonNode json = mapper.valueToTree(resultInfo);
-    JsonElement element = GSON.fromJson(json.toString(), JsonObject.class);
-    return element.getAsJsonObject();
+    return jsonObject;
   }
 
   public static int getAsInt(String value, int defaultValue) {
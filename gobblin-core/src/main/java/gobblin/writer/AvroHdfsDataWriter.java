@@ -23,6 +23,7 @@ import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.avro.Schema;
 import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileConstants;
 import org.apache.avro.file.DataFileWriter;
 import org.apache.avro.generic.GenericDatumWriter;
 import org.apache.avro.generic.GenericRecord;
@@ -46,6 +47,11 @@ import gobblin.util.WriterUtils;
  *   property {@link ConfigurationKeys#WRITER_CODEC_TYPE}. By default, the deflate codec is used.
  * </p>
  *
+ * <p>
+ *   If {@link ConfigurationKeys#WRITER_COMPRESSION_THREADS} is positive and the codec is supported, blocks are
+ *   compressed on that many threads using a {@link ParallelBlockDataFileWriter} instead of on the writer thread.
+ * </p>
+ *
  * @author Yinan Li
  */
 public class AvroHdfsDataWriter extends FsDataWriter<GenericRecord> {
@@ -53,7 +59,8 @@ public class AvroHdfsDataWriter extends FsDataWriter<GenericRecord> {
   private final Schema schema;
   private final OutputStream stagingFileOutputStream;
   private final DatumWriter<GenericRecord> datumWriter;
-  private final DataFileWriter<GenericRecord> writer;
+  private final Optional<DataFileWriter<GenericRecord>> writer;
+  private final Optional<ParallelBlockDataFileWriter<GenericRecord>> parallelWriter;
 
   // Number of records successfully written
   protected final AtomicLong count = new AtomicLong(0);
@@ -61,16 +68,30 @@ public class AvroHdfsDataWriter extends FsDataWriter<GenericRecord> {
   public AvroHdfsDataWriter(FsDataWriterBuilder<Schema, GenericRecord> builder, State state) throws IOException {
     super(builder, state);
 
-    CodecFactory codecFactory = WriterUtils.getCodecFactory(
-        Optional.fromNullable(this.properties.getProp(ForkOperatorUtils
-            .getPropertyNameForBranch(ConfigurationKeys.WRITER_CODEC_TYPE, this.numBranches, this.branchId))),
-        Optional.fromNullable(this.properties.getProp(ForkOperatorUtils
-            .getPropertyNameForBranch(ConfigurationKeys.WRITER_DEFLATE_LEVEL, this.numBranches, this.branchId))));
+    Optional<String> codecName = Optional.fromNullable(this.properties.getProp(ForkOperatorUtils
+        .getPropertyNameForBranch(ConfigurationKeys.WRITER_CODEC_TYPE, this.numBranches, this.branchId)));
+    Optional<String> deflateLevel = Optional.fromNullable(this.properties.getProp(ForkOperatorUtils
+        .getPropertyNameForBranch(ConfigurationKeys.WRITER_DEFLATE_LEVEL, this.numBranches, this.branchId)));
+    int compressionThreads = this.properties.getPropAsInt(ForkOperatorUtils
+        .getPropertyNameForBranch(ConfigurationKeys.WRITER_COMPRESSION_THREADS, this.numBranches, this.branchId),
+        ConfigurationKeys.DEFAULT_WRITER_COMPRESSION_THREADS);
 
     this.schema = builder.getSchema();
     this.stagingFileOutputStream = createStagingFileOutputStream();
     this.datumWriter = new GenericDatumWriter<>();
-    this.writer = this.closer.register(createDataFileWriter(codecFactory));
+
+    String codec = codecName.or(DataFileConstants.DEFLATE_CODEC);
+    if (compressionThreads > 0 && ParallelBlockDataFileWriter.isSupportedCodec(codec)) {
+      this.parallelWriter = Optional.of(this.closer.register(new ParallelBlockDataFileWriter<>(this.datumWriter,
+          this.schema, this.stagingFileOutputStream, codec,
+          deflateLevel.isPresent() ? Integer.parseInt(deflateLevel.get()) : ConfigurationKeys.DEFAULT_DEFLATE_LEVEL,
+          compressionThreads)));
+      this.writer = Optional.absent();
+    } else {
+      this.writer = Optional.of(this.closer.register(createDataFileWriter(WriterUtils.getCodecFactory(codecName,
+          deflateLevel))));
+      this.parallelWriter = Optional.absent();
+    }
   }
 
   public FileSystem getFileSystem() {
@@ -81,7 +102,11 @@ public class AvroHdfsDataWriter extends FsDataWriter<GenericRecord> {
   public void write(GenericRecord record) throws IOException {
     Preconditions.checkNotNull(record);
 
-    this.writer.append(record);
+    if (this.parallelWriter.isPresent()) {
+      this.parallelWriter.get().append(record);
+    } else {
+      this.writer.get().append(record);
+    }
     // Only increment when write is successful
     this.count.incrementAndGet();
   }
@@ -26,6 +26,9 @@ public class JdbcWriterBuilder extends DataWriterBuilder<JdbcEntrySchema, JdbcEn
 
   @Override
   public DataWriter<JdbcEntryData> build() throws IOException {
+    if (ParallelJdbcWriter.getParallelism(this.destination.getProperties()) > 1) {
+      return new ParallelJdbcWriter(this);
+    }
     return new JdbcWriter(this);
   }
 }
\ No newline at end of file
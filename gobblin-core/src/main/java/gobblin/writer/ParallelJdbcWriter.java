@@ -0,0 +1,402 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gobblin.writer;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+
+import gobblin.configuration.ConfigurationKeys;
+import gobblin.configuration.State;
+import gobblin.converter.jdbc.JdbcEntryData;
+import gobblin.publisher.JdbcPublisher;
+import gobblin.util.ExecutorsUtils;
+import gobblin.util.ForkOperatorUtils;
+import gobblin.util.jdbc.DataSourceBuilder;
+import gobblin.writer.commands.JdbcBufferedInserter;
+import gobblin.writer.commands.JdbcWriterCommands;
+import gobblin.writer.commands.JdbcWriterCommandsFactory;
+
+
+/**
+ * A {@link DataWriter} that spreads inserts for one task over several JDBC connections.
+ *
+ * <p>
+ *   Each connection is driven by its own worker thread with its own {@link JdbcBufferedInserter}. The writer thread
+ *   only groups records into hand-off batches and passes them through a bounded queue, so while the workers are
+ *   executing statements the next batches are already being filled. The size of a hand-off batch adapts to the
+ *   observed insert latency so that one batch takes about {@link #WRITER_JDBC_PARALLEL_TARGET_BATCH_LATENCY_MS}
+ *   on a worker; it is always a multiple of {@link JdbcBufferedInserter#WRITER_JDBC_INSERT_BATCH_SIZE} so that
+ *   the pre-computed statements of the inserters are reused.
+ * </p>
+ *
+ * <p>
+ *   Like {@link JdbcWriter}, nothing is committed until {@link #commit()}: all connections are committed once every
+ *   worker has flushed, and all of them are rolled back on failure. Because each connection runs its own
+ *   transaction the commit itself is not atomic across connections, which is fine when writing to the staging
+ *   table that {@link JdbcPublisher} moves into the destination table.
+ * </p>
+ */
+public class ParallelJdbcWriter implements DataWriter<JdbcEntryData> {
+  private static final Logger LOG = LoggerFactory.getLogger(ParallelJdbcWriter.class);
+
+  public static final String WRITER_JDBC_PARALLEL_CONNECTIONS = ConfigurationKeys.WRITER_PREFIX + ".jdbc.parallel.connections";
+  public static final int DEFAULT_WRITER_JDBC_PARALLEL_CONNECTIONS = 1;
+  public static final String WRITER_JDBC_PARALLEL_TARGET_BATCH_LATENCY_MS =
+      ConfigurationKeys.WRITER_PREFIX + ".jdbc.parallel.target_batch_latency_ms";
+  public static final long DEFAULT_WRITER_JDBC_PARALLEL_TARGET_BATCH_LATENCY_MS = 500L;
+  public static final String WRITER_JDBC_PARALLEL_MAX_BATCH_SIZE = ConfigurationKeys.WRITER_PREFIX + ".jdbc.parallel.max_batch_size";
+  public static final int DEFAULT_WRITER_JDBC_PARALLEL_MAX_BATCH_SIZE = 10000;
+
+  /** Marks the end of input for a worker; compared by identity. */
+  private static final List<JdbcEntryData> END_OF_INPUT = new ArrayList<>(0);
+  private static final long QUEUE_POLL_INTERVAL_MS = 100L;
+
+  private final State state;
+  private final String databaseName;
+  private final String tableName;
+  private final List<Connection> connections;
+  private final List<? extends JdbcBufferedInserter> inserters;
+
+  private final ExecutorService executor;
+  private final BlockingQueue<List<JdbcEntryData>> queue;
+  private final List<Future<Void>> workers = Lists.newArrayList();
+  private final AtomicReference<Throwable> workerFailure = new AtomicReference<>();
+
+  private final int minBatchSize;
+  private final int maxBatchSize;
+  private final long targetBatchLatencyNanos;
+  private volatile int batchSize;
+
+  private List<JdbcEntryData> currentBatch;
+  private boolean failed;
+  private boolean committed;
+  private long recordWrittenCount;
+
+  public ParallelJdbcWriter(JdbcWriterBuilder builder) {
+    this.state = builder.destination.getProperties();
+    this.state.setProp(ConfigurationKeys.FORK_BRANCH_ID_KEY, Integer.toString(builder.branch));
+
+    String databaseTableKey = ForkOperatorUtils.getPropertyNameForBranch(JdbcPublisher.JDBC_PUBLISHER_DATABASE_NAME,
+        builder.branches, builder.branch);
+    this.databaseName = Preconditions.checkNotNull(this.state.getProp(databaseTableKey),
+        "Staging table is missing with key " + databaseTableKey);
+
+    String stagingTableKey = ForkOperatorUtils.getPropertyNameForBranch(ConfigurationKeys.WRITER_STAGING_TABLE,
+        builder.branches, builder.branch);
+    this.tableName = Preconditions.checkNotNull(this.state.getProp(stagingTableKey),
+        "Staging table is missing with key " + stagingTableKey);
+
+    int parallelism = getParallelism(this.state);
+    this.connections = Lists.newArrayListWithCapacity(parallelism);
+    List<JdbcWriterCommands> commands = Lists.newArrayListWithCapacity(parallelism);
+    try {
+      DataSource dataSource = createDataSource(parallelism);
+      JdbcWriterCommandsFactory factory = new JdbcWriterCommandsFactory();
+      for (int i = 0; i < parallelism; i++) {
+        Connection conn = dataSource.getConnection();
+        this.connections.add(conn);
+        JdbcWriterCommands command = factory.newInstance(this.state, conn);
+        command.setConnectionParameters(this.state.getProperties(), conn);
+        commands.add(command);
+      }
+    } catch (SQLException e) {
+      closeConnections();
+      throw new RuntimeException(e);
+    }
+    this.inserters = commands;
+
+    this.minBatchSize = getInsertBatchSize(this.state);
+    this.maxBatchSize = Math.max(this.minBatchSize, this.state.getPropAsInt(WRITER_JDBC_PARALLEL_MAX_BATCH_SIZE,
+        DEFAULT_WRITER_JDBC_PARALLEL_MAX_BATCH_SIZE));
+    this.targetBatchLatencyNanos = TimeUnit.MILLISECONDS.toNanos(this.state.getPropAsLong(
+        WRITER_JDBC_PARALLEL_TARGET_BATCH_LATENCY_MS, DEFAULT_WRITER_JDBC_PARALLEL_TARGET_BATCH_LATENCY_MS));
+    this.batchSize = this.minBatchSize;
+    this.queue = new ArrayBlockingQueue<>(parallelism);
+    this.executor = Executors.newFixedThreadPool(parallelism,
+        ExecutorsUtils.newDaemonThreadFactory(Optional.of(LOG), Optional.of("ParallelJdbcWriter-%d")));
+    startWorkers();
+  }
+
+  @VisibleForTesting
+  ParallelJdbcWriter(State state, String databaseName, String table, List<Connection> connections,
+      List<? extends JdbcBufferedInserter> inserters) {
+    Preconditions.checkArgument(!connections.isEmpty() && connections.size() == inserters.size(),
+        "One inserter per connection is required");
+    this.state = state;
+    this.databaseName = databaseName;
+    this.tableName = table;
+    this.connections = connections;
+    this.inserters = inserters;
+
+    this.minBatchSize = getInsertBatchSize(state);
+    this.maxBatchSize = Math.max(this.minBatchSize,
+        state.getPropAsInt(WRITER_JDBC_PARALLEL_MAX_BATCH_SIZE, DEFAULT_WRITER_JDBC_PARALLEL_MAX_BATCH_SIZE));
+    this.targetBatchLatencyNanos = TimeUnit.MILLISECONDS.toNanos(state.getPropAsLong(
+        WRITER_JDBC_PARALLEL_TARGET_BATCH_LATENCY_MS, DEFAULT_WRITER_JDBC_PARALLEL_TARGET_BATCH_LATENCY_MS));
+    this.batchSize = this.minBatchSize;
+    this.queue = new ArrayBlockingQueue<>(connections.size());
+    this.executor = Executors.newFixedThreadPool(connections.size(),
+        ExecutorsUtils.newDaemonThreadFactory(Optional.of(LOG), Optional.of("ParallelJdbcWriter-%d")));
+    startWorkers();
+  }
+
+  /**
+   * @return the number of connections configured for a writer with the given state.
+   */
+  public static int getParallelism(State state) {
+    return Math.max(1, state.getPropAsInt(WRITER_JDBC_PARALLEL_CONNECTIONS, DEFAULT_WRITER_JDBC_PARALLEL_CONNECTIONS));
+  }
+
+  private static int getInsertBatchSize(State state) {
+    return Math.max(1, state.getPropAsInt(JdbcBufferedInserter.WRITER_JDBC_INSERT_BATCH_SIZE,
+        JdbcBufferedInserter.DEFAULT_WRITER_JDBC_INSERT_BATCH_SIZE));
+  }
+
+  private DataSource createDataSource(int parallelism) {
+    return DataSourceBuilder.builder().url(this.state.getProp(JdbcPublisher.JDBC_PUBLISHER_URL))
+        .driver(this.state.getProp(JdbcPublisher.JDBC_PUBLISHER_DRIVER))
+        .userName(this.state.getProp(JdbcPublisher.JDBC_PUBLISHER_USERNAME))
+        .passWord(this.state.getProp(JdbcPublisher.JDBC_PUBLISHER_PASSWORD))
+        .cryptoKeyLocation(this.state.getProp(JdbcPublisher.JDBC_PUBLISHER_ENCRYPTION_KEY_LOC))
+        .maxActiveConnections(parallelism).maxIdleConnections(parallelism).state(this.state).build();
+  }
+
+  private void startWorkers() {
+    this.currentBatch = Lists.newArrayListWithCapacity(this.batchSize);
+    for (final JdbcBufferedInserter inserter : this.inserters) {
+      this.workers.add(this.executor.submit(new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          try {
+            runWorker(inserter);
+            return null;
+          } catch (Throwable t) {
+            ParallelJdbcWriter.this.workerFailure.compareAndSet(null, t);
+            throw t;
+          }
+        }
+      }));
+    }
+  }
+
+  private void runWorker(JdbcBufferedInserter inserter) throws SQLException, InterruptedException {
+    while (true) {
+      List<JdbcEntryData> batch = this.queue.take();
+      if (batch == END_OF_INPUT) {
+        inserter.flush();
+        return;
+      }
+      long startNanos = System.nanoTime();
+      for (JdbcEntryData record : batch) {
+        inserter.insert(this.databaseName, this.tableName, record);
+      }
+      adjustBatchSize(batch.size(), System.nanoTime() - startNanos);
+    }
+  }
+
+  /**
+   * Moves the hand-off batch size halfway towards the size that would take {@link #targetBatchLatencyNanos} at the
+   * observed per-record latency. Partial batches say little about throughput and are ignored. Concurrent updates
+   * from several workers may overwrite each other, which only slows the convergence down.
+   */
+  private void adjustBatchSize(int records, long elapsedNanos) {
+    int current = this.batchSize;
+    if (records < current / 2 || elapsedNanos <= 0) {
+      return;
+    }
+    double nanosPerRecord = (double) elapsedNanos / records;
+    long target = Math.max(this.minBatchSize, Math.min(this.maxBatchSize, (long) (this.targetBatchLatencyNanos / nanosPerRecord)));
+    int next = (int) ((current + target) / 2);
+    next = Math.max(this.minBatchSize, next / this.minBatchSize * this.minBatchSize);
+    if (next != current) {
+      if (LOG.isDebugEnabled()) {
+        LOG.debug(String.format("Hand-off batch size %d -> %d (%.1f us per record)", current, next,
+            nanosPerRecord / 1000));
+      }
+      this.batchSize = next;
+    }
+  }
+
+  @VisibleForTesting
+  int getBatchSize() {
+    return this.batchSize;
+  }
+
+  private void enqueue(List<JdbcEntryData> batch) throws InterruptedException {
+    while (!this.queue.offer(batch, QUEUE_POLL_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+      checkWorkerFailure();
+    }
+  }
+
+  private void checkWorkerFailure() {
+    Throwable t = this.workerFailure.get();
+    if (t != null) {
+      this.failed = true;
+      throw new RuntimeException("JDBC insert failed on a writer connection", t);
+    }
+  }
+
+  /**
+   * Adds the record to the current hand-off batch and passes the batch to the workers once it is full. Blocks
+   * while all workers are busy and the queue is full.
+   * {@inheritDoc}
+   * @see gobblin.writer.DataWriter#write(java.lang.Object)
+   */
+  @Override
+  public void write(JdbcEntryData record) throws IOException {
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Writing " + record);
+    }
+    checkWorkerFailure();
+    this.currentBatch.add(record);
+    this.recordWrittenCount++;
+    if (this.currentBatch.size() >= this.batchSize) {
+      try {
+        enqueue(this.currentBatch);
+      } catch (InterruptedException e) {
+        this.failed = true;
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while handing off JDBC batch", e);
+      }
+      this.currentBatch = Lists.newArrayListWithCapacity(this.batchSize);
+    }
+  }
+
+  /**
+   * Hands off the last batch, waits for every worker to flush and commits all connections.
+   * {@inheritDoc}
+   * @see gobblin.writer.DataWriter#commit()
+   */
+  @Override
+  public void commit() throws IOException {
+    try {
+      LOG.info("Flushing pending insert.");
+      if (!this.currentBatch.isEmpty()) {
+        enqueue(this.currentBatch);
+        this.currentBatch = Lists.newArrayList();
+      }
+      for (int i = 0; i < this.workers.size(); i++) {
+        enqueue(END_OF_INPUT);
+      }
+      for (Future<Void> worker : this.workers) {
+        worker.get();
+      }
+      LOG.info(String.format("Commiting transaction on %d connections.", this.connections.size()));
+      for (Connection conn : this.connections) {
+        conn.commit();
+      }
+      this.committed = true;
+    } catch (ExecutionException e) {
+      this.failed = true;
+      throw new RuntimeException(e.getCause());
+    } catch (InterruptedException e) {
+      this.failed = true;
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while committing JDBC writer", e);
+    } catch (Exception e) {
+      this.failed = true;
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Staging table is needed by publisher and won't be cleaned here.
+   * {@inheritDoc}
+   * @see gobblin.writer.DataWriter#cleanup()
+   */
+  @Override
+  public void cleanup() throws IOException {}
+
+  /**
+   * Stops the workers and, if there's a failure, rolls back all connections.
+   * {@inheritDoc}
+   * @see java.io.Closeable#close()
+   */
+  @Override
+  public void close() throws IOException {
+    if (!this.committed) {
+      // Workers still waiting for input are interrupted; whatever they inserted is rolled back below.
+      this.failed |= this.recordWrittenCount > 0 || this.workerFailure.get() != null;
+      for (Future<Void> worker : this.workers) {
+        worker.cancel(true);
+      }
+    }
+    ExecutorsUtils.shutdownExecutorService(this.executor, Optional.of(LOG), 1, TimeUnit.MINUTES);
+    SQLException rollbackFailure = null;
+    if (this.failed) {
+      for (Connection conn : this.connections) {
+        try {
+          conn.rollback();
+        } catch (SQLException e) {
+          LOG.error("Failed to roll back JDBC connection", e);
+          rollbackFailure = e;
+        }
+      }
+    }
+    closeConnections();
+    if (rollbackFailure != null) {
+      throw new RuntimeException(rollbackFailure);
+    }
+  }
+
+  private void closeConnections() {
+    for (Connection conn : this.connections) {
+      try {
+        conn.close();
+      } catch (SQLException e) {
+        LOG.warn("Failed to close JDBC connection", e);
+      }
+    }
+  }
+
+  @Override
+  public long recordsWritten() {
+    return this.recordWrittenCount;
+  }
+
+  /**
+   * This is not supported for JDBC writer.
+   * {@inheritDoc}
+   * @see gobblin.writer.DataWriter#bytesWritten()
+   */
+  @Override
+  public long bytesWritten() throws IOException {
+    return -1L;
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package gobblin.writer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericRecord;
+
+import com.google.common.base.Preconditions;
+
+import gobblin.configuration.ConfigurationKeys;
+import gobblin.configuration.State;
+import gobblin.util.ForkOperatorUtils;
+
+import parquet.avro.AvroParquetWriter;
+import parquet.hadoop.ParquetWriter;
+import parquet.hadoop.metadata.CompressionCodecName;
+
+
+/**
+ * An extension to {@link FsDataWriter} that writes Avro {@link GenericRecord}s in Parquet format.
+ *
+ * <p>
+ *   The compression codec, row group size, page size and dictionary encoding can be configured through
+ *   {@link #COMPRESSION_CODEC}, {@link #ROW_GROUP_SIZE}, {@link #PAGE_SIZE} and {@link #DICTIONARY_ENABLED}. The row
+ *   group size actually used is allocated from the {@link ParquetRowGroupMemoryBudget} shared by all Parquet writers,
+ *   so that many open writers cannot exhaust the heap.
+ * </p>
+ */
+public class ParquetHdfsDataWriter extends FsDataWriter<GenericRecord> {
+
+  public static final String COMPRESSION_CODEC = ConfigurationKeys.WRITER_PREFIX + ".parquet.compression.codec";
+  public static final String DEFAULT_COMPRESSION_CODEC = CompressionCodecName.SNAPPY.name();
+  public static final String ROW_GROUP_SIZE = ConfigurationKeys.WRITER_PREFIX + ".parquet.rowGroup.size";
+  public static final long DEFAULT_ROW_GROUP_SIZE = ParquetWriter.DEFAULT_BLOCK_SIZE;
+  public static final String PAGE_SIZE = ConfigurationKeys.WRITER_PREFIX + ".parquet.page.size";
+  public static final int DEFAULT_PAGE_SIZE = ParquetWriter.DEFAULT_PAGE_SIZE;
+  public static final String DICTIONARY_ENABLED = ConfigurationKeys.WRITER_PREFIX + ".parquet.dictionary.enabled";
+  public static final boolean DEFAULT_DICTIONARY_ENABLED = true;
+
+  private final ParquetWriter<GenericRecord> writer;
+
+  // Number of records successfully written
+  protected final AtomicLong count = new AtomicLong(0);
+
+  public ParquetHdfsDataWriter(FsDataWriterBuilder<Schema, GenericRecord> builder, State state) throws IOException {
+    super(builder, state);
+    Preconditions.checkArgument(getEncoders().isEmpty(), "Stream encoders are not supported for Parquet output.");
+
+    CompressionCodecName codec = CompressionCodecName.valueOf(this.properties.getProp(
+        ForkOperatorUtils.getPropertyNameForBranch(COMPRESSION_CODEC, this.numBranches, this.branchId),
+        DEFAULT_COMPRESSION_CODEC).toUpperCase());
+    long requestedRowGroupSize = this.properties.getPropAsLong(
+        ForkOperatorUtils.getPropertyNameForBranch(ROW_GROUP_SIZE, this.numBranches, this.branchId),
+        DEFAULT_ROW_GROUP_SIZE);
+    int pageSize = this.properties.getPropAsInt(
+        ForkOperatorUtils.getPropertyNameForBranch(PAGE_SIZE, this.numBranches, this.branchId), DEFAULT_PAGE_SIZE);
+    boolean enableDictionary = this.properties.getPropAsBoolean(
+        ForkOperatorUtils.getPropertyNameForBranch(DICTIONARY_ENABLED, this.numBranches, this.branchId),
+        DEFAULT_DICTIONARY_ENABLED);
+
+    final ParquetRowGroupMemoryBudget memoryBudget = ParquetRowGroupMemoryBudget.get(this.properties);
+    int rowGroupSize = (int) Math.min(memoryBudget.allocate(this, requestedRowGroupSize), Integer.MAX_VALUE);
+    // Registered before the Parquet writer so the memory is released after the writer is closed
+    this.closer.register(new Closeable() {
+      @Override
+      public void close() throws IOException {
+        memoryBudget.release(ParquetHdfsDataWriter.this);
+      }
+    });
+
+    try {
+      this.writer = this.closer.register(new AvroParquetWriter<GenericRecord>(this.fs.makeQualified(this.stagingFile),
+          builder.getSchema(), codec, rowGroupSize, pageSize, enableDictionary, this.fs.getConf()));
+    } catch (IOException | RuntimeException e) {
+      memoryBudget.release(this);
+      throw e;
+    }
+  }
+
+  @Override
+  public void write(GenericRecord record) throws IOException {
+    Preconditions.checkNotNull(record);
+
+    this.writer.write(record);
+    // Only increment when write is successful
+    this.count.incrementAndGet();
+  }
+
+  @Override
+  public long recordsWritten() {
+    return this.count.get();
+  }
+
+  @Override
+  public boolean isSpeculativeAttemptSafe() {
+    return this.writerAttemptIdOptional.isPresent() && this.getClass() == ParquetHdfsDataWriter.class;
+  }
+}
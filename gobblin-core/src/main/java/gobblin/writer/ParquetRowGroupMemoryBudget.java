@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package gobblin.writer;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Sets;
+
+import gobblin.configuration.State;
+
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * A memory budget for the row groups buffered by {@link ParquetHdfsDataWriter}s, shared by all Parquet writers in the
+ * JVM (e.g. the writers of all partitions of a {@link PartitionedDataWriter}).
+ *
+ * <p>
+ *   A Parquet writer buffers a full row group in memory before flushing it, so each writer is allocated its row group
+ *   size from the budget when it is created, and returns it when it is closed. A writer gets the row group size it asks
+ *   for if the budget allows it, otherwise the remaining budget, but never less than {@link #MIN_ROW_GROUP_SIZE}.
+ *   The budget can only be exceeded when so many writers are open that each one is at the minimum row group size.
+ * </p>
+ *
+ * <p>
+ *   The budget is configured by the first writer calling {@link #get(State)}. Writers of later jobs in the same JVM
+ *   share it, and a warning is logged if they are configured with a different budget.
+ * </p>
+ */
+@Slf4j
+public class ParquetRowGroupMemoryBudget {
+
+  /** Fraction of the maximum heap size used for buffering row groups. */
+  public static final String MEMORY_POOL_RATIO = "writer.parquet.memory.pool.ratio";
+  public static final double DEFAULT_MEMORY_POOL_RATIO = 0.5;
+  /** Minimum row group size allocated to a writer. */
+  public static final String MIN_ROW_GROUP_SIZE = "writer.parquet.rowGroup.minSize";
+  public static final long DEFAULT_MIN_ROW_GROUP_SIZE = 1024 * 1024;
+
+  private static ParquetRowGroupMemoryBudget instance;
+
+  private final double ratio;
+  private final long budget;
+  private final long minRowGroupSize;
+  private final Set<String> ignoredSettings = Sets.newHashSet();
+  private final Map<Object, Long> allocations = new IdentityHashMap<>();
+  private long allocated = 0;
+
+  @VisibleForTesting
+  ParquetRowGroupMemoryBudget(long budget, long minRowGroupSize) {
+    this(budget, minRowGroupSize, (double) budget / Runtime.getRuntime().maxMemory());
+  }
+
+  private ParquetRowGroupMemoryBudget(long budget, long minRowGroupSize, double ratio) {
+    Preconditions.checkArgument(budget > 0, "Memory budget must be positive.");
+    Preconditions.checkArgument(minRowGroupSize > 0, "Minimum row group size must be positive.");
+    this.ratio = ratio;
+    this.budget = budget;
+    this.minRowGroupSize = minRowGroupSize;
+  }
+
+  /**
+   * Get the budget shared by all Parquet writers in the JVM, creating it from the given {@link State} if needed.
+   * If the budget already exists with different settings, they are kept and the ones in the {@link State} are ignored.
+   */
+  public static synchronized ParquetRowGroupMemoryBudget get(State state) {
+    double ratio = state.getPropAsDouble(MEMORY_POOL_RATIO, DEFAULT_MEMORY_POOL_RATIO);
+    Preconditions.checkArgument(ratio > 0 && ratio <= 1, MEMORY_POOL_RATIO + " must be in (0, 1].");
+    long minRowGroupSize = state.getPropAsLong(MIN_ROW_GROUP_SIZE, DEFAULT_MIN_ROW_GROUP_SIZE);
+
+    if (instance == null) {
+      instance = new ParquetRowGroupMemoryBudget((long) (Runtime.getRuntime().maxMemory() * ratio), minRowGroupSize,
+          ratio);
+      log.info(String.format("Using a row group memory budget of %d bytes for Parquet writers.", instance.budget));
+    } else if (ratio != instance.ratio || minRowGroupSize != instance.minRowGroupSize) {
+      String settings = String.format("%s=%s, %s=%d", MEMORY_POOL_RATIO, ratio, MIN_ROW_GROUP_SIZE, minRowGroupSize);
+      if (instance.ignoredSettings.add(settings)) {
+        log.warn(String.format("Ignoring %s: Parquet writers in this JVM share the row group memory budget created "
+            + "with %s=%s, %s=%d.", settings, MEMORY_POOL_RATIO, instance.ratio, MIN_ROW_GROUP_SIZE,
+            instance.minRowGroupSize));
+      }
+    }
+    return instance;
+  }
+
+  /**
+   * Allocate the row group size for a writer.
+   *
+   * @param writer the writer to allocate memory to
+   * @param requestedRowGroupSize the row group size configured for the writer
+   * @return the row group size the writer should use
+   */
+  public synchronized long allocate(Object writer, long requestedRowGroupSize) {
+    Preconditions.checkState(!this.allocations.containsKey(writer), "Writer already has an allocation.");
+
+    long available = this.budget - this.allocated;
+    long rowGroupSize = Math.min(requestedRowGroupSize, Math.max(this.minRowGroupSize, available));
+    if (rowGroupSize > available) {
+      log.warn(String.format("Parquet row group memory budget of %d bytes exceeded by %d open writers.", this.budget,
+          this.allocations.size() + 1));
+    }
+
+    this.allocations.put(writer, rowGroupSize);
+    this.allocated += rowGroupSize;
+    return rowGroupSize;
+  }
+
+  /**
+   * Return the memory allocated to a writer to the budget.
+   */
+  public synchronized void release(Object writer) {
+    Long rowGroupSize = this.allocations.remove(writer);
+    if (rowGroupSize != null) {
+      this.allocated -= rowGroupSize;
+    }
+  }
+
+  /**
+   * @return the total row group size currently allocated to writers.
+   */
+  public synchronized long getAllocated() {
+    return this.allocated;
+  }
+}
@@ -18,6 +18,9 @@
 package gobblin.writer.partitioner;
 
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.apache.avro.Schema;
 import org.apache.avro.SchemaBuilder;
@@ -26,7 +29,10 @@ import org.apache.avro.generic.GenericData;
 import org.apache.avro.generic.GenericRecord;
 import org.apache.commons.lang3.StringUtils;
 import org.joda.time.DateTime;
+import org.joda.time.DateTimeField;
+import org.joda.time.DateTimeFieldType;
 import org.joda.time.DateTimeZone;
+import org.joda.time.chrono.ISOChronology;
 import org.joda.time.format.DateTimeFormat;
 import org.joda.time.format.DateTimeFormatter;
 
@@ -34,6 +40,8 @@ import com.google.common.base.Enums;
 import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 
 import gobblin.configuration.ConfigurationKeys;
 import gobblin.configuration.State;
@@ -51,6 +59,11 @@ import gobblin.util.ForkOperatorUtils;
  * A prefix and a suffix can be added to the partition, e.g., the partition path can be
  * 'prefix/2015/11/05/suffix'.
  *
+ * Partitions are memoized per time bucket (e.g., per hour for 'yyyy/MM/dd/HH'): while record timestamps stay
+ * within the current bucket, {@link #partitionForRecord(Object)} returns the same partition instance without
+ * allocating, and the partitions of the last {@link #MAX_CACHED_PARTITIONS} buckets are reused. Buckets are split at
+ * the transitions of the time zone, where time zone names and offsets in the pattern change.
+ *
  * @author Ziyang Liu
  */
 public abstract class TimeBasedWriterPartitioner<D> implements WriterPartitioner<D> {
@@ -67,12 +80,56 @@ public abstract class TimeBasedWriterPartitioner<D> implements WriterPartitioner
   public static final String PREFIX = "prefix";
   public static final String SUFFIX = "suffix";
 
+  /**
+   * Number of recent time buckets whose partitions are kept, so records going back and forth between a few
+   * buckets still share partition instances.
+   */
+  public static final int MAX_CACHED_PARTITIONS = 64;
+
+  /**
+   * Time bucket fields, from coarsest to finest.
+   */
+  private static final List<DateTimeFieldType> BUCKET_FIELD_TYPES = ImmutableList.of(DateTimeFieldType.year(),
+      DateTimeFieldType.monthOfYear(), DateTimeFieldType.dayOfMonth(), DateTimeFieldType.hourOfDay(),
+      DateTimeFieldType.minuteOfHour(), DateTimeFieldType.secondOfMinute());
+
+  /**
+   * The time bucket within which each {@link DateTimeFormat} pattern letter is constant. Week based letters are
+   * mapped to days since weeks do not nest in months or years. Time zone letters are mapped to hours, since buckets
+   * are also split at time zone transitions. Letters that are not listed (e.g., fraction of second) disable
+   * memoization.
+   */
+  private static final Map<Character, DateTimeFieldType> PATTERN_BUCKET_FIELD_TYPES =
+      ImmutableMap.<Character, DateTimeFieldType> builder()
+          .put('G', DateTimeFieldType.year()).put('C', DateTimeFieldType.year())
+          .put('Y', DateTimeFieldType.year()).put('y', DateTimeFieldType.year())
+          .put('x', DateTimeFieldType.dayOfMonth()).put('w', DateTimeFieldType.dayOfMonth())
+          .put('M', DateTimeFieldType.monthOfYear())
+          .put('D', DateTimeFieldType.dayOfMonth()).put('d', DateTimeFieldType.dayOfMonth())
+          .put('e', DateTimeFieldType.dayOfMonth()).put('E', DateTimeFieldType.dayOfMonth())
+          .put('a', DateTimeFieldType.hourOfDay()).put('h', DateTimeFieldType.hourOfDay())
+          .put('H', DateTimeFieldType.hourOfDay()).put('k', DateTimeFieldType.hourOfDay())
+          .put('K', DateTimeFieldType.hourOfDay())
+          .put('z', DateTimeFieldType.hourOfDay()).put('Z', DateTimeFieldType.hourOfDay())
+          .put('m', DateTimeFieldType.minuteOfHour())
+          .put('s', DateTimeFieldType.secondOfMinute())
+          .build();
+
   private final String writerPartitionPrefix;
   private final String writerPartitionSuffix;
   private final DatePartitionType granularity;
   private final DateTimeZone timeZone;
   private final Optional<DateTimeFormatter> timestampToPathFormatter;
   private final Schema schema;
+  private final Optional<DateTimeField> bucketField;
+  private final Map<Long, GenericRecord> cachedPartitions =
+      new LinkedHashMap<Long, GenericRecord>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, GenericRecord> eldest) {
+          return size() > MAX_CACHED_PARTITIONS;
+        }
+      };
+  private volatile TimeBucket currentBucket;
 
   public TimeBasedWriterPartitioner(State state, int numBranches, int branchId) {
     this.writerPartitionPrefix = getWriterPartitionPrefix(state, numBranches, branchId);
@@ -81,6 +138,7 @@ public abstract class TimeBasedWriterPartitioner<D> implements WriterPartitioner
     this.timeZone = getTimeZone(state, numBranches, branchId);
     this.timestampToPathFormatter = getTimestampToPathFormatter(state, numBranches, branchId);
     this.schema = getSchema();
+    this.bucketField = getBucketField(state, numBranches, branchId);
   }
 
   private static String getWriterPartitionPrefix(State state, int numBranches, int branchId) {
@@ -117,6 +175,45 @@ public abstract class TimeBasedWriterPartitioner<D> implements WriterPartitioner
     return DateTimeZone.forID(state.getProp(propName, DEFAULT_WRITER_PARTITION_TIMEZONE));
   }
 
+  private Optional<DateTimeField> getBucketField(State state, int numBranches, int branchId) {
+    Optional<DateTimeFieldType> bucketFieldType;
+    if (this.timestampToPathFormatter.isPresent()) {
+      String propName = ForkOperatorUtils.getPropertyNameForBranch(WRITER_PARTITION_PATTERN, numBranches, branchId);
+      bucketFieldType = getBucketFieldType(state.getProp(propName));
+    } else {
+      bucketFieldType = Optional.of(this.granularity.getDateTimeFieldType());
+    }
+
+    if (bucketFieldType.isPresent()) {
+      return Optional.of(bucketFieldType.get().getField(ISOChronology.getInstance(this.timeZone)));
+    }
+    return Optional.absent();
+  }
+
+  /**
+   * Get the finest time bucket field within which the given {@link DateTimeFormat} pattern prints the same string,
+   * or absent if there is none.
+   */
+  static Optional<DateTimeFieldType> getBucketFieldType(String pattern) {
+    int finest = -1;
+    boolean inQuote = false;
+    for (char c : pattern.toCharArray()) {
+      if (c == '\'') {
+        inQuote = !inQuote;
+        continue;
+      }
+      if (inQuote || !Character.isLetter(c)) {
+        continue;
+      }
+      DateTimeFieldType fieldType = PATTERN_BUCKET_FIELD_TYPES.get(c);
+      if (fieldType == null) {
+        return Optional.absent();
+      }
+      finest = Math.max(finest, BUCKET_FIELD_TYPES.indexOf(fieldType));
+    }
+    return finest < 0 ? Optional.<DateTimeFieldType> absent() : Optional.of(BUCKET_FIELD_TYPES.get(finest));
+  }
+
   private Schema getSchema() {
     if (this.timestampToPathFormatter.isPresent()) {
       return getDateTimeFormatBasedSchema();
@@ -129,11 +226,46 @@ public abstract class TimeBasedWriterPartitioner<D> implements WriterPartitioner
     return this.schema;
   }
 
-  @SuppressWarnings("fallthrough")
   @Override
   public GenericRecord partitionForRecord(D record) {
     long timestamp = getRecordTimestamp(record);
-    GenericRecord partition = new GenericData.Record(this.schema);
+
+    TimeBucket bucket = this.currentBucket;
+    if (bucket != null && timestamp >= bucket.start && timestamp < bucket.end) {
+      return bucket.partition;
+    }
+    if (!this.bucketField.isPresent()) {
+      return createPartition(timestamp);
+    }
+    return updateCurrentBucket(timestamp).partition;
+  }
+
+  private synchronized TimeBucket updateCurrentBucket(long timestamp) {
+    DateTimeField field = this.bucketField.get();
+    long start = field.roundFloor(timestamp);
+    long end = field.roundCeiling(start + 1);
+    // Time zone names and offsets change at transitions, which do not always fall on an hour boundary
+    long transition = this.timeZone.nextTransition(start);
+    if (transition > start && transition <= timestamp) {
+      start = transition;
+    }
+    transition = this.timeZone.nextTransition(timestamp);
+    if (transition > timestamp && transition < end) {
+      end = transition;
+    }
+
+    GenericRecord partition = this.cachedPartitions.get(start);
+    if (partition == null) {
+      partition = createPartition(timestamp);
+      this.cachedPartitions.put(start, partition);
+    }
+    TimeBucket bucket = new TimeBucket(start, end, partition);
+    this.currentBucket = bucket;
+    return bucket;
+  }
+
+  private GenericRecord createPartition(long timestamp) {
+    GenericRecord partition = new TimePartitionRecord(this.schema);
     if (!Strings.isNullOrEmpty(this.writerPartitionPrefix)) {
       partition.put(PREFIX, this.writerPartitionPrefix);
     }
@@ -192,4 +324,52 @@ public abstract class TimeBasedWriterPartitioner<D> implements WriterPartitioner
   }
 
   public abstract long getRecordTimestamp(D record);
-}
\ No newline at end of file
+
+  /**
+   * A time bucket [start, end) and its partition.
+   */
+  private static class TimeBucket {
+    private final long start;
+    private final long end;
+    private final GenericRecord partition;
+
+    private TimeBucket(long start, long end, GenericRecord partition) {
+      this.start = start;
+      this.end = end;
+      this.partition = partition;
+    }
+  }
+
+  /**
+   * A partition record that caches its hash code, since partitions are used as cache keys for every record.
+   */
+  private static class TimePartitionRecord extends GenericData.Record {
+    private int hash;
+
+    private TimePartitionRecord(Schema schema) {
+      super(schema);
+    }
+
+    @Override
+    public void put(String key, Object value) {
+      super.put(key, value);
+      this.hash = 0;
+    }
+
+    @Override
+    public void put(int i, Object v) {
+      super.put(i, v);
+      this.hash = 0;
+    }
+
+    @Override
+    public int hashCode() {
+      int h = this.hash;
+      if (h == 0) {
+        h = super.hashCode();
+        this.hash = h;
+      }
+      return h;
+    }
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package gobblin.converter.avro;
+
+import java.io.InputStreamReader;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericRecord;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.CharStreams;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import gobblin.configuration.ConfigurationKeys;
+import gobblin.configuration.SourceState;
+import gobblin.configuration.WorkUnitState;
+import gobblin.converter.DataConversionException;
+import gobblin.source.workunit.Extract.TableType;
+
+
+/**
+ * Unit test for {@link JsonStringToAvroConverter}
+ */
+@Test(groups = {"gobblin.converter"})
+public class JsonStringToAvroConverterTest {
+  private String jsonSchema;
+  private String jsonRecord;
+  private WorkUnitState state;
+
+  @BeforeClass
+  public void setUp()
+      throws Exception {
+    jsonSchema = CharStreams.toString(
+        new InputStreamReader(this.getClass().getResourceAsStream("/converter/schema.json"), Charsets.UTF_8));
+    jsonRecord = CharStreams.toString(
+        new InputStreamReader(this.getClass().getResourceAsStream("/converter/record.json"), Charsets.UTF_8));
+
+    SourceState source = new SourceState();
+    state = new WorkUnitState(
+        source.createWorkUnit(source.createExtract(TableType.SNAPSHOT_ONLY, "test_table", "test_namespace")));
+    state.setProp(ConfigurationKeys.CONVERTER_AVRO_TIME_FORMAT, "HH:mm:ss");
+    state.setProp(ConfigurationKeys.CONVERTER_AVRO_DATE_TIMEZONE, "PST");
+  }
+
+  @Test
+  public void testConverterMatchesIntermediateConversion()
+      throws Exception {
+    JsonStringToAvroConverter converter = new JsonStringToAvroConverter();
+    Schema avroSchema = converter.convertSchema(jsonSchema, state);
+    GenericRecord record = converter.convertRecord(avroSchema, jsonRecord, state).iterator().next();
+
+    JsonIntermediateToAvroConverter intermediateConverter = new JsonIntermediateToAvroConverter();
+    Schema intermediateSchema = intermediateConverter.convertSchema(
+        new JsonParser().parse(jsonSchema).getAsJsonArray(), state);
+    GenericRecord expected = intermediateConverter.convertRecord(intermediateSchema,
+        new JsonParser().parse(jsonRecord).getAsJsonObject(), state).iterator().next();
+
+    Assert.assertEquals(avroSchema, intermediateSchema);
+    Assert.assertEquals(record, expected);
+  }
+
+  @Test
+  public void testUnknownAndMissingFields()
+      throws Exception {
+    JsonStringToAvroConverter converter = new JsonStringToAvroConverter();
+    Schema avroSchema = converter.convertSchema(jsonSchema, state);
+
+    JsonObject withUnknownField = new JsonParser().parse(jsonRecord).getAsJsonObject();
+    withUnknownField.add("unknown", new JsonParser().parse("{\"nested\":[1, 2, {\"a\":null}]}"));
+    GenericRecord record = converter.convertRecord(avroSchema, withUnknownField.toString(), state).iterator().next();
+    Assert.assertEquals(record.get("Id").toString(), "232498");
+    Assert.assertNull(record.get("string_type_null"));
+
+    JsonObject withMissingField = new JsonParser().parse(jsonRecord).getAsJsonObject();
+    withMissingField.remove("Id");
+    try {
+      converter.convertRecord(avroSchema, withMissingField.toString(), state);
+      Assert.fail("Conversion of a record without a non nullable field should fail");
+    } catch (DataConversionException e) {
+      // expected
+    }
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gobblin.writer;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+import gobblin.configuration.State;
+import gobblin.converter.jdbc.JdbcEntryData;
+import gobblin.converter.jdbc.JdbcEntryDatum;
+import gobblin.writer.commands.GenericJdbcBufferedInserter;
+import gobblin.writer.commands.JdbcBufferedInserter;
+
+
+/**
+ * Runs {@link ParallelJdbcWriter} against an in-memory Derby database.
+ */
+@Test(groups = { "gobblin.writer" }, singleThreaded = true)
+public class ParallelJdbcWriterTest {
+  private static final String URL = "jdbc:derby:memory:parallelJdbcWriterTest;create=true";
+  private static final String DB = "stg_db";
+  private static final String TABLE = "stg_table";
+
+  private Connection adminConn;
+
+  @BeforeClass
+  public void setUp() throws SQLException {
+    this.adminConn = DriverManager.getConnection(URL);
+    try (Statement stmt = this.adminConn.createStatement()) {
+      stmt.execute("CREATE SCHEMA " + DB);
+      stmt.execute("CREATE TABLE " + DB + "." + TABLE + " (id INT NOT NULL, name VARCHAR(32))");
+    }
+  }
+
+  @AfterClass
+  public void tearDown() throws SQLException {
+    this.adminConn.close();
+  }
+
+  public void testWriteAndCommit() throws Exception {
+    truncate();
+    State state = new State();
+    state.setProp(JdbcBufferedInserter.WRITER_JDBC_INSERT_BATCH_SIZE, 7);
+    state.setProp(ParallelJdbcWriter.WRITER_JDBC_PARALLEL_MAX_BATCH_SIZE, 70);
+    state.setProp(ParallelJdbcWriter.WRITER_JDBC_PARALLEL_TARGET_BATCH_LATENCY_MS, 5);
+
+    int records = 5003;
+    ParallelJdbcWriter writer = newWriter(state, 4);
+    try {
+      for (int i = 0; i < records; i++) {
+        writer.write(record(i, "name_" + i));
+      }
+      Assert.assertEquals(writer.recordsWritten(), records);
+      Assert.assertEquals(writer.getBatchSize() % 7, 0);
+      Assert.assertTrue(writer.getBatchSize() >= 7 && writer.getBatchSize() <= 70);
+      writer.commit();
+    } finally {
+      writer.close();
+    }
+
+    try (Statement stmt = this.adminConn.createStatement();
+        ResultSet rs = stmt.executeQuery("SELECT COUNT(*), COUNT(DISTINCT id), SUM(CAST(id AS BIGINT)) FROM "
+            + DB + "." + TABLE)) {
+      Assert.assertTrue(rs.next());
+      Assert.assertEquals(rs.getInt(1), records);
+      Assert.assertEquals(rs.getInt(2), records);
+      Assert.assertEquals(rs.getLong(3), (long) records * (records - 1) / 2);
+    }
+  }
+
+  public void testFailureRollsBackAllConnections() throws Exception {
+    truncate();
+    State state = new State();
+    state.setProp(JdbcBufferedInserter.WRITER_JDBC_INSERT_BATCH_SIZE, 5);
+    state.setProp(JdbcBufferedInserter.WRITER_JDBC_INSERT_RETRY_MAX_ATTEMPT, 1);
+
+    ParallelJdbcWriter writer = newWriter(state, 3);
+    try {
+      for (int i = 0; i < 100; i++) {
+        // Every tenth record has a non-numeric id, failing the worker that receives it
+        writer.write(i % 10 == 9 ? badRecord() : record(i, "name_" + i));
+      }
+      writer.commit();
+      Assert.fail("Commit should have failed");
+    } catch (RuntimeException e) {
+      // expected
+    } finally {
+      writer.close();
+    }
+
+    try (Statement stmt = this.adminConn.createStatement();
+        ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + DB + "." + TABLE)) {
+      Assert.assertTrue(rs.next());
+      Assert.assertEquals(rs.getInt(1), 0);
+    }
+  }
+
+  private ParallelJdbcWriter newWriter(State state, int connections) throws SQLException {
+    List<Connection> conns = Lists.newArrayList();
+    List<JdbcBufferedInserter> inserters = Lists.newArrayList();
+    for (int i = 0; i < connections; i++) {
+      Connection conn = DriverManager.getConnection(URL);
+      conn.setAutoCommit(false);
+      conns.add(conn);
+      inserters.add(new GenericJdbcBufferedInserter(state, conn));
+    }
+    return new ParallelJdbcWriter(state, DB, TABLE, conns, inserters);
+  }
+
+  private void truncate() throws SQLException {
+    try (Statement stmt = this.adminConn.createStatement()) {
+      stmt.execute("DELETE FROM " + DB + "." + TABLE);
+    }
+  }
+
+  private static JdbcEntryData record(int id, String name) {
+    return new JdbcEntryData(ImmutableList.of(new JdbcEntryDatum("id", id), new JdbcEntryDatum("name", name)));
+  }
+
+  private static JdbcEntryData badRecord() {
+    return new JdbcEntryData(ImmutableList.of(new JdbcEntryDatum("id", "not_a_number"), new JdbcEntryDatum("name", "x")));
+  }
+}
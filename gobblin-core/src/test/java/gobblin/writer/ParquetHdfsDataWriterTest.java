@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package gobblin.writer;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.hadoop.fs.FileUtil;
+import org.apache.hadoop.fs.Path;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import parquet.avro.AvroParquetReader;
+
+import gobblin.configuration.ConfigurationKeys;
+import gobblin.configuration.State;
+
+
+/**
+ * Unit tests for {@link ParquetHdfsDataWriter}.
+ */
+@Test(groups = { "gobblin.writer" })
+public class ParquetHdfsDataWriterTest {
+
+  private static final String FILE_NAME = "test.parquet";
+
+  private Schema schema;
+  private DataWriter<GenericRecord> writer;
+  private String filePath;
+
+  @BeforeClass
+  public void setUp() throws Exception {
+    File stagingDir = new File(TestConstants.TEST_STAGING_DIR);
+    File outputDir = new File(TestConstants.TEST_OUTPUT_DIR);
+    if (!stagingDir.exists()) {
+      stagingDir.mkdirs();
+    }
+    if (!outputDir.exists()) {
+      outputDir.mkdirs();
+    }
+
+    this.schema = new Schema.Parser().parse(TestConstants.AVRO_SCHEMA);
+
+    this.filePath = TestConstants.TEST_EXTRACT_NAMESPACE.replaceAll("\\.", "/") + "/" + TestConstants.TEST_EXTRACT_TABLE
+        + "/" + TestConstants.TEST_EXTRACT_ID + "_" + TestConstants.TEST_EXTRACT_PULL_TYPE;
+
+    State properties = new State();
+    properties.setProp(ConfigurationKeys.WRITER_BUFFER_SIZE, ConfigurationKeys.DEFAULT_BUFFER_SIZE);
+    properties.setProp(ConfigurationKeys.WRITER_FILE_SYSTEM_URI, TestConstants.TEST_FS_URI);
+    properties.setProp(ConfigurationKeys.WRITER_STAGING_DIR, TestConstants.TEST_STAGING_DIR);
+    properties.setProp(ConfigurationKeys.WRITER_OUTPUT_DIR, TestConstants.TEST_OUTPUT_DIR);
+    properties.setProp(ConfigurationKeys.WRITER_FILE_PATH, this.filePath);
+    properties.setProp(ConfigurationKeys.WRITER_FILE_NAME, FILE_NAME);
+
+    this.writer = new ParquetDataWriterBuilder().writeTo(Destination.of(Destination.DestinationType.HDFS, properties))
+        .writeInFormat(WriterOutputFormat.PARQUET).withWriterId(TestConstants.TEST_WRITER_ID).withSchema(this.schema)
+        .withBranches(1).forBranch(0).build();
+  }
+
+  @Test
+  public void testWrite() throws IOException {
+    this.writer.write(createRecord("Alyssa", 256, "yellow"));
+    this.writer.write(createRecord("Ben", 7, "red"));
+    this.writer.write(createRecord("Charlie", 68, "blue"));
+
+    Assert.assertEquals(this.writer.recordsWritten(), 3);
+
+    this.writer.close();
+    this.writer.commit();
+
+    File outputFile = new File(TestConstants.TEST_OUTPUT_DIR + Path.SEPARATOR + this.filePath, FILE_NAME);
+    AvroParquetReader<GenericRecord> reader = new AvroParquetReader<>(new Path(outputFile.getAbsolutePath()));
+
+    // Read the records back and assert they are identical to the ones written
+    GenericRecord user1 = reader.read();
+    Assert.assertEquals(user1.get("name").toString(), "Alyssa");
+    Assert.assertEquals(user1.get("favorite_number"), 256);
+    Assert.assertEquals(user1.get("favorite_color").toString(), "yellow");
+
+    GenericRecord user2 = reader.read();
+    Assert.assertEquals(user2.get("name").toString(), "Ben");
+    Assert.assertEquals(user2.get("favorite_number"), 7);
+    Assert.assertEquals(user2.get("favorite_color").toString(), "red");
+
+    GenericRecord user3 = reader.read();
+    Assert.assertEquals(user3.get("name").toString(), "Charlie");
+    Assert.assertEquals(user3.get("favorite_number"), 68);
+    Assert.assertEquals(user3.get("favorite_color").toString(), "blue");
+
+    Assert.assertNull(reader.read());
+    reader.close();
+  }
+
+  @AfterClass
+  public void tearDown() throws IOException {
+    File testRootDir = new File(TestConstants.TEST_ROOT_DIR);
+    if (testRootDir.exists()) {
+      FileUtil.fullyDelete(testRootDir);
+    }
+  }
+
+  private GenericRecord createRecord(String name, int favoriteNumber, String favoriteColor) {
+    GenericRecord record = new GenericData.Record(this.schema);
+    record.put("name", name);
+    record.put("favorite_number", favoriteNumber);
+    record.put("favorite_color", favoriteColor);
+    return record;
+  }
+}
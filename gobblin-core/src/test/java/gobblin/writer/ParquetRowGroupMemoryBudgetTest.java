@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package gobblin.writer;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import gobblin.configuration.State;
+
+
+/**
+ * Unit tests for {@link ParquetRowGroupMemoryBudget}.
+ */
+@Test(groups = { "gobblin.writer" })
+public class ParquetRowGroupMemoryBudgetTest {
+
+  @Test
+  public void testAllocateAndRelease() {
+    ParquetRowGroupMemoryBudget budget = new ParquetRowGroupMemoryBudget(100, 10);
+    Object writer1 = new Object();
+    Object writer2 = new Object();
+    Object writer3 = new Object();
+
+    // The first writer gets what it asks for
+    Assert.assertEquals(budget.allocate(writer1, 60), 60);
+    // The second writer is capped at what is left in the budget
+    Assert.assertEquals(budget.allocate(writer2, 60), 40);
+    Assert.assertEquals(budget.getAllocated(), 100);
+    // Once the budget is exhausted, writers still get the minimum row group size
+    Assert.assertEquals(budget.allocate(writer3, 60), 10);
+    Assert.assertEquals(budget.getAllocated(), 110);
+
+    budget.release(writer1);
+    budget.release(writer3);
+    Assert.assertEquals(budget.getAllocated(), 40);
+    // Releasing twice is a no-op
+    budget.release(writer1);
+    Assert.assertEquals(budget.getAllocated(), 40);
+
+    Assert.assertEquals(budget.allocate(writer1, 60), 60);
+  }
+
+  @Test
+  public void testSharedBudget() {
+    State state = new State();
+    ParquetRowGroupMemoryBudget budget = ParquetRowGroupMemoryBudget.get(state);
+
+    // A job configured with a different budget shares the existing one
+    state.setProp(ParquetRowGroupMemoryBudget.MEMORY_POOL_RATIO, 0.1);
+    state.setProp(ParquetRowGroupMemoryBudget.MIN_ROW_GROUP_SIZE, 10);
+    Assert.assertSame(ParquetRowGroupMemoryBudget.get(state), budget);
+    Assert.assertSame(ParquetRowGroupMemoryBudget.get(state), budget);
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void testDoubleAllocation() {
+    ParquetRowGroupMemoryBudget budget = new ParquetRowGroupMemoryBudget(100, 10);
+    Object writer = new Object();
+    budget.allocate(writer, 10);
+    budget.allocate(writer, 10);
+  }
+}
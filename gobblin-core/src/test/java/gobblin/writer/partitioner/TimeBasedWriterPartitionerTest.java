@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gobblin.writer.partitioner;
+
+import java.util.Random;
+
+import org.apache.avro.generic.GenericRecord;
+import org.joda.time.DateTimeFieldType;
+import org.joda.time.DateTimeZone;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Optional;
+
+import gobblin.configuration.State;
+
+
+/**
+ * Tests for the time bucket memoization of {@link TimeBasedWriterPartitioner}.
+ */
+@Test(groups = { "gobblin.writer.partitioner" })
+public class TimeBasedWriterPartitionerTest {
+
+  private static final String PATTERN = "yyyy/MM/dd/HH";
+  // 2017-01-01 10:30:00 PST
+  private static final long TIMESTAMP = 1483295400000L;
+  private static final long HOUR_MILLIS = 60 * 60 * 1000L;
+
+  @Test
+  public void testGranularityPartitionReusedWithinBucket() {
+    State state = new State();
+    state.setProp(TimeBasedWriterPartitioner.WRITER_PARTITION_GRANULARITY, "HOUR");
+    TimeBasedWriterPartitioner<Long> partitioner = createPartitioner(state);
+
+    GenericRecord partition = partitioner.partitionForRecord(TIMESTAMP);
+    Assert.assertEquals(partition.get("HOUR"), 10);
+    Assert.assertSame(partitioner.partitionForRecord(TIMESTAMP + 1000), partition);
+
+    GenericRecord nextPartition = partitioner.partitionForRecord(TIMESTAMP + HOUR_MILLIS);
+    Assert.assertEquals(nextPartition.get("HOUR"), 11);
+    Assert.assertNotEquals(nextPartition, partition);
+
+    // Late records map back to the cached partition of their bucket
+    Assert.assertSame(partitioner.partitionForRecord(TIMESTAMP - 1000), partition);
+  }
+
+  @Test
+  public void testPatternPartitionReusedWithinBucket() {
+    State state = new State();
+    state.setProp(TimeBasedWriterPartitioner.WRITER_PARTITION_PATTERN, PATTERN);
+    state.setProp(TimeBasedWriterPartitioner.WRITER_PARTITION_PREFIX, "prefix");
+    TimeBasedWriterPartitioner<Long> partitioner = createPartitioner(state);
+
+    GenericRecord partition = partitioner.partitionForRecord(TIMESTAMP);
+    Assert.assertEquals(partition.get(TimeBasedWriterPartitioner.PARTITIONED_PATH), "2017/01/01/10");
+    Assert.assertEquals(partition.get(TimeBasedWriterPartitioner.PREFIX), "prefix");
+    Assert.assertSame(partitioner.partitionForRecord(TIMESTAMP + 29 * 60 * 1000), partition);
+
+    GenericRecord nextPartition = partitioner.partitionForRecord(TIMESTAMP + 30 * 60 * 1000);
+    Assert.assertEquals(nextPartition.get(TimeBasedWriterPartitioner.PARTITIONED_PATH), "2017/01/01/11");
+    Assert.assertSame(partitioner.partitionForRecord(TIMESTAMP), partition);
+  }
+
+  @Test
+  public void testPartitionsMatchFormatter() {
+    String pattern = "'hourly'/yyyy/MM/dd/HH";
+    State state = new State();
+    state.setProp(TimeBasedWriterPartitioner.WRITER_PARTITION_PATTERN, pattern);
+    TimeBasedWriterPartitioner<Long> partitioner = createPartitioner(state);
+    DateTimeFormatter formatter = DateTimeFormat.forPattern(pattern)
+        .withZone(DateTimeZone.forID(TimeBasedWriterPartitioner.DEFAULT_WRITER_PARTITION_TIMEZONE));
+
+    Random random = new Random(1);
+    long timestamp = TIMESTAMP;
+    for (int i = 0; i < 10000; i++) {
+      timestamp += random.nextInt(20 * 60 * 1000) - 5 * 60 * 1000;
+      GenericRecord partition = partitioner.partitionForRecord(timestamp);
+      Assert.assertEquals(partition.get(TimeBasedWriterPartitioner.PARTITIONED_PATH), formatter.print(timestamp));
+      Assert.assertEquals(partition.hashCode(), createPartitioner(state).partitionForRecord(timestamp).hashCode());
+    }
+  }
+
+  @Test
+  public void testTimeZoneInPatternAcrossTransitions() {
+    // Daylight saving time in Lord Howe Island shifts the offset by 30 minutes
+    for (String timeZone : new String[] {TimeBasedWriterPartitioner.DEFAULT_WRITER_PARTITION_TIMEZONE,
+        "Australia/Lord_Howe"}) {
+      for (String pattern : new String[] {"yyyy/MM/dd Z", "yyyy/MM/dd z"}) {
+        State state = new State();
+        state.setProp(TimeBasedWriterPartitioner.WRITER_PARTITION_PATTERN, pattern);
+        state.setProp(TimeBasedWriterPartitioner.WRITER_PARTITION_TIMEZONE, timeZone);
+        TimeBasedWriterPartitioner<Long> partitioner = createPartitioner(state);
+        DateTimeFormatter formatter = DateTimeFormat.forPattern(pattern).withZone(DateTimeZone.forID(timeZone));
+
+        // Two days around the next transition after 2017-01-01, walking forward and then back
+        long transition = DateTimeZone.forID(timeZone).nextTransition(TIMESTAMP);
+        for (long timestamp = transition - 24 * HOUR_MILLIS; timestamp < transition + 24 * HOUR_MILLIS;
+            timestamp += 10 * 60 * 1000) {
+          GenericRecord partition = partitioner.partitionForRecord(timestamp);
+          Assert.assertEquals(partition.get(TimeBasedWriterPartitioner.PARTITIONED_PATH), formatter.print(timestamp),
+              timeZone + " " + pattern);
+        }
+        for (long timestamp = transition + 60 * 1000; timestamp > transition - 60 * 1000; timestamp -= 1000) {
+          GenericRecord partition = partitioner.partitionForRecord(timestamp);
+          Assert.assertEquals(partition.get(TimeBasedWriterPartitioner.PARTITIONED_PATH), formatter.print(timestamp),
+              timeZone + " " + pattern);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testGetBucketFieldType() {
+    Assert.assertEquals(TimeBasedWriterPartitioner.getBucketFieldType("yyyy/MM/dd"),
+        Optional.of(DateTimeFieldType.dayOfMonth()));
+    Assert.assertEquals(TimeBasedWriterPartitioner.getBucketFieldType("'hourly'/yyyy/MM/dd/HH"),
+        Optional.of(DateTimeFieldType.hourOfDay()));
+    Assert.assertEquals(TimeBasedWriterPartitioner.getBucketFieldType("yyyy-ww"),
+        Optional.of(DateTimeFieldType.dayOfMonth()));
+    Assert.assertEquals(TimeBasedWriterPartitioner.getBucketFieldType("yyyy-MM-dd HH:mm:ss Z"),
+        Optional.of(DateTimeFieldType.secondOfMinute()));
+    Assert.assertEquals(TimeBasedWriterPartitioner.getBucketFieldType("yyyy/MM/dd z"),
+        Optional.of(DateTimeFieldType.hourOfDay()));
+    Assert.assertFalse(TimeBasedWriterPartitioner.getBucketFieldType("HH:mm:ss.SSS").isPresent());
+    Assert.assertFalse(TimeBasedWriterPartitioner.getBucketFieldType("'static'").isPresent());
+  }
+
+  private static TimeBasedWriterPartitioner<Long> createPartitioner(State state) {
+    return new TimeBasedWriterPartitioner<Long>(state, 1, 0) {
+      @Override
+      public long getRecordTimestamp(Long record) {
+        return record;
+      }
+    };
+  }
+}
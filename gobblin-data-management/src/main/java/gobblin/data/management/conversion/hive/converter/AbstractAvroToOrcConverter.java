@@ -57,10 +57,12 @@ import gobblin.converter.DataConversionException;
 import gobblin.converter.SingleRecordIterable;
 import gobblin.data.management.conversion.hive.dataset.ConvertibleHiveDataset;
 import gobblin.data.management.conversion.hive.dataset.ConvertibleHiveDataset.ConversionConfig;
+import gobblin.data.management.conversion.hive.entities.OrcConversionSpec;
 import gobblin.data.management.conversion.hive.entities.QueryBasedHiveConversionEntity;
 import gobblin.data.management.conversion.hive.entities.QueryBasedHivePublishEntity;
 import gobblin.data.management.conversion.hive.events.EventWorkunitUtils;
 import gobblin.data.management.conversion.hive.query.HiveAvroORCQueryGenerator;
+import gobblin.data.management.conversion.hive.writer.HiveNativeOrcConversionWriter;
 import gobblin.data.management.copy.hive.HiveDatasetFinder;
 import gobblin.data.management.copy.hive.HiveUtils;
 import gobblin.data.management.copy.hive.WhitelistBlacklist;
@@ -147,6 +149,14 @@ public abstract class AbstractAvroToOrcConverter extends Converter<Schema, Schem
   public static final String HIVE_CONVERSION_VIEW_REGISTRATION_WHITELIST = "hive.conversion.view.registration.whitelist";
   public static final String HIVE_CONVERSION_VIEW_REGISTRATION_BLACKLIST = "hive.conversion.view.registration.blacklist";
 
+  /**
+   * If set to true, the Avro data is converted to ORC files within the task by the
+   * {@link HiveNativeOrcConversionWriter} instead of by a Hive query. Formats that require bucketing are still
+   * converted by a Hive query.
+   */
+  public static final String HIVE_CONVERSION_NATIVE_ENABLED = "hive.conversion.native.enabled";
+  public static final boolean DEFAULT_HIVE_CONVERSION_NATIVE_ENABLED = false;
+
   /**
    * Subclasses can convert the {@link Schema} if required.
    *
@@ -250,6 +260,15 @@ public abstract class AbstractAvroToOrcConverter extends Converter<Schema, Schem
     // .. do not fail
     List<String> sourceDataPathIdentifier = getConversionConfig().getSourceDataPathIdentifier();
 
+    // Native conversion writes files directly and cannot bucket them
+    boolean isNativeConversion = workUnit.getPropAsBoolean(HIVE_CONVERSION_NATIVE_ENABLED,
+        DEFAULT_HIVE_CONVERSION_NATIVE_ENABLED);
+    if (isNativeConversion && (clusterBy.isPresent() || numBuckets.isPresent())) {
+      log.warn(String.format("Bucketing is configured for %s.%s, falling back to Hive query based conversion",
+          orcTableDatabase, orcTableName));
+      isNativeConversion = false;
+    }
+
     // Populate optional partition info
     Map<String, String> partitionsDDLInfo = Maps.newHashMap();
     Map<String, String> partitionsDMLInfo = Maps.newHashMap();
@@ -287,20 +306,22 @@ public abstract class AbstractAvroToOrcConverter extends Converter<Schema, Schem
       Throwables.propagate(e);
     }
 
-    // Set hive runtime properties from conversion config
-    for (Map.Entry<Object, Object> entry : getConversionConfig().getHiveRuntimeProperties().entrySet()) {
-      conversionEntity.getQueries().add(String.format("SET %s=%s", entry.getKey(), entry.getValue()));
-    }
-    // Set hive runtime properties for tracking
-    conversionEntity.getQueries().add(String.format("SET %s=%s", GOBBLIN_DATASET_URN_KEY,
-        conversionEntity.getHiveTable().getCompleteName()));
-    if (conversionEntity.getHivePartition().isPresent()) {
-      conversionEntity.getQueries().add(String.format("SET %s=%s", GOBBLIN_PARTITION_NAME_KEY,
-          conversionEntity.getHivePartition().get().getCompleteName()));
+    if (!isNativeConversion) {
+      // Set hive runtime properties from conversion config
+      for (Map.Entry<Object, Object> entry : getConversionConfig().getHiveRuntimeProperties().entrySet()) {
+        conversionEntity.getQueries().add(String.format("SET %s=%s", entry.getKey(), entry.getValue()));
+      }
+      // Set hive runtime properties for tracking
+      conversionEntity.getQueries().add(String.format("SET %s=%s", GOBBLIN_DATASET_URN_KEY,
+          conversionEntity.getHiveTable().getCompleteName()));
+      if (conversionEntity.getHivePartition().isPresent()) {
+        conversionEntity.getQueries().add(String.format("SET %s=%s", GOBBLIN_PARTITION_NAME_KEY,
+            conversionEntity.getHivePartition().get().getCompleteName()));
+      }
+      conversionEntity.getQueries().add(String
+          .format("SET %s=%s", GOBBLIN_WORKUNIT_CREATE_TIME_KEY,
+              workUnit.getWorkunit().getProp(SlaEventKeys.ORIGIN_TS_IN_MILLI_SECS_KEY)));
     }
-    conversionEntity.getQueries().add(String
-        .format("SET %s=%s", GOBBLIN_WORKUNIT_CREATE_TIME_KEY,
-            workUnit.getWorkunit().getProp(SlaEventKeys.ORIGIN_TS_IN_MILLI_SECS_KEY)));
 
     // Create DDL statement for table
     Map<String, String> hiveColumns = new LinkedHashMap<>();
@@ -320,40 +341,59 @@ public abstract class AbstractAvroToOrcConverter extends Converter<Schema, Schem
             isEvolutionEnabled,
             destinationTableMeta,
             hiveColumns);
-    conversionEntity.getQueries().add(createStagingTableDDL);
-    log.debug("Create staging table DDL: " + createStagingTableDDL);
 
     // Create DDL statement for partition
     String orcStagingDataPartitionDirName = getOrcStagingDataPartitionDirName(conversionEntity, sourceDataPathIdentifier);
     String orcStagingDataPartitionLocation = orcStagingDataLocation + Path.SEPARATOR + orcStagingDataPartitionDirName;
-    if (partitionsDMLInfo.size() > 0) {
-      List<String> createStagingPartitionDDL =
-          HiveAvroORCQueryGenerator.generateCreatePartitionDDL(orcTableDatabase,
-              orcStagingTableName,
-              orcStagingDataPartitionLocation,
-              partitionsDMLInfo);
 
-      conversionEntity.getQueries().addAll(createStagingPartitionDDL);
-      log.debug("Create staging partition DDL: " + createStagingPartitionDDL);
-    }
+    if (isNativeConversion) {
+      // The staging table is not needed, ORC files are written straight to the staging data location
+      Path sourceDataLocation = conversionEntity.getHivePartition().isPresent()
+          ? conversionEntity.getHivePartition().get().getDataLocation()
+          : conversionEntity.getHiveTable().getDataLocation();
+      OrcConversionSpec orcConversionSpec = new OrcConversionSpec(conversionEntity.getHiveTable().getAvroSchema(),
+          sourceDataLocation,
+          new Path(partitionsDMLInfo.size() > 0 ? orcStagingDataPartitionLocation : orcStagingDataLocation),
+          HiveAvroORCQueryGenerator.generateColumnSourceMapping(outputAvroSchema, isEvolutionEnabled,
+              destinationTableMeta),
+          hiveColumns,
+          HiveAvroORCQueryGenerator.getTableProperties(tableProperties),
+          rowLimit);
+      conversionEntity.getOrcConversionSpecs().add(orcConversionSpec);
+      log.debug("Native ORC conversion: " + orcConversionSpec);
+    } else {
+      conversionEntity.getQueries().add(createStagingTableDDL);
+      log.debug("Create staging table DDL: " + createStagingTableDDL);
 
-    // Create DML statement
-    String insertInORCStagingTableDML =
-        HiveAvroORCQueryGenerator
-            .generateTableMappingDML(conversionEntity.getHiveTable().getAvroSchema(),
-                outputAvroSchema,
-                avroTableName,
+      if (partitionsDMLInfo.size() > 0) {
+        List<String> createStagingPartitionDDL =
+            HiveAvroORCQueryGenerator.generateCreatePartitionDDL(orcTableDatabase,
                 orcStagingTableName,
-                Optional.of(conversionEntity.getHiveTable().getDbName()),
-                Optional.of(orcTableDatabase),
-                Optional.of(partitionsDMLInfo),
-                Optional.<Boolean>absent(),
-                Optional.<Boolean>absent(),
-                isEvolutionEnabled,
-                destinationTableMeta,
-                rowLimit);
-    conversionEntity.getQueries().add(insertInORCStagingTableDML);
-    log.debug("Conversion staging DML: " + insertInORCStagingTableDML);
+                orcStagingDataPartitionLocation,
+                partitionsDMLInfo);
+
+        conversionEntity.getQueries().addAll(createStagingPartitionDDL);
+        log.debug("Create staging partition DDL: " + createStagingPartitionDDL);
+      }
+
+      // Create DML statement
+      String insertInORCStagingTableDML =
+          HiveAvroORCQueryGenerator
+              .generateTableMappingDML(conversionEntity.getHiveTable().getAvroSchema(),
+                  outputAvroSchema,
+                  avroTableName,
+                  orcStagingTableName,
+                  Optional.of(conversionEntity.getHiveTable().getDbName()),
+                  Optional.of(orcTableDatabase),
+                  Optional.of(partitionsDMLInfo),
+                  Optional.<Boolean>absent(),
+                  Optional.<Boolean>absent(),
+                  isEvolutionEnabled,
+                  destinationTableMeta,
+                  rowLimit);
+      conversionEntity.getQueries().add(insertInORCStagingTableDML);
+      log.debug("Conversion staging DML: " + insertInORCStagingTableDML);
+    }
 
     // TODO: Split this method into two (conversion and publish)
     // Addition to WUS for Staging publish:
@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package gobblin.data.management.conversion.hive.entities;
+
+import java.util.Map;
+import java.util.Properties;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import org.apache.avro.Schema;
+import org.apache.hadoop.fs.Path;
+
+import com.google.common.base.Optional;
+
+import gobblin.data.management.conversion.hive.converter.AbstractAvroToOrcConverter;
+import gobblin.data.management.conversion.hive.writer.HiveNativeOrcConversionWriter;
+
+
+/**
+ * Describes how to convert the Avro data of a Hive table or partition into ORC files without running a Hive query.
+ * An {@link AbstractAvroToOrcConverter} adds one {@link OrcConversionSpec} per destination format to
+ * {@link QueryBasedHiveConversionEntity#getOrcConversionSpecs()} in place of the staging table DDL and DML, and the
+ * {@link HiveNativeOrcConversionWriter} executes them.
+ */
+@AllArgsConstructor
+@Getter
+@ToString
+public class OrcConversionSpec {
+
+  /**
+   * Avro schema of the source table, used as the reader schema for the source data files.
+   */
+  private final Schema sourceSchema;
+
+  /**
+   * Location of the source table or partition data.
+   */
+  private final Path sourceDataLocation;
+
+  /**
+   * Location the ORC files are written to. The publisher moves it to the destination table.
+   */
+  private final Path outputLocation;
+
+  /**
+   * Destination column name to the dot separated source field it is populated from, in column order. A blank source
+   * field means the column is written as null.
+   */
+  private final Map<String, String> columnSources;
+
+  /**
+   * Destination column name to Hive type.
+   */
+  private final Map<String, String> columnTypes;
+
+  /**
+   * Destination table properties, including ORC compression and row index stride.
+   */
+  private final Properties tableProperties;
+
+  private final Optional<Integer> rowLimit;
+}
@@ -29,6 +29,7 @@ import gobblin.converter.Converter;
 import gobblin.data.management.conversion.hive.converter.AbstractAvroToOrcConverter;
 import gobblin.data.management.conversion.hive.dataset.ConvertibleHiveDataset;
 import gobblin.data.management.conversion.hive.extractor.HiveConvertExtractor;
+import gobblin.data.management.conversion.hive.writer.HiveNativeOrcConversionWriter;
 import gobblin.data.management.conversion.hive.writer.HiveQueryExecutionWriter;
 import gobblin.hive.HivePartition;
 import gobblin.hive.HiveRegistrationUnit;
@@ -49,6 +50,8 @@ import gobblin.source.extractor.Extractor;
  *  <li> The {@link AbstractAvroToOrcConverter} builds the {@link QueryBasedHiveConversionEntity#query} using
  *  {@link QueryBasedHiveConversionEntity#hiveUnitSchema}.
  *  <li> The {@link HiveQueryExecutionWriter} executes the hive query at {@link QueryBasedHiveConversionEntity#getConversionQuery()}
+ *  <li> When native conversion is enabled, the {@link AbstractAvroToOrcConverter} adds {@link OrcConversionSpec}s
+ *  instead of the conversion queries, which the {@link HiveNativeOrcConversionWriter} executes
  * </ul>
  */
 @ToString
@@ -65,6 +68,11 @@ public class QueryBasedHiveConversionEntity {
    */
   private final List<String> queries;
 
+  /**
+   * Conversions to be run by the {@link HiveNativeOrcConversionWriter} instead of a hive query
+   */
+  private final List<OrcConversionSpec> orcConversionSpecs;
+
   public QueryBasedHiveConversionEntity(ConvertibleHiveDataset convertibleHiveDataset, SchemaAwareHiveTable hiveTable) {
     this(convertibleHiveDataset, hiveTable, Optional.<SchemaAwareHivePartition> absent());
   }
@@ -75,5 +83,6 @@ public class QueryBasedHiveConversionEntity {
     this.hiveTable = hiveTable;
     this.hivePartition = hivePartition;
     this.queries = Lists.newArrayList();
+    this.orcConversionSpecs = Lists.newArrayList();
   }
 }
@@ -19,6 +19,7 @@ package gobblin.data.management.conversion.hive.query;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -304,7 +305,13 @@ public class HiveAvroORCQueryGenerator {
     return ddl.toString();
   }
 
-  private static Properties getTableProperties(Properties tableProperties) {
+  /***
+   * Get the table properties to create an ORC table with, falling back to the default ORC compression and row
+   * index stride if they are not set.
+   * @param tableProperties Table properties from the conversion config.
+   * @return Table properties including defaults.
+   */
+  public static Properties getTableProperties(Properties tableProperties) {
     if (null == tableProperties || tableProperties.size() == 0) {
       return DEFAULT_TBL_PROPERTIES;
     }
@@ -694,75 +701,18 @@ public class HiveAvroORCQueryGenerator {
     // Select query
     dmlQuery.append("SELECT \n");
 
-    // 1. If evolution is enabled, and destination table does not exists
-    //    .. use columns from new schema
-    //    (evolution does not matter if its new destination table)
-    // 2. If evolution is enabled, and destination table does exists
-    //    .. use columns from new schema
-    //    (alter table will be used before moving data from staging to final table)
-    // 3. If evolution is disabled, and destination table does not exists
-    //    .. use columns from new schema
-    //    (evolution does not matter if its new destination table)
-    // 4. If evolution is disabled, and destination table does exists
-    //    .. use columns from destination schema
-    if (isEvolutionEnabled || !destinationTableMeta.isPresent()) {
-      log.info("Generating DML using source schema");
-      boolean isFirst = true;
-      List<Schema.Field> fieldList = outputOrcSchema.getFields();
-      for (Schema.Field field : fieldList) {
-        String flattenSource = field.getProp("flatten_source");
-        String colName;
-        if (StringUtils.isNotBlank(flattenSource)) {
-          colName = flattenSource;
-        } else {
-          colName = field.name();
-        }
-        // Escape the column name
-        colName = colName.replaceAll("\\.", "`.`");
-
+    boolean isFirst = true;
+    for (String colName : generateColumnSourceMapping(outputOrcSchema, isEvolutionEnabled, destinationTableMeta)
+        .values()) {
+      // colName can be blank if it is deleted in new evolved schema, so we shouldn't try to fetch it
+      if (StringUtils.isNotBlank(colName)) {
         if (isFirst) {
           isFirst = false;
         } else {
           dmlQuery.append(", \n");
         }
-        dmlQuery.append(String.format("  `%s`", colName));
-      }
-    } else {
-      log.info("Generating DML using destination schema");
-      boolean isFirst = true;
-      List<FieldSchema> fieldList = destinationTableMeta.get().getSd().getCols();
-      for (FieldSchema field : fieldList) {
-        String colName = StringUtils.EMPTY;
-        if (field.isSetComment() && field.getComment().startsWith("from flatten_source ")) {
-          // Retrieve from column (flatten_source) from comment
-          colName = field.getComment().replaceAll("from flatten_source ", "").trim();
-        } else {
-          // Or else find field in flattened schema
-          List<Schema.Field> evolvedFieldList = outputOrcSchema.getFields();
-          for (Schema.Field evolvedField : evolvedFieldList) {
-            if (evolvedField.name().equalsIgnoreCase(field.getName())) {
-              String flattenSource = evolvedField.getProp("flatten_source");
-              if (StringUtils.isNotBlank(flattenSource)) {
-                colName = flattenSource;
-              } else {
-                colName = evolvedField.name();
-              }
-              break;
-            }
-          }
-        }
         // Escape the column name
-        colName = colName.replaceAll("\\.", "`.`");
-
-        // colName can be blank if it is deleted in new evolved schema, so we shouldn't try to fetch it
-        if (StringUtils.isNotBlank(colName)) {
-          if (isFirst) {
-            isFirst = false;
-          } else {
-            dmlQuery.append(", \n");
-          }
-          dmlQuery.append(String.format("  `%s`", colName));
-        }
+        dmlQuery.append(String.format("  `%s`", colName.replaceAll("\\.", "`.`")));
       }
     }
 
@@ -794,6 +744,63 @@ public class HiveAvroORCQueryGenerator {
     return dmlQuery.toString();
   }
 
+  /***
+   * Generate the mapping from each column of the output table to the (dot separated) source field it is populated
+   * from. The columns are in the order of the output table.
+   *
+   * 1. If evolution is enabled, and destination table does not exists
+   *    .. use columns from new schema
+   *    (evolution does not matter if its new destination table)
+   * 2. If evolution is enabled, and destination table does exists
+   *    .. use columns from new schema
+   *    (alter table will be used before moving data from staging to final table)
+   * 3. If evolution is disabled, and destination table does not exists
+   *    .. use columns from new schema
+   *    (evolution does not matter if its new destination table)
+   * 4. If evolution is disabled, and destination table does exists
+   *    .. use columns from destination schema
+   *
+   * @param outputOrcSchema Output schema (flattened or nested) with 'flatten_source' lineage information
+   * @param isEvolutionEnabled If schema evolution is turned on
+   * @param destinationTableMeta Optional destination table metadata
+   * @return Map of output column name to source field; the source field is blank if the column was deleted in the
+   *         new schema
+   */
+  public static Map<String, String> generateColumnSourceMapping(Schema outputOrcSchema,
+      boolean isEvolutionEnabled,
+      Optional<Table> destinationTableMeta) {
+    Map<String, String> columnSources = new LinkedHashMap<>();
+
+    if (isEvolutionEnabled || !destinationTableMeta.isPresent()) {
+      log.info("Generating column mapping using source schema");
+      for (Schema.Field field : outputOrcSchema.getFields()) {
+        String flattenSource = field.getProp("flatten_source");
+        columnSources.put(field.name(), StringUtils.isNotBlank(flattenSource) ? flattenSource : field.name());
+      }
+    } else {
+      log.info("Generating column mapping using destination schema");
+      for (FieldSchema field : destinationTableMeta.get().getSd().getCols()) {
+        String colName = StringUtils.EMPTY;
+        if (field.isSetComment() && field.getComment().startsWith("from flatten_source ")) {
+          // Retrieve from column (flatten_source) from comment
+          colName = field.getComment().replaceAll("from flatten_source ", "").trim();
+        } else {
+          // Or else find field in flattened schema
+          for (Schema.Field evolvedField : outputOrcSchema.getFields()) {
+            if (evolvedField.name().equalsIgnoreCase(field.getName())) {
+              String flattenSource = evolvedField.getProp("flatten_source");
+              colName = StringUtils.isNotBlank(flattenSource) ? flattenSource : evolvedField.name();
+              break;
+            }
+          }
+        }
+        columnSources.put(field.getName(), colName);
+      }
+    }
+
+    return columnSources;
+  }
+
   public static Schema readSchemaFromString(String schemaStr)
       throws IOException {
     return new Schema.Parser().parse(schemaStr);
@@ -0,0 +1,421 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package gobblin.data.management.conversion.hive.writer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.apache.avro.Schema;
+import org.apache.avro.file.DataFileReader;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericFixed;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.mapred.FsInput;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.PathFilter;
+import org.apache.hadoop.hive.common.type.HiveChar;
+import org.apache.hadoop.hive.common.type.HiveDecimal;
+import org.apache.hadoop.hive.common.type.HiveVarchar;
+import org.apache.hadoop.hive.ql.io.orc.CompressionKind;
+import org.apache.hadoop.hive.ql.io.orc.OrcFile;
+import org.apache.hadoop.hive.ql.io.orc.Writer;
+import org.apache.hadoop.hive.serde2.io.DateWritable;
+import org.apache.hadoop.hive.serde2.io.TimestampWritable;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.StandardUnionObjectInspector.StandardUnion;
+import org.apache.hadoop.hive.serde2.typeinfo.CharTypeInfo;
+import org.apache.hadoop.hive.serde2.typeinfo.ListTypeInfo;
+import org.apache.hadoop.hive.serde2.typeinfo.MapTypeInfo;
+import org.apache.hadoop.hive.serde2.typeinfo.PrimitiveTypeInfo;
+import org.apache.hadoop.hive.serde2.typeinfo.StructTypeInfo;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfo;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoUtils;
+import org.apache.hadoop.hive.serde2.typeinfo.UnionTypeInfo;
+import org.apache.hadoop.hive.serde2.typeinfo.VarcharTypeInfo;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Charsets;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Splitter;
+import com.google.common.collect.Lists;
+import com.google.common.io.Closer;
+
+import gobblin.data.management.conversion.hive.entities.OrcConversionSpec;
+import gobblin.data.management.conversion.hive.query.HiveAvroORCQueryGenerator;
+
+
+/**
+ * Converts the Avro data files of a Hive table or partition into ORC files as described by an
+ * {@link OrcConversionSpec}.
+ *
+ * <p>
+ *   Each Avro file in the source location, including those in its subdirectories, is converted into one ORC file in the
+ *   output location, so files can be converted in parallel. Records are read with the source table schema as the reader
+ *   schema, as Hive's Avro SerDe does, and each destination column is populated from its source field and coerced to
+ *   the column type the way the {@link HiveAvroORCQueryGenerator} DML would.
+ * </p>
+ */
+@Slf4j
+public class AvroToOrcFileConverter {
+
+  public static final String ORC_FILE_EXTENSION = ".orc";
+
+  private static final String AVRO_FILE_EXTENSION = ".avro";
+  private static final String DEFAULT_ORC_COMPRESSION = "ZLIB";
+  private static final int DEFAULT_ORC_ROW_INDEX_STRIDE = 10000;
+
+  /**
+   * Fields of records nested in arrays or maps are flattened into names joined by this separator
+   */
+  private static final String FLATTENED_NAME_JOINER = "__";
+
+  private static final PathFilter HIDDEN_FILES_FILTER = new PathFilter() {
+    @Override
+    public boolean accept(Path path) {
+      String name = path.getName();
+      return !name.startsWith("_") && !name.startsWith(".");
+    }
+  };
+
+  private final FileSystem fs;
+  private final OrcConversionSpec spec;
+  private final StructTypeInfo rowTypeInfo;
+  private final ObjectInspector rowInspector;
+  private final List<List<String>> columnSourcePaths = Lists.newArrayList();
+  private final CompressionKind compression;
+  private final int rowIndexStride;
+  private final AtomicLong remainingRows;
+
+  public AvroToOrcFileConverter(FileSystem fs, OrcConversionSpec spec) {
+    this.fs = fs;
+    this.spec = spec;
+
+    List<String> columnNames = Lists.newArrayList();
+    List<TypeInfo> columnTypes = Lists.newArrayList();
+    for (Map.Entry<String, String> column : spec.getColumnSources().entrySet()) {
+      String type = spec.getColumnTypes().get(column.getKey());
+      Preconditions.checkArgument(type != null, "No type for column " + column.getKey());
+      columnNames.add(column.getKey());
+      // Nested field names are escaped with backticks in the DDL, which the type parser does not accept
+      columnTypes.add(TypeInfoUtils.getTypeInfoFromTypeString(type.replace("`", "")));
+      this.columnSourcePaths.add(StringUtils.isBlank(column.getValue()) ? Collections.<String>emptyList()
+          : Splitter.on('.').splitToList(column.getValue()));
+    }
+    this.rowTypeInfo = (StructTypeInfo) TypeInfoFactory.getStructTypeInfo(columnNames, columnTypes);
+    this.rowInspector = TypeInfoUtils.getStandardJavaObjectInspectorFromTypeInfo(this.rowTypeInfo);
+
+    this.compression = CompressionKind.valueOf(spec.getTableProperties()
+        .getProperty(HiveAvroORCQueryGenerator.ORC_COMPRESSION_KEY, DEFAULT_ORC_COMPRESSION).toUpperCase());
+    this.rowIndexStride = Integer.parseInt(spec.getTableProperties()
+        .getProperty(HiveAvroORCQueryGenerator.ORC_ROW_INDEX_STRIDE_KEY, Integer.toString(DEFAULT_ORC_ROW_INDEX_STRIDE)));
+    this.remainingRows = new AtomicLong(spec.getRowLimit().isPresent() ? spec.getRowLimit().get() : Long.MAX_VALUE);
+  }
+
+  /**
+   * @return the data files in the source location and its subdirectories, skipping hidden files as Hive does.
+   */
+  public List<Path> getSourceFiles() throws IOException {
+    List<Path> files = Lists.newArrayList();
+    addSourceFiles(this.spec.getSourceDataLocation(), files);
+    return files;
+  }
+
+  private void addSourceFiles(Path dir, List<Path> files) throws IOException {
+    for (FileStatus status : this.fs.listStatus(dir, HIDDEN_FILES_FILTER)) {
+      if (status.isDirectory()) {
+        addSourceFiles(status.getPath(), files);
+      } else {
+        files.add(status.getPath());
+      }
+    }
+  }
+
+  /**
+   * Convert a single Avro file into an ORC file of the same name in the output location.
+   *
+   * @return the number of rows written.
+   */
+  public long convert(Path sourceFile) throws IOException {
+    Path outputFile = new Path(this.spec.getOutputLocation(), getOutputFileName(sourceFile));
+    long rows = 0;
+
+    try (Closer closer = Closer.create()) {
+      DataFileReader<GenericRecord> reader = closer.register(new DataFileReader<>(
+          new FsInput(sourceFile, this.fs.getConf()), new GenericDatumReader<GenericRecord>(this.spec.getSourceSchema())));
+      Writer writer = OrcFile.createWriter(outputFile, OrcFile.writerOptions(this.fs.getConf()).fileSystem(this.fs)
+          .inspector(this.rowInspector).compress(this.compression).rowIndexStride(this.rowIndexStride));
+      try {
+        GenericRecord record = null;
+        while (reader.hasNext() && this.remainingRows.getAndDecrement() > 0) {
+          record = reader.next(record);
+          writer.addRow(toRow(record));
+          rows++;
+        }
+      } finally {
+        writer.close();
+      }
+    }
+
+    log.info(String.format("Converted %d records from %s to %s", rows, sourceFile, outputFile));
+    return rows;
+  }
+
+  /**
+   * Files in subdirectories are named after their path relative to the source location, so names do not collide.
+   */
+  private String getOutputFileName(Path sourceFile) {
+    String sourceDir =
+        Path.getPathWithoutSchemeAndAuthority(this.fs.makeQualified(this.spec.getSourceDataLocation())).toString();
+    String relativePath = StringUtils.removeStart(Path.getPathWithoutSchemeAndAuthority(sourceFile).toString(),
+        sourceDir + Path.SEPARATOR);
+    return StringUtils.removeEnd(relativePath.replace(Path.SEPARATOR, FLATTENED_NAME_JOINER), AVRO_FILE_EXTENSION)
+        + ORC_FILE_EXTENSION;
+  }
+
+  private List<Object> toRow(GenericRecord record) {
+    List<TypeInfo> columnTypes = this.rowTypeInfo.getAllStructFieldTypeInfos();
+    List<Object> row = Lists.newArrayListWithCapacity(columnTypes.size());
+    for (int i = 0; i < columnTypes.size(); i++) {
+      Pair<Object, Schema> source = getField(record, this.columnSourcePaths.get(i));
+      row.add(source == null ? null : toHiveValue(source.getLeft(), source.getRight(), columnTypes.get(i)));
+    }
+    return row;
+  }
+
+  /**
+   * Walk a field path through nested records, returning the value and its schema, or null if any field on the path
+   * is missing or null.
+   */
+  private static Pair<Object, Schema> getField(GenericRecord record, List<String> path) {
+    if (path.isEmpty()) {
+      return null;
+    }
+    Object value = record;
+    Schema schema = record.getSchema();
+    for (String name : path) {
+      if (!(value instanceof GenericRecord)) {
+        return null;
+      }
+      GenericRecord current = (GenericRecord) value;
+      Schema.Field field = current.getSchema().getField(name);
+      if (field == null) {
+        return null;
+      }
+      value = current.get(field.pos());
+      schema = field.schema();
+    }
+    return value == null ? null : ImmutablePair.of(value, schema);
+  }
+
+  private static Pair<Object, Schema> getStructField(GenericRecord record, String name) {
+    if (record.getSchema().getField(name) == null && name.contains(FLATTENED_NAME_JOINER)) {
+      return getField(record, Splitter.on(FLATTENED_NAME_JOINER).splitToList(name));
+    }
+    return getField(record, Collections.singletonList(name));
+  }
+
+  /**
+   * Convert an Avro value into the standard Java object for a Hive type.
+   */
+  private static Object toHiveValue(Object value, Schema schema, TypeInfo typeInfo) {
+    if (value == null) {
+      return null;
+    }
+
+    if (schema.getType() == Schema.Type.UNION) {
+      int index = GenericData.get().resolveUnion(schema, value);
+      Schema member = schema.getTypes().get(index);
+      if (typeInfo.getCategory() != ObjectInspector.Category.UNION) {
+        return toHiveValue(value, member, typeInfo);
+      }
+      // Hive union members exclude null, so the tag is the position among the non-null members
+      int tag = 0;
+      for (int i = 0; i < index; i++) {
+        if (schema.getTypes().get(i).getType() != Schema.Type.NULL) {
+          tag++;
+        }
+      }
+      UnionTypeInfo unionTypeInfo = (UnionTypeInfo) typeInfo;
+      return new StandardUnion((byte) tag,
+          toHiveValue(value, member, unionTypeInfo.getAllUnionObjectTypeInfos().get(tag)));
+    }
+
+    switch (typeInfo.getCategory()) {
+      case PRIMITIVE:
+        return toHivePrimitive(value, (PrimitiveTypeInfo) typeInfo);
+      case LIST:
+        TypeInfo elementTypeInfo = ((ListTypeInfo) typeInfo).getListElementTypeInfo();
+        List<Object> list = Lists.newArrayList();
+        for (Object element : (Collection<?>) value) {
+          list.add(toHiveValue(element, schema.getElementType(), elementTypeInfo));
+        }
+        return list;
+      case MAP:
+        MapTypeInfo mapTypeInfo = (MapTypeInfo) typeInfo;
+        Map<Object, Object> map = new LinkedHashMap<>();
+        for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+          map.put(toHivePrimitive(entry.getKey(), (PrimitiveTypeInfo) mapTypeInfo.getMapKeyTypeInfo()),
+              toHiveValue(entry.getValue(), schema.getValueType(), mapTypeInfo.getMapValueTypeInfo()));
+        }
+        return map;
+      case STRUCT:
+        StructTypeInfo structTypeInfo = (StructTypeInfo) typeInfo;
+        GenericRecord record = (GenericRecord) value;
+        List<String> fieldNames = structTypeInfo.getAllStructFieldNames();
+        List<Object> struct = Lists.newArrayListWithCapacity(fieldNames.size());
+        for (int i = 0; i < fieldNames.size(); i++) {
+          Pair<Object, Schema> field = getStructField(record, fieldNames.get(i));
+          struct.add(field == null ? null
+              : toHiveValue(field.getLeft(), field.getRight(), structTypeInfo.getAllStructFieldTypeInfos().get(i)));
+        }
+        return struct;
+      default:
+        throw new IllegalArgumentException("Unsupported Hive type " + typeInfo.getTypeName());
+    }
+  }
+
+  /**
+   * Convert an Avro primitive into the standard Java object for a Hive primitive type. Values that cannot be
+   * converted become null, as they would with a Hive cast.
+   */
+  @VisibleForTesting
+  static Object toHivePrimitive(Object value, PrimitiveTypeInfo typeInfo) {
+    try {
+      switch (typeInfo.getPrimitiveCategory()) {
+        case STRING:
+          return value.toString();
+        case VARCHAR:
+          return new HiveVarchar(value.toString(), ((VarcharTypeInfo) typeInfo).getLength());
+        case CHAR:
+          return new HiveChar(value.toString(), ((CharTypeInfo) typeInfo).getLength());
+        case BOOLEAN:
+          return toBoolean(value);
+        case BYTE:
+          return toNumber(value).byteValue();
+        case SHORT:
+          return toNumber(value).shortValue();
+        case INT:
+          return toNumber(value).intValue();
+        case LONG:
+          return toNumber(value).longValue();
+        case FLOAT:
+          return toNumber(value).floatValue();
+        case DOUBLE:
+          return toNumber(value).doubleValue();
+        case DECIMAL:
+          return HiveDecimal.create(new BigDecimal(value.toString()));
+        case BINARY:
+          if (value instanceof ByteBuffer) {
+            ByteBuffer buffer = ((ByteBuffer) value).duplicate();
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            return bytes;
+          }
+          if (value instanceof GenericFixed) {
+            return ((GenericFixed) value).bytes().clone();
+          }
+          return value.toString().getBytes(Charsets.UTF_8);
+        case DATE:
+          return toDate(value);
+        case TIMESTAMP:
+          return toTimestamp(value);
+        default:
+          throw new IllegalArgumentException("Unsupported Hive type " + typeInfo.getTypeName());
+      }
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  private static Number toNumber(Object value) {
+    return value instanceof Number ? (Number) value : new BigDecimal(value.toString());
+  }
+
+  /**
+   * Numbers are true if they are not zero, and strings other than "true" or "false" become null.
+   */
+  private static Boolean toBoolean(Object value) {
+    if (value instanceof Boolean) {
+      return (Boolean) value;
+    }
+    if (value instanceof Number) {
+      return ((Number) value).doubleValue() != 0;
+    }
+    String string = value.toString().trim();
+    if (string.equalsIgnoreCase("true")) {
+      return true;
+    }
+    if (string.equalsIgnoreCase("false")) {
+      return false;
+    }
+    return null;
+  }
+
+  /**
+   * Strings are parsed as yyyy-mm-dd, ignoring any time after the date, and numbers are days since the epoch as in
+   * the Avro date logical type.
+   */
+  private static Date toDate(Object value) {
+    if (value instanceof Number) {
+      return new DateWritable(((Number) value).intValue()).get();
+    }
+    String string = value.toString().trim();
+    int timeStart = string.indexOf(' ');
+    try {
+      return Date.valueOf(timeStart < 0 ? string : string.substring(0, timeStart));
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Strings are parsed as yyyy-mm-dd hh:mm:ss[.fffffffff], integers are milliseconds since the epoch and floating
+   * point numbers are seconds since the epoch.
+   */
+  private static Timestamp toTimestamp(Object value) {
+    if (value instanceof Float || value instanceof Double) {
+      return TimestampWritable.doubleToTimestamp(((Number) value).doubleValue());
+    }
+    if (value instanceof Number) {
+      return new Timestamp(((Number) value).longValue());
+    }
+    try {
+      return Timestamp.valueOf(value.toString().trim());
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package gobblin.data.management.conversion.hive.writer;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.Lists;
+
+import gobblin.configuration.State;
+import gobblin.data.management.conversion.hive.converter.AbstractAvroToOrcConverter;
+import gobblin.data.management.conversion.hive.entities.OrcConversionSpec;
+import gobblin.data.management.conversion.hive.entities.QueryBasedHiveConversionEntity;
+import gobblin.data.management.conversion.hive.events.EventWorkunitUtils;
+import gobblin.util.ExecutorsUtils;
+import gobblin.util.HadoopUtils;
+import gobblin.util.HiveJdbcConnector;
+import gobblin.writer.DataWriter;
+
+
+/**
+ * A {@link DataWriter} that converts Avro tables and partitions to ORC within the Gobblin task by executing the
+ * {@link OrcConversionSpec}s at {@link QueryBasedHiveConversionEntity#getOrcConversionSpecs()}, instead of running
+ * a Hive query per partition. Used when {@link AbstractAvroToOrcConverter#HIVE_CONVERSION_NATIVE_ENABLED} is set.
+ *
+ * <p>
+ *   Source files are converted into separate ORC files, using up to {@link #HIVE_CONVERSION_NATIVE_THREADS} threads.
+ *   Any queries left on the entity (for formats that cannot be converted natively) are still run through Hive.
+ * </p>
+ */
+@Slf4j
+public class HiveNativeOrcConversionWriter implements DataWriter<QueryBasedHiveConversionEntity> {
+
+  public static final String HIVE_CONVERSION_NATIVE_THREADS = "hive.conversion.native.threads";
+  public static final int DEFAULT_HIVE_CONVERSION_NATIVE_THREADS = 1;
+
+  private final State workUnit;
+  private final FileSystem fs;
+  private final Optional<ExecutorService> executor;
+  private Optional<HiveJdbcConnector> hiveJdbcConnector = Optional.absent();
+  private long recordsWritten = 0;
+
+  public HiveNativeOrcConversionWriter(State workUnit) throws IOException {
+    this.workUnit = workUnit;
+    this.fs = FileSystem.get(HadoopUtils.getConfFromState(workUnit));
+    int threads = workUnit.getPropAsInt(HIVE_CONVERSION_NATIVE_THREADS, DEFAULT_HIVE_CONVERSION_NATIVE_THREADS);
+    this.executor = threads > 1
+        ? Optional.of(Executors.newFixedThreadPool(threads,
+            ExecutorsUtils.newThreadFactory(Optional.of(log), Optional.of("Orc-conversion-%d"))))
+        : Optional.<ExecutorService>absent();
+  }
+
+  @Override
+  public void write(QueryBasedHiveConversionEntity hiveConversionEntity) throws IOException {
+    EventWorkunitUtils.setBeginConversionDDLExecuteTimeMetadata(this.workUnit, System.currentTimeMillis());
+
+    List<String> conversionQueries = hiveConversionEntity.getQueries();
+    if (!conversionQueries.isEmpty()) {
+      try {
+        getHiveJdbcConnector().executeStatements(conversionQueries.toArray(new String[conversionQueries.size()]));
+      } catch (SQLException e) {
+        for (String conversionQuery : conversionQueries) {
+          log.warn("Conversion query attempted by native ORC conversion writer: " + conversionQuery);
+        }
+        throw new IOException(e);
+      }
+    }
+
+    for (OrcConversionSpec spec : hiveConversionEntity.getOrcConversionSpecs()) {
+      this.recordsWritten += convert(spec);
+    }
+
+    HiveQueryExecutionWriter.addPropsForPublisher(hiveConversionEntity, this.workUnit);
+    EventWorkunitUtils.setEndConversionDDLExecuteTimeMetadata(this.workUnit, System.currentTimeMillis());
+  }
+
+  private long convert(OrcConversionSpec spec) throws IOException {
+    // Same semantics as INSERT OVERWRITE into the staging location
+    Path outputLocation = spec.getOutputLocation();
+    if (this.fs.exists(outputLocation) && !this.fs.delete(outputLocation, true)) {
+      throw new IOException("Failed to delete " + outputLocation);
+    }
+    if (!this.fs.mkdirs(outputLocation)) {
+      throw new IOException("Failed to create " + outputLocation);
+    }
+
+    final AvroToOrcFileConverter converter = new AvroToOrcFileConverter(this.fs, spec);
+    List<Path> sourceFiles = converter.getSourceFiles();
+    log.info(String.format("Converting %d files from %s to %s", sourceFiles.size(), spec.getSourceDataLocation(),
+        outputLocation));
+
+    long records = 0;
+    if (!this.executor.isPresent() || sourceFiles.size() <= 1) {
+      for (Path sourceFile : sourceFiles) {
+        records += converter.convert(sourceFile);
+      }
+      return records;
+    }
+
+    List<Future<Long>> futures = Lists.newArrayList();
+    for (final Path sourceFile : sourceFiles) {
+      futures.add(this.executor.get().submit(new Callable<Long>() {
+        @Override
+        public Long call() throws Exception {
+          return converter.convert(sourceFile);
+        }
+      }));
+    }
+    try {
+      for (Future<Long> future : futures) {
+        records += future.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while converting " + spec.getSourceDataLocation(), e);
+    } catch (ExecutionException e) {
+      for (Future<Long> future : futures) {
+        future.cancel(true);
+      }
+      throw new IOException("Failed to convert " + spec.getSourceDataLocation(), e.getCause());
+    }
+    return records;
+  }
+
+  private HiveJdbcConnector getHiveJdbcConnector() throws SQLException {
+    if (!this.hiveJdbcConnector.isPresent()) {
+      this.hiveJdbcConnector = Optional.of(HiveJdbcConnector.newConnectorWithProps(this.workUnit.getProperties()));
+    }
+    return this.hiveJdbcConnector.get();
+  }
+
+  @Override
+  public void commit() throws IOException {}
+
+  @Override
+  public void close() throws IOException {
+    if (this.executor.isPresent()) {
+      ExecutorsUtils.shutdownExecutorService(this.executor.get(), Optional.of(log));
+    }
+    if (this.hiveJdbcConnector.isPresent()) {
+      this.hiveJdbcConnector.get().close();
+    }
+  }
+
+  @Override
+  public void cleanup() throws IOException {}
+
+  @Override
+  public long recordsWritten() {
+    return this.recordsWritten;
+  }
+
+  @Override
+  public long bytesWritten() throws IOException {
+    return 0;
+  }
+}
@@ -58,7 +58,7 @@ public class HiveQueryExecutionWriter implements DataWriter<QueryBasedHiveConver
       EventWorkunitUtils.setBeginConversionDDLExecuteTimeMetadata(this.workUnit, System.currentTimeMillis());
       this.hiveJdbcConnector.executeStatements(conversionQueries.toArray(new String[conversionQueries.size()]));
       // Adding properties for preserving partitionParams:
-      addPropsForPublisher(hiveConversionEntity);
+      addPropsForPublisher(hiveConversionEntity, this.workUnit);
       EventWorkunitUtils.setEndConversionDDLExecuteTimeMetadata(this.workUnit, System.currentTimeMillis());
     } catch (SQLException e) {
       log.warn("Failed to execute queries: ");
@@ -72,7 +72,7 @@ public class HiveQueryExecutionWriter implements DataWriter<QueryBasedHiveConver
   /**
    * Method to add properties needed by publisher to preserve partition params
    */
-  private void addPropsForPublisher(QueryBasedHiveConversionEntity hiveConversionEntity) {
+  static void addPropsForPublisher(QueryBasedHiveConversionEntity hiveConversionEntity, State workUnit) {
     if (!hiveConversionEntity.getHivePartition().isPresent()) {
       return;
     }
@@ -16,6 +16,7 @@
  */
 package gobblin.data.management.conversion.hive.writer;
 
+import gobblin.data.management.conversion.hive.converter.AbstractAvroToOrcConverter;
 import gobblin.data.management.conversion.hive.entities.QueryBasedHiveConversionEntity;
 import java.io.IOException;
 import java.sql.SQLException;
@@ -27,12 +28,17 @@ import gobblin.writer.DataWriter;
 import gobblin.writer.DataWriterBuilder;
 
 /**
- *  A {@link DataWriterBuilder} for {@link HiveQueryWriterBuilder}
+ *  A {@link DataWriterBuilder} for {@link HiveQueryWriterBuilder}. Builds a {@link HiveNativeOrcConversionWriter}
+ *  instead if {@link AbstractAvroToOrcConverter#HIVE_CONVERSION_NATIVE_ENABLED} is set.
  */
 public class HiveQueryWriterBuilder extends DataWriterBuilder<Schema, QueryBasedHiveConversionEntity>{
 
   @Override
   public DataWriter<QueryBasedHiveConversionEntity> build() throws IOException {
+    if (this.destination.getProperties().getPropAsBoolean(AbstractAvroToOrcConverter.HIVE_CONVERSION_NATIVE_ENABLED,
+        AbstractAvroToOrcConverter.DEFAULT_HIVE_CONVERSION_NATIVE_ENABLED)) {
+      return new HiveNativeOrcConversionWriter(this.destination.getProperties());
+    }
     try {
       return new HiveQueryExecutionWriter(HiveJdbcConnector.newConnectorWithProps(this.destination.getProperties().getProperties()),
           this.destination.getProperties());
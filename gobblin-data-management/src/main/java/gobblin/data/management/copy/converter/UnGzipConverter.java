@@ -25,8 +25,8 @@ import gobblin.util.io.StreamUtils;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
-import java.util.zip.GZIPInputStream;
 
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
 import org.apache.hadoop.fs.FSDataInputStream;
 
 import com.google.common.base.Function;
@@ -35,7 +35,8 @@ import com.google.common.collect.Lists;
 
 /**
  * A {@link Converter} that converts an archived {@link InputStream} to a tar {@link InputStream}. Wraps the given
- * archived (.tar.gz or .tgz) {@link InputStream} with {@link GZIPInputStream} Use this converter if the
+ * archived (.tar.gz or .tgz) {@link InputStream} with {@link GzipCompressorInputStream}, reading all concatenated
+ * gzip members. Use this converter if the
  * {@link InputStream} from source is compressed.
  * It also converts the destination file name by removing tar and gz extensions.
  */
@@ -50,7 +51,7 @@ public class UnGzipConverter extends DistcpConverter {
     return new Function<InputStream, InputStream>() {
       @Nullable @Override public InputStream apply(InputStream input) {
         try {
-          return StreamUtils.convertStream(new GZIPInputStream(input));
+          return StreamUtils.convertStream(new GzipCompressorInputStream(input, true));
         } catch (IOException ioe) {
           throw new RuntimeException(ioe);
         }
@@ -17,7 +17,10 @@
 
 package gobblin.data.management.policy;
 
+import java.util.ArrayDeque;
 import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Properties;
 
@@ -29,6 +32,8 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Lists;
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigFactory;
 
@@ -39,7 +44,7 @@ import gobblin.data.management.version.DatasetVersion;
  * Select the newest k versions of the dataset.
  */
 @ToString
-public class NewestKSelectionPolicy<T extends DatasetVersion> implements VersionSelectionPolicy<T> {
+public class NewestKSelectionPolicy<T extends DatasetVersion> implements StreamingVersionSelectionPolicy<T> {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(NewestKSelectionPolicy.class);
 
@@ -130,6 +135,40 @@ public class NewestKSelectionPolicy<T extends DatasetVersion> implements Version
     return getBoundarySafeSublist(allVersions, 0, this.getVersionsSelected());
   }
 
+  /**
+   * Only buffers the newest k versions seen so far. In exclude mode, a version is selected as soon as k newer versions
+   * have been seen.
+   */
+  @Override
+  public Iterator<T> selectVersions(final Iterator<T> allVersions) {
+    final int k = this.getVersionsSelected();
+    if (this.isExcludeMode()) {
+      return new AbstractIterator<T>() {
+        private final Deque<T> newestVersions = new ArrayDeque<>();
+
+        @Override
+        protected T computeNext() {
+          while (allVersions.hasNext()) {
+            this.newestVersions.addLast(allVersions.next());
+            if (this.newestVersions.size() > k) {
+              return this.newestVersions.removeFirst();
+            }
+          }
+          return endOfData();
+        }
+      };
+    }
+
+    Deque<T> newestVersions = new ArrayDeque<>();
+    while (allVersions.hasNext()) {
+      newestVersions.addLast(allVersions.next());
+      if (newestVersions.size() > k) {
+        newestVersions.removeFirst();
+      }
+    }
+    return Lists.newArrayList(newestVersions.descendingIterator()).iterator();
+  }
+
   private List<T> getBoundarySafeSublist(List<T> l, int fromIndex, int toIndex) {
     fromIndex = Math.min(fromIndex, l.size());
     toIndex = Math.min(toIndex, l.size());
@@ -18,6 +18,7 @@
 package gobblin.data.management.policy;
 
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Properties;
 
@@ -30,7 +31,7 @@ import gobblin.data.management.version.FileSystemDatasetVersion;
  * Implementation of {@link VersionSelectionPolicy} that selects all {@link FileSystemDatasetVersion}s.
  */
 @ToString
-public class SelectAllPolicy implements VersionSelectionPolicy<FileSystemDatasetVersion> {
+public class SelectAllPolicy implements StreamingVersionSelectionPolicy<FileSystemDatasetVersion> {
 
   public SelectAllPolicy(Properties properties) {}
 
@@ -43,4 +44,9 @@ public class SelectAllPolicy implements VersionSelectionPolicy<FileSystemDataset
   public Collection<FileSystemDatasetVersion> listSelectedVersions(List<FileSystemDatasetVersion> allVersions) {
     return allVersions;
   }
+
+  @Override
+  public Iterator<FileSystemDatasetVersion> selectVersions(Iterator<FileSystemDatasetVersion> allVersions) {
+    return allVersions;
+  }
 }
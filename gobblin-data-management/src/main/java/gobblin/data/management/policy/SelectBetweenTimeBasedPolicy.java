@@ -17,6 +17,7 @@
 package gobblin.data.management.policy;
 
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 
 import lombok.ToString;
@@ -29,6 +30,7 @@ import org.joda.time.format.PeriodFormatterBuilder;
 import com.google.common.base.Optional;
 import com.google.common.base.Predicate;
 import com.google.common.collect.Collections2;
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
 import com.typesafe.config.Config;
 
@@ -48,7 +50,7 @@ import gobblin.data.management.version.TimestampedDatasetVersion;
  */
 @Alias("SelectBetweenTimeBasedPolicy")
 @ToString
-public class SelectBetweenTimeBasedPolicy implements VersionSelectionPolicy<TimestampedDatasetVersion> {
+public class SelectBetweenTimeBasedPolicy implements StreamingVersionSelectionPolicy<TimestampedDatasetVersion> {
 
   protected final Optional<Period> minLookBackPeriod;
   protected final Optional<Period> maxLookBackPeriod;
@@ -88,6 +90,11 @@ public class SelectBetweenTimeBasedPolicy implements VersionSelectionPolicy<Time
     return Lists.newArrayList(Collections2.filter(allVersions, getSelectionPredicate()));
   }
 
+  @Override
+  public Iterator<TimestampedDatasetVersion> selectVersions(Iterator<TimestampedDatasetVersion> allVersions) {
+    return Iterators.filter(allVersions, getSelectionPredicate());
+  }
+
   private Predicate<TimestampedDatasetVersion> getSelectionPredicate() {
     return new Predicate<TimestampedDatasetVersion>() {
       @Override
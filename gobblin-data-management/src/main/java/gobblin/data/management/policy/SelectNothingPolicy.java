@@ -18,11 +18,13 @@
 package gobblin.data.management.policy;
 
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Properties;
 
 import lombok.ToString;
 
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
 
 import gobblin.data.management.version.FileSystemDatasetVersion;
@@ -32,7 +34,7 @@ import gobblin.data.management.version.FileSystemDatasetVersion;
  * Implementation of {@link VersionSelectionPolicy} that selects nothing.
  */
 @ToString
-public class SelectNothingPolicy implements VersionSelectionPolicy<FileSystemDatasetVersion> {
+public class SelectNothingPolicy implements StreamingVersionSelectionPolicy<FileSystemDatasetVersion> {
 
   public SelectNothingPolicy(Properties properties) {}
 
@@ -45,4 +47,9 @@ public class SelectNothingPolicy implements VersionSelectionPolicy<FileSystemDat
   public Collection<FileSystemDatasetVersion> listSelectedVersions(List<FileSystemDatasetVersion> allVersions) {
     return Lists.newArrayList();
   }
+
+  @Override
+  public Iterator<FileSystemDatasetVersion> selectVersions(Iterator<FileSystemDatasetVersion> allVersions) {
+    return Iterators.emptyIterator();
+  }
 }
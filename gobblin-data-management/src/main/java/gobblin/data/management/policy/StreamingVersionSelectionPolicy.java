@@ -0,0 +1,38 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package gobblin.data.management.policy;
+
+import java.util.Iterator;
+
+import gobblin.data.management.version.DatasetVersion;
+
+
+/**
+ * A {@link VersionSelectionPolicy} that can select versions from a lazily produced stream of versions.
+ */
+public interface StreamingVersionSelectionPolicy<T extends DatasetVersion> extends VersionSelectionPolicy<T> {
+
+  /**
+   * Lazily select dataset versions. Selects the same versions as {@link #listSelectedVersions(java.util.List)}, but
+   * should only buffer as many versions as needed to decide on the oldest one.
+   *
+   * @param allVersions {@link Iterator} of all dataset versions, ordered from oldest to newest.
+   * @return {@link Iterator} of dataset versions that are selected.
+   */
+  public Iterator<T> selectVersions(Iterator<T> allVersions);
+}
@@ -17,11 +17,22 @@
 package gobblin.data.management.retention.dataset;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import lombok.Getter;
 
@@ -29,13 +40,19 @@ import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.slf4j.Logger;
 
+import com.google.common.base.Optional;
+import com.google.common.collect.Lists;
 import com.typesafe.config.Config;
 
 import gobblin.data.management.trash.ProxiedTrash;
 import gobblin.data.management.trash.TrashFactory;
 import gobblin.data.management.version.FileSystemDatasetVersion;
 import gobblin.dataset.FileSystemDataset;
+import gobblin.util.ExecutorsUtils;
 import gobblin.util.PathUtils;
+import gobblin.util.limiter.Limiter;
+import gobblin.util.limiter.NoopLimiter;
+import gobblin.util.limiter.RateBasedLimiter;
 
 /**
  * A helper class to delete {@link Path}s of a FileSystemDatasetVersion.
@@ -46,6 +63,10 @@ import gobblin.util.PathUtils;
  * <li> Skip Trash - Delete permanent by setting {@value #SKIP_TRASH_KEY} to true.
  * <li> Auto delete empty parent directories - By setting {@value #DELETE_EMPTY_DIRECTORIES_KEY} to true.
  * <li> Proxy as owner and delete - By setting {@value #DELETE_AS_OWNER_KEY} to true.
+ * <li> Limit the rate of file system operations issued by deletes - By setting {@value #MAX_FS_OPS_PER_SECOND_KEY}.
+ * <li> Streaming retention - By setting {@value #STREAMING_ENABLED_KEY} to true. Versions are then found and deleted
+ * in batches of {@value #STREAMING_DELETE_BATCH_SIZE_KEY}, by {@value #STREAMING_DELETE_THREADS_KEY} threads, while
+ * more versions are being found. See {@link #cleanInBatches(Iterator, FileSystemDataset)}.
  * </ul>
  * </p>
  */
@@ -65,6 +86,23 @@ public class FsCleanableHelper {
   public static final String DELETE_AS_OWNER_KEY = CONFIGURATION_KEY_PREFIX + "delete.as.owner";
   public static final String DELETE_AS_OWNER_DEFAULT = Boolean.toString(true);
 
+  /**
+   * Maximum number of file system (i.e. NameNode) operations per second issued when deleting versions. Each deleted
+   * path costs two operations. Unlimited if not set.
+   */
+  public static final String MAX_FS_OPS_PER_SECOND_KEY = CONFIGURATION_KEY_PREFIX + "max.fs.ops.per.second";
+
+  public static final String STREAMING_ENABLED_KEY = CONFIGURATION_KEY_PREFIX + "streaming.enabled";
+  public static final String STREAMING_ENABLED_DEFAULT = Boolean.toString(false);
+
+  public static final String STREAMING_DELETE_BATCH_SIZE_KEY = CONFIGURATION_KEY_PREFIX + "streaming.delete.batch.size";
+  public static final int DEFAULT_STREAMING_DELETE_BATCH_SIZE = 100;
+
+  public static final String STREAMING_DELETE_THREADS_KEY = CONFIGURATION_KEY_PREFIX + "streaming.delete.threads";
+  public static final int DEFAULT_STREAMING_DELETE_THREADS = 4;
+
+  private static final int FS_OPS_PER_DELETED_PATH = 2;
+
   protected final FileSystem fs;
   @Getter
   protected final ProxiedTrash trash;
@@ -72,6 +110,11 @@ public class FsCleanableHelper {
   protected final boolean skipTrash;
   protected final boolean deleteEmptyDirectories;
   protected final boolean deleteAsOwner;
+  @Getter
+  protected final boolean streamingEnabled;
+  protected final int streamingDeleteBatchSize;
+  protected final int streamingDeleteThreads;
+  protected final Limiter fsOpsLimiter;
   protected final Logger log;
 
   public FsCleanableHelper(FileSystem fs, Properties properties, boolean simulate, boolean skipTrash, boolean deleteEmptyDirectories, boolean deleteAsOwner,
@@ -91,6 +134,15 @@ public class FsCleanableHelper {
     }
     this.trash = TrashFactory.createProxiedTrash(this.fs, thisProperties);
     this.deleteAsOwner = deleteAsOwner;
+    this.streamingEnabled =
+        Boolean.valueOf(properties.getProperty(STREAMING_ENABLED_KEY, STREAMING_ENABLED_DEFAULT));
+    this.streamingDeleteBatchSize = Integer.parseInt(properties.getProperty(STREAMING_DELETE_BATCH_SIZE_KEY,
+        Integer.toString(DEFAULT_STREAMING_DELETE_BATCH_SIZE)));
+    this.streamingDeleteThreads = Integer.parseInt(
+        properties.getProperty(STREAMING_DELETE_THREADS_KEY, Integer.toString(DEFAULT_STREAMING_DELETE_THREADS)));
+    this.fsOpsLimiter = properties.containsKey(MAX_FS_OPS_PER_SECOND_KEY)
+        ? new RateBasedLimiter(Double.parseDouble(properties.getProperty(MAX_FS_OPS_PER_SECOND_KEY)))
+        : new NoopLimiter();
   }
 
   public FsCleanableHelper(final FileSystem fs, final Properties props, Config config, Logger log) throws IOException {
@@ -115,6 +167,7 @@ public class FsCleanableHelper {
 
     for (Path path : pathsToDelete) {
 
+      acquireFsOpsPermits(FS_OPS_PER_DELETED_PATH);
       if (!this.fs.exists(path)) {
         log.info(String.format("Path %s in dataset version %s does not exist", path, versionToDelete));
         continue;
@@ -152,6 +205,83 @@ public class FsCleanableHelper {
     cleanEmptyDirectories(possiblyEmptyDirectories, fsDataset);
   }
 
+  /**
+   * Delete all {@link FileSystemDatasetVersion}s <code>deletableVersions</code> while they are being found, and then
+   * delete any empty parent directories. Versions are deleted in batches of {@value #STREAMING_DELETE_BATCH_SIZE_KEY}
+   * on {@value #STREAMING_DELETE_THREADS_KEY} threads. At most two batches per thread are queued, so finding versions
+   * blocks while deletes are behind.
+   *
+   * @param fsDataset to which the version belongs.
+   */
+  public void cleanInBatches(final Iterator<? extends FileSystemDatasetVersion> deletableVersions,
+      final FileSystemDataset fsDataset) throws IOException {
+    if (!deletableVersions.hasNext()) {
+      log.warn("No deletable dataset version can be found. Ignoring.");
+      return;
+    }
+
+    final Set<Path> possiblyEmptyDirectories = Collections.newSetFromMap(new ConcurrentHashMap<Path, Boolean>());
+    ExecutorService executor = Executors.newFixedThreadPool(this.streamingDeleteThreads,
+        ExecutorsUtils.newThreadFactory(Optional.of(log), Optional.of("FsCleanableHelper-%d")));
+    Deque<Future<Void>> pendingBatches = new ArrayDeque<>();
+    int deletedVersions = 0;
+    try {
+      while (deletableVersions.hasNext()) {
+        final List<FileSystemDatasetVersion> batch = Lists.newArrayListWithCapacity(this.streamingDeleteBatchSize);
+        while (deletableVersions.hasNext() && batch.size() < this.streamingDeleteBatchSize) {
+          batch.add(deletableVersions.next());
+        }
+
+        while (pendingBatches.size() >= 2 * this.streamingDeleteThreads
+            || (!pendingBatches.isEmpty() && pendingBatches.peek().isDone())) {
+          waitFor(pendingBatches.poll());
+        }
+        pendingBatches.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws Exception {
+            for (FileSystemDatasetVersion fsdv : batch) {
+              clean(fsdv, possiblyEmptyDirectories);
+            }
+            return null;
+          }
+        }));
+        deletedVersions += batch.size();
+      }
+
+      while (!pendingBatches.isEmpty()) {
+        waitFor(pendingBatches.poll());
+      }
+    } finally {
+      ExecutorsUtils.shutdownExecutorService(executor, Optional.of(log));
+    }
+
+    log.info(String.format("Cleaned %d versions of dataset %s", deletedVersions, fsDataset.datasetRoot()));
+    cleanEmptyDirectories(possiblyEmptyDirectories, fsDataset);
+  }
+
+  private void waitFor(Future<Void> batch) throws IOException {
+    try {
+      batch.get();
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while deleting dataset versions", ie);
+    } catch (ExecutionException ee) {
+      if (ee.getCause() instanceof IOException) {
+        throw (IOException) ee.getCause();
+      }
+      throw new IOException("Failed to delete dataset versions", ee.getCause());
+    }
+  }
+
+  private void acquireFsOpsPermits(long permits) throws IOException {
+    try {
+      this.fsOpsLimiter.acquirePermits(permits);
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for file system operation permits", ie);
+    }
+  }
+
   /**
    * Deletes any empty paths in <code>possiblyEmptyDirectories</code> all the way upto the {@link FileSystemDataset#datasetRoot()}.
    */
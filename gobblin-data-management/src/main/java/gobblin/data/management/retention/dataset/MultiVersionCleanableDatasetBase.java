@@ -18,8 +18,10 @@
 package gobblin.data.management.retention.dataset;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Properties;
 
@@ -39,12 +41,14 @@ import com.typesafe.config.ConfigFactory;
 
 import gobblin.data.management.policy.EmbeddedRetentionSelectionPolicy;
 import gobblin.data.management.policy.SelectNothingPolicy;
+import gobblin.data.management.policy.StreamingVersionSelectionPolicy;
 import gobblin.data.management.policy.VersionSelectionPolicy;
 import gobblin.data.management.retention.action.RetentionAction;
 import gobblin.data.management.retention.policy.RetentionPolicy;
 import gobblin.data.management.trash.ProxiedTrash;
 import gobblin.data.management.version.DatasetVersion;
 import gobblin.data.management.version.FileSystemDatasetVersion;
+import gobblin.data.management.version.finder.StreamingVersionFinder;
 import gobblin.data.management.version.finder.VersionFinder;
 import gobblin.dataset.FileSystemDataset;
 import gobblin.util.ConfigUtils;
@@ -69,6 +73,12 @@ import gobblin.util.ConfigUtils;
  * </ul>
  *
  * <p>
+ *   If {@value FsCleanableHelper#STREAMING_ENABLED_KEY} is true, and the {@link VersionFinderAndPolicy} has a
+ *   {@link StreamingVersionFinder}, a {@link StreamingVersionSelectionPolicy} and no {@link RetentionAction}s, versions
+ *   are deleted while they are being found instead of after all of them are listed and sorted.
+ * </p>
+ *
+ * <p>
  *   Concrete subclasses should implement {@link #getVersionFindersAndPolicies()}
  * </p>
  *
@@ -276,6 +286,11 @@ public abstract class MultiVersionCleanableDatasetBase<T extends FileSystemDatas
       this.log.info(String.format("Cleaning dataset %s. Using version finder %s and policy %s", this,
           versionFinder.getClass().getName(), selectionPolicy));
 
+      if (canCleanStreaming(versionFinderAndPolicy)) {
+        cleanStreaming(versionFinder, selectionPolicy);
+        continue;
+      }
+
       List<T> versions = Lists.newArrayList(versionFinder.findDatasetVersions(this));
 
       if (versions.isEmpty()) {
@@ -314,6 +329,33 @@ public abstract class MultiVersionCleanableDatasetBase<T extends FileSystemDatas
     this.fsCleanableHelper.clean(deletableVersions, this);
   }
 
+  private boolean canCleanStreaming(VersionFinderAndPolicy<T> versionFinderAndPolicy) {
+    if (!this.fsCleanableHelper.isStreamingEnabled()) {
+      return false;
+    }
+    if (!(versionFinderAndPolicy.getVersionFinder() instanceof StreamingVersionFinder)
+        || !(versionFinderAndPolicy.getVersionSelectionPolicy() instanceof StreamingVersionSelectionPolicy)
+        || !versionFinderAndPolicy.getRetentionActions().isEmpty()) {
+      this.log.info(String.format("Streaming retention is not supported for dataset %s. Listing all versions first.",
+          datasetRoot()));
+      return false;
+    }
+    return true;
+  }
+
+  @SuppressWarnings("unchecked")
+  private void cleanStreaming(VersionFinder<? extends T> versionFinder, VersionSelectionPolicy<T> selectionPolicy)
+      throws IOException {
+    StreamingVersionFinder<? extends T> streamingVersionFinder = (StreamingVersionFinder<? extends T>) versionFinder;
+    Iterator<T> versions = (Iterator<T>) streamingVersionFinder.iterateDatasetVersions(this);
+    try {
+      this.fsCleanableHelper
+          .cleanInBatches(((StreamingVersionSelectionPolicy<T>) selectionPolicy).selectVersions(versions), this);
+    } catch (UncheckedIOException uioe) {
+      throw uioe.getCause();
+    }
+  }
+
   @Override
   public String toString() {
     return datasetRoot().toString();
@@ -17,6 +17,15 @@
 
 package gobblin.data.management.version.finder;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Properties;
 
 import org.apache.commons.lang3.StringUtils;
@@ -29,7 +38,11 @@ import org.joda.time.format.DateTimeFormatter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigFactory;
 
@@ -37,14 +50,24 @@ import gobblin.configuration.ConfigurationKeys;
 import gobblin.data.management.version.FileStatusTimestampedDatasetVersion;
 import gobblin.data.management.version.FileSystemDatasetVersion;
 import gobblin.data.management.version.TimestampedDatasetVersion;
+import gobblin.dataset.Dataset;
+import gobblin.dataset.FileSystemDataset;
+import gobblin.util.PathUtils;
 
 
 /**
  * {@link gobblin.data.management.version.finder.DatasetVersionFinder} for datasets based on path timestamps.
  * Uses a datetime pattern to find dataset versions from the dataset path
  * and parse the {@link org.joda.time.DateTime} representing the version.
+ *
+ * <p>
+ *   {@link #iterateDatasetVersions(Dataset)} walks the glob one path segment at a time, listing a single directory at
+ *   a time in name order. If every segment of the datetime pattern sorts chronologically by name (e.g. yyyy/MM/dd/HH),
+ *   versions are produced lazily from oldest to newest. Otherwise all versions are listed and sorted first.
+ * </p>
  */
-public class DateTimeDatasetVersionFinder extends AbstractDatasetVersionFinder<TimestampedDatasetVersion> {
+public class DateTimeDatasetVersionFinder extends AbstractDatasetVersionFinder<TimestampedDatasetVersion>
+    implements StreamingVersionFinder<TimestampedDatasetVersion> {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(DateTimeDatasetVersionFinder.class);
 
@@ -68,6 +91,7 @@ public class DateTimeDatasetVersionFinder extends AbstractDatasetVersionFinder<T
   private final Path globPattern;
   protected final DateTimeFormatter formatter;
   private final String datePartitionPattern;
+  private final boolean canStreamVersions;
 
   public DateTimeDatasetVersionFinder(FileSystem fs, Config config) {
     super(fs);
@@ -93,6 +117,9 @@ public class DateTimeDatasetVersionFinder extends AbstractDatasetVersionFinder<T
     }
 
     this.datePartitionPattern = pattern;
+    this.canStreamVersions =
+        this.globPattern.toString().split(Path.SEPARATOR).length == pattern.split(Path.SEPARATOR).length
+            && isChronologicallySorted(pattern);
   }
 
   public DateTimeDatasetVersionFinder(FileSystem fs, Properties props) {
@@ -114,6 +141,110 @@ public class DateTimeDatasetVersionFinder extends AbstractDatasetVersionFinder<T
     return this.globPattern;
   }
 
+  @Override
+  public Iterator<TimestampedDatasetVersion> iterateDatasetVersions(Dataset dataset) throws IOException {
+    if (!this.canStreamVersions) {
+      LOGGER.info(String.format("Versions of pattern %s do not sort by name. Listing all versions of %s.",
+          this.datePartitionPattern, dataset));
+      List<TimestampedDatasetVersion> versions = Lists.newArrayList(findDatasetVersions(dataset));
+      Collections.sort(versions);
+      return versions.iterator();
+    }
+    return new StreamingVersionIterator(((FileSystemDataset) dataset).datasetRoot());
+  }
+
+  /**
+   * Whether paths printed with the datetime pattern sort by name in the same order as their datetimes. This is the
+   * case when the pattern only has fixed width numeric fields, from the most to the least significant one.
+   */
+  @VisibleForTesting
+  static boolean isChronologicallySorted(String pattern) {
+    String fieldOrder = "yMdHms";
+    int lastField = -1;
+    boolean inQuote = false;
+    int i = 0;
+    while (i < pattern.length()) {
+      char c = pattern.charAt(i);
+      int width = 1;
+      while (i + width < pattern.length() && pattern.charAt(i + width) == c) {
+        width++;
+      }
+      i += width;
+
+      if (c == '\'') {
+        inQuote = width % 2 == 1 ? !inQuote : inQuote;
+        continue;
+      }
+      if (inQuote || !Character.isLetter(c)) {
+        continue;
+      }
+      int field = fieldOrder.indexOf(c);
+      if (field <= lastField || width != (c == 'y' ? 4 : 2)) {
+        return false;
+      }
+      lastField = field;
+    }
+    return true;
+  }
+
+  /**
+   * Depth first walk of the version glob, one path segment at a time. Only holds the listings of the directories on
+   * the current path, and each listing is sorted by name so versions come out from oldest to newest.
+   */
+  private class StreamingVersionIterator extends AbstractIterator<TimestampedDatasetVersion> {
+
+    private final Path datasetRoot;
+    private final String[] globSegments;
+    private final Deque<Iterator<FileStatus>> listings = new ArrayDeque<>();
+
+    private StreamingVersionIterator(Path datasetRoot) throws IOException {
+      this.datasetRoot = datasetRoot;
+      this.globSegments = DateTimeDatasetVersionFinder.this.globPattern.toString().split(Path.SEPARATOR);
+      this.listings.push(list(datasetRoot, this.globSegments[0]));
+    }
+
+    @Override
+    protected TimestampedDatasetVersion computeNext() {
+      try {
+        while (!this.listings.isEmpty()) {
+          Iterator<FileStatus> listing = this.listings.peek();
+          if (!listing.hasNext()) {
+            this.listings.pop();
+            continue;
+          }
+
+          FileStatus status = listing.next();
+          if (this.listings.size() == this.globSegments.length) {
+            TimestampedDatasetVersion version =
+                getDatasetVersion(PathUtils.relativizePath(status.getPath(), this.datasetRoot), status);
+            if (version != null) {
+              return version;
+            }
+          } else if (status.isDirectory()) {
+            this.listings.push(list(status.getPath(), this.globSegments[this.listings.size()]));
+          }
+        }
+        return endOfData();
+      } catch (IOException ioe) {
+        throw new UncheckedIOException(ioe);
+      }
+    }
+
+    private Iterator<FileStatus> list(Path parent, String globSegment) throws IOException {
+      FileStatus[] statuses = DateTimeDatasetVersionFinder.this.fs.globStatus(new Path(parent, globSegment));
+      if (statuses == null) {
+        return Iterators.emptyIterator();
+      }
+      Arrays.sort(statuses, new Comparator<FileStatus>() {
+        @Override
+        public int compare(FileStatus status1, FileStatus status2) {
+          return status1.getPath().getName().compareTo(status2.getPath().getName());
+        }
+      });
+      return Arrays.asList(statuses).iterator();
+    }
+  }
+
   /**
    * Parse {@link org.joda.time.DateTime} from {@link org.apache.hadoop.fs.Path} using datetime pattern.
    */
@@ -18,23 +18,38 @@
 package gobblin.data.management.version.finder;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Properties;
 
+import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.joda.time.DateTime;
 
+import com.google.common.collect.Lists;
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigFactory;
 
+import gobblin.data.management.version.FileStatusTimestampedDatasetVersion;
 import gobblin.data.management.version.FileSystemDatasetVersion;
 import gobblin.data.management.version.TimestampedDatasetVersion;
+import gobblin.dataset.Dataset;
 
 
 /**
  * Finds {@link FileSystemDatasetVersion}s using a glob pattern. Uses Modification time as the version.
+ *
+ * <p>
+ *   Modification times do not follow path names, so {@link #iterateDatasetVersions(Dataset)} cannot walk the glob
+ *   lazily like {@link DateTimeDatasetVersionFinder}: it lists all versions with a single glob, sorts them by
+ *   modification time and then hands them out, so that deletes can still proceed in batches. Versions are built from
+ *   the listed {@link FileStatus}es, without a further call to the {@link FileSystem} per version.
+ * </p>
  */
-public class GlobModTimeDatasetVersionFinder extends DatasetVersionFinder<TimestampedDatasetVersion> {
+public class GlobModTimeDatasetVersionFinder extends DatasetVersionFinder<TimestampedDatasetVersion>
+    implements StreamingVersionFinder<TimestampedDatasetVersion> {
 
   private final Path globPattern;
 
@@ -64,6 +79,19 @@ public class GlobModTimeDatasetVersionFinder extends DatasetVersionFinder<Timest
     return this.globPattern;
   }
 
+  @Override
+  public Iterator<TimestampedDatasetVersion> iterateDatasetVersions(Dataset dataset) throws IOException {
+    List<TimestampedDatasetVersion> versions = Lists.newArrayList(findDatasetVersions(dataset));
+    Collections.sort(versions);
+    return versions.iterator();
+  }
+
+  @Override
+  public TimestampedDatasetVersion getDatasetVersion(Path pathRelativeToDatasetRoot, FileStatus versionFileStatus) {
+    return new FileStatusTimestampedDatasetVersion(new DateTime(versionFileStatus.getModificationTime()),
+        versionFileStatus);
+  }
+
   @Override
   public TimestampedDatasetVersion getDatasetVersion(Path pathRelativeToDatasetRoot, Path fullPath) {
     try {
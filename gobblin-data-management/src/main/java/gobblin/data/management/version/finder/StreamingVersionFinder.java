@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package gobblin.data.management.version.finder;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+import gobblin.dataset.Dataset;
+import gobblin.data.management.version.DatasetVersion;
+
+
+/**
+ * A {@link VersionFinder} that can find dataset versions lazily, without materializing all of them first.
+ *
+ * @param <T> Type of {@link DatasetVersion} expected from this class.
+ */
+public interface StreamingVersionFinder<T extends DatasetVersion> extends VersionFinder<T> {
+
+  /**
+   * Lazily find dataset versions for {@link Dataset}, ordered from oldest to newest. Listing failures while iterating
+   * are thrown as {@link java.io.UncheckedIOException}s.
+   *
+   * @param dataset which contains all versions.
+   * @return {@link Iterator} of {@link DatasetVersion}s from oldest to newest.
+   * @throws IOException
+   */
+  public Iterator<T> iterateDatasetVersions(Dataset dataset) throws IOException;
+}
@@ -40,6 +40,7 @@ import gobblin.data.management.ConversionHiveTestUtils;
 import gobblin.data.management.conversion.hive.LocalHiveMetastoreTestUtils;
 import gobblin.data.management.conversion.hive.dataset.ConvertibleHiveDataset;
 import gobblin.data.management.conversion.hive.dataset.ConvertibleHiveDatasetTest;
+import gobblin.data.management.conversion.hive.entities.OrcConversionSpec;
 import gobblin.data.management.conversion.hive.entities.QueryBasedHiveConversionEntity;
 import gobblin.data.management.conversion.hive.entities.SchemaAwareHivePartition;
 import gobblin.data.management.conversion.hive.entities.SchemaAwareHiveTable;
@@ -160,6 +161,54 @@ public class HiveAvroToOrcConverterTest {
     }
   }
 
+  /***
+   * Test that native conversion replaces the staging queries with a conversion spec
+   * @throws IOException
+   */
+  @Test
+  public void testFlattenSchemaNativeConversion() throws Exception {
+    String dbName = "testdb";
+    String tableName = "testtable";
+    String tableSdLoc = "/tmp/testtable";
+
+    this.hiveMetastoreTestUtils.getLocalMetastoreClient().dropDatabase(dbName, false, true, true);
+
+    Table table = this.hiveMetastoreTestUtils.createTestTable(dbName, tableName, tableSdLoc, Optional.<String> absent());
+    Schema schema = ConversionHiveTestUtils.readSchemaFromJsonFile(resourceDir, "recordWithinRecordWithinRecord_nested.json");
+    WorkUnitState wus = ConversionHiveTestUtils.createWus(dbName, tableName, 0);
+    wus.setProp(AbstractAvroToOrcConverter.HIVE_CONVERSION_NATIVE_ENABLED, true);
+
+    try (HiveAvroToFlattenedOrcConverter converter = new HiveAvroToFlattenedOrcConverter();) {
+
+      Config config = ConfigFactory.parseMap(
+          ImmutableMap.<String, String>builder().put("destinationFormats", "flattenedOrc")
+              .put("flattenedOrc.destination.dbName", dbName)
+              .put("flattenedOrc.destination.tableName", tableName + "_orc")
+              .put("flattenedOrc.destination.dataPath", "file:" + tableSdLoc + "_orc").build());
+
+      ConvertibleHiveDataset cd = ConvertibleHiveDatasetTest.createTestConvertibleDataset(config);
+
+      List<QueryBasedHiveConversionEntity> conversionEntities =
+          Lists.newArrayList(converter.convertRecord(converter.convertSchema(schema, wus),
+              new QueryBasedHiveConversionEntity(cd, new SchemaAwareHiveTable(table, schema)), wus));
+
+      Assert.assertEquals(conversionEntities.size(), 1, "Only one query entity should be returned");
+
+      QueryBasedHiveConversionEntity queryBasedHiveConversionEntity = conversionEntities.get(0);
+      Assert.assertTrue(queryBasedHiveConversionEntity.getQueries().isEmpty(), "No conversion query should be run");
+      Assert.assertEquals(queryBasedHiveConversionEntity.getOrcConversionSpecs().size(), 1);
+
+      OrcConversionSpec spec = queryBasedHiveConversionEntity.getOrcConversionSpecs().get(0);
+      Assert.assertEquals(spec.getSourceSchema(), schema);
+      Assert.assertTrue(spec.getOutputLocation().toString().startsWith("file:" + tableSdLoc + "_orc"));
+      Assert.assertEquals(Lists.newArrayList(spec.getColumnSources().values()), ImmutableList.of(
+          "parentFieldRecord.nestedFieldRecord.superNestedFieldString",
+          "parentFieldRecord.nestedFieldRecord.superNestedFieldInt", "parentFieldRecord.nestedFieldString",
+          "parentFieldRecord.nestedFieldInt", "parentFieldInt"));
+      Assert.assertEquals(spec.getColumnTypes().keySet(), spec.getColumnSources().keySet());
+    }
+  }
+
   @Test
   public void dropReplacedPartitionsTest() throws Exception {
 
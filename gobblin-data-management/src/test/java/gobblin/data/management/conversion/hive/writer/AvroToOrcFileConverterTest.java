@@ -0,0 +1,220 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package gobblin.data.management.conversion.hive.writer;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.avro.Schema;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.metastore.api.Table;
+import org.apache.hadoop.hive.ql.io.orc.OrcFile;
+import org.apache.hadoop.hive.ql.io.orc.Reader;
+import org.apache.hadoop.hive.ql.io.orc.RecordReader;
+import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory;
+import org.apache.hadoop.io.IntWritable;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.Maps;
+import com.google.common.io.Files;
+
+import gobblin.data.management.ConversionHiveTestUtils;
+import gobblin.data.management.conversion.hive.entities.OrcConversionSpec;
+import gobblin.data.management.conversion.hive.query.HiveAvroORCQueryGenerator;
+import gobblin.util.AvroFlattener;
+
+
+@Test(groups = { "gobblin.data.management.conversion" })
+public class AvroToOrcFileConverterTest {
+
+  private FileSystem fs;
+  private File tmpDir;
+  private Path sourceDir;
+  private Schema schema;
+
+  @BeforeClass
+  public void setUp() throws IOException {
+    this.fs = FileSystem.getLocal(new Configuration());
+    this.tmpDir = Files.createTempDir();
+    this.sourceDir = new Path(this.tmpDir.getAbsolutePath(), "avro");
+    this.schema =
+        ConversionHiveTestUtils.readSchemaFromJsonFile("hiveConverterTest", "recordWithinRecordWithinRecord_nested.json");
+
+    this.fs.mkdirs(this.sourceDir);
+    writeAvroFile(new Path(this.sourceDir, "part-0.avro"), createRecord("a", 1, "b", 2, 3),
+        createRecord("c", 4, "d", 5, 6));
+    // Hidden files are not part of the table
+    new File(this.sourceDir.toString(), "_SUCCESS").createNewFile();
+  }
+
+  @Test
+  public void testFlattenedConversion() throws Exception {
+    Path outputDir = new Path(this.tmpDir.getAbsolutePath(), "flattened");
+    this.fs.mkdirs(outputDir);
+
+    AvroToOrcFileConverter converter =
+        new AvroToOrcFileConverter(this.fs, createSpec(outputDir, Optional.<Integer>absent()));
+    List<Path> sourceFiles = converter.getSourceFiles();
+    Assert.assertEquals(sourceFiles.size(), 1);
+    Assert.assertEquals(converter.convert(sourceFiles.get(0)), 2);
+
+    Reader reader = OrcFile.createReader(new Path(outputDir, "part-0.orc"), OrcFile.readerOptions(this.fs.getConf()));
+    Assert.assertEquals(reader.getNumberOfRows(), 2);
+    StructObjectInspector inspector = (StructObjectInspector) reader.getObjectInspector();
+    Assert.assertEquals(inspector.getAllStructFieldRefs().get(0).getFieldName().toLowerCase(),
+        "parentfieldrecord__nestedfieldrecord__supernestedfieldstring");
+
+    RecordReader rows = reader.rows();
+    List<Object> row = inspector.getStructFieldsDataAsList(rows.next(null));
+    Assert.assertEquals(row.get(0).toString(), "a");
+    Assert.assertEquals(((IntWritable) row.get(1)).get(), 1);
+    Assert.assertEquals(row.get(2).toString(), "b");
+    Assert.assertEquals(((IntWritable) row.get(3)).get(), 2);
+    Assert.assertEquals(((IntWritable) row.get(4)).get(), 3);
+
+    row = inspector.getStructFieldsDataAsList(rows.next(null));
+    Assert.assertEquals(row.get(0).toString(), "c");
+    Assert.assertEquals(((IntWritable) row.get(4)).get(), 6);
+    Assert.assertFalse(rows.hasNext());
+    rows.close();
+  }
+
+  @Test
+  public void testRowLimit() throws Exception {
+    Path outputDir = new Path(this.tmpDir.getAbsolutePath(), "limited");
+    this.fs.mkdirs(outputDir);
+
+    AvroToOrcFileConverter converter = new AvroToOrcFileConverter(this.fs, createSpec(outputDir, Optional.of(1)));
+    Assert.assertEquals(converter.convert(converter.getSourceFiles().get(0)), 1);
+    Assert.assertEquals(OrcFile.createReader(new Path(outputDir, "part-0.orc"),
+        OrcFile.readerOptions(this.fs.getConf())).getNumberOfRows(), 1);
+  }
+
+  @Test
+  public void testSourceFilesInSubdirectories() throws Exception {
+    Path nestedSourceDir = new Path(this.tmpDir.getAbsolutePath(), "nestedAvro");
+    this.fs.mkdirs(new Path(nestedSourceDir, "sub"));
+    writeAvroFile(new Path(nestedSourceDir, "part-0.avro"), createRecord("a", 1, "b", 2, 3));
+    writeAvroFile(new Path(nestedSourceDir, "sub/part-0.avro"), createRecord("c", 4, "d", 5, 6));
+    Path outputDir = new Path(this.tmpDir.getAbsolutePath(), "nested");
+    this.fs.mkdirs(outputDir);
+
+    AvroToOrcFileConverter converter =
+        new AvroToOrcFileConverter(this.fs, createSpec(nestedSourceDir, outputDir, Optional.<Integer>absent()));
+    List<Path> sourceFiles = converter.getSourceFiles();
+    Assert.assertEquals(sourceFiles.size(), 2);
+    for (Path sourceFile : sourceFiles) {
+      Assert.assertEquals(converter.convert(sourceFile), 1);
+    }
+
+    // Files of the same name in different directories do not overwrite each other
+    Assert.assertTrue(this.fs.exists(new Path(outputDir, "part-0.orc")));
+    Assert.assertTrue(this.fs.exists(new Path(outputDir, "sub__part-0.orc")));
+  }
+
+  @Test
+  public void testPrimitiveCoercion() {
+    Assert.assertEquals(AvroToOrcFileConverter.toHivePrimitive("TRUE", TypeInfoFactory.booleanTypeInfo), true);
+    Assert.assertEquals(AvroToOrcFileConverter.toHivePrimitive("false", TypeInfoFactory.booleanTypeInfo), false);
+    Assert.assertEquals(AvroToOrcFileConverter.toHivePrimitive(2, TypeInfoFactory.booleanTypeInfo), true);
+    // Values that are not booleans become null as with a Hive cast, instead of false
+    Assert.assertNull(AvroToOrcFileConverter.toHivePrimitive("yes", TypeInfoFactory.booleanTypeInfo));
+
+    Assert.assertEquals(AvroToOrcFileConverter.toHivePrimitive("2017-03-04", TypeInfoFactory.dateTypeInfo),
+        Date.valueOf("2017-03-04"));
+    Assert.assertEquals(AvroToOrcFileConverter.toHivePrimitive("2017-03-04 05:06:07", TypeInfoFactory.dateTypeInfo),
+        Date.valueOf("2017-03-04"));
+    Assert.assertNull(AvroToOrcFileConverter.toHivePrimitive("March 4th", TypeInfoFactory.dateTypeInfo));
+
+    Assert.assertEquals(
+        AvroToOrcFileConverter.toHivePrimitive("2017-03-04 05:06:07.5", TypeInfoFactory.timestampTypeInfo),
+        Timestamp.valueOf("2017-03-04 05:06:07.5"));
+    Assert.assertEquals(AvroToOrcFileConverter.toHivePrimitive(1500L, TypeInfoFactory.timestampTypeInfo),
+        new Timestamp(1500L));
+    Assert.assertEquals(AvroToOrcFileConverter.toHivePrimitive(1.5, TypeInfoFactory.timestampTypeInfo),
+        new Timestamp(1500L));
+    Assert.assertNull(AvroToOrcFileConverter.toHivePrimitive("2017-03-04T05", TypeInfoFactory.timestampTypeInfo));
+  }
+
+  @AfterClass
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(this.tmpDir);
+  }
+
+  private OrcConversionSpec createSpec(Path outputDir, Optional<Integer> rowLimit) {
+    return createSpec(this.sourceDir, outputDir, rowLimit);
+  }
+
+  private OrcConversionSpec createSpec(Path sourceDir, Path outputDir, Optional<Integer> rowLimit) {
+    Schema flattenedSchema = new AvroFlattener().flatten(this.schema, false);
+    Map<String, String> columnTypes = Maps.newLinkedHashMap();
+    HiveAvroORCQueryGenerator.generateCreateTableDDL(flattenedSchema, "testtable_orc", outputDir.toString(),
+        Optional.<String>absent(), Optional.<Map<String, String>>absent(), Optional.<List<String>>absent(),
+        Optional.<Map<String, HiveAvroORCQueryGenerator.COLUMN_SORT_ORDER>>absent(), Optional.<Integer>absent(),
+        Optional.<String>absent(), Optional.<String>absent(), Optional.<String>absent(), null, true,
+        Optional.<Table>absent(), columnTypes);
+
+    return new OrcConversionSpec(this.schema, sourceDir, outputDir,
+        HiveAvroORCQueryGenerator.generateColumnSourceMapping(flattenedSchema, true, Optional.<Table>absent()),
+        columnTypes, HiveAvroORCQueryGenerator.getTableProperties(new Properties()), rowLimit);
+  }
+
+  private void writeAvroFile(Path file, GenericRecord... records) throws IOException {
+    try (DataFileWriter<GenericRecord> writer = new DataFileWriter<>(new GenericDatumWriter<GenericRecord>())) {
+      writer.create(this.schema, new File(file.toString()));
+      for (GenericRecord record : records) {
+        writer.append(record);
+      }
+    }
+  }
+
+  private GenericRecord createRecord(String superNestedString, int superNestedInt, String nestedString,
+      int nestedInt, int parentInt) {
+    Schema nestedSchema = this.schema.getField("parentFieldRecord").schema();
+    Schema superNestedSchema = nestedSchema.getField("nestedFieldRecord").schema();
+
+    GenericRecord superNested = new GenericData.Record(superNestedSchema);
+    superNested.put("superNestedFieldString", superNestedString);
+    superNested.put("superNestedFieldInt", superNestedInt);
+    GenericRecord nested = new GenericData.Record(nestedSchema);
+    nested.put("nestedFieldRecord", superNested);
+    nested.put("nestedFieldString", nestedString);
+    nested.put("nestedFieldInt", nestedInt);
+    GenericRecord parent = new GenericData.Record(this.schema);
+    parent.put("parentFieldRecord", nested);
+    parent.put("parentFieldInt", parentInt);
+    return parent;
+  }
+}
@@ -25,6 +25,8 @@ import org.testng.Assert;
 import org.testng.annotations.Test;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigFactory;
 import com.typesafe.config.ConfigValueFactory;
@@ -213,4 +215,20 @@ public class NewestKSelectionPolicyTest {
     Assert.assertEquals(res.size(), 0);
   }
 
+  @Test
+  public void testSelectVersions() {
+    ArrayList<DatasetVersion> versions = new ArrayList<>();
+    for (int i = 0; i < 10; ++i) {
+      versions.add(new TestStringDatasetVersion(String.format("v%03d", i)));
+    }
+
+    for (NewestKSelectionPolicy<DatasetVersion> policy : Lists.newArrayList(
+        new NewestKSelectionPolicy<DatasetVersion>(5, false), new NewestKSelectionPolicy<DatasetVersion>(15, false),
+        new NewestKSelectionPolicy<DatasetVersion>(4, true), new NewestKSelectionPolicy<DatasetVersion>(14, true))) {
+      // Streamed versions are ordered from oldest to newest
+      Assert.assertEquals(Sets.newHashSet(policy.selectVersions(Lists.reverse(versions).iterator())),
+          Sets.newHashSet(policy.listSelectedVersions(versions)), "Mismatch for policy " + policy);
+    }
+  }
+
 }
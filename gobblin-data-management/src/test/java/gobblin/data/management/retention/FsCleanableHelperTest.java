@@ -38,6 +38,7 @@ import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.google.common.io.Files;
 import com.typesafe.config.ConfigFactory;
@@ -130,6 +131,38 @@ public class FsCleanableHelperTest {
     Assert.assertTrue(this.fs.exists(notDeleted1.getParent()));
   }
 
+  @Test
+  public void testCleanInBatches() throws Exception {
+    Properties props = new Properties();
+    props.setProperty(FsCleanableHelper.SKIP_TRASH_KEY, Boolean.toString(true));
+    props.setProperty(FsCleanableHelper.STREAMING_DELETE_BATCH_SIZE_KEY, "3");
+    props.setProperty(FsCleanableHelper.STREAMING_DELETE_THREADS_KEY, "2");
+    props.setProperty(FsCleanableHelper.MAX_FS_OPS_PER_SECOND_KEY, "1000");
+    FsCleanableHelper fsCleanableHelper = new FsCleanableHelper(this.fs, props, ConfigFactory.empty(), log);
+    FileSystemDataset fsDataset = mock(FileSystemDataset.class);
+    Path datasetRoot = new Path(testTempPath, "dataset2");
+    when(fsDataset.datasetRoot()).thenReturn(datasetRoot);
+
+    List<FileSystemDatasetVersion> deletableVersions = Lists.newArrayList();
+    for (int hour = 0; hour < 24; hour++) {
+      Path deleted = new Path(datasetRoot, String.format("2016/01/01/%02d", hour));
+      this.fs.mkdirs(deleted);
+      deletableVersions.add(new MockFileSystemDatasetVersion(deleted));
+    }
+    Path notDeleted = new Path(datasetRoot, "2016/01/02/00");
+    this.fs.mkdirs(notDeleted);
+
+    fsCleanableHelper.cleanInBatches(deletableVersions.iterator(), fsDataset);
+
+    for (FileSystemDatasetVersion version : deletableVersions) {
+      Assert.assertFalse(this.fs.exists(((MockFileSystemDatasetVersion) version).getPath()));
+    }
+    Assert.assertTrue(this.fs.exists(notDeleted));
+
+    // Verify empty parent dir "2016/01/01" is deleted
+    Assert.assertFalse(this.fs.exists(new Path(datasetRoot, "2016/01/01")));
+  }
+
   @AllArgsConstructor
   private static class MockFileSystemDatasetVersion implements FileSystemDatasetVersion {
 
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package gobblin.data.management.version.finder;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
+
+import gobblin.data.management.version.TimestampedDatasetVersion;
+import gobblin.dataset.FileSystemDataset;
+
+
+@Test(groups = { "gobblin.data.management.version" })
+public class DateTimeDatasetVersionFinderTest {
+
+  private FileSystem fs;
+  private Path testTempPath;
+
+  @BeforeClass
+  public void setup() throws Exception {
+    this.fs = FileSystem.getLocal(new Configuration());
+    this.testTempPath = new Path(Files.createTempDir().getAbsolutePath(), "DateTimeDatasetVersionFinderTest");
+    this.fs.mkdirs(this.testTempPath);
+  }
+
+  @AfterClass
+  public void cleanUp() {
+    try {
+      this.fs.delete(this.testTempPath, true);
+    } catch (Exception e) {
+      // ignore
+    }
+  }
+
+  @Test
+  public void testIterateDatasetVersions() throws Exception {
+    Path datasetRoot = new Path(this.testTempPath, "dataset1");
+    String[] versionPaths = { "2016/12/31/23", "2017/01/02/00", "2017/01/01/09", "2017/01/01/10", "2016/02/01/00" };
+    for (String versionPath : versionPaths) {
+      this.fs.mkdirs(new Path(datasetRoot, versionPath));
+    }
+    // Not a version
+    this.fs.create(new Path(datasetRoot, "2017/_SUCCESS")).close();
+
+    Properties props = new Properties();
+    props.setProperty(DateTimeDatasetVersionFinder.DATE_TIME_PATTERN_KEY, "yyyy/MM/dd/HH");
+    DateTimeDatasetVersionFinder versionFinder = new DateTimeDatasetVersionFinder(this.fs, props);
+    FileSystemDataset dataset = mock(FileSystemDataset.class);
+    when(dataset.datasetRoot()).thenReturn(datasetRoot);
+
+    List<TimestampedDatasetVersion> expected = Lists.newArrayList(versionFinder.findDatasetVersions(dataset));
+    Collections.sort(expected);
+    Assert.assertEquals(expected.size(), versionPaths.length);
+
+    Iterator<TimestampedDatasetVersion> versions = versionFinder.iterateDatasetVersions(dataset);
+    Assert.assertEquals(Lists.newArrayList(versions), expected);
+  }
+
+  @Test
+  public void testIsChronologicallySorted() {
+    Assert.assertTrue(DateTimeDatasetVersionFinder.isChronologicallySorted("yyyy/MM/dd/HH"));
+    Assert.assertTrue(DateTimeDatasetVersionFinder.isChronologicallySorted("yyyy-MM-dd/HH-mm"));
+    Assert.assertTrue(DateTimeDatasetVersionFinder.isChronologicallySorted("'daily'/yyyy/MM/dd"));
+    Assert.assertFalse(DateTimeDatasetVersionFinder.isChronologicallySorted("yyyy/MMM/dd"));
+    Assert.assertFalse(DateTimeDatasetVersionFinder.isChronologicallySorted("yyyy/MM/dd/hh"));
+    Assert.assertFalse(DateTimeDatasetVersionFinder.isChronologicallySorted("dd-MM-yyyy"));
+    Assert.assertFalse(DateTimeDatasetVersionFinder.isChronologicallySorted("yy/M/d"));
+  }
+}
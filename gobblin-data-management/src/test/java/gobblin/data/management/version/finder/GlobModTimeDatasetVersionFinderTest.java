@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package gobblin.data.management.version.finder;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
+
+import gobblin.data.management.version.FileStatusAware;
+import gobblin.data.management.version.TimestampedDatasetVersion;
+import gobblin.dataset.FileSystemDataset;
+
+
+@Test(groups = { "gobblin.data.management.version" })
+public class GlobModTimeDatasetVersionFinderTest {
+
+  private FileSystem fs;
+  private Path testTempPath;
+
+  @BeforeClass
+  public void setup() throws Exception {
+    this.fs = FileSystem.getLocal(new Configuration());
+    this.testTempPath = new Path(Files.createTempDir().getAbsolutePath(), "GlobModTimeDatasetVersionFinderTest");
+    this.fs.mkdirs(this.testTempPath);
+  }
+
+  @AfterClass
+  public void cleanUp() {
+    try {
+      this.fs.delete(this.testTempPath, true);
+    } catch (Exception e) {
+      // ignore
+    }
+  }
+
+  @Test
+  public void testIterateDatasetVersions() throws Exception {
+    Path datasetRoot = new Path(this.testTempPath, "dataset1");
+    // Modification times in the opposite order of the names
+    String[] versionPaths = { "a", "b", "c" };
+    long modTime = 1483228800000L;
+    for (int i = versionPaths.length - 1; i >= 0; i--) {
+      Path versionPath = new Path(datasetRoot, versionPaths[i]);
+      this.fs.mkdirs(versionPath);
+      this.fs.setTimes(versionPath, modTime, modTime);
+      modTime += 60 * 60 * 1000L;
+    }
+
+    GlobModTimeDatasetVersionFinder versionFinder = new GlobModTimeDatasetVersionFinder(this.fs, new Path("*"));
+    FileSystemDataset dataset = mock(FileSystemDataset.class);
+    when(dataset.datasetRoot()).thenReturn(datasetRoot);
+
+    List<TimestampedDatasetVersion> versions = Lists.newArrayList(versionFinder.iterateDatasetVersions(dataset));
+    Assert.assertEquals(versions.size(), versionPaths.length);
+    for (int i = 0; i < versionPaths.length; i++) {
+      TimestampedDatasetVersion version = versions.get(i);
+      Assert.assertEquals(Iterables.getOnlyElement(version.getPaths()).getName(),
+          versionPaths[versionPaths.length - 1 - i]);
+      Assert.assertEquals(version.getDateTime().getMillis(), 1483228800000L + i * 60 * 60 * 1000L);
+      // The listed file status is kept, so deletes need not look it up again
+      Assert.assertEquals(((FileStatusAware) version).getFileStatuses().size(), 1);
+    }
+  }
+}
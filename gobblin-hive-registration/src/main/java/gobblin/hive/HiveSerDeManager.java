@@ -26,8 +26,11 @@ import com.google.common.base.Enums;
 import com.google.common.base.Optional;
 
 import gobblin.annotation.Alpha;
+import gobblin.configuration.ConfigurationKeys;
 import gobblin.configuration.State;
 import gobblin.hive.avro.HiveAvroSerDeManager;
+import gobblin.hive.parquet.HiveParquetSerDeManager;
+import gobblin.writer.WriterOutputFormat;
 
 
 /**
@@ -79,7 +82,8 @@ public abstract class HiveSerDeManager {
   public abstract boolean haveSameSchema(HiveRegistrationUnit unit1, HiveRegistrationUnit unit2) throws IOException;
 
   public enum Implementation {
-    AVRO(HiveAvroSerDeManager.class.getName());
+    AVRO(HiveAvroSerDeManager.class.getName()),
+    PARQUET(HiveParquetSerDeManager.class.getName());
 
     private final String schemaManagerClassName;
 
@@ -96,16 +100,17 @@ public abstract class HiveSerDeManager {
   /**
    * Get an instance of {@link HiveSerDeManager}.
    *
-   * @param type The {@link HiveSerDeManager} type. It should be either AVRO, or the name of a class that implements
-   * {@link HiveSerDeManager}. The specified {@link HiveSerDeManager} type must have a constructor that takes a
+   * @param type The {@link HiveSerDeManager} type. It should be either AVRO, PARQUET, or the name of a class that
+   * implements {@link HiveSerDeManager}. The specified {@link HiveSerDeManager} type must have a constructor that takes a
    * {@link State} object.
    * @param props A {@link State} object. To get a specific implementation of {@link HiveSerDeManager}, specify either
    * one of the values in {@link Implementation} (e.g., AVRO) or the name of a class that implements
    * {@link HiveSerDeManager} in property {@link #HIVE_ROW_FORMAT}. The {@link State} object is also used to
-   * instantiate the {@link HiveSerDeManager}.
+   * instantiate the {@link HiveSerDeManager}. If {@link #HIVE_ROW_FORMAT} is not set, PARQUET is used when
+   * {@link ConfigurationKeys#WRITER_OUTPUT_FORMAT_KEY} is PARQUET, and AVRO otherwise.
    */
   public static HiveSerDeManager get(State props) {
-    String type = props.getProp(HIVE_ROW_FORMAT, Implementation.AVRO.name());
+    String type = props.getProp(HIVE_ROW_FORMAT, getDefaultImplementation(props).name());
     Optional<Implementation> implementation = Enums.getIfPresent(Implementation.class, type.toUpperCase());
 
     try {
@@ -120,4 +125,9 @@ public abstract class HiveSerDeManager {
     }
   }
 
+  private static Implementation getDefaultImplementation(State props) {
+    String outputFormat = props.getProp(ConfigurationKeys.WRITER_OUTPUT_FORMAT_KEY);
+    return WriterOutputFormat.PARQUET.name().equalsIgnoreCase(outputFormat) ? Implementation.PARQUET
+        : Implementation.AVRO;
+  }
 }
@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package gobblin.hive.parquet;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.avro.Schema;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.PathFilter;
+import org.apache.hadoop.hive.serde2.SerDeException;
+import org.apache.hadoop.hive.serde2.avro.AvroObjectInspectorGenerator;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+
+import parquet.hadoop.ParquetFileReader;
+import parquet.hadoop.metadata.ParquetMetadata;
+
+import gobblin.annotation.Alpha;
+import gobblin.configuration.State;
+import gobblin.hive.HiveRegistrationUnit;
+import gobblin.hive.HiveSerDeManager;
+import gobblin.hive.HiveSerDeWrapper;
+import gobblin.util.FileListUtils;
+import gobblin.util.HadoopUtils;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * A {@link HiveSerDeManager} for registering Parquet tables and partitions.
+ *
+ * <p>
+ *   The Parquet SerDe takes its schema from the table columns, so the columns are derived from the Avro
+ *   {@link Schema} stored in the footer of the latest Parquet file in the directory (as written by
+ *   {@link parquet.avro.AvroParquetWriter}).
+ * </p>
+ */
+@Slf4j
+@Alpha
+public class HiveParquetSerDeManager extends HiveSerDeManager {
+
+  public static final String PARQUET_FILE_SUFFIX = ".parquet";
+  public static final String AVRO_SCHEMA_METADATA_KEY = "avro.schema";
+
+  private static final PathFilter PARQUET_FILE_FILTER = new PathFilter() {
+    @Override
+    public boolean accept(Path path) {
+      return path.getName().endsWith(PARQUET_FILE_SUFFIX);
+    }
+  };
+
+  protected final FileSystem fs;
+  protected final HiveSerDeWrapper serDeWrapper = HiveSerDeWrapper.get("PARQUET");
+
+  public HiveParquetSerDeManager(State props) throws IOException {
+    super(props);
+    this.fs = FileSystem.get(HadoopUtils.getConfFromState(props));
+  }
+
+  @Override
+  public void addSerDeProperties(Path path, HiveRegistrationUnit hiveUnit) throws IOException {
+    hiveUnit.setSerDeType(this.serDeWrapper.getSerDe().getClass().getName());
+    hiveUnit.setInputFormat(this.serDeWrapper.getInputFormatClassName());
+    hiveUnit.setOutputFormat(this.serDeWrapper.getOutputFormatClassName());
+
+    Preconditions.checkArgument(this.fs.getFileStatus(path).isDirectory(), path + " is not a directory.");
+    hiveUnit.setColumns(getColumns(getDirectorySchema(path)));
+  }
+
+  @Override
+  public void addSerDeProperties(HiveRegistrationUnit source, HiveRegistrationUnit target) throws IOException {
+    if (source.getSerDeType().isPresent()) {
+      target.setSerDeType(source.getSerDeType().get());
+    }
+    if (source.getInputFormat().isPresent()) {
+      target.setInputFormat(source.getInputFormat().get());
+    }
+    if (source.getOutputFormat().isPresent()) {
+      target.setOutputFormat(source.getOutputFormat().get());
+    }
+    if (!source.getColumns().isEmpty()) {
+      target.setColumns(source.getColumns());
+    }
+  }
+
+  @Override
+  public void updateSchema(HiveRegistrationUnit existingUnit, HiveRegistrationUnit newUnit) throws IOException {
+    Preconditions.checkArgument(!newUnit.getColumns().isEmpty());
+    existingUnit.setColumns(newUnit.getColumns());
+  }
+
+  @Override
+  public boolean haveSameSchema(HiveRegistrationUnit unit1, HiveRegistrationUnit unit2) throws IOException {
+    List<HiveRegistrationUnit.Column> columns1 = unit1.getColumns();
+    List<HiveRegistrationUnit.Column> columns2 = unit2.getColumns();
+    if (columns1.isEmpty() || columns1.size() != columns2.size()) {
+      return false;
+    }
+    for (int i = 0; i < columns1.size(); i++) {
+      if (!columns1.get(i).getName().equalsIgnoreCase(columns2.get(i).getName())
+          || !columns1.get(i).getType().equalsIgnoreCase(columns2.get(i).getType())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Get the Avro {@link Schema} stored in the footer of the latest Parquet file in the given directory.
+   */
+  protected Schema getDirectorySchema(Path directory) throws IOException {
+    List<FileStatus> files = FileListUtils.listFilesRecursively(this.fs, directory, PARQUET_FILE_FILTER);
+    if (files.isEmpty()) {
+      throw new IOException("There is no parquet file in the directory: " + directory);
+    }
+    Collections.sort(files, FileListUtils.LATEST_MOD_TIME_ORDER);
+    Path file = files.get(0).getPath();
+    log.debug("Path to get the parquet schema: " + file);
+
+    ParquetMetadata footer = ParquetFileReader.readFooter(this.fs.getConf(), file);
+    String schema = footer.getFileMetaData().getKeyValueMetaData().get(AVRO_SCHEMA_METADATA_KEY);
+    if (schema == null) {
+      throw new IOException("Parquet file " + file + " does not carry an Avro schema in its footer");
+    }
+    return new Schema.Parser().parse(schema);
+  }
+
+  private static List<HiveRegistrationUnit.Column> getColumns(Schema schema) throws IOException {
+    try {
+      AvroObjectInspectorGenerator generator = new AvroObjectInspectorGenerator(schema);
+      List<HiveRegistrationUnit.Column> columns = Lists.newArrayList();
+      for (int i = 0; i < generator.getColumnNames().size(); i++) {
+        columns.add(new HiveRegistrationUnit.Column(generator.getColumnNames().get(i),
+            generator.getColumnTypes().get(i).getTypeName(), ""));
+      }
+      return columns;
+    } catch (SerDeException e) {
+      throw new IOException("Unable to convert schema " + schema.getName() + " into Hive columns", e);
+    }
+  }
+}
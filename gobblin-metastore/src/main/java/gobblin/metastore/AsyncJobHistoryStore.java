@@ -0,0 +1,331 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package gobblin.metastore;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Maps;
+
+import gobblin.configuration.ConfigurationKeys;
+import gobblin.metrics.MetricContext;
+import gobblin.rest.JobExecutionInfo;
+import gobblin.rest.JobExecutionQuery;
+import gobblin.rest.JobStateEnum;
+import gobblin.rest.TaskExecutionInfo;
+import gobblin.rest.TaskExecutionInfoArray;
+import gobblin.util.ExecutorsUtils;
+
+
+/**
+ * A {@link JobHistoryStore} that writes job execution information to another {@link JobHistoryStore} from a
+ * background thread, so that job launchers do not wait for the writes.
+ *
+ * <p>
+ *   Job launchers put a complete snapshot of a job every time some of its tasks complete. A snapshot that has not
+ *   been written yet is replaced by a newer snapshot of the same job, and task executions that are unchanged since
+ *   they were last written are left out, so each task execution is written about once per change instead of once
+ *   per snapshot. Since a job launcher creates a store per job, at most one unwritten snapshot is held at a time,
+ *   and {@link #put(JobExecutionInfo)} never blocks. A store shared by several jobs holds one unwritten snapshot per
+ *   job.
+ * </p>
+ *
+ * <p>
+ *   Failed writes are logged and counted. The task executions of a failed write are written again with the next
+ *   snapshot of the job. {@link #get(JobExecutionQuery)} waits for queued snapshots to be written first.
+ * </p>
+ */
+public class AsyncJobHistoryStore implements JobHistoryStore {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(AsyncJobHistoryStore.class);
+
+  public static final String WRITE_LAG = "writeLagMillis";
+  public static final String QUEUED_JOBS = "queuedJobs";
+  public static final String WRITE_TIME = "writeTime";
+  public static final String FAILED_WRITES = "failedWrites";
+
+  private final JobHistoryStore store;
+  private final long closeTimeoutSeconds;
+  private final ExecutorService writer;
+
+  // Unwritten snapshots by job ID in the order their jobs were first queued. Guarded by this.lock.
+  private final LinkedHashMap<String, QueuedSnapshot> queuedSnapshots = Maps.newLinkedHashMap();
+  private Optional<QueuedSnapshot> snapshotInWrite = Optional.absent();
+  private boolean closed = false;
+  private final Object lock = new Object();
+
+  // The last written execution of every task by job ID. Only accessed by the writer thread.
+  private final Map<String, Map<String, TaskExecutionInfo>> writtenTaskExecutions = Maps.newHashMap();
+
+  // Replaced by context-aware metrics in registerAll(MetricContext, String)
+  private volatile Timer writeTimer = new Timer();
+  private volatile Meter failedWritesMeter = new Meter();
+
+  public AsyncJobHistoryStore(JobHistoryStore store, Properties properties) {
+    this(store, Long.parseLong(
+        properties.getProperty(ConfigurationKeys.JOB_HISTORY_STORE_ASYNC_CLOSE_TIMEOUT_SECONDS_KEY,
+            Long.toString(ConfigurationKeys.DEFAULT_JOB_HISTORY_STORE_ASYNC_CLOSE_TIMEOUT_SECONDS))));
+  }
+
+  public AsyncJobHistoryStore(JobHistoryStore store, long closeTimeoutSeconds) {
+    this.store = store;
+    this.closeTimeoutSeconds = closeTimeoutSeconds;
+    this.writer = Executors.newSingleThreadExecutor(
+        ExecutorsUtils.newDaemonThreadFactory(Optional.of(LOGGER), Optional.of("JobHistoryWriter-%d")));
+    this.writer.submit(new Runnable() {
+      @Override
+      public void run() {
+        writeQueuedSnapshots();
+      }
+    });
+  }
+
+  /**
+   * Queue a snapshot of a job to be written, replacing an unwritten snapshot of the same job.
+   * The snapshot is copied, so the caller may keep modifying the given {@link JobExecutionInfo}.
+   */
+  @Override
+  public void put(JobExecutionInfo jobExecutionInfo) throws IOException {
+    Preconditions.checkArgument(jobExecutionInfo.hasJobId());
+    JobExecutionInfo snapshot;
+    try {
+      snapshot = jobExecutionInfo.copy();
+    } catch (CloneNotSupportedException cnse) {
+      throw new IOException("Failed to copy job execution information of job " + jobExecutionInfo.getJobId(), cnse);
+    }
+
+    synchronized (this.lock) {
+      if (this.closed) {
+        throw new IOException("Job history store is closed");
+      }
+      QueuedSnapshot queued = this.queuedSnapshots.get(snapshot.getJobId());
+      if (queued == null) {
+        this.queuedSnapshots.put(snapshot.getJobId(), new QueuedSnapshot(snapshot, System.currentTimeMillis()));
+      } else {
+        // Keep the queue time of the replaced snapshot, so the write lag covers the oldest unwritten change
+        queued.jobExecutionInfo = snapshot;
+      }
+      this.lock.notifyAll();
+    }
+  }
+
+  /**
+   * Wait for queued snapshots to be written, then run the query.
+   */
+  @Override
+  public List<JobExecutionInfo> get(JobExecutionQuery query) throws IOException {
+    flush();
+    return this.store.get(query);
+  }
+
+  /**
+   * Wait until every snapshot queued so far is written or has failed to be written.
+   */
+  public void flush() throws IOException {
+    synchronized (this.lock) {
+      while (!this.queuedSnapshots.isEmpty() || this.snapshotInWrite.isPresent()) {
+        if (this.writer.isTerminated()) {
+          throw new IOException("Job history writer terminated with unwritten job execution information");
+        }
+        try {
+          this.lock.wait(TimeUnit.SECONDS.toMillis(1));
+        } catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+          throw new IOException("Interrupted while waiting for job execution information to be written", ie);
+        }
+      }
+    }
+  }
+
+  /**
+   * Write the queued snapshots, waiting up to
+   * {@link ConfigurationKeys#JOB_HISTORY_STORE_ASYNC_CLOSE_TIMEOUT_SECONDS_KEY} seconds, then close the underlying
+   * store.
+   */
+  @Override
+  public void close() throws IOException {
+    synchronized (this.lock) {
+      this.closed = true;
+      this.lock.notifyAll();
+    }
+    try {
+      this.writer.shutdown();
+      if (!this.writer.awaitTermination(this.closeTimeoutSeconds, TimeUnit.SECONDS)) {
+        LOGGER.error(String.format("Gave up writing job execution information of %d jobs after %d seconds",
+            getQueuedJobs(), this.closeTimeoutSeconds));
+        this.writer.shutdownNow();
+      }
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+      this.writer.shutdownNow();
+    } finally {
+      this.store.close();
+    }
+  }
+
+  private void writeQueuedSnapshots() {
+    while (true) {
+      QueuedSnapshot queued;
+      synchronized (this.lock) {
+        while (this.queuedSnapshots.isEmpty() && !this.closed) {
+          try {
+            this.lock.wait();
+          } catch (InterruptedException ie) {
+            LOGGER.warn("Job history writer interrupted with unwritten job execution information of {} jobs",
+                this.queuedSnapshots.size());
+            return;
+          }
+        }
+        if (this.queuedSnapshots.isEmpty()) {
+          return;
+        }
+        Iterator<QueuedSnapshot> iterator = this.queuedSnapshots.values().iterator();
+        queued = iterator.next();
+        iterator.remove();
+        this.snapshotInWrite = Optional.of(queued);
+        this.lock.notifyAll();
+      }
+
+      try {
+        write(queued.jobExecutionInfo);
+      } finally {
+        synchronized (this.lock) {
+          this.snapshotInWrite = Optional.absent();
+          this.lock.notifyAll();
+        }
+      }
+    }
+  }
+
+  private void write(JobExecutionInfo snapshot) {
+    String jobId = snapshot.getJobId();
+    Map<String, TaskExecutionInfo> writtenTasks = this.writtenTaskExecutions.get(jobId);
+    if (writtenTasks == null) {
+      writtenTasks = Maps.newHashMap();
+      this.writtenTaskExecutions.put(jobId, writtenTasks);
+    }
+
+    TaskExecutionInfoArray changedTasks = new TaskExecutionInfoArray();
+    if (snapshot.hasTaskExecutions()) {
+      for (TaskExecutionInfo taskExecution : snapshot.getTaskExecutions()) {
+        if (!taskExecution.equals(writtenTasks.get(taskExecution.getTaskId()))) {
+          changedTasks.add(taskExecution);
+        }
+      }
+      snapshot.setTaskExecutions(changedTasks);
+    }
+
+    Timer.Context context = this.writeTimer.time();
+    try {
+      this.store.put(snapshot);
+      for (TaskExecutionInfo taskExecution : changedTasks) {
+        writtenTasks.put(taskExecution.getTaskId(), taskExecution);
+      }
+    } catch (IOException | RuntimeException e) {
+      this.failedWritesMeter.mark();
+      LOGGER.error("Failed to write job execution information of job " + jobId, e);
+    } finally {
+      context.stop();
+    }
+
+    if (snapshot.hasState() && isFinal(snapshot.getState())) {
+      this.writtenTaskExecutions.remove(jobId);
+    }
+  }
+
+  private static boolean isFinal(JobStateEnum state) {
+    return state == JobStateEnum.COMMITTED || state == JobStateEnum.FAILED || state == JobStateEnum.CANCELLED;
+  }
+
+  /**
+   * @return number of jobs with queued snapshots, including a snapshot being written.
+   */
+  public int getQueuedJobs() {
+    synchronized (this.lock) {
+      return this.queuedSnapshots.size() + (this.snapshotInWrite.isPresent() ? 1 : 0);
+    }
+  }
+
+  /**
+   * @return milliseconds since the oldest change that has not been written yet was queued, or 0 if there is none.
+   */
+  public long getWriteLagMillis() {
+    synchronized (this.lock) {
+      long oldestQueueTime = Long.MAX_VALUE;
+      if (this.snapshotInWrite.isPresent()) {
+        oldestQueueTime = this.snapshotInWrite.get().queueTimeMillis;
+      }
+      if (!this.queuedSnapshots.isEmpty()) {
+        oldestQueueTime = Math.min(oldestQueueTime, this.queuedSnapshots.values().iterator().next().queueTimeMillis);
+      }
+      return oldestQueueTime == Long.MAX_VALUE ? 0 : System.currentTimeMillis() - oldestQueueTime;
+    }
+  }
+
+  /**
+   * Register all statistics as {@link gobblin.metrics.ContextAwareMetric}s with a {@link MetricContext}. Writes from
+   * then on are recorded by the context-aware timer and meter.
+   *
+   * @param metricContext the {@link MetricContext} to register with
+   * @param prefix metric name prefix
+   */
+  public void registerAll(MetricContext metricContext, String prefix) {
+    metricContext.register(metricContext.newContextAwareGauge(MetricRegistry.name(prefix, WRITE_LAG),
+        new Gauge<Long>() {
+          @Override
+          public Long getValue() {
+            return getWriteLagMillis();
+          }
+        }));
+    metricContext.register(metricContext.newContextAwareGauge(MetricRegistry.name(prefix, QUEUED_JOBS),
+        new Gauge<Integer>() {
+          @Override
+          public Integer getValue() {
+            return getQueuedJobs();
+          }
+        }));
+    this.writeTimer = metricContext.contextAwareTimer(MetricRegistry.name(prefix, WRITE_TIME));
+    this.failedWritesMeter = metricContext.contextAwareMeter(MetricRegistry.name(prefix, FAILED_WRITES));
+  }
+
+  private static class QueuedSnapshot {
+    private JobExecutionInfo jobExecutionInfo;
+    private final long queueTimeMillis;
+
+    QueuedSnapshot(JobExecutionInfo jobExecutionInfo, long queueTimeMillis) {
+      this.jobExecutionInfo = jobExecutionInfo;
+      this.queueTimeMillis = queueTimeMillis;
+    }
+  }
+}
@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package gobblin.metastore;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.Lists;
+
+import gobblin.metrics.MetricContext;
+import gobblin.rest.JobExecutionInfo;
+import gobblin.rest.JobExecutionQuery;
+import gobblin.rest.JobStateEnum;
+import gobblin.rest.TaskExecutionInfo;
+import gobblin.rest.TaskExecutionInfoArray;
+import gobblin.rest.TaskStateEnum;
+
+
+/**
+ * Unit tests for {@link AsyncJobHistoryStore} with an in-memory store.
+ */
+@Test(groups = {"gobblin.metastore"})
+public class AsyncJobHistoryStoreTest {
+
+  @Test
+  public void testCoalescesSnapshotsAndSkipsUnchangedTasks() throws Exception {
+    RecordingStore recordingStore = new RecordingStore();
+    AsyncJobHistoryStore store = new AsyncJobHistoryStore(recordingStore, 60);
+    MetricContext metricContext = MetricContext.builder("testCoalescesSnapshotsAndSkipsUnchangedTasks").build();
+    store.registerAll(metricContext, "jobHistory");
+    try {
+      // Block the writer on the first snapshot, so that the next ones queue up
+      store.put(create("job1", JobStateEnum.RUNNING, TaskStateEnum.RUNNING, TaskStateEnum.RUNNING));
+      Assert.assertTrue(recordingStore.writeStarted.await(10, TimeUnit.SECONDS));
+
+      store.put(create("job1", JobStateEnum.RUNNING, TaskStateEnum.RUNNING, TaskStateEnum.FAILED));
+      JobExecutionInfo snapshot = create("job1", JobStateEnum.RUNNING, TaskStateEnum.COMMITTED, TaskStateEnum.RUNNING);
+      store.put(snapshot);
+      // Changes by the caller after put must not leak into the queued snapshot
+      snapshot.getTaskExecutions().get(1).setState(TaskStateEnum.FAILED);
+      Thread.sleep(10);
+      Assert.assertEquals(store.getQueuedJobs(), 2);
+      Assert.assertTrue(store.getWriteLagMillis() > 0);
+      String queuedJobsGauge = MetricRegistry.name("jobHistory", AsyncJobHistoryStore.QUEUED_JOBS);
+      Assert.assertEquals(metricContext.getGauges().get(queuedJobsGauge).getValue(), 2);
+
+      recordingStore.releaseWrites.countDown();
+      store.flush();
+      Assert.assertEquals(store.getQueuedJobs(), 0);
+      Assert.assertTrue(metricContext.getTimers()
+          .get(MetricRegistry.name("jobHistory", AsyncJobHistoryStore.WRITE_TIME)).getCount() > 0);
+      Assert.assertEquals(store.getWriteLagMillis(), 0);
+
+      // The first snapshot with both tasks, and the last snapshot with only the task that changed
+      Assert.assertEquals(recordingStore.written.size(), 2);
+      Assert.assertEquals(recordingStore.written.get(0).getTaskExecutions().size(), 2);
+      TaskExecutionInfoArray changedTasks = recordingStore.written.get(1).getTaskExecutions();
+      Assert.assertEquals(changedTasks.size(), 1);
+      Assert.assertEquals(changedTasks.get(0).getTaskId(), "job1_0");
+      Assert.assertEquals(changedTasks.get(0).getState(), TaskStateEnum.COMMITTED);
+    } finally {
+      recordingStore.releaseWrites.countDown();
+      store.close();
+    }
+    Assert.assertTrue(recordingStore.closed);
+  }
+
+  @Test
+  public void testPutDoesNotWaitForWrites() throws Exception {
+    RecordingStore recordingStore = new RecordingStore();
+    AsyncJobHistoryStore store = new AsyncJobHistoryStore(recordingStore, 60);
+    try {
+      store.put(create("job1", JobStateEnum.RUNNING, TaskStateEnum.RUNNING));
+      Assert.assertTrue(recordingStore.writeStarted.await(10, TimeUnit.SECONDS));
+      // Puts return while the writer is blocked, and a newer snapshot of a queued job replaces it
+      store.put(create("job2", JobStateEnum.RUNNING, TaskStateEnum.RUNNING));
+      store.put(create("job2", JobStateEnum.COMMITTED, TaskStateEnum.COMMITTED));
+      store.put(create("job3", JobStateEnum.RUNNING, TaskStateEnum.RUNNING));
+      Assert.assertEquals(store.getQueuedJobs(), 3);
+
+      recordingStore.releaseWrites.countDown();
+      store.close();
+      Assert.assertEquals(recordingStore.written.size(), 3);
+      Assert.assertEquals(recordingStore.written.get(1).getState(), JobStateEnum.COMMITTED);
+      Assert.assertEquals(recordingStore.written.get(2).getJobId(), "job3");
+    } finally {
+      recordingStore.releaseWrites.countDown();
+    }
+  }
+
+  @Test
+  public void testFailedTasksAreWrittenAgain() throws Exception {
+    RecordingStore recordingStore = new RecordingStore();
+    recordingStore.releaseWrites.countDown();
+    recordingStore.failNextWrite = true;
+    AsyncJobHistoryStore store = new AsyncJobHistoryStore(recordingStore, 60);
+    try {
+      store.put(create("job1", JobStateEnum.RUNNING, TaskStateEnum.RUNNING));
+      store.flush();
+      Assert.assertTrue(recordingStore.written.isEmpty());
+
+      store.put(create("job1", JobStateEnum.RUNNING, TaskStateEnum.RUNNING));
+      store.flush();
+      Assert.assertEquals(recordingStore.written.size(), 1);
+      Assert.assertEquals(recordingStore.written.get(0).getTaskExecutions().size(), 1);
+    } finally {
+      store.close();
+    }
+  }
+
+  private static JobExecutionInfo create(String jobId, JobStateEnum jobState, TaskStateEnum... taskStates) {
+    JobExecutionInfo jobExecutionInfo = new JobExecutionInfo();
+    jobExecutionInfo.setJobName("TestJob");
+    jobExecutionInfo.setJobId(jobId);
+    jobExecutionInfo.setState(jobState);
+    TaskExecutionInfoArray taskExecutions = new TaskExecutionInfoArray();
+    for (int i = 0; i < taskStates.length; i++) {
+      TaskExecutionInfo taskExecution = new TaskExecutionInfo();
+      taskExecution.setJobId(jobId);
+      taskExecution.setTaskId(jobId + "_" + i);
+      taskExecution.setState(taskStates[i]);
+      taskExecutions.add(taskExecution);
+    }
+    jobExecutionInfo.setTaskExecutions(taskExecutions);
+    return jobExecutionInfo;
+  }
+
+  /**
+   * Records the snapshots it is given, blocking every write until released.
+   */
+  private static class RecordingStore implements JobHistoryStore {
+    private final List<JobExecutionInfo> written = Lists.newCopyOnWriteArrayList();
+    private final CountDownLatch writeStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseWrites = new CountDownLatch(1);
+    private volatile boolean failNextWrite = false;
+    private volatile boolean closed = false;
+
+    @Override
+    public void put(JobExecutionInfo jobExecutionInfo) throws IOException {
+      this.writeStarted.countDown();
+      try {
+        this.releaseWrites.await();
+      } catch (InterruptedException ie) {
+        throw new IOException(ie);
+      }
+      if (this.failNextWrite) {
+        this.failNextWrite = false;
+        throw new IOException("Failed write");
+      }
+      this.written.add(jobExecutionInfo);
+    }
+
+    @Override
+    public List<JobExecutionInfo> get(JobExecutionQuery query) {
+      return this.written;
+    }
+
+    @Override
+    public void close() {
+      this.closed = true;
+    }
+  }
+}
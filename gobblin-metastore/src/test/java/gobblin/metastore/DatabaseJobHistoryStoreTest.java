@@ -75,7 +75,14 @@ public abstract class DatabaseJobHistoryStoreTest {
     Properties properties = new Properties();
     properties.setProperty(ConfigurationKeys.JOB_HISTORY_STORE_URL_KEY, testMetastoreDatabase.getJdbcUrl());
     Injector injector = Guice.createInjector(new MetaStoreModule(properties));
-    this.jobHistoryStore = injector.getInstance(JobHistoryStore.class);
+    this.jobHistoryStore = decorate(injector.getInstance(JobHistoryStore.class));
+  }
+
+  /**
+   * Hook for subclasses to test a {@link JobHistoryStore} that decorates the database store.
+   */
+  protected JobHistoryStore decorate(JobHistoryStore jobHistoryStore) {
+    return jobHistoryStore;
   }
 
   @Test
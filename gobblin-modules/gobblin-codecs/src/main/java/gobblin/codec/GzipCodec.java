@@ -19,14 +19,18 @@ package gobblin.codec;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+
 import gobblin.codec.StreamCodec;
 
 
 /**
  * Implement GZIP compression and decompression.
+ *
+ * Decompression reads all concatenated gzip members, such as those written by {@link ParallelGzipCodec}, which shares
+ * this codec's tag.
  */
 public class GzipCodec implements StreamCodec {
   public static final String TAG = "gzip";
@@ -40,7 +44,7 @@ public class GzipCodec implements StreamCodec {
   @Override
   public InputStream decodeInputStream(InputStream origStream)
       throws IOException {
-    return new GZIPInputStream(origStream);
+    return new GzipCompressorInputStream(origStream, true);
   }
 
   @Override
@@ -0,0 +1,208 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package gobblin.codec;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import gobblin.annotation.Alpha;
+
+
+/**
+ * An {@link OutputStream} that splits the bytes written to it into fixed size blocks, encodes the blocks
+ * independently on an {@link ExecutorService} and writes the encoded blocks to the wrapped stream in order.
+ *
+ * At most maxPendingBlocks blocks are being encoded or waiting to be written at any time; writers block when
+ * the limit is reached. The last block, which may be empty, is encoded when the stream is closed.
+ */
+@Alpha
+public abstract class ParallelBlockOutputStream extends OutputStream {
+  private static volatile ExecutorService defaultExecutor;
+
+  private final OutputStream out;
+  private final ExecutorService executor;
+  private final int blockSize;
+  private final int maxPendingBlocks;
+  private final Deque<Future<byte[]>> pendingBlocks = new ArrayDeque<>();
+
+  private byte[] buffer;
+  private int bufferLength = 0;
+  private long blockIndex = 0;
+  private boolean closed = false;
+
+  protected ParallelBlockOutputStream(OutputStream out, ExecutorService executor, int blockSize,
+      int maxPendingBlocks) {
+    if (blockSize <= 0 || maxPendingBlocks <= 0) {
+      throw new IllegalArgumentException("Block size and max pending blocks must be positive");
+    }
+    this.out = out;
+    this.executor = executor;
+    this.blockSize = blockSize;
+    this.maxPendingBlocks = maxPendingBlocks;
+    this.buffer = new byte[blockSize];
+  }
+
+  /**
+   * Encode a block. Called concurrently for different blocks, so implementations must be thread safe.
+   * @param block buffer holding the block; owned by the callee
+   * @param length number of bytes of the block
+   * @param index index of the block in the stream, starting at 0
+   * @param last whether this is the last block of the stream
+   * @return encoded bytes to write for this block
+   */
+  protected abstract byte[] encodeBlock(byte[] block, int length, long index, boolean last) throws IOException;
+
+  /**
+   * @return a shared pool of daemon threads, one per available processor.
+   */
+  public static ExecutorService getDefaultExecutor() {
+    if (defaultExecutor == null) {
+      synchronized (ParallelBlockOutputStream.class) {
+        if (defaultExecutor == null) {
+          defaultExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+              new ThreadFactoryBuilder().setDaemon(true).setNameFormat("ParallelBlockEncoder-%d").build());
+        }
+      }
+    }
+    return defaultExecutor;
+  }
+
+  /**
+   * @return the stream blocks are written to
+   */
+  protected OutputStream getWrappedStream() {
+    return this.out;
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    ensureOpen();
+    this.buffer[this.bufferLength++] = (byte) b;
+    if (this.bufferLength == this.blockSize) {
+      submitBlock(false);
+    }
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    ensureOpen();
+    if (off < 0 || len < 0 || off + len > b.length) {
+      throw new IndexOutOfBoundsException();
+    }
+    while (len > 0) {
+      int toCopy = Math.min(len, this.blockSize - this.bufferLength);
+      System.arraycopy(b, off, this.buffer, this.bufferLength, toCopy);
+      this.bufferLength += toCopy;
+      off += toCopy;
+      len -= toCopy;
+      if (this.bufferLength == this.blockSize) {
+        submitBlock(false);
+      }
+    }
+  }
+
+  /**
+   * Encode the buffered bytes as a block, if there are any, and write all pending blocks.
+   */
+  @Override
+  public void flush() throws IOException {
+    ensureOpen();
+    if (this.bufferLength > 0) {
+      submitBlock(false);
+    }
+    writePendingBlocks(0);
+    this.out.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (this.closed) {
+      return;
+    }
+    try {
+      submitBlock(true);
+      writePendingBlocks(0);
+    } finally {
+      this.closed = true;
+      this.buffer = null;
+      this.out.close();
+    }
+  }
+
+  private void submitBlock(final boolean last) throws IOException {
+    writePendingBlocks(this.maxPendingBlocks - 1);
+
+    final byte[] block = this.buffer;
+    final int length = this.bufferLength;
+    final long index = this.blockIndex++;
+    this.pendingBlocks.add(this.executor.submit(new Callable<byte[]>() {
+      @Override
+      public byte[] call() throws Exception {
+        return encodeBlock(block, length, index, last);
+      }
+    }));
+
+    this.buffer = last ? null : new byte[this.blockSize];
+    this.bufferLength = 0;
+  }
+
+  /**
+   * Write encoded blocks, in order, until at most maxRemaining blocks are pending.
+   */
+  private void writePendingBlocks(int maxRemaining) throws IOException {
+    while (this.pendingBlocks.size() > maxRemaining) {
+      Future<byte[]> block = this.pendingBlocks.poll();
+      try {
+        this.out.write(block.get());
+      } catch (InterruptedException e) {
+        cancelPendingBlocks();
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while encoding blocks");
+      } catch (ExecutionException e) {
+        cancelPendingBlocks();
+        if (e.getCause() instanceof IOException) {
+          throw (IOException) e.getCause();
+        }
+        throw new IOException("Failed to encode block", e.getCause());
+      }
+    }
+  }
+
+  private void cancelPendingBlocks() {
+    for (Future<byte[]> block : this.pendingBlocks) {
+      block.cancel(true);
+    }
+    this.pendingBlocks.clear();
+  }
+
+  private void ensureOpen() throws IOException {
+    if (this.closed) {
+      throw new IOException("Stream is closed");
+    }
+  }
+}
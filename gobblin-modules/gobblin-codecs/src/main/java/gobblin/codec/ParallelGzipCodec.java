@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package gobblin.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+
+import gobblin.annotation.Alpha;
+
+
+/**
+ * Implement GZIP compression on multiple threads, in the manner of pigz.
+ *
+ * The stream is split into blocks that are compressed independently into gzip members, and the members are
+ * concatenated. The output is a valid gzip file that gzip readers supporting concatenated members can decompress.
+ * {@link java.util.zip.GZIPInputStream} is not one of them: it may stop at a member boundary when the underlying
+ * stream has no bytes available yet, so decoding uses {@link GzipCompressorInputStream}. Since blocks do not share a
+ * dictionary, the output is slightly larger than with {@link GzipCodec}. Decompression is sequential.
+ */
+@Alpha
+public class ParallelGzipCodec implements StreamCodec {
+  public static final String TYPE = "gzip_parallel";
+  public static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+
+  private final ExecutorService executor;
+  private final int blockSize;
+  private final int maxPendingBlocks;
+
+  public ParallelGzipCodec() {
+    this(ParallelBlockOutputStream.getDefaultExecutor(), DEFAULT_BLOCK_SIZE,
+        2 * Runtime.getRuntime().availableProcessors());
+  }
+
+  public ParallelGzipCodec(ExecutorService executor, int blockSize, int maxPendingBlocks) {
+    this.executor = executor;
+    this.blockSize = blockSize;
+    this.maxPendingBlocks = maxPendingBlocks;
+  }
+
+  @Override
+  public OutputStream encodeOutputStream(OutputStream origStream)
+      throws IOException {
+    return new ParallelBlockOutputStream(origStream, this.executor, this.blockSize, this.maxPendingBlocks) {
+      @Override
+      protected byte[] encodeBlock(byte[] block, int length, long index, boolean last)
+          throws IOException {
+        // An empty stream still needs one gzip member
+        if (length == 0 && index > 0) {
+          return new byte[0];
+        }
+        ByteArrayOutputStream member = new ByteArrayOutputStream(length / 2 + 64);
+        try (GZIPOutputStream gzipStream = new GZIPOutputStream(member)) {
+          gzipStream.write(block, 0, length);
+        }
+        return member.toByteArray();
+      }
+    };
+  }
+
+  @Override
+  public InputStream decodeInputStream(InputStream origStream)
+      throws IOException {
+    return new GzipCompressorInputStream(origStream, true);
+  }
+
+  /**
+   * The output is plain gzip, so files get the same tag as with {@link GzipCodec}.
+   */
+  @Override
+  public String getTag() {
+    return GzipCodec.TAG;
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package gobblin.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import com.google.common.io.ByteStreams;
+
+
+public class ParallelGzipCodecTest {
+  private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+  @AfterClass
+  public void tearDown() {
+    this.executor.shutdownNow();
+  }
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    byte[] data = new byte[100 * 1000 + 17];
+    Random random = new Random(1);
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (byte) ('a' + random.nextInt(4));
+    }
+
+    ParallelGzipCodec codec = new ParallelGzipCodec(this.executor, 1000, 3);
+    ByteArrayOutputStream sink = new ByteArrayOutputStream();
+    OutputStream os = codec.encodeOutputStream(sink);
+    os.write(data[0]);
+    os.write(data, 1, 4000);
+    os.flush();
+    os.write(data, 4001, data.length - 4001);
+    os.close();
+
+    // Members are concatenated, and readers of buffered streams can decompress them
+    byte[] compressed = sink.toByteArray();
+    Assert.assertTrue(compressed.length < data.length);
+    Assert.assertEquals(ByteStreams.toByteArray(new GZIPInputStream(new ByteArrayInputStream(compressed))), data);
+    Assert.assertEquals(ByteStreams.toByteArray(codec.decodeInputStream(new ByteArrayInputStream(compressed))), data);
+    Assert.assertEquals(codec.getTag(), GzipCodec.TAG);
+  }
+
+  @Test
+  public void testDecodeFromStreamWithoutAvailableBytes() throws IOException {
+    byte[] data = new byte[10 * 1000];
+    Random random = new Random(2);
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (byte) ('a' + random.nextInt(4));
+    }
+
+    ParallelGzipCodec codec = new ParallelGzipCodec(this.executor, 1000, 3);
+    ByteArrayOutputStream sink = new ByteArrayOutputStream();
+    try (OutputStream os = codec.encodeOutputStream(sink)) {
+      os.write(data);
+    }
+
+    Assert.assertEquals(ByteStreams.toByteArray(codec.decodeInputStream(slowStream(sink.toByteArray()))), data);
+    // Readers of the gzip tag read all members as well
+    Assert.assertEquals(ByteStreams.toByteArray(new GzipCodec().decodeInputStream(slowStream(sink.toByteArray()))),
+        data);
+  }
+
+  /**
+   * Like a socket or a cipher stream, return few bytes per read and report none available in between.
+   */
+  private static InputStream slowStream(byte[] bytes) {
+    return new FilterInputStream(new ByteArrayInputStream(bytes)) {
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+        return super.read(b, off, Math.min(len, 100));
+      }
+
+      @Override
+      public int available() {
+        return 0;
+      }
+    };
+  }
+
+  @Test
+  public void testEmptyStream() throws IOException {
+    ByteArrayOutputStream sink = new ByteArrayOutputStream();
+    new ParallelGzipCodec().encodeOutputStream(sink).close();
+
+    InputStream decoded = new GZIPInputStream(new ByteArrayInputStream(sink.toByteArray()));
+    Assert.assertEquals(decoded.read(), -1);
+    decoded = new ParallelGzipCodec().decodeInputStream(new ByteArrayInputStream(sink.toByteArray()));
+    Assert.assertEquals(decoded.read(), -1);
+  }
+}
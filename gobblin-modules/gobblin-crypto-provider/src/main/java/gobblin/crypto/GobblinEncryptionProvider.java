@@ -38,7 +38,7 @@ import lombok.extern.slf4j.Slf4j;
 @Alpha
 public class GobblinEncryptionProvider implements CredentialStoreProvider, EncryptionProvider {
   private final static Set<String> SUPPORTED_STREAMING_ALGORITHMS =
-      ImmutableSet.of("aes_rotating", EncryptionConfigParser.ENCRYPTION_TYPE_ANY);
+      ImmutableSet.of("aes_rotating", ChunkedAESCodec.TAG, EncryptionConfigParser.ENCRYPTION_TYPE_ANY);
 
   /**
    * Return a set of streaming algorithms (StreamEncoders) that this factory knows how to build
@@ -81,6 +81,13 @@ public class GobblinEncryptionProvider implements CredentialStoreProvider, Encry
         }
 
         return new RotatingAESCodec(cs);
+      case ChunkedAESCodec.TAG:
+        CredentialStore chunkedCs = CredentialStoreFactory.buildCredentialStore(parameters);
+        if (chunkedCs == null) {
+          throw new IllegalArgumentException("Failed to build credential store; can't instantiate AES");
+        }
+
+        return new ChunkedAESCodec(chunkedCs);
       case GPGCodec.TAG:
         String password = EncryptionConfigParser.getKeystorePassword(parameters);
         Preconditions.checkNotNull(password, "Must specify an en/decryption password for GPGCodec!");
@@ -17,6 +17,9 @@
 package gobblin.crypto;
 
 import com.google.common.collect.ImmutableMap;
+import gobblin.codec.GzipCodec;
+import gobblin.codec.ParallelGzipCodec;
+import gobblin.codec.StreamCodec;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
@@ -41,12 +44,15 @@ import org.openjdk.jmh.annotations.State;
  * It turns out after running some of these that Base64 encoding of the output stream also incurs a large
  * performance cost, so there are benchmarks in here to test the efficacy of the algorithm with a few Base64
  * encoder providers too.
+ *
+ * The 16M benchmarks compare the single threaded codecs with their parallel counterparts on large streams.
  */
 @Fork(3)
 public class EncodingBenchmark {
   @State(value = Scope.Benchmark)
   public static class EncodingBenchmarkState {
     public byte[] OneKBytes;
+    public byte[] SixteenMBytes;
 
     public SimpleCredentialStore credStore;
 
@@ -56,6 +62,12 @@ public class EncodingBenchmark {
       OneKBytes = new byte[1024];
       credStore = new SimpleCredentialStore();
       r.nextBytes(OneKBytes);
+
+      // Compressible text-like data, so that gzip benchmarks do real work
+      SixteenMBytes = new byte[16 * 1024 * 1024];
+      for (int i = 0; i < SixteenMBytes.length; i++) {
+        SixteenMBytes[i] = (byte) ('a' + Math.abs((int) (r.nextGaussian() * 4)) % 26);
+      }
     }
   }
 
@@ -70,6 +82,40 @@ public class EncodingBenchmark {
     return sink.toByteArray();
   }
 
+  @Benchmark
+  public byte[] write1KRecordsChunkedAES(EncodingBenchmarkState state) throws IOException {
+    return encode(new ChunkedAESCodec(state.credStore), state.OneKBytes);
+  }
+
+  @Benchmark
+  public byte[] write16MRotatingAES(EncodingBenchmarkState state) throws IOException {
+    return encode(new RotatingAESCodec(state.credStore), state.SixteenMBytes);
+  }
+
+  @Benchmark
+  public byte[] write16MChunkedAES(EncodingBenchmarkState state) throws IOException {
+    return encode(new ChunkedAESCodec(state.credStore), state.SixteenMBytes);
+  }
+
+  @Benchmark
+  public byte[] write16MGzip(EncodingBenchmarkState state) throws IOException {
+    return encode(new GzipCodec(), state.SixteenMBytes);
+  }
+
+  @Benchmark
+  public byte[] write16MParallelGzip(EncodingBenchmarkState state) throws IOException {
+    return encode(new ParallelGzipCodec(), state.SixteenMBytes);
+  }
+
+  private static byte[] encode(StreamCodec codec, byte[] data) throws IOException {
+    ByteArrayOutputStream sink = new ByteArrayOutputStream();
+    OutputStream os = codec.encodeOutputStream(sink);
+    os.write(data);
+    os.close();
+
+    return sink.toByteArray();
+  }
+
   @Benchmark
   public byte[] write1KRecordsBase64Only(EncodingBenchmarkState state) throws IOException {
     ByteArrayOutputStream sink = new ByteArrayOutputStream();
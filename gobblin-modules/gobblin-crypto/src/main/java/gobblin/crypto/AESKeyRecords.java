@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package gobblin.crypto;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+
+/**
+ * The AES keys of a {@link CredentialStore} that AES codecs can use: 128 bit keys with numeric key ids.
+ * Keys are loaded from the store on first use.
+ */
+class AESKeyRecords {
+  private static final Logger log = LoggerFactory.getLogger(AESKeyRecords.class);
+  private static final int AES_KEY_LEN = 16;
+
+  private final Random random;
+  private final CredentialStore credentialStore;
+
+  /*
+   * Cache valid keys in two forms:
+   *  A map for retrieving a key quickly (decode case)
+   *  An array for quickly selecting a random key (encode case)
+   */
+  private volatile Map<Integer, KeyRecord> keyRecords_cache;
+  private volatile KeyRecord[] keyRecords_cache_arr;
+
+  AESKeyRecords(CredentialStore credentialStore) {
+    this.credentialStore = credentialStore;
+    this.random = new Random();
+  }
+
+  synchronized KeyRecord getKey(Integer key) {
+    fillKeyRecords();
+    return keyRecords_cache.get(key);
+  }
+
+  synchronized KeyRecord selectRandomKey() {
+    fillKeyRecords();
+    if (keyRecords_cache_arr.length == 0) {
+      throw new IllegalStateException("Couldn't find any valid keys in store!");
+    }
+
+    return keyRecords_cache_arr[random.nextInt(keyRecords_cache_arr.length)];
+  }
+
+  private synchronized void fillKeyRecords() {
+    if (keyRecords_cache == null) {
+      keyRecords_cache = new HashMap<>();
+      for (Map.Entry<String, byte[]> entry : credentialStore.getAllEncodedKeys().entrySet()) {
+        if (entry.getValue().length != AES_KEY_LEN) {
+          log.debug("Skipping keyId {} because it is length {}; expected {}", entry.getKey(), entry.getValue().length,
+              AES_KEY_LEN);
+          continue;
+        }
+
+        try {
+          Integer keyId = Integer.parseInt(entry.getKey());
+          SecretKey key = new SecretKeySpec(entry.getValue(), "AES");
+
+          keyRecords_cache.put(keyId, new KeyRecord(keyId, key));
+        } catch (NumberFormatException e) {
+          log.debug("Skipping keyId {} because this algorithm can only use numeric key ids", entry.getKey());
+        }
+      }
+
+      keyRecords_cache_arr = keyRecords_cache.values().toArray(new KeyRecord[keyRecords_cache.size()]);
+    }
+  }
+
+  /**
+   * Represents a set of parsed AES keys that we can choose from when encrypting.
+   */
+  static class KeyRecord {
+    private final int keyId;
+    private final SecretKey secretKey;
+
+    KeyRecord(int keyId, SecretKey secretKey) {
+      this.keyId = keyId;
+      this.secretKey = secretKey;
+    }
+
+    int getKeyId() {
+      return keyId;
+    }
+
+    SecretKey getSecretKey() {
+      return secretKey;
+    }
+  }
+}
@@ -0,0 +1,270 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package gobblin.crypto;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.concurrent.ExecutorService;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.spec.GCMParameterSpec;
+
+import gobblin.annotation.Alpha;
+import gobblin.codec.ParallelBlockOutputStream;
+import gobblin.codec.StreamCodec;
+import gobblin.crypto.AESKeyRecords.KeyRecord;
+
+
+/**
+ * Implementation of an encryption algorithm that encrypts fixed size chunks of a stream independently, so that
+ * chunks can be encrypted on multiple threads:
+ *
+ * 1. A credentialStore is provisioned with a set of AES keys
+ * 2. When encodeOutputStream() is called, an AES key will be picked at random and a header [keyId][stream nonce]
+ *    will be written, where the stream nonce is random and unique to the stream
+ * 3. Every chunk is encrypted with AES/GCM and a new IV, and written as [flags][ciphertext length][iv][ciphertext].
+ *    The stream nonce, key id, chunk index and flags are authenticated, and the last chunk of the stream is flagged,
+ *    so that reordered, dropped or truncated chunks, and chunks spliced in from another stream encrypted under the
+ *    same key, fail decryption.
+ *
+ * Unlike {@link RotatingAESCodec}, the ciphertext is not base64 encoded. Decryption is sequential.
+ */
+@Alpha
+public class ChunkedAESCodec implements StreamCodec {
+  public static final String TAG = "aes_chunked";
+  public static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+
+  private static final String CIPHER_ALGORITHM = "AES/GCM/NoPadding";
+  private static final int KEY_ID_LEN = 4;
+  private static final int STREAM_NONCE_LEN = 16;
+  private static final int IV_LEN = 12;
+  private static final int TAG_LEN_BITS = 128;
+  private static final int MAX_CIPHERTEXT_LEN = 64 * 1024 * 1024;
+  private static final byte LAST_CHUNK_FLAG = 1;
+
+  private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+  private static final ThreadLocal<Cipher> CIPHERS = new ThreadLocal<Cipher>() {
+    @Override
+    protected Cipher initialValue() {
+      try {
+        return Cipher.getInstance(CIPHER_ALGORITHM);
+      } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
+        throw new IllegalStateException("Error creating AES algorithm? Should always exist in JRE", e);
+      }
+    }
+  };
+
+  private final AESKeyRecords keyRecords;
+  private final ExecutorService executor;
+  private final int chunkSize;
+  private final int maxPendingChunks;
+
+  /**
+   * Create a new encryptor that encrypts on a shared thread pool
+   * @param credentialStore Credential store where keys can be found
+   */
+  public ChunkedAESCodec(CredentialStore credentialStore) {
+    this(credentialStore, ParallelBlockOutputStream.getDefaultExecutor(), DEFAULT_CHUNK_SIZE,
+        2 * Runtime.getRuntime().availableProcessors());
+  }
+
+  public ChunkedAESCodec(CredentialStore credentialStore, ExecutorService executor, int chunkSize,
+      int maxPendingChunks) {
+    this.keyRecords = new AESKeyRecords(credentialStore);
+    this.executor = executor;
+    this.chunkSize = chunkSize;
+    this.maxPendingChunks = maxPendingChunks;
+  }
+
+  @Override
+  public OutputStream encodeOutputStream(OutputStream origStream)
+      throws IOException {
+    final KeyRecord key = this.keyRecords.selectRandomKey();
+    final byte[] streamNonce = new byte[STREAM_NONCE_LEN];
+    SECURE_RANDOM.nextBytes(streamNonce);
+    origStream.write(String.format("%04d", key.getKeyId()).getBytes(StandardCharsets.UTF_8));
+    origStream.write(streamNonce);
+
+    return new ParallelBlockOutputStream(origStream, this.executor, this.chunkSize, this.maxPendingChunks) {
+      @Override
+      protected byte[] encodeBlock(byte[] block, int length, long index, boolean last)
+          throws IOException {
+        byte flags = last ? LAST_CHUNK_FLAG : 0;
+        byte[] iv = new byte[IV_LEN];
+        SECURE_RANDOM.nextBytes(iv);
+
+        try {
+          Cipher cipher = initCipher(Cipher.ENCRYPT_MODE, key, streamNonce, iv, index, flags);
+          ByteBuffer chunk = ByteBuffer.allocate(1 + 4 + IV_LEN + cipher.getOutputSize(length));
+          chunk.put(flags);
+          chunk.putInt(cipher.getOutputSize(length));
+          chunk.put(iv);
+          cipher.doFinal(ByteBuffer.wrap(block, 0, length), chunk);
+          return chunk.array();
+        } catch (GeneralSecurityException e) {
+          throw new IOException("Failed to encrypt chunk " + index, e);
+        }
+      }
+    };
+  }
+
+  @Override
+  public InputStream decodeInputStream(InputStream origStream)
+      throws IOException {
+    DataInputStream in = new DataInputStream(origStream);
+    byte[] keyIdBytes = new byte[KEY_ID_LEN];
+    in.readFully(keyIdBytes);
+
+    KeyRecord key;
+    try {
+      key = this.keyRecords.getKey(Integer.valueOf(new String(keyIdBytes, StandardCharsets.UTF_8)));
+    } catch (NumberFormatException e) {
+      throw new IOException("Expected to be able to parse first 4 bytes of stream as an ASCII keyId");
+    }
+    if (key == null) {
+      throw new IOException("Cannot load key " + new String(keyIdBytes, StandardCharsets.UTF_8)
+          + " which is specified in input stream");
+    }
+    byte[] streamNonce = new byte[STREAM_NONCE_LEN];
+    in.readFully(streamNonce);
+    return new DecodingStream(in, key, streamNonce);
+  }
+
+  @Override
+  public String getTag() {
+    return TAG;
+  }
+
+  private static Cipher initCipher(int mode, KeyRecord key, byte[] streamNonce, byte[] iv, long index, byte flags)
+      throws GeneralSecurityException {
+    Cipher cipher = CIPHERS.get();
+    cipher.init(mode, key.getSecretKey(), new GCMParameterSpec(TAG_LEN_BITS, iv));
+    cipher.updateAAD(ByteBuffer.allocate(STREAM_NONCE_LEN + 4 + 8 + 1)
+        .put(streamNonce).putInt(key.getKeyId()).putLong(index).put(flags).array());
+    return cipher;
+  }
+
+  /**
+   * Decrypts the chunks of a stream one at a time.
+   */
+  private static class DecodingStream extends InputStream {
+    private final DataInputStream in;
+    private final KeyRecord key;
+    private final byte[] streamNonce;
+    private final byte[] iv = new byte[IV_LEN];
+
+    private byte[] chunk = new byte[0];
+    private int position = 0;
+    private long index = 0;
+    private boolean lastChunkRead = false;
+
+    DecodingStream(DataInputStream in, KeyRecord key, byte[] streamNonce) {
+      this.in = in;
+      this.key = key;
+      this.streamNonce = streamNonce;
+    }
+
+    @Override
+    public int read()
+        throws IOException {
+      if (!ensureAvailable()) {
+        return -1;
+      }
+      return this.chunk[this.position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len)
+        throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      if (!ensureAvailable()) {
+        return -1;
+      }
+      int toCopy = Math.min(len, this.chunk.length - this.position);
+      System.arraycopy(this.chunk, this.position, b, off, toCopy);
+      this.position += toCopy;
+      return toCopy;
+    }
+
+    @Override
+    public int available() {
+      return this.chunk.length - this.position;
+    }
+
+    @Override
+    public void close()
+        throws IOException {
+      this.in.close();
+    }
+
+    /**
+     * Decrypt chunks until there are bytes to read or the last chunk was read.
+     * @return false at the end of the stream
+     */
+    private boolean ensureAvailable()
+        throws IOException {
+      while (this.position == this.chunk.length) {
+        if (this.lastChunkRead) {
+          return false;
+        }
+        readChunk();
+      }
+      return true;
+    }
+
+    private void readChunk()
+        throws IOException {
+      int flags = this.in.read();
+      if (flags < 0) {
+        throw new EOFException("Stream ended before its last chunk; data is truncated");
+      }
+      int ciphertextLength = this.in.readInt();
+      if (ciphertextLength < 0 || ciphertextLength > MAX_CIPHERTEXT_LEN) {
+        throw new IOException("Corrupted data suspected; read chunk length " + ciphertextLength);
+      }
+      this.in.readFully(this.iv);
+      byte[] ciphertext = new byte[ciphertextLength];
+      this.in.readFully(ciphertext);
+
+      try {
+        this.chunk = initCipher(Cipher.DECRYPT_MODE, this.key, this.streamNonce, this.iv, this.index, (byte) flags)
+            .doFinal(ciphertext);
+      } catch (AEADBadTagException e) {
+        throw new IOException("Chunk " + this.index + " failed authentication; data is corrupted, reordered or "
+            + "spliced from another stream", e);
+      } catch (GeneralSecurityException e) {
+        throw new IOException("Failed to decrypt chunk " + this.index, e);
+      }
+      this.position = 0;
+      this.index++;
+      this.lastChunkRead = (flags & LAST_CHUNK_FLAG) != 0;
+    }
+  }
+}
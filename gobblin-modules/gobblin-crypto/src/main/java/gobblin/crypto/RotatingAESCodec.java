@@ -24,26 +24,20 @@ import java.nio.charset.StandardCharsets;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Random;
 
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.io.IOUtils;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import javax.crypto.Cipher;
 import javax.crypto.CipherInputStream;
 import javax.crypto.CipherOutputStream;
 import javax.crypto.NoSuchPaddingException;
-import javax.crypto.SecretKey;
 import javax.crypto.spec.IvParameterSpec;
-import javax.crypto.spec.SecretKeySpec;
 import javax.xml.bind.DatatypeConverter;
 
 import gobblin.codec.Base64Codec;
 import gobblin.codec.StreamCodec;
+import gobblin.crypto.AESKeyRecords.KeyRecord;
 
 
 /**
@@ -56,28 +50,16 @@ import gobblin.codec.StreamCodec;
  * 4. Ciphertext will be base64 encoded and written out. We do not insert linebreaks.
  */
 public class RotatingAESCodec implements StreamCodec {
-  private static final Logger log = LoggerFactory.getLogger(RotatingAESCodec.class);
-  private static final int AES_KEY_LEN = 16;
   private static final String TAG = "aes_rotating";
 
-  private final Random random;
-  private final CredentialStore credentialStore;
-
-  /*
-   * Cache valid keys in two forms:
-   *  A map for retrieving a key quickly (decode case)
-   *  An array for quickly selecting a random key (encode case)
-   */
-  private volatile Map<Integer, KeyRecord> keyRecords_cache;
-  private volatile KeyRecord[] keyRecords_cache_arr;
+  private final AESKeyRecords keyRecords;
 
   /**
    * Create a new encryptor
    * @param credentialStore Credential store where keys can be found
    */
   public RotatingAESCodec(CredentialStore credentialStore) {
-    this.credentialStore = credentialStore;
-    this.random = new Random();
+    this.keyRecords = new AESKeyRecords(credentialStore);
   }
 
   @Override
@@ -92,47 +74,12 @@ public class RotatingAESCodec implements StreamCodec {
     return new DecodingStreamInstance(origStream).wrapInputStream();
   }
 
-  private synchronized KeyRecord getKey(Integer key) {
-    fillKeyRecords();
-    return keyRecords_cache.get(key);
+  private KeyRecord getKey(Integer key) {
+    return keyRecords.getKey(key);
   }
 
-  private synchronized KeyRecord selectRandomKey() {
-    KeyRecord[] keyRecords = getKeyRecords();
-    if (keyRecords.length == 0) {
-      throw new IllegalStateException("Couldn't find any valid keys in store!");
-    }
-
-    return keyRecords[random.nextInt(keyRecords.length)];
-  }
-
-  private synchronized KeyRecord[] getKeyRecords() {
-    fillKeyRecords();
-    return keyRecords_cache_arr;
-  }
-
-  private synchronized void fillKeyRecords() {
-    if (keyRecords_cache == null) {
-      keyRecords_cache = new HashMap<>();
-      for (Map.Entry<String, byte[]> entry : credentialStore.getAllEncodedKeys().entrySet()) {
-        if (entry.getValue().length != AES_KEY_LEN) {
-          log.debug("Skipping keyId {} because it is length {}; expected {}", entry.getKey(), entry.getValue().length,
-              AES_KEY_LEN);
-          continue;
-        }
-
-        try {
-          Integer keyId = Integer.parseInt(entry.getKey());
-          SecretKey key = new SecretKeySpec(entry.getValue(), "AES");
-
-          keyRecords_cache.put(keyId, new KeyRecord(keyId, key));
-        } catch (NumberFormatException e) {
-          log.debug("Skipping keyId {} because this algorithm can only use numeric key ids", entry.getKey());
-        }
-      }
-
-      keyRecords_cache_arr = keyRecords_cache.values().toArray(new KeyRecord[keyRecords_cache.size()]);
-    }
+  private KeyRecord selectRandomKey() {
+    return keyRecords.selectRandomKey();
   }
 
   @Override
@@ -140,27 +87,6 @@ public class RotatingAESCodec implements StreamCodec {
     return TAG;
   }
 
-  /**
-   * Represents a set of parsed AES keys that we can choose from when encrypting.
-   */
-  static class KeyRecord {
-    private final int keyId;
-    private final SecretKey secretKey;
-
-    KeyRecord(int keyId, SecretKey secretKey) {
-      this.keyId = keyId;
-      this.secretKey = secretKey;
-    }
-
-    int getKeyId() {
-      return keyId;
-    }
-
-    SecretKey getSecretKey() {
-      return secretKey;
-    }
-  }
-
   /**
    * Helper class that keeps state around for a wrapped output stream. Each stream will have a different
    * selected key, IV, and cipher state.
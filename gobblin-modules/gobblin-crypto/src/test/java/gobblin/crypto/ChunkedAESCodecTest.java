@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package gobblin.crypto;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.io.IOUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+
+public class ChunkedAESCodecTest {
+  private static final int HEADER_LENGTH = 4 + 16;
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(4);
+  private final RotatingAESCodecTest.SimpleCredentialStore credStore = new RotatingAESCodecTest.SimpleCredentialStore();
+
+  @AfterClass
+  public void tearDown() {
+    this.executor.shutdownNow();
+  }
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    for (int length : new int[]{0, 1, 999, 1000, 1001, 20 * 1000 + 5}) {
+      byte[] data = randomBytes(length);
+      byte[] encrypted = encrypt(data);
+
+      Assert.assertEquals(new String(encrypted, 0, 4, "UTF-8"), "0001");
+      Assert.assertEquals(decrypt(encrypted), data, "Round trip failed for length " + length);
+    }
+  }
+
+  @Test
+  public void testTruncatedStream() throws IOException {
+    byte[] encrypted = encrypt(randomBytes(5000));
+    // Drop the last chunk
+    byte[] truncated = Arrays.copyOf(encrypted, encrypted.length - (1 + 4 + 12 + 16));
+    try {
+      decrypt(truncated);
+      Assert.fail("Expected truncated stream to fail");
+    } catch (IOException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testCorruptedStream() throws IOException {
+    byte[] encrypted = encrypt(randomBytes(5000));
+    encrypted[encrypted.length / 2] ^= 1;
+    try {
+      decrypt(encrypted);
+      Assert.fail("Expected corrupted stream to fail authentication");
+    } catch (IOException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testChunkSplicedFromAnotherStream() throws IOException {
+    byte[] data = randomBytes(5000);
+    byte[] first = encrypt(data);
+    byte[] second = encrypt(data);
+    Assert.assertEquals(first.length, second.length);
+
+    // Replace the first chunk of one stream with the first chunk of another stream under the same key
+    int chunkLength = 1 + 4 + 12 + 1000 + 16;
+    byte[] spliced = Arrays.copyOf(first, first.length);
+    System.arraycopy(second, HEADER_LENGTH, spliced, HEADER_LENGTH, chunkLength);
+    try {
+      decrypt(spliced);
+      Assert.fail("Expected chunk from another stream to fail authentication");
+    } catch (IOException e) {
+      // expected
+    }
+
+    // Swapping the stream header alone is not enough either
+    byte[] reheadered = Arrays.copyOf(second, second.length);
+    System.arraycopy(first, 0, reheadered, 0, HEADER_LENGTH);
+    try {
+      decrypt(reheadered);
+      Assert.fail("Expected chunks under another stream header to fail authentication");
+    } catch (IOException e) {
+      // expected
+    }
+  }
+
+  private byte[] encrypt(byte[] data) throws IOException {
+    ChunkedAESCodec codec = new ChunkedAESCodec(this.credStore, this.executor, 1000, 3);
+    ByteArrayOutputStream sink = new ByteArrayOutputStream();
+    OutputStream os = codec.encodeOutputStream(sink);
+    os.write(data);
+    os.close();
+    return sink.toByteArray();
+  }
+
+  private byte[] decrypt(byte[] encrypted) throws IOException {
+    return IOUtils.toByteArray(
+        new ChunkedAESCodec(this.credStore).decodeInputStream(new ByteArrayInputStream(encrypted)));
+  }
+
+  private static byte[] randomBytes(int length) {
+    byte[] data = new byte[length];
+    new Random().nextBytes(data);
+    return data;
+  }
+}
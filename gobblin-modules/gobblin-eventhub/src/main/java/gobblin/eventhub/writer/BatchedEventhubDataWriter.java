@@ -1,10 +1,12 @@
 package gobblin.eventhub.writer;
 
+import gobblin.writer.BatchAccumulator;
 import gobblin.writer.BufferedAsyncDataWriter;
 
 /**
  * A batch writer for eventhub, composed by {@link EventhubBatchAccumulator} and {@link EventhubDataWriter}
- * {@link EventhubBatchAccumulator} provides a buffer to store pending records
+ * {@link EventhubBatchAccumulator} provides a buffer to store pending records, a
+ * {@link gobblin.writer.StripedBatchAccumulator} can be used instead if {@link #STRIPED_ACCUMULATOR_ENABLED_CONFIG} is set
  * {@link EventhubDataWriter} is the actual writer ships data to eventhub
  */
 public class BatchedEventhubDataWriter extends BufferedAsyncDataWriter<String> {
@@ -15,13 +17,15 @@ public class BatchedEventhubDataWriter extends BufferedAsyncDataWriter<String> {
   public static final long   COMMIT_STEP_WAIT_TIME_DEFAULT = 500; // 500ms
   public static final String FAILURE_ALLOWANCE_PCT_CONFIG = "writer.eventhub.failureAllowancePercentage";
   public static final double FAILURE_ALLOWANCE_PCT_DEFAULT = 20.0;
+  public static final String STRIPED_ACCUMULATOR_ENABLED_CONFIG = "writer.eventhub.stripedAccumulator.enabled";
+  public static final boolean STRIPED_ACCUMULATOR_ENABLED_DEFAULT = false;
 
   public final static String  EVH_NAMESPACE = "eventhub.namespace";
   public final static String  EVH_HUBNAME = "eventhub.hubname";
   public final static String  EVH_SAS_KEYNAME = "eventhub.sas.keyname";
   public final static String  EVH_SAS_KEYVALUE = "eventhub.sas.keyvalue";
 
-  public BatchedEventhubDataWriter (EventhubBatchAccumulator accumulator, EventhubDataWriter dataWriter) {
+  public BatchedEventhubDataWriter (BatchAccumulator<String> accumulator, EventhubDataWriter dataWriter) {
     super (accumulator, dataWriter);
   }
 }
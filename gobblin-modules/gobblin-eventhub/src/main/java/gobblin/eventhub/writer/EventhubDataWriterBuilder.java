@@ -28,9 +28,11 @@ import gobblin.configuration.State;
 import gobblin.util.ConfigUtils;
 import gobblin.writer.AsyncDataWriter;
 import gobblin.writer.AsyncWriterManager;
+import gobblin.writer.BatchAccumulator;
 import gobblin.writer.BufferedAsyncDataWriter;
 import gobblin.writer.DataWriter;
 import gobblin.writer.DataWriterBuilder;
+import gobblin.writer.StripedBatchAccumulator;
 
 
 /**
@@ -43,7 +45,11 @@ public class EventhubDataWriterBuilder extends DataWriterBuilder {
    */
   public AsyncDataWriter getAsyncDataWriter(Properties properties) {
     EventhubDataWriter eventhubDataWriter = new EventhubDataWriter(properties);
-    EventhubBatchAccumulator accumulator = new EventhubBatchAccumulator(properties);
+    Config config = ConfigUtils.propertiesToConfig(properties);
+    BatchAccumulator<String> accumulator = ConfigUtils.getBoolean(config,
+        BatchedEventhubDataWriter.STRIPED_ACCUMULATOR_ENABLED_CONFIG,
+        BatchedEventhubDataWriter.STRIPED_ACCUMULATOR_ENABLED_DEFAULT)
+        ? new StripedBatchAccumulator<String>(properties) : new EventhubBatchAccumulator(properties);
     BatchedEventhubDataWriter batchedEventhubDataWriter = new BatchedEventhubDataWriter(accumulator, eventhubDataWriter);
     return batchedEventhubDataWriter;
   }
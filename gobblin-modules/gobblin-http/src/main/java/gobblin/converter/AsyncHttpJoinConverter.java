@@ -1,16 +1,27 @@
 package gobblin.converter;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.avro.generic.GenericRecord;
 
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.UniformReservoir;
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigFactory;
 
+import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
@@ -27,6 +38,11 @@ import gobblin.http.HttpClient;
 import gobblin.http.HttpOperation;
 import gobblin.http.ResponseHandler;
 import gobblin.http.ResponseStatus;
+import gobblin.instrumented.Instrumented;
+import gobblin.metrics.GobblinMetrics;
+import gobblin.metrics.MetricContext;
+import gobblin.util.ConfigUtils;
+import gobblin.util.ExecutorsUtils;
 import gobblin.utils.HttpConstants;
 import gobblin.writer.WriteCallback;
 
@@ -39,6 +55,14 @@ import gobblin.writer.WriteCallback;
  * Convert HttpOperation to RQ (by internal AsyncRequestBuilder)
  * Execute http request, get response RP (by HttpClient)
  * Combine info (DI, RQ, RP, status, etc..) to generate output DO
+ *
+ * If {@link HttpJoinResponseCache#CACHE_ENABLED} is set, records with the same {@link HttpOperation} share the
+ * response of one request. See {@link HttpJoinResponseCache}.
+ *
+ * If {@link #BATCH_MAX_SIZE} is greater than 1, operations are buffered for up to {@link #BATCH_MAX_DELAY_MILLIS} and
+ * handed to the {@link AsyncRequestBuilder} together, so that a builder for an endpoint with batch support can put
+ * several of them in one request. Such converters must override {@link #supportsBatchRequests()} and
+ * {@link #handleBatchResponse(AsyncRequest, Object)}; other converters fail {@link #init(WorkUnitState)}.
  */
 @Slf4j
 public abstract class AsyncHttpJoinConverter<SI, SO, DI, DO, RQ, RP> extends AsyncConverter1to1<SI, SO, DI, DO> {
@@ -49,18 +73,47 @@ public abstract class AsyncHttpJoinConverter<SI, SO, DI, DO, RQ, RP> extends Asy
           .put(HttpConstants.VERB, "GET")
           .build());
 
+  public static final String BATCH_MAX_SIZE = "batch.maxSize";
+  public static final int DEFAULT_BATCH_MAX_SIZE = 1;
+  public static final String BATCH_MAX_DELAY_MILLIS = "batch.maxDelayMillis";
+  public static final long DEFAULT_BATCH_MAX_DELAY_MILLIS = 10L;
+  public static final String BATCH_SIZE_HISTOGRAM = "gobblin.converter.http.batchSize";
+
   protected HttpClient<RQ, RP> httpClient = null;
   protected ResponseHandler<RP> responseHandler = null;
   protected AsyncRequestBuilder<GenericRecord, RQ> requestBuilder = null;
+  protected HttpJoinResponseCache<RQ> responseCache = null;
+
+  private RequestBatcher requestBatcher = null;
+  @Getter
+  private Histogram batchSizes = null;
 
   public AsyncHttpJoinConverter init(WorkUnitState workUnitState) {
     super.init(workUnitState);
     Config config = ConfigBuilder.create().loadProps(workUnitState.getProperties(), CONF_PREFIX).build();
     config = config.withFallback(DEFAULT_FALLBACK);
+    int maxBatchSize = ConfigUtils.getInt(config, BATCH_MAX_SIZE, DEFAULT_BATCH_MAX_SIZE);
+    Preconditions.checkArgument(maxBatchSize >= 1, "%s must be positive, got %s", CONF_PREFIX + BATCH_MAX_SIZE,
+        maxBatchSize);
+    Preconditions.checkArgument(maxBatchSize == 1 || supportsBatchRequests(),
+        "%s does not support batched requests, but %s is %s", getClass().getName(), CONF_PREFIX + BATCH_MAX_SIZE,
+        maxBatchSize);
 
     httpClient = createHttpClient(config, workUnitState.getTaskBroker());
     responseHandler = createResponseHandler(config);
     requestBuilder = createRequestBuilder(config);
+
+    Optional<MetricContext> metricContext = GobblinMetrics.isEnabled(workUnitState)
+        ? Optional.of(Instrumented.getMetricContext(workUnitState, getClass())) : Optional.<MetricContext>absent();
+    if (HttpJoinResponseCache.isEnabled(config)) {
+      responseCache = new HttpJoinResponseCache<>(config, metricContext);
+    }
+    batchSizes = metricContext.isPresent()
+        ? metricContext.get().histogram(BATCH_SIZE_HISTOGRAM) : new Histogram(new UniformReservoir());
+    if (maxBatchSize > 1) {
+      requestBatcher = new RequestBatcher(maxBatchSize,
+          ConfigUtils.getLong(config, BATCH_MAX_DELAY_MILLIS, DEFAULT_BATCH_MAX_DELAY_MILLIS));
+    }
     return this;
   }
 
@@ -78,53 +131,26 @@ public abstract class AsyncHttpJoinConverter<SI, SO, DI, DO, RQ, RP> extends Asy
   protected abstract DO convertRecordImpl (SO outputSchema, DI input, RQ rawRequest, ResponseStatus status) throws DataConversionException;
 
   /**
-   * A helper class which performs the conversion from http response to DO type output, saved as a {@link CompletableFuture}
+   * Whether {@link #handleBatchResponse(AsyncRequest, Object)} can split the response to a request built from several
+   * operations. {@link #BATCH_MAX_SIZE} can only be greater than 1 if it is.
    */
-  private class AsyncHttpJoinConverterContext<SO, DI, DO, RP, RQ> {
-    private final CompletableFuture<DO> future;
-    private final AsyncHttpJoinConverter<SI, SO, DI, DO, RQ, RP> converter;
-
-    @Getter
-    private final Callback<RP> callback;
-
-    public AsyncHttpJoinConverterContext(AsyncHttpJoinConverter converter, SO outputSchema, DI input, RQ rawRequest) {
-      this.future = new CompletableFuture();
-      this.converter = converter;
-      this.callback = new Callback<RP>() {
-        @Override
-        public void onSuccess(RP result) {
-          try {
-            ResponseStatus status = AsyncHttpJoinConverterContext.this.converter.responseHandler.handleResponse(result);
-            switch (status.getType()) {
-              case OK:
-                AsyncHttpJoinConverterContext.this.onSuccess(rawRequest, status, outputSchema, input);
-                break;
-              case CLIENT_ERROR:
-                AsyncHttpJoinConverterContext.this.onSuccess(rawRequest, status, outputSchema, input);
-                break;
-              case SERVER_ERROR:
-                // Server side error. Retry
-                throw new DataConversionException(rawRequest + " send failed due to server error");
-              default:
-                throw new DataConversionException(rawRequest + " Should not reach here");
-            }
-          } catch (Exception e) {
-            AsyncHttpJoinConverterContext.this.future.completeExceptionally(e);
-          }
-        }
-
-        @Override
-        public void onFailure(Throwable throwable) {
-          AsyncHttpJoinConverterContext.this.future.completeExceptionally(throwable);
-        }
-      };
-    }
+  protected boolean supportsBatchRequests() {
+    return false;
+  }
 
-    private void onSuccess(RQ rawRequest, ResponseStatus status, SO outputSchema, DI input) throws DataConversionException {
-      log.debug("{} send with status type {}", rawRequest, status.getType());
-      DO output = this.converter.convertRecordImpl(outputSchema, input, rawRequest, status);
-      AsyncHttpJoinConverterContext.this.future.complete(output);
+  /**
+   * Split the response to a request into the response statuses of the operations in the request, in the order in
+   * which the {@link AsyncRequestBuilder} took them from the buffer.
+   *
+   * The default implementation handles requests built from a single operation. Converters whose
+   * {@link AsyncRequestBuilder} puts several operations in one request must override it and
+   * {@link #supportsBatchRequests()}.
+   */
+  protected List<ResponseStatus> handleBatchResponse(AsyncRequest<GenericRecord, RQ> request, RP response) {
+    if (request.getRecordCount() != 1) {
+      throw new UnsupportedOperationException(getClass().getName() + " does not support batched requests");
     }
+    return Collections.singletonList(this.responseHandler.handleResponse(response));
   }
 
   /**
@@ -141,27 +167,202 @@ public abstract class AsyncHttpJoinConverter<SI, SO, DI, DO, RQ, RP> extends Asy
 
     // Convert DI to HttpOperation
     HttpOperation operation = generateHttpOperation(inputRecord, workUnitState);
-    BufferedRecord<GenericRecord> bufferedRecord = new BufferedRecord<>(operation, WriteCallback.EMPTY);
 
-    // Convert HttpOperation to RQ
-    Queue<BufferedRecord<GenericRecord>> buffer = new LinkedBlockingDeque<>();
-    buffer.add(bufferedRecord);
-    AsyncRequest<GenericRecord, RQ> request = this.requestBuilder.buildRequest(buffer);
+    // Execute query and get response, or reuse the response to an identical operation
+    CompletableFuture<HttpJoinResponseCache.Response<RQ>> response =
+        responseCache == null ? fetch(operation) : responseCache.get(operation, this::fetch);
+
+    CompletableFuture<DO> output = new CompletableFuture<>();
+    response.whenComplete((r, throwable) -> {
+      if (throwable != null) {
+        output.completeExceptionally(throwable);
+        return;
+      }
+      try {
+        output.complete(convertResponse(outputSchema, inputRecord, r.getRawRequest(), r.getStatus()));
+      } catch (DataConversionException | RuntimeException e) {
+        output.completeExceptionally(e);
+      }
+    });
+    return output;
+  }
+
+  private DO convertResponse(SO outputSchema, DI input, RQ rawRequest, ResponseStatus status)
+      throws DataConversionException {
+    switch (status.getType()) {
+      case OK:
+      case CLIENT_ERROR:
+        log.debug("{} send with status type {}", rawRequest, status.getType());
+        return convertRecordImpl(outputSchema, input, rawRequest, status);
+      case SERVER_ERROR:
+        // Server side error. Retry
+        throw new DataConversionException(rawRequest + " send failed due to server error");
+      default:
+        throw new DataConversionException(rawRequest + " Should not reach here");
+    }
+  }
+
+  private CompletableFuture<HttpJoinResponseCache.Response<RQ>> fetch(HttpOperation operation) {
+    if (requestBatcher != null) {
+      return requestBatcher.add(operation);
+    }
+    PendingOperation pending = new PendingOperation(operation, new CompletableFuture<>());
+    sendBatch(Collections.singletonList(pending));
+    return pending.future;
+  }
+
+  /**
+   * Convert the buffered operations to requests and send them. Each request takes as many operations from the buffer
+   * as its {@link AsyncRequestBuilder} batches together.
+   */
+  private void sendBatch(List<PendingOperation> batch) {
+    Queue<BufferedRecord<GenericRecord>> buffer = new ArrayDeque<>(batch.size());
+    for (PendingOperation pending : batch) {
+      buffer.add(new BufferedRecord<>(pending.operation, WriteCallback.EMPTY));
+    }
+
+    int offset = 0;
+    while (!buffer.isEmpty()) {
+      int buffered = buffer.size();
+      AsyncRequest<GenericRecord, RQ> request;
+      try {
+        request = this.requestBuilder.buildRequest(buffer);
+      } catch (RuntimeException e) {
+        failAll(batch.subList(offset, batch.size()), e);
+        return;
+      }
+      int taken = buffered - buffer.size();
+      if (taken == 0) {
+        failAll(batch.subList(offset, batch.size()),
+            new DataConversionException("Request builder did not take any operation from the buffer"));
+        return;
+      }
+
+      List<PendingOperation> operations = batch.subList(offset, offset + taken);
+      offset += taken;
+      this.batchSizes.update(taken);
+      if (request == null) {
+        failAll(operations, new DataConversionException("Failed to build a request for " + taken + " operations"));
+      } else {
+        sendRequest(request, operations);
+      }
+    }
+  }
+
+  private void sendRequest(AsyncRequest<GenericRecord, RQ> request, List<PendingOperation> operations) {
     RQ rawRequest = request.getRawRequest();
+    Callback<RP> callback = new Callback<RP>() {
+      @Override
+      public void onSuccess(RP result) {
+        List<ResponseStatus> statuses;
+        try {
+          statuses = handleBatchResponse(request, result);
+        } catch (RuntimeException e) {
+          failAll(operations, e);
+          return;
+        }
+        if (statuses.size() != operations.size()) {
+          failAll(operations, new DataConversionException(String.format("%s returned %d responses for %d operations",
+              rawRequest, statuses.size(), operations.size())));
+          return;
+        }
+        for (int i = 0; i < operations.size(); i++) {
+          operations.get(i).future.complete(new HttpJoinResponseCache.Response<>(rawRequest, statuses.get(i)));
+        }
+      }
 
-    // Execute query and get response
-    AsyncHttpJoinConverterContext context = new AsyncHttpJoinConverterContext(this, outputSchema, inputRecord, rawRequest);
+      @Override
+      public void onFailure(Throwable throwable) {
+        failAll(operations, throwable);
+      }
+    };
 
     try {
-      httpClient.sendAsyncRequest(rawRequest, context.getCallback());
-    } catch (IOException e) {
-      throw new DataConversionException(e);
+      httpClient.sendAsyncRequest(rawRequest, callback);
+    } catch (IOException | RuntimeException e) {
+      failAll(operations, new DataConversionException(e));
     }
+  }
 
-    return context.future;
+  private void failAll(List<PendingOperation> operations, Throwable throwable) {
+    for (PendingOperation pending : operations) {
+      pending.future.completeExceptionally(throwable);
+    }
   }
 
   public void close() throws IOException {
+    if (this.requestBatcher != null) {
+      this.requestBatcher.close();
+    }
     this.httpClient.close();
   }
+
+  /**
+   * An operation waiting for its response
+   */
+  @AllArgsConstructor
+  private class PendingOperation {
+    private final HttpOperation operation;
+    private final CompletableFuture<HttpJoinResponseCache.Response<RQ>> future;
+  }
+
+  /**
+   * Buffers operations until {@link #BATCH_MAX_SIZE} of them are waiting or the oldest has waited for
+   * {@link #BATCH_MAX_DELAY_MILLIS}, and then sends them together.
+   */
+  private class RequestBatcher {
+    private final int maxBatchSize;
+    private final long maxDelayMillis;
+    private final ScheduledExecutorService scheduler;
+    private List<PendingOperation> pending = new ArrayList<>();
+
+    RequestBatcher(int maxBatchSize, long maxDelayMillis) {
+      this.maxBatchSize = maxBatchSize;
+      this.maxDelayMillis = maxDelayMillis;
+      ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1,
+          ExecutorsUtils.newDaemonThreadFactory(Optional.of(log), Optional.of("HttpJoinRequestBatcher-%d")));
+      // close() flushes the pending operations itself, so it does not need to wait for a scheduled flush
+      scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+      this.scheduler = scheduler;
+    }
+
+    CompletableFuture<HttpJoinResponseCache.Response<RQ>> add(HttpOperation operation) {
+      PendingOperation operationToSend = new PendingOperation(operation, new CompletableFuture<>());
+      List<PendingOperation> batch = null;
+      synchronized (this) {
+        this.pending.add(operationToSend);
+        if (this.pending.size() >= this.maxBatchSize) {
+          batch = takePending();
+        } else if (this.pending.size() == 1) {
+          this.scheduler.schedule(this::flush, this.maxDelayMillis, TimeUnit.MILLISECONDS);
+        }
+      }
+      // Send outside of the lock, as the http client may block on throttling
+      if (batch != null) {
+        sendBatch(batch);
+      }
+      return operationToSend.future;
+    }
+
+    void flush() {
+      List<PendingOperation> batch;
+      synchronized (this) {
+        batch = takePending();
+      }
+      if (!batch.isEmpty()) {
+        sendBatch(batch);
+      }
+    }
+
+    void close() {
+      flush();
+      ExecutorsUtils.shutdownExecutorService(this.scheduler, Optional.of(log));
+    }
+
+    private List<PendingOperation> takePending() {
+      List<PendingOperation> batch = this.pending;
+      this.pending = new ArrayList<>();
+      return batch;
+    }
+  }
 }
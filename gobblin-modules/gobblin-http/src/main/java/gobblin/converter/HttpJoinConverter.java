@@ -2,10 +2,13 @@ package gobblin.converter;
 
 import java.io.IOException;
 import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.LinkedBlockingDeque;
 
 import org.apache.avro.generic.GenericRecord;
 
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableMap;
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigFactory;
@@ -24,6 +27,9 @@ import gobblin.http.HttpClient;
 import gobblin.http.HttpOperation;
 import gobblin.http.ResponseHandler;
 import gobblin.http.ResponseStatus;
+import gobblin.instrumented.Instrumented;
+import gobblin.metrics.GobblinMetrics;
+import gobblin.metrics.MetricContext;
 import gobblin.utils.HttpConstants;
 import gobblin.writer.WriteCallback;
 
@@ -36,6 +42,9 @@ import gobblin.writer.WriteCallback;
  * Convert HttpOperation to RQ (by internal AsyncRequestBuilder)
  * Execute http request, get response RP (by HttpClient)
  * Combine info (DI, RQ, RP, status, etc..) to generate output DO
+ *
+ * If {@link HttpJoinResponseCache#CACHE_ENABLED} is set, records with the same {@link HttpOperation} share the
+ * response of one request. See {@link HttpJoinResponseCache}.
  */
 @Slf4j
 public abstract class HttpJoinConverter<SI, SO, DI, DO, RQ, RP> extends Converter<SI, SO, DI, DO> {
@@ -49,6 +58,7 @@ public abstract class HttpJoinConverter<SI, SO, DI, DO, RQ, RP> extends Converte
   protected HttpClient<RQ, RP> httpClient = null;
   protected ResponseHandler<RP> responseHandler = null;
   protected AsyncRequestBuilder<GenericRecord, RQ> requestBuilder = null;
+  protected HttpJoinResponseCache<RQ> responseCache = null;
 
   public HttpJoinConverter init(WorkUnitState workUnitState) {
     super.init(workUnitState);
@@ -58,6 +68,9 @@ public abstract class HttpJoinConverter<SI, SO, DI, DO, RQ, RP> extends Converte
     httpClient = createHttpClient(config, workUnitState.getTaskBroker());
     responseHandler = createResponseHandler(config);
     requestBuilder = createRequestBuilder(config);
+    if (HttpJoinResponseCache.isEnabled(config)) {
+      responseCache = new HttpJoinResponseCache<>(config, getMetricContext(workUnitState));
+    }
     return this;
   }
 
@@ -67,6 +80,11 @@ public abstract class HttpJoinConverter<SI, SO, DI, DO, RQ, RP> extends Converte
     return convertSchemaImpl(inputSchema, workUnitState);
   }
 
+  private Optional<MetricContext> getMetricContext(WorkUnitState workUnitState) {
+    return GobblinMetrics.isEnabled(workUnitState)
+        ? Optional.of(Instrumented.getMetricContext(workUnitState, getClass())) : Optional.<MetricContext>absent();
+  }
+
   protected abstract HttpClient<RQ, RP>   createHttpClient(Config config, SharedResourcesBroker<GobblinScopeTypes> broker);
   protected abstract ResponseHandler<RP> createResponseHandler(Config config);
   protected abstract AsyncRequestBuilder<GenericRecord, RQ> createRequestBuilder(Config config);
@@ -80,6 +98,42 @@ public abstract class HttpJoinConverter<SI, SO, DI, DO, RQ, RP> extends Converte
 
     // Convert DI to HttpOperation
     HttpOperation operation = generateHttpOperation(inputRecord, workUnitState);
+
+    // Execute query and get response, or reuse the response to an identical operation
+    HttpJoinResponseCache.Response<RQ> response;
+    try {
+      if (responseCache == null) {
+        response = sendRequest(operation);
+      } else {
+        response = responseCache.get(operation, this::sendRequestForCache).get();
+      }
+    } catch (IOException e) {
+      throw new DataConversionException(e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new DataConversionException(e);
+    } catch (ExecutionException e) {
+      throw new DataConversionException(e.getCause());
+    }
+
+    RQ rawRequest = response.getRawRequest();
+    ResponseStatus status = response.getStatus();
+    switch (status.getType()) {
+      case OK:
+      case CLIENT_ERROR:
+        // Convert (DI, RQ, RP etc..) to output DO
+        log.debug ("{} send with status type {}", rawRequest, status.getType());
+        DO output = convertRecordImpl (outputSchema, inputRecord, rawRequest, status);
+        return new SingleRecordIterable<>(output);
+      case SERVER_ERROR:
+        // Server side error. Retry
+        throw new DataConversionException(rawRequest + " send failed due to server error");
+      default:
+        throw new DataConversionException(rawRequest + " Should not reach here");
+    }
+  }
+
+  private HttpJoinResponseCache.Response<RQ> sendRequest(HttpOperation operation) throws IOException {
     BufferedRecord<GenericRecord> bufferedRecord = new BufferedRecord<>(operation, WriteCallback.EMPTY);
 
     // Convert HttpOperation to RQ
@@ -88,30 +142,18 @@ public abstract class HttpJoinConverter<SI, SO, DI, DO, RQ, RP> extends Converte
     AsyncRequest<GenericRecord, RQ> request = this.requestBuilder.buildRequest(buffer);
     RQ rawRequest = request.getRawRequest();
 
-    // Execute query and get response
+    RP response = httpClient.sendRequest(rawRequest);
+    return new HttpJoinResponseCache.Response<>(rawRequest, responseHandler.handleResponse(response));
+  }
 
+  private CompletableFuture<HttpJoinResponseCache.Response<RQ>> sendRequestForCache(HttpOperation operation) {
+    CompletableFuture<HttpJoinResponseCache.Response<RQ>> future = new CompletableFuture<>();
     try {
-      RP response = httpClient.sendRequest(rawRequest);
-
-      ResponseStatus status = responseHandler.handleResponse(response);
-
-
-      switch (status.getType()) {
-        case OK:
-        case CLIENT_ERROR:
-          // Convert (DI, RQ, RP etc..) to output DO
-          log.debug ("{} send with status type {}", rawRequest, status.getType());
-          DO output = convertRecordImpl (outputSchema, inputRecord, rawRequest, status);
-          return new SingleRecordIterable<>(output);
-        case SERVER_ERROR:
-          // Server side error. Retry
-          throw new DataConversionException(rawRequest + " send failed due to server error");
-        default:
-          throw new DataConversionException(rawRequest + " Should not reach here");
-      }
+      future.complete(sendRequest(operation));
     } catch (IOException e) {
-      throw new DataConversionException(e);
+      future.completeExceptionally(e);
     }
+    return future;
   }
 
   public void close() throws IOException {
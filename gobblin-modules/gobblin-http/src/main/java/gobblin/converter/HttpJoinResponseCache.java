@@ -0,0 +1,159 @@
+package gobblin.converter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import com.codahale.metrics.Meter;
+import com.google.common.base.Optional;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.typesafe.config.Config;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import gobblin.annotation.Alpha;
+import gobblin.http.HttpOperation;
+import gobblin.http.ResponseStatus;
+import gobblin.http.StatusType;
+import gobblin.metrics.MetricContext;
+import gobblin.util.ConfigUtils;
+
+
+/**
+ * A bounded cache of the responses of an http join converter, keyed by the {@link HttpOperation} of the input record.
+ *
+ * <p>
+ *   Successful responses are kept for {@link #CACHE_TTL_SECONDS} after they are received. Lookups of an operation
+ *   whose request is still in flight share that request instead of sending a duplicate one, whatever the outcome of
+ *   the request. Failed and non-OK responses are handed to the waiting records but not cached.
+ * </p>
+ *
+ * <p>
+ *   Configurations are relative to {@link HttpJoinConverter#CONF_PREFIX}:
+ *   {@link #CACHE_ENABLED}, {@link #CACHE_MAX_SIZE} and {@link #CACHE_TTL_SECONDS}.
+ * </p>
+ *
+ * @param <RQ> type of raw request
+ */
+@Alpha
+public class HttpJoinResponseCache<RQ> {
+  public static final String CACHE_ENABLED = "cache.enabled";
+  public static final String CACHE_MAX_SIZE = "cache.maxSize";
+  public static final long DEFAULT_CACHE_MAX_SIZE = 10000L;
+  public static final String CACHE_TTL_SECONDS = "cache.ttlSeconds";
+  public static final long DEFAULT_CACHE_TTL_SECONDS = 300L;
+
+  public static final String CACHE_HITS_METER = "gobblin.converter.http.cache.hits";
+  public static final String CACHE_MISSES_METER = "gobblin.converter.http.cache.misses";
+  public static final String COALESCED_REQUESTS_METER = "gobblin.converter.http.coalescedRequests";
+
+  /**
+   * A response of the http service together with the request that was sent for it
+   */
+  @AllArgsConstructor
+  @Getter
+  public static class Response<RQ> {
+    private final RQ rawRequest;
+    private final ResponseStatus status;
+  }
+
+  private final Cache<List<Object>, Response<RQ>> responses;
+  private final ConcurrentMap<List<Object>, CompletableFuture<Response<RQ>>> inFlight = new ConcurrentHashMap<>();
+
+  @Getter
+  private final Meter hits;
+  @Getter
+  private final Meter misses;
+  @Getter
+  private final Meter coalescedRequests;
+
+  public HttpJoinResponseCache(Config config, Optional<MetricContext> metricContext) {
+    this.responses = CacheBuilder.newBuilder()
+        .maximumSize(ConfigUtils.getLong(config, CACHE_MAX_SIZE, DEFAULT_CACHE_MAX_SIZE))
+        .expireAfterWrite(ConfigUtils.getLong(config, CACHE_TTL_SECONDS, DEFAULT_CACHE_TTL_SECONDS), TimeUnit.SECONDS)
+        .build();
+    this.hits = metricContext.isPresent() ? metricContext.get().meter(CACHE_HITS_METER) : new Meter();
+    this.misses = metricContext.isPresent() ? metricContext.get().meter(CACHE_MISSES_METER) : new Meter();
+    this.coalescedRequests =
+        metricContext.isPresent() ? metricContext.get().meter(COALESCED_REQUESTS_METER) : new Meter();
+  }
+
+  /**
+   * @return whether the response cache is enabled by the converter config
+   */
+  public static boolean isEnabled(Config config) {
+    return ConfigUtils.getBoolean(config, CACHE_ENABLED, false);
+  }
+
+  /**
+   * Get the response for an {@link HttpOperation}
+   *
+   * @param operation the operation of an input record
+   * @param fetcher sends the request of an operation that is neither cached nor in flight
+   * @return a future of the response, shared by all lookups of the same operation while its request is in flight
+   */
+  public CompletableFuture<Response<RQ>> get(HttpOperation operation,
+      Function<HttpOperation, CompletableFuture<Response<RQ>>> fetcher) {
+    List<Object> key = toKey(operation);
+    Response<RQ> cached = this.responses.getIfPresent(key);
+    if (cached != null) {
+      this.hits.mark();
+      return CompletableFuture.completedFuture(cached);
+    }
+
+    CompletableFuture<Response<RQ>> promise = new CompletableFuture<>();
+    CompletableFuture<Response<RQ>> existing = this.inFlight.putIfAbsent(key, promise);
+    if (existing != null) {
+      this.coalescedRequests.mark();
+      return existing;
+    }
+
+    this.misses.mark();
+    CompletableFuture<Response<RQ>> fetched;
+    try {
+      fetched = fetcher.apply(operation);
+    } catch (RuntimeException e) {
+      fetched = new CompletableFuture<>();
+      fetched.completeExceptionally(e);
+    }
+    fetched.whenComplete((response, throwable) -> {
+      if (throwable == null && response.getStatus().getType() == StatusType.OK) {
+        this.responses.put(key, response);
+      }
+      this.inFlight.remove(key);
+      if (throwable == null) {
+        promise.complete(response);
+      } else {
+        promise.completeExceptionally(throwable);
+      }
+    });
+    return promise;
+  }
+
+  /**
+   * Build a cache key from the fields of an {@link HttpOperation}, independent of the map implementations and string
+   * types the operation was built with
+   */
+  private static List<Object> toKey(HttpOperation operation) {
+    return ImmutableList.<Object>of(toSortedMap(operation.getKeys()), toSortedMap(operation.getQueryParams()),
+        toSortedMap(operation.getHeaders()), String.valueOf(operation.getBody()));
+  }
+
+  private static Map<String, String> toSortedMap(Map<?, ?> map) {
+    Map<String, String> sorted = new TreeMap<>();
+    if (map != null) {
+      for (Map.Entry<?, ?> entry : map.entrySet()) {
+        sorted.put(String.valueOf(entry.getKey()), String.valueOf(entry.getValue()));
+      }
+    }
+    return sorted;
+  }
+}
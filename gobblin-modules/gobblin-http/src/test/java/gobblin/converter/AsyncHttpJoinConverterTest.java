@@ -0,0 +1,252 @@
+package gobblin.converter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.methods.RequestBuilder;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.util.EntityUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.sun.net.httpserver.HttpServer;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+
+import gobblin.async.AsyncRequest;
+import gobblin.async.AsyncRequestBuilder;
+import gobblin.async.BufferedRecord;
+import gobblin.broker.SharedResourcesBrokerFactory;
+import gobblin.broker.SharedResourcesBrokerImpl;
+import gobblin.broker.gobblin_scopes.GobblinScopeTypes;
+import gobblin.broker.gobblin_scopes.JobScopeInstance;
+import gobblin.broker.gobblin_scopes.TaskScopeInstance;
+import gobblin.broker.iface.SharedResourcesBroker;
+import gobblin.configuration.State;
+import gobblin.configuration.WorkUnitState;
+import gobblin.http.ApacheHttpAsyncClient;
+import gobblin.http.ApacheHttpResponseHandler;
+import gobblin.http.ApacheHttpResponseStatus;
+import gobblin.http.HttpClient;
+import gobblin.http.HttpOperation;
+import gobblin.http.ResponseHandler;
+import gobblin.http.ResponseStatus;
+import gobblin.http.StatusType;
+import gobblin.source.workunit.WorkUnit;
+import gobblin.utils.HttpConstants;
+import gobblin.utils.HttpUtils;
+
+
+@Test
+public class AsyncHttpJoinConverterTest {
+
+  private static final Schema INPUT_SCHEMA = new Schema.Parser().parse("{\"type\": \"record\", \"name\": \"Member\", "
+      + "\"fields\": [{\"name\": \"id\", \"type\": \"string\"}]}");
+  private static final Schema OUTPUT_SCHEMA = new Schema.Parser().parse("{\"type\": \"record\", \"name\": \"Member\", "
+      + "\"fields\": [{\"name\": \"id\", \"type\": \"string\"}, {\"name\": \"body\", \"type\": \"string\"}]}");
+
+  private HttpServer server;
+  private final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+
+  /**
+   * A stub of a batch endpoint: GET /members?ids=1,2 responds with one line per id, in the order of the ids
+   */
+  @BeforeClass
+  public void setUp() throws IOException {
+    this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    this.server.createContext("/members", exchange -> {
+      String ids = exchange.getRequestURI().getQuery().substring("ids=".length());
+      this.requests.add(ids);
+
+      List<String> lines = new ArrayList<>();
+      for (String id : ids.split(",")) {
+        lines.add("{\"id\":\"" + id + "\"}");
+      }
+      byte[] body = Joiner.on('\n').join(lines).getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().add("Content-Type", "application/json");
+      exchange.sendResponseHeaders(200, body.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    });
+    this.server.start();
+  }
+
+  /**
+   * Test that buffered operations are split into requests as the request builder batches them, and that duplicate
+   * operations waiting in the buffer share the request of the first one
+   */
+  public void testBatchedRequests() throws Exception {
+    WorkUnitState workUnitState = createWorkUnitState();
+    workUnitState.setProp(AsyncHttpJoinConverter.CONF_PREFIX + AsyncHttpJoinConverter.BATCH_MAX_SIZE, 4);
+    // Only a full buffer sends the batch
+    workUnitState.setProp(AsyncHttpJoinConverter.CONF_PREFIX + AsyncHttpJoinConverter.BATCH_MAX_DELAY_MILLIS,
+        TimeUnit.MINUTES.toMillis(10));
+    workUnitState.setProp(AsyncHttpJoinConverter.CONF_PREFIX + HttpJoinResponseCache.CACHE_ENABLED, true);
+
+    BatchingHttpJoinConverter converter = new BatchingHttpJoinConverter();
+    converter.init(workUnitState);
+    try {
+      Schema outputSchema = converter.convertSchema(INPUT_SCHEMA, workUnitState);
+      String[] ids = new String[] {"1", "2", "1", "2", "3", "4"};
+      List<CompletableFuture<GenericRecord>> outputs = new ArrayList<>();
+      for (String id : ids) {
+        GenericRecord input = new GenericData.Record(INPUT_SCHEMA);
+        input.put("id", id);
+        outputs.add(converter.convertRecordAsync(outputSchema, input, workUnitState));
+      }
+
+      for (int i = 0; i < ids.length; i++) {
+        GenericRecord output = outputs.get(i).get(10, TimeUnit.SECONDS);
+        Assert.assertEquals(output.get("id"), ids[i]);
+        Assert.assertEquals(output.get("body"), "{\"id\":\"" + ids[i] + "\"}");
+      }
+
+      // The buffer of 4 distinct operations is sent as a request of 3, the builder's limit, and a request of 1
+      Assert.assertEquals(ImmutableSet.copyOf(this.requests), ImmutableSet.of("1,2,3", "4"));
+      Assert.assertEquals(this.requests.size(), 2);
+      Assert.assertEquals(converter.getBatchSizes().getCount(), 2);
+      Assert.assertEquals(converter.getBatchSizes().getSnapshot().getMin(), 1);
+      Assert.assertEquals(converter.getBatchSizes().getSnapshot().getMax(), 3);
+      Assert.assertEquals(converter.responseCache.getMisses().getCount(), 4);
+      Assert.assertEquals(converter.responseCache.getCoalescedRequests().getCount(), 2);
+    } finally {
+      converter.close();
+    }
+  }
+
+  /**
+   * Test that a batch size is rejected at init by a converter that cannot split batch responses
+   */
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testBatchingRequiresBatchSupport() {
+    WorkUnitState workUnitState = createWorkUnitState();
+    workUnitState.setProp(AsyncHttpJoinConverter.CONF_PREFIX + AsyncHttpJoinConverter.BATCH_MAX_SIZE, 4);
+
+    new BatchingHttpJoinConverter() {
+      @Override
+      protected boolean supportsBatchRequests() {
+        return false;
+      }
+    }.init(workUnitState);
+  }
+
+  private WorkUnitState createWorkUnitState() {
+    SharedResourcesBrokerImpl<GobblinScopeTypes> topBroker = SharedResourcesBrokerFactory.createDefaultTopLevelBroker(
+        ConfigFactory.empty(), GobblinScopeTypes.GLOBAL.defaultScopeInstance());
+    SharedResourcesBrokerImpl<GobblinScopeTypes> taskBroker =
+        topBroker.newSubscopedBuilder(new JobScopeInstance("job", "job1")).build()
+            .newSubscopedBuilder(new TaskScopeInstance("task1")).build();
+
+    WorkUnitState workUnitState = new WorkUnitState(WorkUnit.createEmpty(), new State(), taskBroker);
+    workUnitState.setProp(AsyncHttpJoinConverter.CONF_PREFIX + HttpConstants.URL_TEMPLATE,
+        "http://localhost:" + this.server.getAddress().getPort() + "/members");
+    return workUnitState;
+  }
+
+  @AfterClass
+  public void tearDown() {
+    if (this.server != null) {
+      this.server.stop(0);
+    }
+  }
+
+  /**
+   * A converter that looks up members in batches of up to 3 ids
+   */
+  private static class BatchingHttpJoinConverter
+      extends AsyncHttpJoinConverter<Schema, Schema, GenericRecord, GenericRecord, HttpUriRequest, HttpResponse> {
+    private static final int MAX_IDS_PER_REQUEST = 3;
+
+    @Override
+    protected HttpClient<HttpUriRequest, HttpResponse> createHttpClient(Config config,
+        SharedResourcesBroker<GobblinScopeTypes> broker) {
+      return new ApacheHttpAsyncClient(HttpAsyncClientBuilder.create(), config, broker);
+    }
+
+    @Override
+    protected ResponseHandler<HttpResponse> createResponseHandler(Config config) {
+      return new ApacheHttpResponseHandler<>();
+    }
+
+    @Override
+    protected AsyncRequestBuilder<GenericRecord, HttpUriRequest> createRequestBuilder(Config config) {
+      String url = config.getString(HttpConstants.URL_TEMPLATE);
+      return (Queue<BufferedRecord<GenericRecord>> buffer) -> {
+        AsyncRequest<GenericRecord, HttpUriRequest> request = new AsyncRequest<>();
+        List<String> ids = new ArrayList<>();
+        while (!buffer.isEmpty() && ids.size() < MAX_IDS_PER_REQUEST) {
+          BufferedRecord<GenericRecord> record = buffer.poll();
+          ids.add(HttpUtils.toHttpOperation(record.getRecord()).getKeys().get("id"));
+          request.markRecord(record, 0);
+        }
+        request.setRawRequest(RequestBuilder.get(url).addParameter("ids", Joiner.on(',').join(ids)).build());
+        return request;
+      };
+    }
+
+    @Override
+    protected boolean supportsBatchRequests() {
+      return true;
+    }
+
+    @Override
+    protected List<ResponseStatus> handleBatchResponse(AsyncRequest<GenericRecord, HttpUriRequest> request,
+        HttpResponse response) {
+      List<ResponseStatus> statuses = new ArrayList<>();
+      try {
+        for (String line : EntityUtils.toString(response.getEntity()).split("\n")) {
+          ApacheHttpResponseStatus status = new ApacheHttpResponseStatus(StatusType.OK);
+          status.setStatusCode(response.getStatusLine().getStatusCode());
+          status.setContent(line.getBytes(StandardCharsets.UTF_8));
+          statuses.add(status);
+        }
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+      return statuses;
+    }
+
+    @Override
+    protected HttpOperation generateHttpOperation(GenericRecord inputRecord, State state) {
+      HttpOperation operation = new HttpOperation();
+      operation.setKeys(ImmutableMap.of("id", inputRecord.get("id").toString()));
+      operation.setQueryParams(ImmutableMap.<String, String>of());
+      operation.setHeaders(ImmutableMap.<String, String>of());
+      operation.setBody("");
+      return operation;
+    }
+
+    @Override
+    protected Schema convertSchemaImpl(Schema inputSchema, WorkUnitState workUnitState) {
+      return OUTPUT_SCHEMA;
+    }
+
+    @Override
+    protected GenericRecord convertRecordImpl(Schema outputSchema, GenericRecord input, HttpUriRequest rawRequest,
+        ResponseStatus status) {
+      GenericRecord output = new GenericData.Record(outputSchema);
+      output.put("id", input.get("id").toString());
+      output.put("body", new String(((ApacheHttpResponseStatus) status).getContent(), StandardCharsets.UTF_8));
+      return output;
+    }
+  }
+}
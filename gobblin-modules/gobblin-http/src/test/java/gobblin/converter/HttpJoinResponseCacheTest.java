@@ -0,0 +1,179 @@
+package gobblin.converter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+import com.sun.net.httpserver.HttpServer;
+import com.typesafe.config.ConfigFactory;
+
+import gobblin.broker.SharedResourcesBrokerFactory;
+import gobblin.broker.SharedResourcesBrokerImpl;
+import gobblin.broker.gobblin_scopes.GobblinScopeTypes;
+import gobblin.broker.gobblin_scopes.JobScopeInstance;
+import gobblin.broker.gobblin_scopes.TaskScopeInstance;
+import gobblin.configuration.State;
+import gobblin.configuration.WorkUnitState;
+import gobblin.http.HttpOperation;
+import gobblin.http.HttpRequestResponseRecord;
+import gobblin.http.ResponseStatus;
+import gobblin.http.StatusType;
+import gobblin.metrics.MetricContext;
+import gobblin.source.workunit.WorkUnit;
+
+
+@Test
+public class HttpJoinResponseCacheTest {
+
+  private static final Schema INPUT_SCHEMA = new Schema.Parser().parse("{\"type\": \"record\", \"name\": \"Member\", "
+      + "\"doc\": \"A member\", \"fields\": [{\"name\": \"id\", \"type\": \"string\"}]}");
+
+  private HttpServer server;
+  private final ConcurrentMap<String, AtomicInteger> requestCounts = new ConcurrentHashMap<>();
+
+  @BeforeClass
+  public void setUp() throws IOException {
+    this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    this.server.createContext("/members/", exchange -> {
+      String id = exchange.getRequestURI().getPath().substring("/members/".length());
+      this.requestCounts.putIfAbsent(id, new AtomicInteger());
+      this.requestCounts.get(id).incrementAndGet();
+
+      byte[] body = ("{\"id\":\"" + id + "\"}").getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().add("Content-Type", "application/json");
+      exchange.sendResponseHeaders(200, body.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    });
+    this.server.start();
+  }
+
+  /**
+   * Test that records with the same join key share one request to the http service
+   */
+  public void testConverterSendsOneRequestPerKey() throws Exception {
+    SharedResourcesBrokerImpl<GobblinScopeTypes> topBroker = SharedResourcesBrokerFactory.createDefaultTopLevelBroker(
+        ConfigFactory.empty(), GobblinScopeTypes.GLOBAL.defaultScopeInstance());
+    SharedResourcesBrokerImpl<GobblinScopeTypes> taskBroker =
+        topBroker.newSubscopedBuilder(new JobScopeInstance("job", "job1")).build()
+            .newSubscopedBuilder(new TaskScopeInstance("task1")).build();
+
+    WorkUnitState workUnitState = new WorkUnitState(WorkUnit.createEmpty(), new State(), taskBroker);
+    workUnitState.setProp(HttpJoinConverter.CONF_PREFIX + "urlTemplate",
+        "http://localhost:" + this.server.getAddress().getPort() + "/members/${id}");
+    workUnitState.setProp(HttpJoinConverter.CONF_PREFIX + "keys", "id");
+    workUnitState.setProp(HttpJoinConverter.CONF_PREFIX + HttpJoinResponseCache.CACHE_ENABLED, true);
+
+    AvroApacheHttpJoinConverter converter = new AvroApacheHttpJoinConverter();
+    converter.init(workUnitState);
+    try {
+      Schema outputSchema = converter.convertSchema(INPUT_SCHEMA, workUnitState);
+      List<String> ids = new ArrayList<>();
+      for (String id : new String[] {"1", "2", "1", "1", "2", "3"}) {
+        GenericRecord input = new GenericData.Record(INPUT_SCHEMA);
+        input.put("id", id);
+        GenericRecord output = Iterables.getOnlyElement(converter.convertRecord(outputSchema, input, workUnitState));
+
+        HttpRequestResponseRecord response =
+            (HttpRequestResponseRecord) output.get(AvroHttpJoinConverter.HTTP_REQUEST_RESPONSE_FIELD);
+        Assert.assertEquals((int) response.getStatusCode(), 200);
+        Assert.assertTrue(response.getRequestUrl().endsWith("/members/" + id));
+        ByteBuffer body = response.getBody();
+        byte[] bytes = new byte[body.remaining()];
+        body.get(bytes);
+        Assert.assertEquals(new String(bytes, StandardCharsets.UTF_8), "{\"id\":\"" + id + "\"}");
+        ids.add(output.get("id").toString());
+      }
+
+      Assert.assertEquals(ids.size(), 6);
+      Assert.assertEquals(this.requestCounts.size(), 3);
+      for (AtomicInteger count : this.requestCounts.values()) {
+        Assert.assertEquals(count.get(), 1);
+      }
+      Assert.assertEquals(converter.responseCache.getHits().getCount(), 3);
+      Assert.assertEquals(converter.responseCache.getMisses().getCount(), 3);
+    } finally {
+      converter.close();
+    }
+  }
+
+  /**
+   * Test that lookups of an operation in flight share its request, and that only successful responses are cached
+   */
+  public void testCoalescing() {
+    HttpJoinResponseCache<String> cache =
+        new HttpJoinResponseCache<>(ConfigFactory.empty(), Optional.<MetricContext>absent());
+    HttpOperation operation = createOperation("1");
+    AtomicInteger fetches = new AtomicInteger();
+    List<CompletableFuture<HttpJoinResponseCache.Response<String>>> requests = new ArrayList<>();
+    Function<HttpOperation, CompletableFuture<HttpJoinResponseCache.Response<String>>> fetcher =
+        op -> {
+          fetches.incrementAndGet();
+          CompletableFuture<HttpJoinResponseCache.Response<String>> request = new CompletableFuture<>();
+          requests.add(request);
+          return request;
+        };
+
+    // A failed request is shared by the lookups waiting for it, but not cached
+    CompletableFuture<HttpJoinResponseCache.Response<String>> first = cache.get(operation, fetcher);
+    CompletableFuture<HttpJoinResponseCache.Response<String>> second = cache.get(operation, fetcher);
+    Assert.assertEquals(fetches.get(), 1);
+    Assert.assertEquals(cache.getCoalescedRequests().getCount(), 1);
+    requests.get(0).completeExceptionally(new IOException("Connection refused"));
+    Assert.assertTrue(first.isCompletedExceptionally());
+    Assert.assertTrue(second.isCompletedExceptionally());
+
+    // A successful request is cached
+    CompletableFuture<HttpJoinResponseCache.Response<String>> third = cache.get(operation, fetcher);
+    Assert.assertEquals(fetches.get(), 2);
+    requests.get(1).complete(new HttpJoinResponseCache.Response<>("GET /members/1", new ResponseStatus(StatusType.OK)));
+    Assert.assertEquals(third.join().getRawRequest(), "GET /members/1");
+
+    CompletableFuture<HttpJoinResponseCache.Response<String>> fourth = cache.get(createOperation("1"), fetcher);
+    Assert.assertEquals(fetches.get(), 2);
+    Assert.assertEquals(fourth.join().getRawRequest(), "GET /members/1");
+    Assert.assertEquals(cache.getHits().getCount(), 1);
+    Assert.assertEquals(cache.getMisses().getCount(), 2);
+
+    // A different key is fetched
+    cache.get(createOperation("2"), fetcher);
+    Assert.assertEquals(fetches.get(), 3);
+  }
+
+  private static HttpOperation createOperation(String id) {
+    HttpOperation operation = new HttpOperation();
+    operation.setKeys(ImmutableMap.of("id", id));
+    operation.setQueryParams(ImmutableMap.<String, String>of());
+    operation.setHeaders(ImmutableMap.<String, String>of());
+    operation.setBody("");
+    return operation;
+  }
+
+  @AfterClass
+  public void tearDown() {
+    if (this.server != null) {
+      this.server.stop(0);
+    }
+  }
+}
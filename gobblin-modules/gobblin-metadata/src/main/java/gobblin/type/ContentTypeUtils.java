@@ -91,6 +91,7 @@ public class ContentTypeUtils {
     knownCharsets = new ConcurrentHashMap<>();
     knownCharsets.put("base64", "UTF-8");
     knownCharsets.put("aes_rotating", "UTF-8");
+    knownCharsets.put("aes_chunked", "BINARY");
     knownCharsets.put("gzip", "BINARY");
     knownCharsets.put("application/xml", "UTF-8");
     knownCharsets.put("application/json", "UTF-8");
@@ -32,6 +32,7 @@ import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
 import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
 import com.codahale.metrics.Timer;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Optional;
@@ -67,12 +68,21 @@ import lombok.extern.slf4j.Slf4j;
  * An object that requests batches of permits from an external throttling server. It tries to hide the latency of doing
  * external permit requests by requesting them in batches and preemptively requesting permits before the current ones
  * are exhausted.
+ *
+ * The requester keeps a moving average of the local permit consumption rate and of the latency of permit requests. When
+ * it predicts the stored permits will be exhausted within {@link #PREFETCH_LATENCY_MULTIPLIER} times the request
+ * latency, it prefetches the next batch so callers do not block at batch boundaries. Batches are sized to last
+ * {@link #targetMillisBetweenRequests} at the observed consumption rate.
  */
 @Slf4j
 class BatchedPermitsRequester {
 
   public static final String REST_REQUEST_TIMER = "limiter.restli.restRequestTimer";
   public static final String REST_REQUEST_PERMITS_HISTOGRAM = "limiter.restli.restRequestPermitsHistogram";
+  /** Time callers spend blocked waiting for permits to arrive from the server. */
+  public static final String PERMITS_BLOCKED_TIMER = "limiter.restli.permitsBlockedTimer";
+  /** Permit requests sent ahead of time because the stored permits were predicted to run out. */
+  public static final String PREFETCH_REQUESTS_METER = "limiter.restli.prefetchRequestsMeter";
 
   /** These status codes are considered non-retriable. */
   public static final ImmutableSet<Integer> NON_RETRIABLE_ERRORS = ImmutableSet.of(HttpStatus.S_403_FORBIDDEN.getCode(),
@@ -86,6 +96,13 @@ class BatchedPermitsRequester {
   private static final long RETRY_DELAY_ON_NON_RETRIABLE_EXCEPTION = 60000; // 10 minutes
   private static final double MAX_DEPLETION_RATE = 1e20;
   public static final int MAX_GROWTH_REQUEST = 2;
+  /** Prefetch permits if they are predicted to run out within this many times the latency of a permit request. */
+  public static final double PREFETCH_LATENCY_MULTIPLIER = 1.5;
+  /** Minimum length of the windows over which the local permit consumption rate is measured. */
+  @VisibleForTesting
+  static final long CONSUMPTION_RATE_WINDOW_MILLIS = 500;
+  /** Weight of the newest sample in the moving averages of consumption rate and request latency. */
+  private static final double MOVING_AVERAGE_WEIGHT = 0.3;
 
   private static final ScheduledExecutorService SCHEDULE_EXECUTOR_SERVICE =
       Executors.newScheduledThreadPool(1, ExecutorsUtils.newDaemonThreadFactory(Optional.of(log),
@@ -100,11 +117,20 @@ class BatchedPermitsRequester {
   private final RequestSender requestSender;
   private final Timer restRequestTimer;
   private final Histogram restRequestHistogram;
+  private final Timer permitsBlockedTimer;
+  private final Meter prefetchRequestsMeter;
 
   private volatile int retries = 0;
   private final RetryStatus retryStatus;
   private final SynchronizedAverager permitsOutstanding;
   private final long targetMillisBetweenRequests;
+  private final ConsumptionRateEstimator consumptionRate;
+  /** Moving average of the latency of permit requests, negative until the first request succeeds. */
+  private volatile double requestLatencyMillis = -1;
+  /** Size of the last batch received from the server. */
+  private volatile long lastBatchPermits = 0;
+  /** Time at which callers started waiting for permits with no permits stored, or 0 if they are not waiting. */
+  private long starvedSinceMillis = 0;
 
   @Builder
   private BatchedPermitsRequester(String resourceId, String requestorIdentifier,
@@ -124,6 +150,7 @@ class BatchedPermitsRequester {
         DEFAULT_TARGET_MILLIS_BETWEEN_REQUESTS;
     this.requestSender = requestSender;
     this.retryStatus = new RetryStatus();
+    this.consumptionRate = new ConsumptionRateEstimator();
 
     this.basePermitRequest = new PermitRequest();
     this.basePermitRequest.setResource(resourceId);
@@ -131,6 +158,8 @@ class BatchedPermitsRequester {
 
     this.restRequestTimer = metricContext == null ? null : metricContext.timer(REST_REQUEST_TIMER);
     this.restRequestHistogram = metricContext == null ? null : metricContext.histogram(REST_REQUEST_PERMITS_HISTOGRAM);
+    this.permitsBlockedTimer = metricContext == null ? null : metricContext.timer(PERMITS_BLOCKED_TIMER);
+    this.prefetchRequestsMeter = metricContext == null ? null : metricContext.meter(PREFETCH_REQUESTS_METER);
   }
 
   /**
@@ -142,13 +171,25 @@ class BatchedPermitsRequester {
       return true;
     }
     this.permitsOutstanding.addEntryWithWeight(permits);
+    long blockedSinceNanos = 0;
     this.lock.lock();
     try {
       while (true) {
         if (this.permitBatchContainer.tryTake(permits)) {
           this.permitsOutstanding.removeEntryWithWeight(permits);
+          this.consumptionRate.record(permits, System.currentTimeMillis());
+          if (isExhaustionPredictedWithinRequestLatency() && maybeSendNewPermitRequest()
+              && this.prefetchRequestsMeter != null) {
+            this.prefetchRequestsMeter.mark();
+          }
           return true;
         }
+        if (blockedSinceNanos == 0) {
+          blockedSinceNanos = System.nanoTime();
+        }
+        if (this.starvedSinceMillis == 0) {
+          this.starvedSinceMillis = System.currentTimeMillis();
+        }
         if (this.retryStatus.canRetryWithinMillis(10000)) {
           maybeSendNewPermitRequest();
           this.newPermitsAvailable.await();
@@ -158,26 +199,43 @@ class BatchedPermitsRequester {
       }
     } finally {
       this.lock.unlock();
+      if (blockedSinceNanos > 0 && this.permitsBlockedTimer != null) {
+        this.permitsBlockedTimer.update(System.nanoTime() - blockedSinceNanos, TimeUnit.NANOSECONDS);
+      }
     }
     return false;
   }
 
+  /**
+   * @return true if, at the current consumption rate, the stored permits will run out before a new permit request
+   * would complete.
+   */
+  private boolean isExhaustionPredictedWithinRequestLatency() {
+    double rate = this.consumptionRate.getRate();
+    double latency = this.requestLatencyMillis;
+    if (rate <= 0 || latency < 0) {
+      return false;
+    }
+    return this.permitBatchContainer.getTotalAvailablePermits() / rate <= PREFETCH_LATENCY_MULTIPLIER * latency;
+  }
+
   /**
    * Send a new permit request to the server.
+   * @return true if a request was sent.
    */
-  private void maybeSendNewPermitRequest() {
+  private boolean maybeSendNewPermitRequest() {
     if (!this.requestSemaphore.tryAcquire()) {
-      return;
+      return false;
     }
     if (!this.retryStatus.canRetryNow()) {
       this.requestSemaphore.release();
-      return;
+      return false;
     }
     try {
       long permits = computeNextPermitRequest();
       if (permits <= 0) {
         this.requestSemaphore.release();
-        return;
+        return false;
       }
 
       PermitRequest permitRequest = this.basePermitRequest.copy();
@@ -191,7 +249,8 @@ class BatchedPermitsRequester {
 
       this.requestSender.sendRequest(permitRequest, new AllocationCallback(
           BatchedPermitsRequester.this.restRequestTimer == null ? NoopCloseable.INSTANCE :
-              BatchedPermitsRequester.this.restRequestTimer.time()));
+              BatchedPermitsRequester.this.restRequestTimer.time(), System.nanoTime()));
+      return true;
     } catch (CloneNotSupportedException cnse) {
       // This should never happen.
       this.requestSemaphore.release();
@@ -217,20 +276,25 @@ class BatchedPermitsRequester {
     }
     PermitBatch firstBatch = Iterables.getFirst(this.permitBatchContainer.batches.values(), null);
 
-    if (firstBatch != null) {
+    if (firstBatch != null && !isExhaustionPredictedWithinRequestLatency()) {
       // If the current batch has more than 20% permits left, don't create a new request
       if ((double) firstBatch.getPermits() / firstBatch.getInitialPermits() > 0.2) {
         return candidatePermits;
       }
+    }
 
-      double averageDepletionRate = firstBatch.getAverageDepletionRate();
-      long candidatePermitsByDepletion =
-          Math.min((long) (averageDepletionRate * this.targetMillisBetweenRequests), MAX_GROWTH_REQUEST *
-              firstBatch.getInitialPermits());
-      return Math.max(candidatePermits, candidatePermitsByDepletion);
-    } else {
-      return candidatePermits;
+    // Size the batch to last the target time between requests at the observed consumption rate, preferring the rate
+    // measured across batches over the depletion rate of the current batch
+    double depletionRate = this.consumptionRate.getRate();
+    if (depletionRate <= 0) {
+      if (firstBatch == null) {
+        return candidatePermits;
+      }
+      depletionRate = firstBatch.getAverageDepletionRate();
     }
+    long maxPermits = MAX_GROWTH_REQUEST * (firstBatch != null ? firstBatch.getInitialPermits() : this.lastBatchPermits);
+    long candidatePermitsByDepletion = Math.min((long) (depletionRate * this.targetMillisBetweenRequests), maxPermits);
+    return Math.max(candidatePermits, candidatePermitsByDepletion);
   }
 
   /**
@@ -239,6 +303,7 @@ class BatchedPermitsRequester {
   @RequiredArgsConstructor
   private class AllocationCallback implements Callback<Response<PermitAllocation>> {
     private final Closeable timerContext;
+    private final long sendTimeNanos;
 
     @Override
     public void onError(Throwable exc) {
@@ -285,6 +350,11 @@ class BatchedPermitsRequester {
 
         log.debug("Received permit allocation " + allocation);
 
+        double latencyMillis = (double) (System.nanoTime() - this.sendTimeNanos) / TimeUnit.MILLISECONDS.toNanos(1);
+        double previousLatencyMillis = BatchedPermitsRequester.this.requestLatencyMillis;
+        BatchedPermitsRequester.this.requestLatencyMillis = previousLatencyMillis < 0 ? latencyMillis
+            : MOVING_AVERAGE_WEIGHT * latencyMillis + (1 - MOVING_AVERAGE_WEIGHT) * previousLatencyMillis;
+
         Long retryDelay = allocation.getMinRetryDelayMillis(GetMode.NULL);
         if (retryDelay != null) {
           BatchedPermitsRequester.this.retryStatus.blockRetries(retryDelay, null);
@@ -292,6 +362,13 @@ class BatchedPermitsRequester {
 
         if (allocation.getPermits() > 0) {
           BatchedPermitsRequester.this.permitBatchContainer.addPermitAllocation(allocation);
+          BatchedPermitsRequester.this.lastBatchPermits = allocation.getPermits();
+          if (BatchedPermitsRequester.this.starvedSinceMillis > 0) {
+            // Time spent without permits does not reflect the rate at which permits would be consumed
+            BatchedPermitsRequester.this.consumptionRate.excludeMillis(
+                System.currentTimeMillis() - BatchedPermitsRequester.this.starvedSinceMillis);
+            BatchedPermitsRequester.this.starvedSinceMillis = 0;
+          }
         }
         BatchedPermitsRequester.this.requestSemaphore.release();
         if (allocation.getPermits() > 0) {
@@ -444,6 +521,45 @@ class BatchedPermitsRequester {
     }
   }
 
+  /**
+   * Moving average of the rate at which permits are consumed locally, measured over windows of at least
+   * {@link #CONSUMPTION_RATE_WINDOW_MILLIS}. Must be accessed while holding {@link #lock}.
+   */
+  @NotThreadSafe
+  private static class ConsumptionRateEstimator {
+    private long windowStartMillis = 0;
+    private long windowPermits = 0;
+    /** Permits per milli, negative until the first window completes. */
+    private volatile double rate = -1;
+
+    private void record(long permits, long now) {
+      if (this.windowStartMillis == 0) {
+        this.windowStartMillis = now;
+      }
+      this.windowPermits += permits;
+      long elapsed = now - this.windowStartMillis;
+      if (elapsed >= CONSUMPTION_RATE_WINDOW_MILLIS) {
+        double windowRate = (double) this.windowPermits / elapsed;
+        this.rate = this.rate < 0 ? windowRate : MOVING_AVERAGE_WEIGHT * windowRate + (1 - MOVING_AVERAGE_WEIGHT) * this.rate;
+        this.windowStartMillis = now;
+        this.windowPermits = 0;
+      }
+    }
+
+    /**
+     * Do not count the given time towards the current window.
+     */
+    private void excludeMillis(long millis) {
+      if (this.windowStartMillis > 0) {
+        this.windowStartMillis = Math.min(this.windowStartMillis + millis, System.currentTimeMillis());
+      }
+    }
+
+    private double getRate() {
+      return this.rate;
+    }
+  }
+
   private static class SynchronizedAverager {
     private volatile long weight;
     private volatile long entries;
@@ -24,6 +24,8 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
@@ -50,6 +52,8 @@ import lombok.extern.slf4j.Slf4j;
 public class RateComputingLimiterContainer {
   private final List<AtomicLong> subLimiterPermitCounts = Lists.newArrayList();
   private final Queue<Long> unusedPermitsCounts = new LinkedList<>();
+  private final Queue<Long> acquireLatenciesNanos = new ConcurrentLinkedQueue<>();
+  private final AtomicLong totalPermits = new AtomicLong();
 
   private Map<String, Long> lastReportTimes = Maps.newHashMap();
 
@@ -83,8 +87,11 @@ public class RateComputingLimiterContainer {
 
     @Override
     public Closeable acquirePermits(long permits) throws InterruptedException {
+      long startNanos = System.nanoTime();
       Closeable closeable = this.underlying.acquirePermits(permits);
+      RateComputingLimiterContainer.this.acquireLatenciesNanos.add(System.nanoTime() - startNanos);
       this.localPermitCount.addAndGet(permits);
+      RateComputingLimiterContainer.this.totalPermits.addAndGet(permits);
       return closeable;
     }
 
@@ -113,6 +120,26 @@ public class RateComputingLimiterContainer {
     }));
   }
 
+  /**
+   * Get a {@link DescriptiveStatistics} object with the latency in milliseconds of all permit acquisitions since the
+   * last call, or null if there were none.
+   */
+  public @Nullable DescriptiveStatistics getAcquireLatencyStatsSinceLastReport() {
+    DescriptiveStatistics stats = new DescriptiveStatistics();
+    Long latencyNanos;
+    while ((latencyNanos = this.acquireLatenciesNanos.poll()) != null) {
+      stats.addValue((double) latencyNanos / TimeUnit.MILLISECONDS.toNanos(1));
+    }
+    return stats.getN() == 0 ? null : stats;
+  }
+
+  /**
+   * @return the total number of permits acquired by all {@link Limiter}s decorated with this container.
+   */
+  public long getTotalPermits() {
+    return this.totalPermits.get();
+  }
+
   public @Nullable DescriptiveStatistics getUnusedPermitsSinceLastReport() {
     DescriptiveStatistics stats = getNormalizedStatistics("unusedPermits", this.unusedPermitsCounts);
     this.unusedPermitsCounts.clear();
@@ -33,6 +33,9 @@ import org.apache.commons.cli.Options;
 import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
 import org.apache.hadoop.conf.Configuration;
 
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
 import com.google.inject.Key;
 import com.google.inject.name.Names;
@@ -40,6 +43,9 @@ import com.typesafe.config.ConfigFactory;
 
 import gobblin.broker.BrokerConfigurationKeyGenerator;
 import gobblin.broker.iface.SharedResourcesBroker;
+import gobblin.metrics.MetricContext;
+import gobblin.metrics.broker.MetricContextFactory;
+import gobblin.metrics.broker.SubTaggedMetricContextKey;
 import gobblin.util.limiter.Limiter;
 import gobblin.util.limiter.MockRequester;
 import gobblin.util.limiter.RestliServiceBasedLimiter;
@@ -48,6 +54,7 @@ import gobblin.util.limiter.stressTest.RateComputingLimiterContainer;
 import gobblin.util.limiter.stressTest.StressTestUtils;
 import gobblin.util.limiter.stressTest.Stressor;
 
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -59,7 +66,9 @@ import lombok.extern.slf4j.Slf4j;
  * The mock {@link RestliServiceBasedLimiter} sends requests to an embedded {@link LimiterServerResource}, adding an
  * artificial latency to the requests representing the network latency.
  *
- * The stress test prints permit granting statistics every 15 seconds.
+ * The stress test prints permit granting statistics every 15 seconds, and a summary with the achieved qps against the
+ * target qps and the p99 permit granting latency when it finishes, so runs with different numbers of token bucket
+ * shards (see {@link QPSPolicy#SHARDS}) can be compared.
  */
 @Slf4j
 public class LocalStressTest {
@@ -72,13 +81,17 @@ public class LocalStressTest {
       new Option("latency", true, "Artificial request latency in millis.");
   public static final Option QPS =
       new Option("qps", true, "Target qps.");
+  public static final Option SHARDS =
+      new Option("shards", true, "Number of token bucket shards used by the server.");
 
-  public static final Options OPTIONS = StressTestUtils.OPTIONS.addOption(STRESSOR_THREADS).addOption(PROCESSOR_THREADS);
+  public static final Options OPTIONS = StressTestUtils.OPTIONS.addOption(STRESSOR_THREADS).addOption(PROCESSOR_THREADS)
+      .addOption(ARTIFICIAL_LATENCY).addOption(QPS).addOption(SHARDS);
 
   public static final int DEFAULT_STRESSOR_THREADS = 10;
   public static final int DEFAULT_PROCESSOR_THREADS = 10;
   public static final int DEFAULT_ARTIFICIAL_LATENCY = 100;
   public static final int DEFAULT_TARGET_QPS = 100;
+  public static final int DEFAULT_SHARDS = 1;
 
   public static void main(String[] args) throws Exception {
 
@@ -92,6 +105,7 @@ public class LocalStressTest {
         DEFAULT_ARTIFICIAL_LATENCY)));
     long targetQps = Integer.parseInt(cli.getOptionValue(QPS.getOpt(), Integer.toString(
         DEFAULT_TARGET_QPS)));
+    int shards = Integer.parseInt(cli.getOptionValue(SHARDS.getOpt(), Integer.toString(DEFAULT_SHARDS)));
 
     Configuration configuration = new Configuration();
     StressTestUtils.populateConfigFromCli(configuration, cli);
@@ -106,6 +120,8 @@ public class LocalStressTest {
             QPSPolicy.FACTORY_ALIAS);
     configMap.put(BrokerConfigurationKeyGenerator.generateKey(factory, res1key, null, QPSPolicy.QPS),
         Long.toString(targetQps));
+    configMap.put(BrokerConfigurationKeyGenerator.generateKey(factory, res1key, null, QPSPolicy.SHARDS),
+        Integer.toString(shards));
 
     ThrottlingGuiceServletConfig guiceServletConfig = new ThrottlingGuiceServletConfig();
     guiceServletConfig.initialize(ConfigFactory.parseMap(configMap));
@@ -122,8 +138,14 @@ public class LocalStressTest {
         guiceServletConfig.getInjector().getInstance(Key.get(SharedResourcesBroker.class, Names.named(LimiterServerResource.BROKER_INJECT_NAME)));
     ThrottlingPolicy policy = (ThrottlingPolicy) broker.getSharedResource(new ThrottlingPolicyFactory(),
         new SharedLimiterKey(resourceLimited));
+    MetricContext resourceContext = (MetricContext) broker.getSharedResource(new MetricContextFactory(),
+        new SubTaggedMetricContextKey(resourceLimited,
+            ImmutableMap.of(LimiterServerResource.RESOURCE_ID_TAG, resourceLimited)));
+    Timer grantTimer = resourceContext.timer(LimiterServerResource.LIMITER_TIMER_NAME);
+    Reporter reporter = new Reporter(limiterContainer, policy);
     ScheduledExecutorService reportingThread = Executors.newSingleThreadScheduledExecutor();
-    reportingThread.scheduleAtFixedRate(new Reporter(limiterContainer, policy), 0, 15, TimeUnit.SECONDS);
+    reportingThread.scheduleAtFixedRate(reporter, 0, 15, TimeUnit.SECONDS);
+    long startTime = System.currentTimeMillis();
 
     Queue<Future<?>> futures = new LinkedList<>();
     MockRequester requester = new MockRequester(limiterServer, artificialLatency, processorThreads);
@@ -148,8 +170,18 @@ public class LocalStressTest {
       }
     }
     requester.stop();
+    long elapsedMillis = System.currentTimeMillis() - startTime;
 
     executorService.shutdownNow();
+    reportingThread.shutdownNow();
+
+    reporter.run();
+    double achievedQps = (double) limiterContainer.getTotalPermits() * 1000 / elapsedMillis;
+    Snapshot grantLatencies = grantTimer.getSnapshot();
+    log.info(String.format("Summary: shards: %d, target qps: %d, achieved qps: %f, accuracy: %f%%, "
+            + "server p99 grant latency: %f ms, client p99 acquire latency: %f ms", shards, targetQps, achievedQps,
+        100 * achievedQps / targetQps, grantLatencies.get99thPercentile() / TimeUnit.MILLISECONDS.toNanos(1),
+        reporter.getAllAcquireLatencies().getN() == 0 ? 0 : reporter.getAllAcquireLatencies().getPercentile(99)));
 
     if (stressorFailures > 0) {
       log.error("There were " + stressorFailures + " failed stressor threads.");
@@ -178,9 +210,11 @@ public class LocalStressTest {
   private static class Reporter implements Runnable {
     private final RateComputingLimiterContainer limiter;
     private final ThrottlingPolicy policy;
+    @Getter
+    private final DescriptiveStatistics allAcquireLatencies = new DescriptiveStatistics();
 
     @Override
-    public void run() {
+    public synchronized void run() {
       DescriptiveStatistics stats = limiter.getRateStatsSinceLastReport();
       if (stats != null) {
         log.info(String.format("Requests rate stats: count: %d, min: %f, max: %f, mean: %f, std: %f, sum: %f", stats.getN(),
@@ -193,11 +227,18 @@ public class LocalStressTest {
             stats.getMin(), stats.getMax(), stats.getMean(), stats.getStandardDeviation(), stats.getSum()));
       }
 
+      stats = limiter.getAcquireLatencyStatsSinceLastReport();
+      if (stats != null) {
+        log.info(String.format("Acquire latency stats (ms): count: %d, min: %f, max: %f, mean: %f, p99: %f",
+            stats.getN(), stats.getMin(), stats.getMax(), stats.getMean(), stats.getPercentile(99)));
+        for (double latency : stats.getValues()) {
+          this.allAcquireLatencies.addValue(latency);
+        }
+      }
+
       if (this.policy instanceof QPSPolicy) {
         QPSPolicy qpsPolicy = (QPSPolicy) this.policy;
-        DynamicTokenBucket dynamicTokenBucket = qpsPolicy.getTokenBucket();
-        TokenBucket tokenBucket = dynamicTokenBucket.getTokenBucket();
-        log.info("Stored tokens: " + tokenBucket.getStoredTokens());
+        log.info("Stored tokens: " + qpsPolicy.getTokenBucket().getStoredTokens());
       }
     }
   }
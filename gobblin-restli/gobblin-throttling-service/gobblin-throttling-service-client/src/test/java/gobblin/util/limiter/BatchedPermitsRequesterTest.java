@@ -158,6 +158,40 @@ public class BatchedPermitsRequesterTest {
     }
   }
 
+  @Test
+  public void testPrefetchBeforeExhaustion() throws Exception {
+    Queue<RequestAndCallback> queue = Queues.newArrayDeque();
+
+    BatchedPermitsRequester container = BatchedPermitsRequester.builder().resourceId("resource")
+        .requestorIdentifier("requestor").requestSender(new TestRequestSender(queue, false)).build();
+    try (ParallelRequester requester = new ParallelRequester(container)) {
+
+      Future<Boolean> future = requester.request(1);
+
+      await(new QueueSize(queue, 1), 1000);
+      // simulate request latency
+      Thread.sleep(200);
+      satisfyRequestBuilder().requestAndCallback(queue.poll()).permits(1000).satisfy();
+      Assert.assertTrue(future.get(1, TimeUnit.SECONDS));
+
+      // consume permits slowly enough to measure a consumption rate, without getting close to exhaustion
+      long start = System.currentTimeMillis();
+      while (System.currentTimeMillis() - start < 2 * BatchedPermitsRequester.CONSUMPTION_RATE_WINDOW_MILLIS) {
+        Assert.assertTrue(container.getPermits(5));
+        Thread.sleep(50);
+      }
+      Assert.assertEquals(queue.size(), 0);
+
+      // leave only a few permits, which at the measured rate will run out within the request latency
+      long available = container.getPermitBatchContainer().getTotalAvailablePermits();
+      Assert.assertTrue(container.getPermits(available - 5));
+
+      // a new request is sent even though no caller is blocked
+      Assert.assertEquals(queue.size(), 1);
+      Assert.assertTrue(queue.peek().getRequest().getPermits() > 0);
+    }
+  }
+
   public static class TestRequestSender implements RequestSender {
     private final Queue<RequestAndCallback> requestAndCallbacks;
     private final boolean autoSatisfyRequests;
@@ -178,9 +212,9 @@ public class BatchedPermitsRequesterTest {
   }
 
   @Builder(builderMethodName = "satisfyRequestBuilder", buildMethodName = "satisfy")
-  public static void satisfyRequest(RequestAndCallback requestAndCallback, long expiration) {
+  public static void satisfyRequest(RequestAndCallback requestAndCallback, long expiration, long permits) {
     PermitAllocation allocation = new PermitAllocation();
-    allocation.setPermits(requestAndCallback.getRequest().getPermits());
+    allocation.setPermits(permits > 0 ? permits : requestAndCallback.getRequest().getPermits());
     allocation.setExpiration(expiration > 0 ? expiration : Long.MAX_VALUE);
 
     Response<PermitAllocation> response = Mockito.mock(Response.class);
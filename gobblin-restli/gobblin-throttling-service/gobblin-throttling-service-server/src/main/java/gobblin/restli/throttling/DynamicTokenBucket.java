@@ -44,6 +44,7 @@ public class DynamicTokenBucket {
   @Getter
   private final TokenBucket tokenBucket;
   private final long baseTimeout;
+  private final long maxBucketSizeMillis;
 
   /**
    * @param qps the average qps desired.
@@ -55,6 +56,14 @@ public class DynamicTokenBucket {
   DynamicTokenBucket(long qps, long fullRequestTimeoutMillis, long maxBucketSizeMillis) {
     this.tokenBucket = new TokenBucket(qps, maxBucketSizeMillis);
     this.baseTimeout = fullRequestTimeoutMillis;
+    this.maxBucketSizeMillis = maxBucketSizeMillis;
+  }
+
+  /**
+   * Change the average qps of this {@link DynamicTokenBucket}.
+   */
+  void resetQPS(long qps) {
+    this.tokenBucket.resetQPS(qps, this.maxBucketSizeMillis);
   }
 
   /**
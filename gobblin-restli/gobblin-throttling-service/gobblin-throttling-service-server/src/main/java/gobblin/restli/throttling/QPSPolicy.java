@@ -35,7 +35,8 @@ import lombok.extern.slf4j.Slf4j;
 
 
 /**
- * A {@link ThrottlingPolicy} based on a QPS (queries per second). It internally uses a {@link DynamicTokenBucket}.
+ * A {@link ThrottlingPolicy} based on a QPS (queries per second). It internally uses a {@link DynamicTokenBucket}, or
+ * a {@link ShardedDynamicTokenBucket} if {@link #SHARDS} is larger than 1.
  */
 @Alpha
 @Slf4j
@@ -57,12 +58,22 @@ public class QPSPolicy implements ThrottlingPolicy {
    */
   public static final String MAX_BUCKET_SIZE_MILLIS = "maxBucketSizeMillis";
   public static final long DEFAULT_MAX_BUCKET_SIZE = 10000;
+  /**
+   * Number of token bucket shards requestors are spread over. Reduces contention with a large number of requestors.
+   */
+  public static final String SHARDS = "shards";
+  public static final int DEFAULT_SHARDS = 1;
+  /**
+   * Interval at which the qps is redistributed between shards according to demand.
+   */
+  public static final String SHARD_REBALANCE_INTERVAL_MILLIS = "shardRebalanceIntervalMillis";
+  public static final long DEFAULT_SHARD_REBALANCE_INTERVAL = 1000;
 
   @Getter
   private final long qps;
   @VisibleForTesting
   @Getter
-  private final DynamicTokenBucket tokenBucket;
+  private final ShardedDynamicTokenBucket tokenBucket;
 
   @Alias(FACTORY_ALIAS)
   public static class Factory implements ThrottlingPolicyFactory.SpecificPolicyFactory {
@@ -80,7 +91,11 @@ public class QPSPolicy implements ThrottlingPolicy {
         ? config.getLong(FULL_REQUEST_TIMEOUT_MILLIS) : DEFAULT_FULL_REQUEST_TIMEOUT;
     long maxBucketSizeMillis = config.hasPath(MAX_BUCKET_SIZE_MILLIS)
         ? config.getLong(MAX_BUCKET_SIZE_MILLIS) : DEFAULT_MAX_BUCKET_SIZE;
-    this.tokenBucket = new DynamicTokenBucket(qps, fullRequestTimeoutMillis, maxBucketSizeMillis);
+    int shards = config.hasPath(SHARDS) ? config.getInt(SHARDS) : DEFAULT_SHARDS;
+    long shardRebalanceIntervalMillis = config.hasPath(SHARD_REBALANCE_INTERVAL_MILLIS)
+        ? config.getLong(SHARD_REBALANCE_INTERVAL_MILLIS) : DEFAULT_SHARD_REBALANCE_INTERVAL;
+    this.tokenBucket = new ShardedDynamicTokenBucket(qps, shards, shardRebalanceIntervalMillis,
+        fullRequestTimeoutMillis, maxBucketSizeMillis);
   }
 
   @Override
@@ -91,7 +106,8 @@ public class QPSPolicy implements ThrottlingPolicy {
       minPermits = permitsRequested;
     }
 
-    long permitsGranted = this.tokenBucket.getPermits(permitsRequested, minPermits, LimiterServerResource.TIMEOUT_MILLIS);
+    long permitsGranted = this.tokenBucket.getPermits(request.getRequestorIdentifier(GetMode.NULL), permitsRequested, minPermits,
+        LimiterServerResource.TIMEOUT_MILLIS);
 
     PermitAllocation allocation = new PermitAllocation();
     allocation.setPermits(permitsGranted);
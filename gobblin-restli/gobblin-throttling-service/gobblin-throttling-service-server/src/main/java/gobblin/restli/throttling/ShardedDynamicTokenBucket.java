@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package gobblin.restli.throttling;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+
+import javax.annotation.Nullable;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * A set of {@link DynamicTokenBucket} shards that together enforce a single qps.
+ *
+ * Each requestor is always routed to the same shard (based on its identifier), so requests from different requestors
+ * mostly contend on different buckets. Each shard starts with an equal share of the qps. Every
+ * {@link #rebalanceIntervalMillis}, the qps is redistributed between shards proportionally to the permits requested from
+ * each shard since the last rebalance. Every shard keeps a minimum share of 1 / ({@link #MIN_SHARE_DIVISOR} * shards)
+ * of the qps, so that requestors landing on an idle shard are not starved until the next rebalance.
+ *
+ * With a single shard, this class behaves exactly as a single {@link DynamicTokenBucket}.
+ */
+@Slf4j
+public class ShardedDynamicTokenBucket {
+
+  @VisibleForTesting
+  static final int MIN_SHARE_DIVISOR = 10;
+
+  @Getter
+  private final long qps;
+  private final DynamicTokenBucket[] shards;
+  private final long[] shardQps;
+  private final LongAdder[] permitsRequested;
+  private final long rebalanceIntervalMillis;
+  private final AtomicLong nextRebalanceMillis;
+
+  /**
+   * @param qps the average qps desired across all shards.
+   * @param shards the number of shards. Must not be larger than qps.
+   * @param rebalanceIntervalMillis interval between redistributions of the qps between shards.
+   * @see DynamicTokenBucket#DynamicTokenBucket(long, long, long) for the other parameters.
+   */
+  ShardedDynamicTokenBucket(long qps, int shards, long rebalanceIntervalMillis, long fullRequestTimeoutMillis,
+      long maxBucketSizeMillis) {
+    Preconditions.checkArgument(shards > 0, "Number of shards must be positive.");
+    Preconditions.checkArgument(qps >= shards, "QPS must be at least the number of shards.");
+    Preconditions.checkArgument(rebalanceIntervalMillis > 0, "Rebalance interval must be positive.");
+
+    this.qps = qps;
+    this.shards = new DynamicTokenBucket[shards];
+    this.shardQps = new long[shards];
+    this.permitsRequested = new LongAdder[shards];
+    for (int i = 0; i < shards; i++) {
+      this.shardQps[i] = qps / shards + (i == 0 ? qps % shards : 0);
+      this.shards[i] = new DynamicTokenBucket(this.shardQps[i], fullRequestTimeoutMillis, maxBucketSizeMillis);
+      this.permitsRequested[i] = new LongAdder();
+    }
+    this.rebalanceIntervalMillis = rebalanceIntervalMillis;
+    this.nextRebalanceMillis = new AtomicLong(System.currentTimeMillis() + rebalanceIntervalMillis);
+  }
+
+  /**
+   * Request tokens from the shard of the given requestor.
+   * @see DynamicTokenBucket#getPermits(long, long, long)
+   */
+  public long getPermits(@Nullable String requestorIdentifier, long requestedPermits, long minPermits, long timeoutMillis) {
+    if (this.shards.length == 1) {
+      return this.shards[0].getPermits(requestedPermits, minPermits, timeoutMillis);
+    }
+
+    maybeRebalance();
+    int shard = getShard(requestorIdentifier);
+    this.permitsRequested[shard].add(requestedPermits);
+    return this.shards[shard].getPermits(requestedPermits, minPermits, timeoutMillis);
+  }
+
+  /**
+   * @return the number of tokens currently stored across all shards.
+   */
+  public long getStoredTokens() {
+    long storedTokens = 0;
+    for (DynamicTokenBucket shard : this.shards) {
+      storedTokens += shard.getTokenBucket().getStoredTokens();
+    }
+    return storedTokens;
+  }
+
+  @VisibleForTesting
+  int getShard(@Nullable String requestorIdentifier) {
+    return requestorIdentifier == null ? 0 : Math.floorMod(requestorIdentifier.hashCode(), this.shards.length);
+  }
+
+  @VisibleForTesting
+  long getShardQps(int shard) {
+    return this.shardQps[shard];
+  }
+
+  private void maybeRebalance() {
+    long now = System.currentTimeMillis();
+    long nextRebalance = this.nextRebalanceMillis.get();
+    // Only the thread that wins the compare-and-set does the rebalance
+    if (now >= nextRebalance && this.nextRebalanceMillis.compareAndSet(nextRebalance, now + this.rebalanceIntervalMillis)) {
+      rebalance();
+    }
+  }
+
+  /**
+   * Redistribute the qps between shards proportionally to the permits requested from each shard since the last call.
+   */
+  @VisibleForTesting
+  synchronized void rebalance() {
+    long[] demand = new long[this.shards.length];
+    long totalDemand = 0;
+    for (int i = 0; i < this.shards.length; i++) {
+      demand[i] = this.permitsRequested[i].sumThenReset();
+      totalDemand += demand[i];
+    }
+    if (totalDemand == 0) {
+      return;
+    }
+
+    long minShardQps = Math.max(1, this.qps / (MIN_SHARE_DIVISOR * this.shards.length));
+    long distributableQps = this.qps - minShardQps * this.shards.length;
+    long assignedQps = 0;
+    int busiestShard = 0;
+    for (int i = 0; i < this.shards.length; i++) {
+      this.shardQps[i] = minShardQps + (long) ((double) distributableQps * demand[i] / totalDemand);
+      assignedQps += this.shardQps[i];
+      if (demand[i] > demand[busiestShard]) {
+        busiestShard = i;
+      }
+    }
+    // Rounding leftovers go to the busiest shard
+    this.shardQps[busiestShard] += this.qps - assignedQps;
+
+    for (int i = 0; i < this.shards.length; i++) {
+      this.shards[i].resetQPS(this.shardQps[i]);
+    }
+    log.debug("Rebalanced qps between shards according to demand.");
+  }
+}
@@ -18,47 +18,57 @@
 package gobblin.restli.throttling;
 
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import com.google.common.base.Preconditions;
 
-import lombok.AccessLevel;
-import lombok.Getter;
+import lombok.AllArgsConstructor;
 
 
 /**
  * An implementation of Token Bucket (https://en.wikipedia.org/wiki/Token_bucket).
  *
  * This class is intended to limit the rate at which tokens are used to a given QPS. It can store tokens for future usage.
+ *
+ * The state of the bucket is kept in an immutable {@link BucketState} that is replaced with a compare-and-set, so
+ * concurrent requests never block on each other. A request that loses a race simply recomputes its reservation
+ * against the new state.
  */
 public class TokenBucket {
 
-  @Getter(AccessLevel.PROTECTED)
-  private double tokensPerMilli;
-  private double maxBucketSizeInTokens;
-
-  private volatile long nextTokenAvailableMillis;
-  private volatile double tokensStored;
+  private final AtomicReference<BucketState> state;
 
   public TokenBucket(long qps, long maxBucketSizeInMillis) {
-    this.nextTokenAvailableMillis = System.currentTimeMillis();
-    resetQPS(qps, maxBucketSizeInMillis);
+    checkArguments(qps, maxBucketSizeInMillis);
+    double tokensPerMilli = (double) qps / 1000;
+    this.state = new AtomicReference<>(new BucketState(System.currentTimeMillis(), 0, tokensPerMilli,
+        tokensPerMilli * maxBucketSizeInMillis));
   }
 
   public void resetQPS(long qps, long maxBucketSizeInMillis) {
-    Preconditions.checkArgument(qps > 0, "QPS must be positive.");
-    Preconditions.checkArgument(maxBucketSizeInMillis >= 0, "Max bucket size must be non-negative.");
-
-    long now = System.currentTimeMillis();
-    synchronized (this) {
-      updateTokensStored(now);
-      if (this.nextTokenAvailableMillis > now) {
-        this.tokensStored -= (this.nextTokenAvailableMillis - now) * this.tokensPerMilli;
+    checkArguments(qps, maxBucketSizeInMillis);
+
+    double tokensPerMilli = (double) qps / 1000;
+    while (true) {
+      long now = System.currentTimeMillis();
+      BucketState current = this.state.get();
+      BucketState refilled = current.refill(now);
+      double tokensStored = refilled.tokensStored;
+      if (refilled.nextTokenAvailableMillis > now) {
+        tokensStored -= (refilled.nextTokenAvailableMillis - now) * refilled.tokensPerMilli;
+      }
+      BucketState updated = new BucketState(refilled.nextTokenAvailableMillis, tokensStored, tokensPerMilli,
+          tokensPerMilli * maxBucketSizeInMillis);
+      if (this.state.compareAndSet(current, updated)) {
+        return;
       }
-      this.tokensPerMilli = (double) qps / 1000;
-      this.maxBucketSizeInTokens = this.tokensPerMilli * maxBucketSizeInMillis;
     }
   }
 
+  protected double getTokensPerMilli() {
+    return this.state.get().tokensPerMilli;
+  }
+
   /**
    * Attempt to get the specified amount of tokens within the specified timeout. If the tokens cannot be retrieved in the
    * specified timeout, the call will return false immediately, otherwise, the call will block until the tokens are available.
@@ -68,10 +78,7 @@ public class TokenBucket {
    */
   public boolean getTokens(long tokens, long timeout, TimeUnit timeoutUnit) throws InterruptedException {
     long timeoutMillis = timeoutUnit.toMillis(timeout);
-    long wait;
-    synchronized (this) {
-      wait = tryReserveTokens(tokens, timeoutMillis);
-    }
+    long wait = tryReserveTokens(tokens, timeoutMillis);
 
     if (wait < 0) {
       return false;
@@ -89,52 +96,74 @@ public class TokenBucket {
    * tokens will be available at any point in the future.
    */
   public long getStoredTokens() {
-    synchronized (this) {
-      updateTokensStored(System.currentTimeMillis());
-    }
-    return (long) this.tokensStored;
+    return (long) this.state.get().refill(System.currentTimeMillis()).tokensStored;
   }
 
   /**
-   * Note: this method should only be called while holding the class lock. For performance, the lock is not explicitly
-   * acquired.
+   * Reserve the tokens if they can be made available within the given wait.
    *
    * @return the wait until the tokens are available or negative if they can't be acquired in the give timeout.
    */
   private long tryReserveTokens(long tokens, long maxWaitMillis) {
-    long now = System.currentTimeMillis();
-    long waitUntilNextTokenAvailable = Math.max(0, this.nextTokenAvailableMillis - now);
+    while (true) {
+      long now = System.currentTimeMillis();
+      BucketState current = this.state.get();
+      BucketState refilled = current.refill(now);
+      long waitUntilNextTokenAvailable = Math.max(0, refilled.nextTokenAvailableMillis - now);
+
+      BucketState reserved;
+      long totalWait;
+      if (tokens <= refilled.tokensStored) {
+        reserved = new BucketState(refilled.nextTokenAvailableMillis, refilled.tokensStored - tokens,
+            refilled.tokensPerMilli, refilled.maxBucketSizeInTokens);
+        totalWait = waitUntilNextTokenAvailable;
+      } else {
+        double additionalNeededTokens = tokens - refilled.tokensStored;
+        // casting to long will round towards 0
+        long additionalWaitForEnoughTokens = (long) (additionalNeededTokens / refilled.tokensPerMilli) + 1;
+        totalWait = waitUntilNextTokenAvailable + additionalWaitForEnoughTokens;
+        if (totalWait > maxWaitMillis) {
+          return -1;
+        }
+        reserved = new BucketState(refilled.nextTokenAvailableMillis + additionalWaitForEnoughTokens,
+            refilled.tokensPerMilli * additionalWaitForEnoughTokens - additionalNeededTokens, refilled.tokensPerMilli,
+            refilled.maxBucketSizeInTokens);
+      }
 
-    updateTokensStored(now);
-    if (tokens <= this.tokensStored) {
-      this.tokensStored -= tokens;
-      return waitUntilNextTokenAvailable;
+      if (this.state.compareAndSet(current, reserved)) {
+        return totalWait;
+      }
     }
+  }
 
-    double additionalNeededTokens = tokens - this.tokensStored;
-    // casting to long will round towards 0
-    long additionalWaitForEnoughTokens = (long) (additionalNeededTokens / this.tokensPerMilli) + 1;
-    long totalWait = waitUntilNextTokenAvailable + additionalWaitForEnoughTokens;
-    if (totalWait > maxWaitMillis) {
-      return -1;
-    }
-    this.tokensStored = this.tokensPerMilli * additionalWaitForEnoughTokens - additionalNeededTokens;
-    this.nextTokenAvailableMillis = this.nextTokenAvailableMillis + additionalWaitForEnoughTokens;
-    return totalWait;
+  private static void checkArguments(long qps, long maxBucketSizeInMillis) {
+    Preconditions.checkArgument(qps > 0, "QPS must be positive.");
+    Preconditions.checkArgument(maxBucketSizeInMillis >= 0, "Max bucket size must be non-negative.");
   }
 
   /**
-   * Note: this method should only be called while holding the class lock. For performance, the lock is not explicitly
-   * acquired.
+   * An immutable snapshot of the state of a {@link TokenBucket}.
    */
-  private void updateTokensStored(long now) {
-    if (now <= this.nextTokenAvailableMillis) {
-      return;
+  @AllArgsConstructor
+  private static class BucketState {
+    private final long nextTokenAvailableMillis;
+    private final double tokensStored;
+    private final double tokensPerMilli;
+    private final double maxBucketSizeInTokens;
+
+    /**
+     * @return the state after adding the tokens generated until the given time.
+     */
+    private BucketState refill(long now) {
+      if (now <= this.nextTokenAvailableMillis) {
+        return this;
+      }
+      long millisUnaccounted = now - this.nextTokenAvailableMillis;
+      double newTokens = millisUnaccounted * this.tokensPerMilli;
+      return new BucketState(now,
+          Math.min(this.tokensStored + newTokens, Math.max(this.tokensStored, this.maxBucketSizeInTokens)),
+          this.tokensPerMilli, this.maxBucketSizeInTokens);
     }
-    long millisUnaccounted = now - this.nextTokenAvailableMillis;
-    double newTokens = millisUnaccounted * this.tokensPerMilli;
-    this.nextTokenAvailableMillis = now;
-    this.tokensStored = Math.min(this.tokensStored + newTokens, Math.max(this.tokensStored, this.maxBucketSizeInTokens));
   }
 
 }
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package gobblin.restli.throttling;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class ShardedDynamicTokenBucketTest {
+
+  @Test
+  public void testRouting() throws Exception {
+    ShardedDynamicTokenBucket bucket = new ShardedDynamicTokenBucket(100, 4, 1000, 10, 0);
+
+    Assert.assertEquals(bucket.getShard(null), 0);
+    Assert.assertEquals(bucket.getShard("requestor"), bucket.getShard("requestor"));
+    for (int i = 0; i < 100; i++) {
+      int shard = bucket.getShard("requestor" + i);
+      Assert.assertTrue(shard >= 0 && shard < 4);
+    }
+  }
+
+  @Test
+  public void testRebalance() throws Exception {
+    long qps = 1000;
+    ShardedDynamicTokenBucket bucket = new ShardedDynamicTokenBucket(qps, 2, Long.MAX_VALUE / 2, 10, 0);
+    Assert.assertEquals(bucket.getShardQps(0) + bucket.getShardQps(1), qps);
+
+    String busyRequestor = findRequestorForShard(bucket, 0);
+    String idleRequestor = findRequestorForShard(bucket, 1);
+
+    for (int i = 0; i < 9; i++) {
+      bucket.getPermits(busyRequestor, 1, 0, 0);
+    }
+    bucket.getPermits(idleRequestor, 1, 0, 0);
+    bucket.rebalance();
+
+    long minShardQps = qps / (ShardedDynamicTokenBucket.MIN_SHARE_DIVISOR * 2);
+    Assert.assertTrue(bucket.getShardQps(0) > bucket.getShardQps(1));
+    Assert.assertTrue(bucket.getShardQps(1) >= minShardQps);
+    Assert.assertEquals(bucket.getShardQps(0) + bucket.getShardQps(1), qps);
+
+    // No demand since the last rebalance keeps the previous distribution
+    long shard0Qps = bucket.getShardQps(0);
+    bucket.rebalance();
+    Assert.assertEquals(bucket.getShardQps(0), shard0Qps);
+  }
+
+  @Test
+  public void testSingleShard() throws Exception {
+    int qps = 10;
+    ShardedDynamicTokenBucket bucket = new ShardedDynamicTokenBucket(qps, 1, 1000, 10, 0);
+
+    // Behaves as a single DynamicTokenBucket
+    Assert.assertEquals(bucket.getPermits("requestor", 10 * qps, 10 * qps, 1000), 0);
+    long permits = qps / 5;
+    Assert.assertEquals(bucket.getPermits(null, permits, permits, 300), permits);
+  }
+
+  private String findRequestorForShard(ShardedDynamicTokenBucket bucket, int shard) {
+    for (int i = 0; ; i++) {
+      if (bucket.getShard("requestor" + i) == shard) {
+        return "requestor" + i;
+      }
+    }
+  }
+}
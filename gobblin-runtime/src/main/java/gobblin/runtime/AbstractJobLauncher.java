@@ -185,6 +185,12 @@ public abstract class AbstractJobLauncher implements JobLauncher {
 
       this.eventSubmitter = buildEventSubmitter(metadataTags);
 
+      if (EarlyDatasetCommitter.isEnabled(this.jobContext.getJobState())) {
+        EarlyDatasetCommitter earlyDatasetCommitter = new EarlyDatasetCommitter(this.jobContext, this.eventSubmitter);
+        this.jobContext.setEarlyDatasetCommitter(earlyDatasetCommitter);
+        this.eventBus.register(earlyDatasetCommitter);
+      }
+
       // Add all custom tags to the JobState so that tags are added to any new TaskState created
       GobblinMetrics.addCustomTagToState(this.jobContext.getJobState(), metadataTags);
 
@@ -407,6 +413,10 @@ public abstract class AbstractJobLauncher implements JobLauncher {
               jobState.addTaskState(new TaskState(new WorkUnitState(workUnit, jobState)));
             }
           });
+          if (this.jobContext.getEarlyDatasetCommitter().isPresent()) {
+            // Commit each dataset as soon as all of its tasks have completed
+            workUnitStream = this.jobContext.getEarlyDatasetCommitter().get().trackWorkUnitStream(workUnitStream);
+          }
           workUnitsPreparationTimer.stop();
 
           // Write job execution info to the job history store before the job starts to run
@@ -527,11 +537,18 @@ public abstract class AbstractJobLauncher implements JobLauncher {
       throws IOException {
     try {
       this.cancellationExecutor.shutdownNow();
+      if (this.jobContext.getEarlyDatasetCommitter().isPresent()) {
+        this.jobContext.getEarlyDatasetCommitter().get().close();
+      }
       try {
         this.jobContext.getSource().shutdown(this.jobContext.getJobState());
       } finally {
-        if (GobblinMetrics.isEnabled(this.jobProps)) {
-          GobblinMetricsRegistry.getInstance().remove(this.jobContext.getJobId());
+        try {
+          this.jobContext.closeJobHistoryStore();
+        } finally {
+          if (GobblinMetrics.isEnabled(this.jobProps)) {
+            GobblinMetricsRegistry.getInstance().remove(this.jobContext.getJobId());
+          }
         }
       }
     } finally {
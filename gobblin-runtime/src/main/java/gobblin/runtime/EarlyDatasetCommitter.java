@@ -0,0 +1,261 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package gobblin.runtime;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.eventbus.Subscribe;
+
+import gobblin.commit.DeliverySemantics;
+import gobblin.configuration.ConfigurationKeys;
+import gobblin.metrics.event.EventSubmitter;
+import gobblin.source.workunit.BasicWorkUnitStream;
+import gobblin.source.workunit.WorkUnit;
+import gobblin.source.workunit.WorkUnitStream;
+import gobblin.util.Either;
+import gobblin.util.ExecutorsUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * Commits a dataset of a running job as soon as all the tasks of the dataset have completed, instead of waiting
+ * for every task of the job to complete.
+ *
+ * <p>
+ *   Task completion is tracked per dataset URN through the {@link NewTaskCompletionEvent}s posted by the
+ *   {@link TaskStateTracker}s and the {@link TaskStateCollectorService}. Tracking only starts once the
+ *   {@link WorkUnitStream} of the job has been fully consumed (see {@link #trackWorkUnitStream(WorkUnitStream)}),
+ *   since until then more tasks may be created for any dataset. Each completed dataset is committed and its
+ *   dataset state persisted by a {@link SafeDatasetCommit} running on a pool of at most
+ *   {@link JobContext#numCommitThreads()} threads. Datasets committed early are skipped by
+ *   {@link JobContext#commit()}.
+ * </p>
+ *
+ * <p>
+ *   For each committed dataset, the time from the start of the job to the end of the dataset commit is reported
+ *   in the {@link #DATASET_TIME_TO_PUBLISH_TIMER} timer and in a {@link #DATASET_COMMITTED_EVENT} event.
+ * </p>
+ */
+@Slf4j
+final class EarlyDatasetCommitter implements Closeable {
+
+  static final String DATASET_COMMITTED_EVENT = "DatasetCommitted";
+  static final String DATASET_TIME_TO_PUBLISH_TIMER = "gobblin.job.dataset.timeToPublish";
+  static final String DATASET_URN_METADATA = "datasetUrn";
+  static final String DATASET_STATE_METADATA = "datasetState";
+  static final String TIME_TO_PUBLISH_METADATA = "timeToPublishMillis";
+
+  private final JobContext jobContext;
+  private final EventSubmitter eventSubmitter;
+  private final int numCommitThreads;
+  private final ExecutorService commitExecutor;
+
+  // Ids of tasks that have not completed yet, by dataset URN
+  private final Map<String, Set<String>> pendingTaskIdsByUrn = Maps.newHashMap();
+  // TaskStates of completed tasks, by dataset URN
+  private final Map<String, List<TaskState>> completedTaskStatesByUrn = Maps.newHashMap();
+  private final Map<String, JobState.DatasetState> committedDatasetStates = Maps.newConcurrentMap();
+  private final Map<String, Future<Void>> datasetCommits = Maps.newLinkedHashMap();
+  private boolean trackingStarted = false;
+
+  EarlyDatasetCommitter(JobContext jobContext, EventSubmitter eventSubmitter) {
+    this.jobContext = jobContext;
+    this.eventSubmitter = eventSubmitter;
+    this.numCommitThreads = jobContext.numCommitThreads();
+    this.commitExecutor = Executors.newFixedThreadPool(this.numCommitThreads,
+        ExecutorsUtils.newThreadFactory(Optional.of(log), Optional.of("EarlyCommit-thread-%d")));
+  }
+
+  /**
+   * Whether early dataset commit is enabled by {@link ConfigurationKeys#EARLY_DATASET_COMMIT_ENABLED}.
+   */
+  static boolean isEnabled(JobState jobState) {
+    return jobState.getPropAsBoolean(ConfigurationKeys.EARLY_DATASET_COMMIT_ENABLED,
+        ConfigurationKeys.DEFAULT_EARLY_DATASET_COMMIT_ENABLED);
+  }
+
+  /**
+   * Wrap a {@link WorkUnitStream} so that per-dataset tracking of task completion starts once the stream has been
+   * fully consumed. The given stream must have already registered a {@link TaskState} for each of its
+   * {@link WorkUnit}s with the {@link JobState}.
+   */
+  WorkUnitStream trackWorkUnitStream(WorkUnitStream workUnitStream) {
+    final Iterator<WorkUnit> workUnits = workUnitStream.getWorkUnits();
+    BasicWorkUnitStream.Builder builder = new BasicWorkUnitStream.Builder(new AbstractIterator<WorkUnit>() {
+      @Override
+      protected WorkUnit computeNext() {
+        if (workUnits.hasNext()) {
+          return workUnits.next();
+        }
+        startTracking();
+        return endOfData();
+      }
+    });
+    builder.setFiniteStream(workUnitStream.isFiniteStream());
+    builder.setSafeToMaterialize(workUnitStream.isSafeToMaterialize());
+    return builder.build();
+  }
+
+  private synchronized void startTracking() {
+    if (this.trackingStarted) {
+      return;
+    }
+    this.trackingStarted = true;
+
+    for (TaskState taskState : this.jobContext.getJobState().getTaskStates()) {
+      String datasetUrn = getDatasetUrn(taskState);
+      Set<String> pendingTaskIds = getOrCreatePendingTaskIds(datasetUrn);
+      if (taskState.isCompleted()) {
+        this.completedTaskStatesByUrn.get(datasetUrn).add(taskState);
+      } else {
+        pendingTaskIds.add(taskState.getTaskId());
+      }
+    }
+    log.info(String.format("Tracking task completion of %d datasets for early commit",
+        this.pendingTaskIdsByUrn.size()));
+
+    for (Map.Entry<String, Set<String>> entry : this.pendingTaskIdsByUrn.entrySet()) {
+      if (entry.getValue().isEmpty()) {
+        submitDatasetCommit(entry.getKey());
+      }
+    }
+  }
+
+  @Subscribe
+  public synchronized void handleNewTaskCompletionEvent(NewTaskCompletionEvent newTaskCompletionEvent) {
+    if (!this.trackingStarted) {
+      return;
+    }
+
+    for (TaskState taskState : newTaskCompletionEvent.getTaskStates()) {
+      String datasetUrn = getDatasetUrn(taskState);
+      Set<String> pendingTaskIds = this.pendingTaskIdsByUrn.get(datasetUrn);
+      if (pendingTaskIds != null && pendingTaskIds.remove(taskState.getTaskId())) {
+        this.completedTaskStatesByUrn.get(datasetUrn).add(taskState);
+        if (pendingTaskIds.isEmpty()) {
+          submitDatasetCommit(datasetUrn);
+        }
+      }
+    }
+  }
+
+  /**
+   * Wait for all dataset commits submitted so far to complete.
+   *
+   * @return for each dataset committed early, either nothing or the {@link ExecutionException} thrown by its commit
+   */
+  synchronized Map<String, Either<Void, ExecutionException>> awaitDatasetCommits() throws InterruptedException {
+    Map<String, Either<Void, ExecutionException>> results = Maps.newLinkedHashMap();
+    for (Map.Entry<String, Future<Void>> entry : this.datasetCommits.entrySet()) {
+      try {
+        results.put(entry.getKey(), Either.<Void, ExecutionException>left(entry.getValue().get()));
+      } catch (ExecutionException ee) {
+        results.put(entry.getKey(), Either.<Void, ExecutionException>right(ee));
+      }
+    }
+    return results;
+  }
+
+  /**
+   * @return the {@link JobState.DatasetState}s of the datasets committed early, by dataset URN
+   */
+  Map<String, JobState.DatasetState> getCommittedDatasetStates() {
+    return ImmutableMap.copyOf(this.committedDatasetStates);
+  }
+
+  private void submitDatasetCommit(final String datasetUrn) {
+    final JobState.DatasetState datasetState = createDatasetState(datasetUrn);
+    final DeliverySemantics deliverySemantics = DeliverySemantics.parse(this.jobContext.getJobState());
+    final Callable<Void> safeDatasetCommit = this.jobContext.createSafeDatasetCommit(
+        JobContext.shouldCommitDataInJob(this.jobContext.getJobState()), false, deliverySemantics, datasetUrn,
+        datasetState, this.numCommitThreads > 1, this.jobContext);
+
+    log.info(String.format("All %d tasks of dataset %s have completed, committing it", datasetState.getTaskCount(),
+        datasetUrn));
+    this.datasetCommits.put(datasetUrn, this.commitExecutor.submit(new Callable<Void>() {
+      @Override
+      public Void call() throws Exception {
+        try {
+          return safeDatasetCommit.call();
+        } finally {
+          committedDatasetStates.put(datasetUrn, datasetState);
+          reportTimeToPublish(datasetUrn, datasetState);
+        }
+      }
+    }));
+  }
+
+  private JobState.DatasetState createDatasetState(String datasetUrn) {
+    JobState.DatasetState datasetState = this.jobContext.getJobState().newDatasetState(false);
+    datasetState.setDatasetUrn(datasetUrn);
+    for (TaskState taskState : this.completedTaskStatesByUrn.get(datasetUrn)) {
+      datasetState.incrementTaskCount();
+      datasetState.addTaskState(taskState);
+    }
+    for (TaskState taskState : this.jobContext.getJobState().getSkippedTaskStates()) {
+      if (getDatasetUrn(taskState).equals(datasetUrn)) {
+        datasetState.addSkippedTaskState(taskState);
+      }
+    }
+    return datasetState;
+  }
+
+  private void reportTimeToPublish(String datasetUrn, JobState.DatasetState datasetState) {
+    long timeToPublish = System.currentTimeMillis() - this.jobContext.getJobState().getStartTime();
+    if (this.jobContext.getJobMetricsOptional().isPresent()) {
+      this.jobContext.getJobMetricsOptional().get().getMetricContext().contextAwareTimer(DATASET_TIME_TO_PUBLISH_TIMER)
+          .update(timeToPublish, TimeUnit.MILLISECONDS);
+    }
+    this.eventSubmitter.submit(DATASET_COMMITTED_EVENT, ImmutableMap.of(DATASET_URN_METADATA, datasetUrn,
+        DATASET_STATE_METADATA, datasetState.getState().name(), TIME_TO_PUBLISH_METADATA, Long.toString(timeToPublish)));
+  }
+
+  private Set<String> getOrCreatePendingTaskIds(String datasetUrn) {
+    if (!this.pendingTaskIdsByUrn.containsKey(datasetUrn)) {
+      this.pendingTaskIdsByUrn.put(datasetUrn, Sets.<String>newHashSet());
+      this.completedTaskStatesByUrn.put(datasetUrn, Lists.<TaskState>newArrayList());
+    }
+    return this.pendingTaskIdsByUrn.get(datasetUrn);
+  }
+
+  private static String getDatasetUrn(TaskState taskState) {
+    return taskState.getProp(ConfigurationKeys.DATASET_URN_KEY, ConfigurationKeys.DEFAULT_DATASET_URN);
+  }
+
+  @Override
+  public void close() {
+    ExecutorsUtils.shutdownExecutorService(this.commitExecutor, Optional.of(log));
+  }
+}
@@ -64,6 +64,8 @@ import javax.annotation.Nullable;
 @Alpha
 public class GobblinMultiTaskAttempt {
 
+  public static final String TASK_SETUP_TIMER = "gobblin.runtime.task.setupTime";
+
   /**
    * An enumeration of policies on when a {@link GobblinMultiTaskAttempt} will be committed.
    */
@@ -87,6 +89,7 @@ public class GobblinMultiTaskAttempt {
   private final Optional<String> containerIdOptional;
   private final Optional<StateStore<TaskState>> taskStateStoreOptional;
   private final SharedResourcesBroker<GobblinScopeTypes> jobBroker;
+  private final Optional<TaskConstructCache> taskConstructCache;
   private List<Task> tasks;
 
   /**
@@ -114,6 +117,7 @@ public class GobblinMultiTaskAttempt {
     this.log = LoggerFactory.getLogger(GobblinMultiTaskAttempt.class.getName() + "-" +
                containerIdOptional.or("noattempt"));
     this.jobBroker = jobBroker;
+    this.taskConstructCache = TaskConstructCache.forJob(jobState);
   }
 
   /**
@@ -312,14 +316,22 @@ public class GobblinMultiTaskAttempt {
   }
 
   private Task createTaskRunnable(WorkUnitState workUnitState, CountDownLatch countDownLatch) {
+    long startNanos = System.nanoTime();
     Optional<TaskFactory> taskFactoryOpt = TaskUtils.getTaskFactory(workUnitState);
+    TaskContext taskContext = new TaskContext(workUnitState, this.taskConstructCache);
+    Task task;
     if (taskFactoryOpt.isPresent()) {
-      return new TaskIFaceWrapper(taskFactoryOpt.get().createTask(new TaskContext(workUnitState)), new TaskContext(workUnitState),
-          countDownLatch, this.taskStateTracker);
+      task = new TaskIFaceWrapper(taskFactoryOpt.get().createTask(taskContext), taskContext, countDownLatch,
+          this.taskStateTracker);
     } else {
-      return new Task(new TaskContext(workUnitState), this.taskStateTracker, this.taskExecutor,
-          Optional.of(countDownLatch));
+      task = new Task(taskContext, this.taskStateTracker, this.taskExecutor, Optional.of(countDownLatch));
     }
+
+    // Setup happens synchronously on the submitting thread, so it adds up for jobs with many small tasks
+    long setupNanos = System.nanoTime() - startNanos;
+    task.getTaskState().setProp(TaskConfigurationKeys.TASK_SETUP_TIME_MILLIS, TimeUnit.NANOSECONDS.toMillis(setupNanos));
+    JobMetrics.get(this.jobId).getMetricContext().timer(TASK_SETUP_TIMER).update(setupNanos, TimeUnit.NANOSECONDS);
+    return task;
   }
 
   public void runAndOptionallyCommitTaskAttempt(CommitPolicy multiTaskAttemptCommitPolicy)
@@ -23,6 +23,7 @@ import java.net.URI;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 
@@ -36,6 +37,7 @@ import com.google.common.base.Function;
 import com.google.common.base.Objects;
 import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Predicate;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
@@ -54,6 +56,7 @@ import gobblin.configuration.ConfigurationKeys;
 import gobblin.configuration.State;
 import gobblin.instrumented.Instrumented;
 import gobblin.metastore.DatasetStateStore;
+import gobblin.metastore.AsyncJobHistoryStore;
 import gobblin.metastore.JobHistoryStore;
 import gobblin.metastore.MetaStoreModule;
 import gobblin.metrics.GobblinMetrics;
@@ -88,6 +91,7 @@ public class JobContext implements Closeable {
 
   private static final String TASK_STAGING_DIR_NAME = "task-staging";
   private static final String TASK_OUTPUT_DIR_NAME = "task-output";
+  private static final String JOB_HISTORY_STORE_METRIC_PREFIX = "gobblin.runtime.jobHistoryStore";
 
   private final String jobName;
   private final String jobId;
@@ -123,6 +127,9 @@ public class JobContext implements Closeable {
   // A map from dataset URNs to DatasetStates (optional and maybe absent if not populated)
   private Optional<Map<String, JobState.DatasetState>> datasetStatesByUrns = Optional.absent();
 
+  // Commits datasets as soon as their tasks complete (optional and absent unless early dataset commit is enabled)
+  private Optional<EarlyDatasetCommitter> earlyDatasetCommitter = Optional.absent();
+
   public JobContext(Properties jobProps, Logger logger, SharedResourcesBroker<GobblinScopeTypes> instanceBroker)
       throws Exception {
     Preconditions.checkArgument(jobProps.containsKey(ConfigurationKeys.JOB_NAME_KEY),
@@ -152,6 +159,11 @@ public class JobContext implements Closeable {
     if (GobblinMetrics.isEnabled(jobProps)) {
       this.jobMetricsOptional = Optional.of(JobMetrics.get(this.jobState));
       this.jobState.setProp(Instrumented.METRIC_CONTEXT_NAME_KEY, this.jobMetricsOptional.get().getName());
+      if (this.jobHistoryStoreOptional.isPresent()
+          && this.jobHistoryStoreOptional.get() instanceof AsyncJobHistoryStore) {
+        ((AsyncJobHistoryStore) this.jobHistoryStoreOptional.get())
+            .registerAll(this.jobMetricsOptional.get().getMetricContext(), JOB_HISTORY_STORE_METRIC_PREFIX);
+      }
     } else {
       this.jobMetricsOptional = Optional.absent();
     }
@@ -200,7 +212,12 @@ public class JobContext implements Closeable {
         .valueOf(jobProps.getProperty(ConfigurationKeys.JOB_HISTORY_STORE_ENABLED_KEY, Boolean.FALSE.toString()));
     if (jobHistoryStoreEnabled) {
       Injector injector = Guice.createInjector(new MetaStoreModule(jobProps));
-      return Optional.of(injector.getInstance(JobHistoryStore.class));
+      JobHistoryStore jobHistoryStore = injector.getInstance(JobHistoryStore.class);
+      if (Boolean.valueOf(jobProps.getProperty(ConfigurationKeys.JOB_HISTORY_STORE_ASYNC_ENABLED_KEY,
+          Boolean.toString(ConfigurationKeys.DEFAULT_JOB_HISTORY_STORE_ASYNC_ENABLED)))) {
+        jobHistoryStore = new AsyncJobHistoryStore(jobHistoryStore, jobProps);
+      }
+      return Optional.of(jobHistoryStore);
     } else {
       return Optional.absent();
     }
@@ -374,6 +391,17 @@ public class JobContext implements Closeable {
     return ImmutableMap.copyOf(this.datasetStatesByUrns.or(Maps.<String, JobState.DatasetState>newHashMap()));
   }
 
+  /**
+   * Set the {@link EarlyDatasetCommitter} that commits datasets before {@link #commit()} is called.
+   */
+  void setEarlyDatasetCommitter(EarlyDatasetCommitter earlyDatasetCommitter) {
+    this.earlyDatasetCommitter = Optional.of(earlyDatasetCommitter);
+  }
+
+  Optional<EarlyDatasetCommitter> getEarlyDatasetCommitter() {
+    return this.earlyDatasetCommitter;
+  }
+
   /**
    * Store job execution information into the job history store.
    */
@@ -388,6 +416,15 @@ public class JobContext implements Closeable {
     }
   }
 
+  /**
+   * Close the job history store, after writing any job execution information it has queued.
+   */
+  void closeJobHistoryStore() throws IOException {
+    if (this.jobHistoryStoreOptional.isPresent()) {
+      this.jobHistoryStoreOptional.get().close();
+    }
+  }
+
   @Subscribe
   public void handleNewTaskCompletionEvent(NewTaskCompletionEvent newOutputTaskStateEvent) {
     LOG.info("{} more tasks of job {} have completed", newOutputTaskStateEvent.getTaskStates().size(), this.jobId);
@@ -423,6 +460,23 @@ public class JobContext implements Closeable {
   void commit(final boolean isJobCancelled)
       throws IOException {
     this.datasetStatesByUrns = Optional.of(computeDatasetStatesByUrns());
+    Map<String, Either<Void, ExecutionException>> earlyCommitResults = Maps.newHashMap();
+    if (this.earlyDatasetCommitter.isPresent()) {
+      try {
+        earlyCommitResults = this.earlyDatasetCommitter.get().awaitDatasetCommits();
+      } catch (InterruptedException ie) {
+        throw new IOException(ie);
+      } finally {
+        this.earlyDatasetCommitter.get().close();
+      }
+      // Datasets that have been committed early are not committed again
+      Map<String, JobState.DatasetState> datasetStates = Maps.newHashMap(this.datasetStatesByUrns.get());
+      datasetStates.putAll(this.earlyDatasetCommitter.get().getCommittedDatasetStates());
+      this.datasetStatesByUrns = Optional.<Map<String, JobState.DatasetState>>of(ImmutableMap.copyOf(datasetStates));
+      this.logger.info(String.format("%d datasets of job %s have been committed early", earlyCommitResults.size(),
+          this.jobId));
+    }
+    final Set<String> earlyCommittedDatasetUrns = earlyCommitResults.keySet();
     final boolean shouldCommitDataInJob = shouldCommitDataInJob(this.jobState);
     final DeliverySemantics deliverySemantics = DeliverySemantics.parse(this.jobState);
     final int numCommitThreads = numCommitThreads();
@@ -438,7 +492,13 @@ public class JobContext implements Closeable {
       }
 
       List<Either<Void, ExecutionException>> result = new IteratorExecutor<>(Iterables
-          .transform(this.datasetStatesByUrns.get().entrySet(),
+          .transform(Iterables.filter(this.datasetStatesByUrns.get().entrySet(),
+              new Predicate<Map.Entry<String, DatasetState>>() {
+                @Override
+                public boolean apply(Map.Entry<String, DatasetState> entry) {
+                  return !earlyCommittedDatasetUrns.contains(entry.getKey());
+                }
+              }),
               new Function<Map.Entry<String, DatasetState>, Callable<Void>>() {
                 @Nullable
                 @Override
@@ -449,6 +509,7 @@ public class JobContext implements Closeable {
               }).iterator(), numCommitThreads,
           ExecutorsUtils.newThreadFactory(Optional.of(this.logger), Optional.of("Commit-thread-%d")))
           .executeAndGetResults();
+      result.addAll(earlyCommitResults.values());
 
       IteratorExecutor.logFailures(result, LOG, 10);
 
@@ -469,7 +530,7 @@ public class JobContext implements Closeable {
     this.jobBroker.close();
   }
 
-  private int numCommitThreads() {
+  int numCommitThreads() {
     return this.parallelCommits;
   }
 
@@ -509,7 +570,7 @@ public class JobContext implements Closeable {
    * Data should be committed by the job if either {@link ConfigurationKeys#JOB_COMMIT_POLICY_KEY} is set to "full",
    * or {@link ConfigurationKeys#PUBLISH_DATA_AT_JOB_LEVEL} is set to true.
    */
-  private static boolean shouldCommitDataInJob(State state) {
+  static boolean shouldCommitDataInJob(State state) {
     boolean jobCommitPolicyIsFull =
         JobCommitPolicy.getCommitPolicy(state.getProperties()) == JobCommitPolicy.COMMIT_ON_FULL_SUCCESS;
     boolean publishDataAtJobLevel = state.getPropAsBoolean(ConfigurationKeys.PUBLISH_DATA_AT_JOB_LEVEL,
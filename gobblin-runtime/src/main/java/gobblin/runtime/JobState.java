@@ -383,6 +383,15 @@ public class JobState extends SourceState {
     return ImmutableList.<TaskState>builder().addAll(this.taskStates.values()).build();
   }
 
+  /**
+   * Get {@link TaskState}s of the skipped {@link WorkUnit}s of the job.
+   *
+   * @return list of {@link TaskState}s of the skipped {@link WorkUnit}s
+   */
+  public List<TaskState> getSkippedTaskStates() {
+    return ImmutableList.<TaskState>builder().addAll(this.skippedTaskStates.values()).build();
+  }
+
   /**
    * Create a {@link Map} from dataset URNs (as being specified by {@link ConfigurationKeys#DATASET_URN_KEY} to
    * {@link DatasetState} objects that represent the dataset states and store {@link TaskState}s corresponding
@@ -0,0 +1,228 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package gobblin.runtime;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.base.Optional;
+import com.google.common.base.Splitter;
+
+import gobblin.annotation.Alpha;
+import gobblin.configuration.ConfigurationKeys;
+import gobblin.configuration.State;
+import gobblin.configuration.WorkUnitState;
+import gobblin.converter.AsyncConverter1to1;
+import gobblin.converter.Converter;
+import gobblin.converter.DataConversionException;
+import gobblin.converter.SchemaConversionException;
+import gobblin.metrics.MetricContext;
+import gobblin.records.RecordStreamWithMetadata;
+import gobblin.source.extractor.RecordEnvelope;
+import gobblin.util.ExecutorsUtils;
+
+import io.reactivex.Flowable;
+import io.reactivex.Scheduler;
+import io.reactivex.schedulers.Schedulers;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * Runs a synchronous {@link Converter} in stream mode on a bounded pool of threads, keeping the order of records.
+ *
+ * <p>
+ *   Records are converted on {@link ConfigurationKeys#CONVERTER_PARALLELISM_KEY} threads, and at most
+ *   {@link ConfigurationKeys#CONVERTER_PARALLEL_MAX_IN_FLIGHT_RECORDS_KEY} records are converted or wait for earlier
+ *   records to be emitted at any time. Converted records are emitted in input order, each with the watermark and
+ *   {@link gobblin.writer.Ackable} of its input record, so downstream stages see the same stream as with
+ *   {@link Converter#processStream(RecordStreamWithMetadata, WorkUnitState)}.
+ * </p>
+ *
+ * <p>
+ *   Only converters listed in {@link ConfigurationKeys#CONVERTER_PARALLEL_CLASSES_KEY} run in parallel, since
+ *   {@link Converter#convertRecord(Object, Object, WorkUnitState)} must be thread safe.
+ * </p>
+ *
+ * <p>
+ *   If a shared {@link Executor} is given, records are converted on it instead of on a pool owned by the stage, and
+ *   {@link ConfigurationKeys#CONVERTER_PARALLEL_MAX_IN_FLIGHT_RECORDS_KEY} still bounds the records converted at once.
+ * </p>
+ */
+@Alpha
+@Slf4j
+public class ParallelConverterStage<SI, SO, DI, DO> {
+
+  public static final String METRIC_PREFIX = "gobblin.runtime.parallelConverter";
+  public static final String CONVERTED_RECORDS = "convertedRecords";
+  public static final String PENDING_RECORDS = "pendingRecords";
+  public static final String UTILIZATION = "utilization";
+
+  private static final Splitter SPLITTER = Splitter.on(",").omitEmptyStrings().trimResults();
+
+  private final Converter<SI, SO, DI, DO> converter;
+  private final int parallelism;
+  private final int maxInFlightRecords;
+  private final Optional<Executor> sharedExecutor;
+
+  private volatile Meter convertedRecordsMeter = new Meter();
+  private final AtomicInteger pendingRecords = new AtomicInteger();
+  private final AtomicLong busyNanos = new AtomicLong();
+  private final AtomicLong startNanos = new AtomicLong(-1);
+
+  public ParallelConverterStage(Converter<SI, SO, DI, DO> converter, State state) {
+    this(converter, state, Optional.<Executor>absent());
+  }
+
+  /**
+   * @param sharedExecutor if present, the {@link Executor} to convert records on, which the stage does not shut down
+   */
+  public ParallelConverterStage(Converter<SI, SO, DI, DO> converter, State state, Optional<Executor> sharedExecutor) {
+    this(converter, state.getPropAsInt(ConfigurationKeys.CONVERTER_PARALLELISM_KEY,
+        ConfigurationKeys.DEFAULT_CONVERTER_PARALLELISM),
+        state.getPropAsInt(ConfigurationKeys.CONVERTER_PARALLEL_MAX_IN_FLIGHT_RECORDS_KEY,
+            ConfigurationKeys.DEFAULT_CONVERTER_PARALLEL_MAX_IN_FLIGHT_RECORDS), sharedExecutor);
+  }
+
+  public ParallelConverterStage(Converter<SI, SO, DI, DO> converter, int parallelism, int maxInFlightRecords) {
+    this(converter, parallelism, maxInFlightRecords, Optional.<Executor>absent());
+  }
+
+  public ParallelConverterStage(Converter<SI, SO, DI, DO> converter, int parallelism, int maxInFlightRecords,
+      Optional<Executor> sharedExecutor) {
+    if (parallelism < 1 || maxInFlightRecords < 1) {
+      throw new IllegalArgumentException(String.format(
+          "Parallelism (%d) and maximum in-flight records (%d) must be positive", parallelism, maxInFlightRecords));
+    }
+    this.converter = converter;
+    this.parallelism = parallelism;
+    this.maxInFlightRecords = maxInFlightRecords;
+    this.sharedExecutor = sharedExecutor;
+  }
+
+  /**
+   * @return whether the {@link Converter} is configured to run in a {@link ParallelConverterStage}.
+   * {@link AsyncConverter1to1}s already convert records concurrently and never run in parallel stages.
+   */
+  public static boolean isParallel(Converter<?, ?, ?, ?> converter, State state) {
+    if (converter instanceof AsyncConverter1to1 || !state.contains(ConfigurationKeys.CONVERTER_PARALLEL_CLASSES_KEY)) {
+      return false;
+    }
+    return SPLITTER.splitToList(state.getProp(ConfigurationKeys.CONVERTER_PARALLEL_CLASSES_KEY))
+        .contains(converter.getClass().getName());
+  }
+
+  public RecordStreamWithMetadata<DO, SO> processStream(RecordStreamWithMetadata<DI, SI> inputStream,
+      WorkUnitState workUnitState) throws SchemaConversionException {
+    this.converter.init(workUnitState);
+    SO outputSchema = this.converter.convertSchema(inputStream.getSchema(), workUnitState);
+
+    final Optional<ExecutorService> ownedExecutor = this.sharedExecutor.isPresent()
+        ? Optional.<ExecutorService>absent()
+        : Optional.of(Executors.newFixedThreadPool(this.parallelism, ExecutorsUtils.newDaemonThreadFactory(
+            Optional.of(log), Optional.of("ParallelConverter-" + this.converter.getClass().getSimpleName() + "-%d"))));
+    Scheduler scheduler = Schedulers.from(this.sharedExecutor.isPresent()
+        ? this.sharedExecutor.get() : ownedExecutor.get());
+
+    Flowable<RecordEnvelope<DO>> outputStream = inputStream.getRecordStream()
+        .concatMapEager(in -> {
+          this.startNanos.compareAndSet(-1, System.nanoTime());
+          this.pendingRecords.incrementAndGet();
+          return Flowable.fromCallable(() -> convertRecord(outputSchema, in, workUnitState))
+              .subscribeOn(scheduler)
+              .flatMapIterable(records -> records);
+        }, this.maxInFlightRecords, Flowable.bufferSize())
+        .doOnComplete(this.converter::close)
+        .doFinally(() -> {
+          // This may run on a thread of the owned pool, so do not wait for the pool to terminate
+          if (ownedExecutor.isPresent()) {
+            ownedExecutor.get().shutdown();
+          }
+        });
+    return inputStream.withRecordStream(outputStream, outputSchema);
+  }
+
+  private List<RecordEnvelope<DO>> convertRecord(SO outputSchema, RecordEnvelope<DI> inputRecord,
+      WorkUnitState workUnitState) throws DataConversionException {
+    long startTime = System.nanoTime();
+    try {
+      // Iterate on the worker thread, since converters may return lazy iterables
+      List<RecordEnvelope<DO>> outputRecords = new ArrayList<>();
+      for (DO record : this.converter.convertRecord(outputSchema, inputRecord.getRecord(), workUnitState)) {
+        outputRecords.add(inputRecord.withRecord(record));
+      }
+      this.convertedRecordsMeter.mark();
+      return outputRecords;
+    } finally {
+      this.busyNanos.addAndGet(System.nanoTime() - startTime);
+      this.pendingRecords.decrementAndGet();
+    }
+  }
+
+  /**
+   * @return number of records submitted for conversion and not converted yet.
+   */
+  public int getPendingRecords() {
+    return this.pendingRecords.get();
+  }
+
+  /**
+   * @return fraction of the time the converter threads spent converting since the first record.
+   */
+  public double getUtilization() {
+    long start = this.startNanos.get();
+    if (start < 0) {
+      return 0;
+    }
+    long elapsedNanos = Math.max(System.nanoTime() - start, TimeUnit.MILLISECONDS.toNanos(1));
+    return Math.min(1.0, (double) this.busyNanos.get() / elapsedNanos / this.parallelism);
+  }
+
+  /**
+   * Register all statistics as {@link gobblin.metrics.ContextAwareMetric}s with a {@link MetricContext}. Records
+   * converted from then on are counted by the context-aware meter.
+   *
+   * @param metricContext the {@link MetricContext} to register with
+   * @param prefix metric name prefix
+   */
+  public void registerAll(MetricContext metricContext, String prefix) {
+    this.convertedRecordsMeter = metricContext.contextAwareMeter(MetricRegistry.name(prefix, CONVERTED_RECORDS));
+    metricContext.register(metricContext.newContextAwareGauge(MetricRegistry.name(prefix, PENDING_RECORDS),
+        new Gauge<Integer>() {
+          @Override
+          public Integer getValue() {
+            return getPendingRecords();
+          }
+        }));
+    metricContext.register(metricContext.newContextAwareGauge(MetricRegistry.name(prefix, UTILIZATION),
+        new Gauge<Double>() {
+          @Override
+          public Double getValue() {
+            return getUtilization();
+          }
+        }));
+  }
+}
@@ -17,26 +17,30 @@
 
 package gobblin.runtime;
 
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.base.Optional;
 import com.google.common.io.Closer;
 import com.google.common.util.concurrent.Futures;
 
 import gobblin.configuration.ConfigurationKeys;
 import gobblin.converter.Converter;
+import gobblin.converter.SchemaConversionException;
 import gobblin.fork.ForkOperator;
 import gobblin.fork.Forker;
 import gobblin.qualitychecker.row.RowLevelPolicyChecker;
 import gobblin.records.RecordStreamWithMetadata;
 import gobblin.runtime.fork.Fork;
+import gobblin.runtime.util.TaskMetrics;
 import gobblin.source.extractor.Extractor;
 import gobblin.source.extractor.StreamingExtractor;
-import gobblin.util.ExponentialBackoff;
 import gobblin.writer.AcknowledgableWatermark;
 import gobblin.writer.FineGrainedWatermarkTracker;
 import gobblin.writer.WatermarkManager;
@@ -103,11 +107,12 @@ public class StreamModelTaskRunner {
     }
     if (this.converter instanceof MultiConverter) {
       // if multiconverter, unpack it
-      for (Converter cverter : ((MultiConverter) this.converter).getConverters()) {
-        stream = cverter.processStream(stream, this.taskState);
+      List<Converter<?, ?, ?, ?>> converters = ((MultiConverter) this.converter).getConverters();
+      for (int cidx = 0; cidx < converters.size(); cidx++) {
+        stream = processConverterStream(converters.get(cidx), cidx, stream);
       }
     } else {
-      stream = this.converter.processStream(stream, this.taskState);
+      stream = processConverterStream(this.converter, 0, stream);
     }
     stream = this.rowChecker.processStream(stream, this.taskState);
 
@@ -121,7 +126,8 @@ public class StreamModelTaskRunner {
       RecordStreamWithMetadata<?, ?> forkedStream = forkedStreams.getForkedStreams().get(fidx);
       if (forkedStream != null) {
         if (isForkAsync) {
-          forkedStream = forkedStream.mapStream(f -> f.observeOn(Schedulers.from(this.taskExecutor.getForkExecutor()), false, bufferSize));
+          forkedStream = forkedStream.mapStream(
+              f -> f.observeOn(Schedulers.from(this.taskExecutor.getAsyncForkExecutor()), false, bufferSize));
         }
         Fork fork = new Fork(this.taskContext, forkedStream.getSchema(), forkedStreams.getForkedStreams().size(), fidx, this.taskMode);
         fork.consumeRecordStream(forkedStream);
@@ -132,10 +138,28 @@ public class StreamModelTaskRunner {
 
     connectableStream.connect();
 
-    if (!ExponentialBackoff.awaitCondition().callable(() -> this.forks.keySet().stream().map(Optional::get).allMatch(Fork::isDone)).
-        initialDelay(1000L).maxDelay(1000L).maxWait(TimeUnit.MINUTES.toMillis(60)).await()) {
-      throw new TimeoutException("Forks did not finish withing specified timeout.");
+    long deadlineNanos = System.nanoTime() + TimeUnit.MINUTES.toNanos(60);
+    for (Optional<Fork> fork : this.forks.keySet()) {
+      if (!fork.get().awaitCompletion(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+        throw new TimeoutException("Forks did not finish withing specified timeout.");
+      }
+    }
+  }
+
+  /**
+   * Apply a converter to the stream, in a {@link ParallelConverterStage} if it is configured to run in parallel.
+   */
+  private RecordStreamWithMetadata<?, ?> processConverterStream(Converter cverter, int index,
+      RecordStreamWithMetadata<?, ?> stream) throws SchemaConversionException {
+    if (!ParallelConverterStage.isParallel(cverter, this.taskState)) {
+      return cverter.processStream(stream, this.taskState);
     }
+    ParallelConverterStage<?, ?, ?, ?> stage = new ParallelConverterStage<>(cverter, this.taskState,
+        this.taskExecutor.isWorkStealingEnabled()
+            ? Optional.of(this.taskExecutor.getComputeExecutor()) : Optional.<Executor>absent());
+    stage.registerAll(TaskMetrics.get(this.taskState).getMetricContext(),
+        MetricRegistry.name(ParallelConverterStage.METRIC_PREFIX, index + "." + cverter.getClass().getSimpleName()));
+    return stage.processStream((RecordStreamWithMetadata) stream, this.taskState);
   }
 
 }
@@ -37,4 +37,11 @@ public class TaskConfigurationKeys {
   public static final String TASK_IS_SINGLE_BRANCH_SYNCHRONOUS = "gobblin.task.is.single.branch.synchronous";
   public static final String DEFAULT_TASK_IS_SINGLE_BRANCH_SYNCHRONOUS = Boolean.toString(false);
 
+  /**
+   * Configuration properties related to task setup
+   */
+  public static final String TASK_CONSTRUCT_CACHE_ENABLED = "gobblin.task.constructCache.enabled";
+  public static final boolean DEFAULT_TASK_CONSTRUCT_CACHE_ENABLED = false;
+  public static final String TASK_SETUP_TIME_MILLIS = "gobblin.task.setupTimeMillis";
+
 }
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gobblin.runtime;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ConcurrentMap;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Splitter;
+import com.google.common.collect.Maps;
+
+import lombok.extern.slf4j.Slf4j;
+
+import gobblin.configuration.ConfigurationKeys;
+import gobblin.configuration.State;
+import gobblin.source.Source;
+
+
+/**
+ * Caches the constructs that {@link TaskContext} otherwise resolves reflectively for every task, to be shared by all
+ * tasks of one job attempt. Meant for jobs with many small work units, where task setup dominates the run time.
+ *
+ * <p>
+ *   Resolved classes and their no-arg constructors are cached for all constructs. Instances are only shared for the
+ *   {@link Source}, which is used solely to call {@link Source#getExtractor} and must be thread-safe to enable this
+ *   cache. Converters, fork operators, writer builders and policy checkers keep per-task state and are still created
+ *   for every task.
+ * </p>
+ *
+ * <p>
+ *   The cache is enabled with {@link TaskConfigurationKeys#TASK_CONSTRUCT_CACHE_ENABLED}.
+ * </p>
+ */
+@Slf4j
+public class TaskConstructCache {
+
+  private final ConcurrentMap<String, Constructor<?>> constructors = Maps.newConcurrentMap();
+  private final ConcurrentMap<String, Source<?, ?>> sources = Maps.newConcurrentMap();
+
+  /**
+   * @return a new {@link TaskConstructCache} if it is enabled in the given job state
+   */
+  public static Optional<TaskConstructCache> forJob(State jobState) {
+    if (jobState.getPropAsBoolean(TaskConfigurationKeys.TASK_CONSTRUCT_CACHE_ENABLED,
+        TaskConfigurationKeys.DEFAULT_TASK_CONSTRUCT_CACHE_ENABLED)) {
+      TaskConstructCache cache = new TaskConstructCache();
+      cache.prewarm(jobState);
+      return Optional.of(cache);
+    }
+    return Optional.absent();
+  }
+
+  /**
+   * Creates a new instance of the given class through its cached no-arg constructor.
+   */
+  public <T> T newInstance(String className, Class<T> type) {
+    try {
+      return type.cast(getConstructor(className).newInstance());
+    } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * @return the {@link Source} of the given class shared by all tasks of the job
+   */
+  public Source<?, ?> getSource(String className) {
+    Source<?, ?> source = this.sources.get(className);
+    if (source == null) {
+      Source<?, ?> newSource = newInstance(className, Source.class);
+      source = this.sources.putIfAbsent(className, newSource);
+      if (source == null) {
+        source = newSource;
+      }
+    }
+    return source;
+  }
+
+  private Constructor<?> getConstructor(String className) {
+    Constructor<?> constructor = this.constructors.get(className);
+    if (constructor == null) {
+      try {
+        constructor = Class.forName(className).getConstructor();
+      } catch (ClassNotFoundException | NoSuchMethodException e) {
+        throw new RuntimeException(e);
+      }
+      this.constructors.putIfAbsent(className, constructor);
+    }
+    return constructor;
+  }
+
+  /**
+   * Resolves the construct classes configured at the job level, so that the first tasks don't pay for class loading.
+   * Classes that fail to resolve are left for the tasks to report.
+   */
+  private void prewarm(State jobState) {
+    long startNanos = System.nanoTime();
+    if (jobState.contains(ConfigurationKeys.SOURCE_CLASS_KEY)) {
+      prewarmClass(jobState.getProp(ConfigurationKeys.SOURCE_CLASS_KEY));
+    }
+    prewarmClass(jobState.getProp(ConfigurationKeys.FORK_OPERATOR_CLASS_KEY,
+        ConfigurationKeys.DEFAULT_FORK_OPERATOR_CLASS));
+    prewarmClass(jobState.getProp(ConfigurationKeys.WRITER_BUILDER_CLASS, ConfigurationKeys.DEFAULT_WRITER_BUILDER_CLASS));
+    if (jobState.contains(ConfigurationKeys.CONVERTER_CLASSES_KEY)) {
+      for (String converterClass : Splitter.on(",").omitEmptyStrings().trimResults()
+          .split(jobState.getProp(ConfigurationKeys.CONVERTER_CLASSES_KEY))) {
+        prewarmClass(converterClass);
+      }
+    }
+    log.info(String.format("Prewarmed %d task construct classes in %d ms", this.constructors.size(),
+        (System.nanoTime() - startNanos) / 1000000));
+  }
+
+  private void prewarmClass(String className) {
+    try {
+      getConstructor(className);
+    } catch (RuntimeException e) {
+      log.debug("Could not prewarm class " + className, e);
+    }
+  }
+}
@@ -22,6 +22,7 @@ import java.util.Collections;
 import java.util.List;
 
 import com.google.common.base.Enums;
+import com.google.common.base.Optional;
 import com.google.common.base.Splitter;
 import com.google.common.collect.Lists;
 
@@ -65,10 +66,19 @@ public class TaskContext {
 
   private final TaskState taskState;
   private final TaskMetrics taskMetrics;
+  private final Optional<TaskConstructCache> constructCache;
   private Extractor rawSourceExtractor;
 
   public TaskContext(WorkUnitState workUnitState) {
+    this(workUnitState, Optional.<TaskConstructCache> absent());
+  }
+
+  /**
+   * @param constructCache if present, used to resolve and share constructs across the tasks of a job
+   */
+  public TaskContext(WorkUnitState workUnitState, Optional<TaskConstructCache> constructCache) {
     this.taskState = new TaskState(workUnitState);
+    this.constructCache = constructCache;
     this.taskMetrics = TaskMetrics.get(this.taskState);
     this.taskState.setProp(Instrumented.METRIC_CONTEXT_NAME_KEY, this.taskMetrics.getName());
   }
@@ -98,8 +108,12 @@ public class TaskContext {
    *         if it fails to instantiate a {@link Source} object of the given class.
    */
   public Source getSource() {
+    String sourceClass = this.taskState.getProp(ConfigurationKeys.SOURCE_CLASS_KEY);
+    if (this.constructCache.isPresent()) {
+      return this.constructCache.get().getSource(sourceClass);
+    }
     try {
-      return Source.class.cast(Class.forName(this.taskState.getProp(ConfigurationKeys.SOURCE_CLASS_KEY)).newInstance());
+      return Source.class.cast(Class.forName(sourceClass).newInstance());
     } catch (ClassNotFoundException cnfe) {
       throw new RuntimeException(cnfe);
     } catch (InstantiationException ie) {
@@ -215,7 +229,7 @@ public class TaskContext {
     for (String converterClass : Splitter.on(",").omitEmptyStrings().trimResults()
         .split(this.taskState.getProp(converterClassKey))) {
       try {
-        Converter<?, ?, ?, ?> converter = Converter.class.cast(Class.forName(converterClass).newInstance());
+        Converter<?, ?, ?, ?> converter = newInstance(converterClass, Converter.class);
         InstrumentedConverterDecorator instrumentedConverter = new InstrumentedConverterDecorator<>(converter);
         instrumentedConverter.init(forkTaskState);
         converters.add(instrumentedConverter);
@@ -239,9 +253,8 @@ public class TaskContext {
   @SuppressWarnings("unchecked")
   public ForkOperator getForkOperator() {
     try {
-      ForkOperator fork =
-          ForkOperator.class.cast(Class.forName(this.taskState.getProp(ConfigurationKeys.FORK_OPERATOR_CLASS_KEY,
-              ConfigurationKeys.DEFAULT_FORK_OPERATOR_CLASS)).newInstance());
+      ForkOperator fork = newInstance(this.taskState.getProp(ConfigurationKeys.FORK_OPERATOR_CLASS_KEY,
+          ConfigurationKeys.DEFAULT_FORK_OPERATOR_CLASS), ForkOperator.class);
       return new InstrumentedForkOperatorDecorator<>(fork);
     } catch (ClassNotFoundException cnfe) {
       throw new RuntimeException(cnfe);
@@ -312,13 +325,14 @@ public class TaskContext {
 
     String dataWriterBuilderClassName = this.taskState.getProp(writerBuilderPropertyName, null);
     if (dataWriterBuilderClassName == null) {
-      dataWriterBuilderClassName = ConfigurationKeys.DEFAULT_WRITER_BUILDER_CLASS;
+      dataWriterBuilderClassName = getWriterOutputFormat(branches, index) == WriterOutputFormat.PARQUET
+          ? ConfigurationKeys.DEFAULT_PARQUET_WRITER_BUILDER_CLASS : ConfigurationKeys.DEFAULT_WRITER_BUILDER_CLASS;
       log.info("No configured writer builder found, using {} as the default builder", dataWriterBuilderClassName);
     } else {
       log.info("Found configured writer builder as {}", dataWriterBuilderClassName);
     }
     try {
-      return DataWriterBuilder.class.cast(Class.forName(dataWriterBuilderClassName).newInstance());
+      return newInstance(dataWriterBuilderClassName, DataWriterBuilder.class);
     } catch (ClassNotFoundException cnfe) {
       throw new RuntimeException(cnfe);
     } catch (InstantiationException ie) {
@@ -328,6 +342,17 @@ public class TaskContext {
     }
   }
 
+  /**
+   * Instantiates a construct through the {@link TaskConstructCache} if there is one, or reflectively otherwise.
+   */
+  private <T> T newInstance(String className, Class<T> type)
+      throws ClassNotFoundException, InstantiationException, IllegalAccessException {
+    if (this.constructCache.isPresent()) {
+      return this.constructCache.get().newInstance(className, type);
+    }
+    return type.cast(Class.forName(className).newInstance());
+  }
+
   public WatermarkStorage getWatermarkStorage() {
     return new StateStoreBasedWatermarkStorage(taskState);
   }
@@ -17,11 +17,17 @@
 
 package gobblin.runtime;
 
+import java.lang.management.ManagementFactory;
 import java.util.Properties;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -31,12 +37,17 @@ import org.apache.hadoop.conf.Configuration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import com.google.common.util.concurrent.AbstractIdleService;
 
 import gobblin.configuration.ConfigurationKeys;
 import gobblin.metrics.GobblinMetrics;
+import gobblin.metrics.MetricContext;
 import gobblin.util.ExecutorsUtils;
 
 import lombok.Getter;
@@ -45,31 +56,73 @@ import lombok.Getter;
 /**
  * A class for executing {@link Task}s and retrying failed ones as well as for executing {@link Fork}s.
  *
+ * <p>
+ *   Tasks run on a scheduled thread pool of {@link ConfigurationKeys#TASK_EXECUTOR_THREADPOOL_SIZE_KEY} threads. If
+ *   {@link ConfigurationKeys#TASK_EXECUTOR_THREADPOOL_MAX_SIZE_KEY} is larger, the pool grows while all task threads
+ *   are busy, tasks are waiting and the cores are not saturated (typically because extraction is blocked on I/O),
+ *   and shrinks back when threads idle or the cores become saturated.
+ * </p>
+ *
+ * <p>
+ *   If {@link ConfigurationKeys#TASK_EXECUTOR_WORK_STEALING_ENABLED_KEY} is set, parallel converters of stream-model
+ *   tasks run on a shared work-stealing {@link ForkJoinPool} of
+ *   {@link ConfigurationKeys#TASK_EXECUTOR_COMPUTE_PARALLELISM_KEY} threads instead of on per-converter threads. See
+ *   {@link #getComputeExecutor()}. Forks always run on the fork executor, as their writers block on I/O.
+ * </p>
+ *
  * @author Yinan Li
  */
 public class TaskExecutor extends AbstractIdleService {
 
   private static final Logger LOG = LoggerFactory.getLogger(TaskExecutor.class);
 
+  public static final String METRIC_PREFIX = "gobblin.runtime.taskExecutor";
+  public static final String TASK_POOL = "taskPool";
+  public static final String FORK_POOL = "forkPool";
+  public static final String COMPUTE_POOL = "computePool";
+  public static final String QUEUE_TIME = "queueTime";
+  public static final String UTILIZATION = "utilization";
+  public static final String POOL_SIZE = "size";
+
   // Thread pool executor for running tasks
-  private final ScheduledExecutorService taskExecutor;
+  private final ScheduledThreadPoolExecutor taskExecutor;
 
   // A separate thread pool executor for running forks of tasks
   @Getter
   private final ExecutorService forkExecutor;
 
+  // An optional work-stealing pool for CPU-bound work of stream-model tasks
+  private final Optional<ForkJoinPool> computePool;
+
   // Task retry interval
   private final long retryIntervalInSeconds;
 
+  // Bounds and schedule of the utilization-based task pool sizing
+  private final int minTaskPoolSize;
+  private final int maxTaskPoolSize;
+  private final long resizeIntervalInSeconds;
+  private final Optional<ScheduledExecutorService> poolSizer;
+
+  // Replaced by context-aware timers in registerAll(MetricContext, String)
+  private volatile Timer taskQueueTimer = new Timer();
+  private volatile Timer forkQueueTimer = new Timer();
+  private volatile Timer computeQueueTimer = new Timer();
+
   /**
    * Constructor used internally.
    */
-  private TaskExecutor(int taskExecutorThreadPoolSize, int coreRetryThreadPoolSize, long retryIntervalInSeconds) {
+  private TaskExecutor(int taskExecutorThreadPoolSize, int coreRetryThreadPoolSize, long retryIntervalInSeconds,
+      int maxTaskExecutorThreadPoolSize, long resizeIntervalInSeconds, boolean workStealingEnabled,
+      int computeParallelism) {
     Preconditions.checkArgument(taskExecutorThreadPoolSize > 0, "Task executor thread pool size should be positive");
     Preconditions.checkArgument(retryIntervalInSeconds > 0, "Task retry interval should be positive");
+    Preconditions.checkArgument(maxTaskExecutorThreadPoolSize >= taskExecutorThreadPoolSize,
+        "Task executor maximum thread pool size should not be smaller than the thread pool size");
+    Preconditions.checkArgument(resizeIntervalInSeconds > 0, "Task executor resize interval should be positive");
+    Preconditions.checkArgument(computeParallelism > 0, "Compute parallelism should be positive");
 
-    // Currently a fixed-size thread pool is used to execute tasks. We probably need to revisit this later.
-    this.taskExecutor = Executors.newScheduledThreadPool(
+    // The core size of the pool is adjusted between the configured size and maximum size, see resizeTaskPool()
+    this.taskExecutor = new ScheduledThreadPoolExecutor(
         taskExecutorThreadPoolSize,
         ExecutorsUtils.newThreadFactory(Optional.of(LOG), Optional.of("TaskExecutor-%d")));
 
@@ -89,6 +142,27 @@ public class TaskExecutor extends AbstractIdleService {
         // The work queue is a SynchronousQueue. This essentially forces a new thread to be created for each fork.
         new SynchronousQueue<Runnable>(),
         ExecutorsUtils.newThreadFactory(Optional.of(LOG), Optional.of("ForkExecutor-%d")));
+
+    // Only converter stages run here: they do not block waiting for other work in the pool (RxJava schedules a stage
+    // only when it has records to process), so a bounded work-stealing pool in FIFO mode runs them without starving
+    // one another. Fork writers block on I/O and stay on the fork executor, see getAsyncForkExecutor().
+    this.computePool = workStealingEnabled
+        ? Optional.of(new ForkJoinPool(computeParallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("ComputeExecutor-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+          }, (thread, t) -> LOG.error(String.format("Thread %s threw an uncaught exception", thread.getName()), t),
+            true))
+        : Optional.<ForkJoinPool>absent();
+
+    this.minTaskPoolSize = taskExecutorThreadPoolSize;
+    this.maxTaskPoolSize = maxTaskExecutorThreadPoolSize;
+    this.resizeIntervalInSeconds = resizeIntervalInSeconds;
+    this.poolSizer = maxTaskExecutorThreadPoolSize > taskExecutorThreadPoolSize
+        ? Optional.<ScheduledExecutorService>of(Executors.newSingleThreadScheduledExecutor(
+            ExecutorsUtils.newDaemonThreadFactory(Optional.of(LOG), Optional.of("TaskExecutorSizer-%d"))))
+        : Optional.<ScheduledExecutorService>absent();
   }
 
   /**
@@ -100,7 +174,16 @@ public class TaskExecutor extends AbstractIdleService {
         Integer.parseInt(properties.getProperty(ConfigurationKeys.TASK_RETRY_THREAD_POOL_CORE_SIZE_KEY,
             Integer.toString(ConfigurationKeys.DEFAULT_TASK_RETRY_THREAD_POOL_CORE_SIZE))),
         Long.parseLong(properties.getProperty(ConfigurationKeys.TASK_RETRY_INTERVAL_IN_SEC_KEY,
-            Long.toString(ConfigurationKeys.DEFAULT_TASK_RETRY_INTERVAL_IN_SEC))));
+            Long.toString(ConfigurationKeys.DEFAULT_TASK_RETRY_INTERVAL_IN_SEC))),
+        Integer.parseInt(properties.getProperty(ConfigurationKeys.TASK_EXECUTOR_THREADPOOL_MAX_SIZE_KEY,
+            properties.getProperty(ConfigurationKeys.TASK_EXECUTOR_THREADPOOL_SIZE_KEY,
+                Integer.toString(ConfigurationKeys.DEFAULT_TASK_EXECUTOR_THREADPOOL_SIZE)))),
+        Long.parseLong(properties.getProperty(ConfigurationKeys.TASK_EXECUTOR_THREADPOOL_RESIZE_INTERVAL_SECONDS_KEY,
+            Long.toString(ConfigurationKeys.DEFAULT_TASK_EXECUTOR_THREADPOOL_RESIZE_INTERVAL_SECONDS))),
+        Boolean.parseBoolean(properties.getProperty(ConfigurationKeys.TASK_EXECUTOR_WORK_STEALING_ENABLED_KEY,
+            Boolean.toString(ConfigurationKeys.DEFAULT_TASK_EXECUTOR_WORK_STEALING_ENABLED))),
+        Integer.parseInt(properties.getProperty(ConfigurationKeys.TASK_EXECUTOR_COMPUTE_PARALLELISM_KEY,
+            Integer.toString(Runtime.getRuntime().availableProcessors()))));
   }
 
   /**
@@ -112,7 +195,16 @@ public class TaskExecutor extends AbstractIdleService {
         conf.getInt(ConfigurationKeys.TASK_RETRY_THREAD_POOL_CORE_SIZE_KEY,
             ConfigurationKeys.DEFAULT_TASK_RETRY_THREAD_POOL_CORE_SIZE),
         conf.getLong(ConfigurationKeys.TASK_RETRY_INTERVAL_IN_SEC_KEY,
-            ConfigurationKeys.DEFAULT_TASK_RETRY_INTERVAL_IN_SEC));
+            ConfigurationKeys.DEFAULT_TASK_RETRY_INTERVAL_IN_SEC),
+        conf.getInt(ConfigurationKeys.TASK_EXECUTOR_THREADPOOL_MAX_SIZE_KEY,
+            conf.getInt(ConfigurationKeys.TASK_EXECUTOR_THREADPOOL_SIZE_KEY,
+                ConfigurationKeys.DEFAULT_TASK_EXECUTOR_THREADPOOL_SIZE)),
+        conf.getLong(ConfigurationKeys.TASK_EXECUTOR_THREADPOOL_RESIZE_INTERVAL_SECONDS_KEY,
+            ConfigurationKeys.DEFAULT_TASK_EXECUTOR_THREADPOOL_RESIZE_INTERVAL_SECONDS),
+        conf.getBoolean(ConfigurationKeys.TASK_EXECUTOR_WORK_STEALING_ENABLED_KEY,
+            ConfigurationKeys.DEFAULT_TASK_EXECUTOR_WORK_STEALING_ENABLED),
+        conf.getInt(ConfigurationKeys.TASK_EXECUTOR_COMPUTE_PARALLELISM_KEY,
+            Runtime.getRuntime().availableProcessors()));
   }
 
   @Override
@@ -125,16 +217,33 @@ public class TaskExecutor extends AbstractIdleService {
     if (this.forkExecutor.isShutdown() || this.forkExecutor.isTerminated()) {
       throw new IllegalStateException("Fork thread pool executor is shutdown or terminated");
     }
+    if (this.poolSizer.isPresent()) {
+      this.poolSizer.get().scheduleAtFixedRate(new Runnable() {
+        @Override
+        public void run() {
+          resizeTaskPool();
+        }
+      }, this.resizeIntervalInSeconds, this.resizeIntervalInSeconds, TimeUnit.SECONDS);
+    }
   }
 
   @Override
   protected void shutDown()
       throws Exception {
     LOG.info("Stopping the task executor");
+    if (this.poolSizer.isPresent()) {
+      this.poolSizer.get().shutdownNow();
+    }
     try {
       ExecutorsUtils.shutdownExecutorService(this.taskExecutor, Optional.of(LOG));
     } finally {
-      ExecutorsUtils.shutdownExecutorService(this.forkExecutor, Optional.of(LOG));
+      try {
+        ExecutorsUtils.shutdownExecutorService(this.forkExecutor, Optional.of(LOG));
+      } finally {
+        if (this.computePool.isPresent()) {
+          ExecutorsUtils.shutdownExecutorService(this.computePool.get(), Optional.of(LOG));
+        }
+      }
     }
   }
 
@@ -145,7 +254,7 @@ public class TaskExecutor extends AbstractIdleService {
    */
   public void execute(Task task) {
     LOG.info(String.format("Executing task %s", task.getTaskId()));
-    this.taskExecutor.execute(task);
+    this.taskExecutor.execute(new QueueTimedRunnable(task, this.taskQueueTimer, 0));
   }
 
   /**
@@ -156,7 +265,7 @@ public class TaskExecutor extends AbstractIdleService {
    */
   public Future<?> submit(Task task) {
     LOG.info(String.format("Submitting task %s", task.getTaskId()));
-    return this.taskExecutor.submit(task);
+    return this.taskExecutor.submit(new QueueTimedRunnable(task, this.taskQueueTimer, 0));
   }
 
   /**
@@ -166,7 +275,7 @@ public class TaskExecutor extends AbstractIdleService {
    */
   public void execute(Fork fork) {
     LOG.info(String.format("Executing fork %d of task %s", fork.getIndex(), fork.getTaskId()));
-    this.forkExecutor.execute(fork);
+    this.forkExecutor.execute(new QueueTimedRunnable(fork, this.forkQueueTimer, 0));
   }
 
   /**
@@ -177,7 +286,7 @@ public class TaskExecutor extends AbstractIdleService {
    */
   public Future<?> submit(Fork fork) {
     LOG.info(String.format("Submitting fork %d of task %s", fork.getIndex(), fork.getTaskId()));
-    return this.forkExecutor.submit(fork);
+    return this.forkExecutor.submit(new QueueTimedRunnable(fork, this.forkQueueTimer, 0));
   }
 
   /**
@@ -196,8 +305,220 @@ public class TaskExecutor extends AbstractIdleService {
     // Task retry interval increases linearly with number of retries
     long interval = task.getRetryCount() * this.retryIntervalInSeconds;
     // Schedule the retry of the failed task
-    this.taskExecutor.schedule(task, interval, TimeUnit.SECONDS);
+    this.taskExecutor.schedule(new QueueTimedRunnable(task, this.taskQueueTimer, TimeUnit.SECONDS.toNanos(interval)),
+        interval, TimeUnit.SECONDS);
     LOG.info(String.format("Scheduled retry of failed task %s to run in %d seconds", task.getTaskId(), interval));
     task.incrementRetryCount();
   }
+
+  /**
+   * @return whether CPU-bound work of stream-model tasks runs on a shared work-stealing pool.
+   */
+  public boolean isWorkStealingEnabled() {
+    return this.computePool.isPresent();
+  }
+
+  /**
+   * Get the {@link Executor} for CPU-bound work of stream-model tasks, i.e., parallel converters. This is the shared
+   * work-stealing pool if {@link #isWorkStealingEnabled()}, or the fork executor otherwise. Work submitted to it must
+   * not block, neither on I/O nor waiting for other work submitted to it.
+   */
+  public Executor getComputeExecutor() {
+    if (this.computePool.isPresent()) {
+      final ForkJoinPool pool = this.computePool.get();
+      return new Executor() {
+        @Override
+        public void execute(Runnable runnable) {
+          pool.execute(new QueueTimedRunnable(runnable, TaskExecutor.this.computeQueueTimer, 0));
+        }
+      };
+    }
+    return getAsyncForkExecutor();
+  }
+
+  /**
+   * Get the {@link Executor} for asynchronous forks of stream-model tasks. It runs them on the fork executor, which
+   * gives every fork its own thread to block on, and records their queue time.
+   */
+  public Executor getAsyncForkExecutor() {
+    return new Executor() {
+      @Override
+      public void execute(Runnable runnable) {
+        TaskExecutor.this.forkExecutor.execute(new QueueTimedRunnable(runnable, TaskExecutor.this.forkQueueTimer, 0));
+      }
+    };
+  }
+
+  /**
+   * @return the current number of core threads of the task thread pool.
+   */
+  public int getTaskPoolSize() {
+    return this.taskExecutor.getCorePoolSize();
+  }
+
+  /**
+   * @return fraction of the task threads currently running a task.
+   */
+  public double getTaskPoolUtilization() {
+    return (double) this.taskExecutor.getActiveCount() / this.taskExecutor.getCorePoolSize();
+  }
+
+  /**
+   * @return fraction of the started fork threads currently running a fork.
+   */
+  public double getForkPoolUtilization() {
+    ThreadPoolExecutor pool = (ThreadPoolExecutor) this.forkExecutor;
+    return pool.getPoolSize() == 0 ? 0 : (double) pool.getActiveCount() / pool.getPoolSize();
+  }
+
+  /**
+   * @return fraction of the work-stealing threads currently running work, or 0 if there is no work-stealing pool.
+   */
+  public double getComputePoolUtilization() {
+    if (!this.computePool.isPresent()) {
+      return 0;
+    }
+    ForkJoinPool pool = this.computePool.get();
+    return Math.min(1.0, (double) pool.getActiveThreadCount() / pool.getParallelism());
+  }
+
+  /**
+   * Grow the task thread pool by one thread if all task threads are busy, tasks are waiting to run and the cores
+   * are not saturated, or shrink it by one thread if task threads are idle or the cores are saturated. The pool size
+   * stays between {@link ConfigurationKeys#TASK_EXECUTOR_THREADPOOL_SIZE_KEY} and
+   * {@link ConfigurationKeys#TASK_EXECUTOR_THREADPOOL_MAX_SIZE_KEY}.
+   */
+  @VisibleForTesting
+  void resizeTaskPool() {
+    int coreSize = this.taskExecutor.getCorePoolSize();
+    int activeCount = this.taskExecutor.getActiveCount();
+    boolean tasksWaiting = hasWaitingTasks();
+    boolean coresSaturated = areCoresSaturated();
+
+    int newCoreSize = coreSize;
+    if (tasksWaiting && activeCount >= coreSize && !coresSaturated && coreSize < this.maxTaskPoolSize) {
+      newCoreSize = coreSize + 1;
+    } else if (coreSize > this.minTaskPoolSize && (coresSaturated || (!tasksWaiting && activeCount < coreSize))) {
+      newCoreSize = coreSize - 1;
+    }
+    if (newCoreSize != coreSize) {
+      LOG.info(String.format("Resizing task thread pool from %d to %d threads (active: %d, tasks waiting: %b, "
+          + "cores saturated: %b)", coreSize, newCoreSize, activeCount, tasksWaiting, coresSaturated));
+      this.taskExecutor.setCorePoolSize(newCoreSize);
+    }
+  }
+
+  /**
+   * Tasks scheduled for a later retry sit in the same queue, so only tasks that are due count as waiting.
+   */
+  private boolean hasWaitingTasks() {
+    for (Runnable runnable : this.taskExecutor.getQueue()) {
+      if (runnable instanceof Delayed && ((Delayed) runnable).getDelay(TimeUnit.NANOSECONDS) <= 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean areCoresSaturated() {
+    if (this.computePool.isPresent()) {
+      ForkJoinPool pool = this.computePool.get();
+      if (pool.getActiveThreadCount() >= pool.getParallelism() && pool.getQueuedSubmissionCount() > 0) {
+        return true;
+      }
+    }
+    // The load average is negative if it is not available on this platform
+    double loadAverage = ManagementFactory.getOperatingSystemMXBean().getSystemLoadAverage();
+    return loadAverage >= Runtime.getRuntime().availableProcessors();
+  }
+
+  /**
+   * Register the queue time, utilization and size of each pool as {@link gobblin.metrics.ContextAwareMetric}s with a
+   * {@link MetricContext}. Queue times recorded from then on go to the context-aware timers.
+   *
+   * @param metricContext the {@link MetricContext} to register with
+   * @param prefix metric name prefix
+   */
+  public void registerAll(MetricContext metricContext, String prefix) {
+    this.taskQueueTimer = metricContext.contextAwareTimer(MetricRegistry.name(prefix, TASK_POOL, QUEUE_TIME));
+    metricContext.register(metricContext.newContextAwareGauge(MetricRegistry.name(prefix, TASK_POOL, UTILIZATION),
+        new Gauge<Double>() {
+          @Override
+          public Double getValue() {
+            return getTaskPoolUtilization();
+          }
+        }));
+    metricContext.register(metricContext.newContextAwareGauge(MetricRegistry.name(prefix, TASK_POOL, POOL_SIZE),
+        new Gauge<Integer>() {
+          @Override
+          public Integer getValue() {
+            return getTaskPoolSize();
+          }
+        }));
+    this.forkQueueTimer = metricContext.contextAwareTimer(MetricRegistry.name(prefix, FORK_POOL, QUEUE_TIME));
+    metricContext.register(metricContext.newContextAwareGauge(MetricRegistry.name(prefix, FORK_POOL, UTILIZATION),
+        new Gauge<Double>() {
+          @Override
+          public Double getValue() {
+            return getForkPoolUtilization();
+          }
+        }));
+    metricContext.register(metricContext.newContextAwareGauge(MetricRegistry.name(prefix, FORK_POOL, POOL_SIZE),
+        new Gauge<Integer>() {
+          @Override
+          public Integer getValue() {
+            return ((ThreadPoolExecutor) TaskExecutor.this.forkExecutor).getPoolSize();
+          }
+        }));
+    if (this.computePool.isPresent()) {
+      this.computeQueueTimer =
+          metricContext.contextAwareTimer(MetricRegistry.name(prefix, COMPUTE_POOL, QUEUE_TIME));
+      metricContext.register(metricContext.newContextAwareGauge(
+          MetricRegistry.name(prefix, COMPUTE_POOL, UTILIZATION), new Gauge<Double>() {
+            @Override
+            public Double getValue() {
+              return getComputePoolUtilization();
+            }
+          }));
+      metricContext.register(metricContext.newContextAwareGauge(
+          MetricRegistry.name(prefix, COMPUTE_POOL, POOL_SIZE), new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+              return TaskExecutor.this.computePool.get().getPoolSize();
+            }
+          }));
+    }
+  }
+
+  @VisibleForTesting
+  Timer getTaskQueueTimer() {
+    return this.taskQueueTimer;
+  }
+
+  @VisibleForTesting
+  Timer getComputeQueueTimer() {
+    return this.computeQueueTimer;
+  }
+
+  /**
+   * A {@link Runnable} that records how long it waited in a pool before it started running.
+   */
+  private static class QueueTimedRunnable implements Runnable {
+
+    private final Runnable runnable;
+    private final Timer queueTimer;
+    private final long readyNanos;
+
+    QueueTimedRunnable(Runnable runnable, Timer queueTimer, long delayNanos) {
+      this.runnable = runnable;
+      this.queueTimer = queueTimer;
+      this.readyNanos = System.nanoTime() + delayNanos;
+    }
+
+    @Override
+    public void run() {
+      this.queueTimer.update(Math.max(0, System.nanoTime() - this.readyNanos), TimeUnit.NANOSECONDS);
+      this.runnable.run();
+    }
+  }
 }
@@ -15,6 +15,8 @@ package gobblin.runtime.fork;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.slf4j.Logger;
@@ -125,6 +127,8 @@ public class Fork<S, D> implements Closeable, FinalState, RecordStreamConsumer<S
   // Writes to and reads of references are always atomic according to the Java language specs.
   // An AtomicReference is still used here for the compareAntSet operation.
   private final AtomicReference<ForkState> forkState;
+  // Released once the fork has finished processing records and cleaned up, whether it succeeded or failed
+  private final CountDownLatch completionLatch = new CountDownLatch(1);
 
   private static final String FORK_METRICS_BRANCH_NAME_KEY = "forkBranchName";
   protected static final Object SHUTDOWN_RECORD = new Object();
@@ -201,6 +205,8 @@ public class Fork<S, D> implements Closeable, FinalState, RecordStreamConsumer<S
       verifyAndSetForkState(ForkState.RUNNING, ForkState.FAILED);
       this.logger.error(String.format("Fork %d of task %s failed to process data records", this.index, this.taskId), exc);
     }));
+    // doFinally actions run innermost last, so completion is only signalled after cleanup
+    stream = stream.mapStream(s -> s.doFinally(this.completionLatch::countDown));
     stream = stream.mapStream(s -> s.doFinally(this::cleanup));
     stream.getRecordStream().subscribe(r -> this.writer.get().writeEnvelope((RecordEnvelope) r), e -> logger.error("Failed to process record.", e),
         () -> {
@@ -229,6 +235,7 @@ public class Fork<S, D> implements Closeable, FinalState, RecordStreamConsumer<S
       this.logger.error(String.format("Fork %d of task %s failed to process data records", this.index, this.taskId), t);
     } finally {
       this.cleanup();
+      this.completionLatch.countDown();
     }
   }
 
@@ -388,6 +395,17 @@ public class Fork<S, D> implements Closeable, FinalState, RecordStreamConsumer<S
     return this.forkState.get() == ForkState.SUCCEEDED || this.forkState.get() == ForkState.FAILED;
   }
 
+  /**
+   * Wait for this {@link Fork} to finish processing records, successfully or not.
+   *
+   * @param timeout maximum time to wait
+   * @param unit unit of the timeout
+   * @return true if the fork finished, false if the timeout elapsed first
+   */
+  public boolean awaitCompletion(long timeout, TimeUnit unit) throws InterruptedException {
+    return this.completionLatch.await(timeout, unit);
+  }
+
   @Override
   public String toString() {
     return "Fork: TaskId = \"" + this.taskId + "\" Index: \"" + this.index + "\" State: \"" + this.forkState + "\"";
@@ -80,6 +80,9 @@ public class LocalJobLauncher extends AbstractJobLauncher {
     TimingEvent jobLocalSetupTimer = this.eventSubmitter.getTimingEvent(TimingEvent.RunJobTimings.JOB_LOCAL_SETUP);
 
     this.taskExecutor = new TaskExecutor(jobProps);
+    if (this.runtimeMetricContext.isPresent()) {
+      this.taskExecutor.registerAll(this.runtimeMetricContext.get(), TaskExecutor.METRIC_PREFIX);
+    }
     this.taskStateTracker =
         new LocalTaskStateTracker(jobProps, this.jobContext.getJobState(), this.taskExecutor, this.eventBus);
 
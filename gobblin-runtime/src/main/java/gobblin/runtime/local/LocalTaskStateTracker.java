@@ -54,7 +54,7 @@ public class LocalTaskStateTracker extends AbstractTaskStateTracker {
   private final TaskExecutor taskExecutor;
 
   // Mapping between tasks and the task state reporters associated with them
-  private final Map<String, ScheduledFuture<?>> scheduledReporters = Maps.newHashMap();
+  private final Map<String, ScheduledFuture<?>> scheduledReporters = Maps.newConcurrentMap();
 
   private final EventBus eventBus;
 
@@ -110,8 +110,9 @@ public class LocalTaskStateTracker extends AbstractTaskStateTracker {
       // Cancel the task state reporter associated with this task. The reporter might
       // not be found for the given task because the task fails before the task is
       // registered. So we need to make sure the reporter exists before calling cancel.
-      if (this.scheduledReporters.containsKey(task.getTaskId())) {
-        this.scheduledReporters.remove(task.getTaskId()).cancel(false);
+      ScheduledFuture<?> scheduledReporter = this.scheduledReporters.remove(task.getTaskId());
+      if (scheduledReporter != null) {
+        scheduledReporter.cancel(false);
       }
     } catch (Throwable t) {
       LOG.error("Failed to process a task completion callback", t);
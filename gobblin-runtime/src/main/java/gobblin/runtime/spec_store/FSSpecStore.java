@@ -20,6 +20,12 @@ package gobblin.runtime.spec_store;
 import java.io.IOException;
 import java.net.URI;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.compress.utils.IOUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -43,6 +49,8 @@ import gobblin.runtime.api.Spec;
 import gobblin.runtime.api.SpecNotFoundException;
 import gobblin.runtime.api.SpecSerDe;
 import gobblin.runtime.api.SpecStore;
+import gobblin.util.ConfigUtils;
+import gobblin.util.ExecutorsUtils;
 import gobblin.util.PathUtils;
 
 
@@ -52,6 +60,9 @@ import gobblin.util.PathUtils;
  * 1. This implementation has no support for caching.
  * 2. This implementation does not performs implicit version management.
  *    For implicit version management, please use a wrapper FSSpecStore.
+ * 3. {@link #getSpecs()} deserializes Specs on {@value ConfigurationKeys#SPECSTORE_FS_LOAD_THREADS_KEY} threads.
+ *
+ * See {@link IndexedFSSpecStore} for a Spec Store that does not list the whole directory on each lookup.
  */
 public class FSSpecStore implements SpecStore {
 
@@ -61,6 +72,7 @@ public class FSSpecStore implements SpecStore {
   protected final String fsSpecStoreDir;
   protected final Path fsSpecStoreDirPath;
   protected final SpecSerDe specSerDe;
+  protected final int loadThreads;
 
   public FSSpecStore(GobblinInstanceEnvironment env, SpecSerDe specSerDe)
       throws IOException {
@@ -86,6 +98,8 @@ public class FSSpecStore implements SpecStore {
     this.specSerDe = specSerDe;
     this.fsSpecStoreDir = this.sysConfig.getString(ConfigurationKeys.SPECSTORE_FS_DIR_KEY);
     this.fsSpecStoreDirPath = new Path(this.fsSpecStoreDir);
+    this.loadThreads = ConfigUtils.getInt(this.sysConfig, ConfigurationKeys.SPECSTORE_FS_LOAD_THREADS_KEY,
+        ConfigurationKeys.DEFAULT_SPECSTORE_FS_LOAD_THREADS);
     this.log.info("FSSpecStore directory is: " + this.fsSpecStoreDir);
     try {
       this.fs = this.fsSpecStoreDirPath.getFileSystem(new Configuration());
@@ -180,7 +194,7 @@ public class FSSpecStore implements SpecStore {
     for (Spec spec : specs) {
       if (null == highestVersionSpec) {
         highestVersionSpec = spec;
-      } else if (null != spec.getVersion() && spec.getVersion().compareTo(spec.getVersion()) > 0) {
+      } else if (null != spec.getVersion() && spec.getVersion().compareTo(highestVersionSpec.getVersion()) > 0) {
         highestVersionSpec = spec;
       }
     }
@@ -227,25 +241,72 @@ public class FSSpecStore implements SpecStore {
 
   @Override
   public Collection<Spec> getSpecs() throws IOException {
-    Collection<Spec> specs = Lists.newArrayList();
+    List<Path> specPaths = Lists.newArrayList();
     try {
-      getSpecs(this.fsSpecStoreDirPath, specs);
+      listSpecFiles(this.fsSpecStoreDirPath, specPaths);
+      return readSpecsFromFiles(specPaths);
     } catch (Exception e) {
       throw new IOException(e);
     }
-
-    return specs;
   }
 
-  private void getSpecs(Path directory, Collection<Spec> specs) throws IOException {
+  /***
+   * Recursively list all Spec files under a directory.
+   * @param directory Directory to list.
+   * @param specPaths Collection the Spec files are added to.
+   * @throws IOException
+   */
+  protected void listSpecFiles(Path directory, Collection<Path> specPaths) throws IOException {
     FileStatus[] fileStatuses = fs.listStatus(directory);
     for (FileStatus fileStatus : fileStatuses) {
       if (fileStatus.isDirectory()) {
-        getSpecs(fileStatus.getPath(), specs);
+        listSpecFiles(fileStatus.getPath(), specPaths);
       } else {
-        specs.add(readSpecFromFile(fileStatus.getPath()));
+        specPaths.add(fileStatus.getPath());
+      }
+    }
+  }
+
+  /***
+   * Read and deserialize Specs from files, on up to {@link #loadThreads} threads.
+   * @param specPaths Files containing serialized Specs.
+   * @return Specs in the order of specPaths.
+   * @throws IOException
+   */
+  protected List<Spec> readSpecsFromFiles(List<Path> specPaths) throws IOException {
+    List<Spec> specs = Lists.newArrayListWithCapacity(specPaths.size());
+    if (this.loadThreads <= 1 || specPaths.size() <= 1) {
+      for (Path specPath : specPaths) {
+        specs.add(readSpecFromFile(specPath));
+      }
+      return specs;
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(this.loadThreads, specPaths.size()),
+        ExecutorsUtils.newThreadFactory(Optional.of(this.log), Optional.of("FSSpecStore-loader-%d")));
+    try {
+      List<Future<Spec>> futures = Lists.newArrayListWithCapacity(specPaths.size());
+      for (final Path specPath : specPaths) {
+        futures.add(executor.submit(new Callable<Spec>() {
+          @Override
+          public Spec call() throws IOException {
+            return readSpecFromFile(specPath);
+          }
+        }));
+      }
+      for (Future<Spec> future : futures) {
+        specs.add(future.get());
       }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while loading Specs", e);
+    } catch (ExecutionException e) {
+      throw new IOException("Failed to load Specs", e.getCause());
+    } finally {
+      ExecutorsUtils.shutdownExecutorService(executor, Optional.of(this.log));
     }
+
+    return specs;
   }
 
   /***
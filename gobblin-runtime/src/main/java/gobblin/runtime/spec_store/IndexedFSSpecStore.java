@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package gobblin.runtime.spec_store;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.hadoop.fs.Path;
+import org.slf4j.Logger;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Lists;
+import com.typesafe.config.Config;
+
+import gobblin.runtime.api.GobblinInstanceEnvironment;
+import gobblin.runtime.api.Spec;
+import gobblin.runtime.api.SpecNotFoundException;
+import gobblin.runtime.api.SpecSerDe;
+
+
+/**
+ * A {@link FSSpecStore} that keeps an in-memory index from {@link Spec} URI to the versions stored for it.
+ * Lookups by URI only read the file of the requested version, instead of listing the whole store directory and
+ * deserializing every {@link Spec}.
+ *
+ * Note:
+ * 1. The index is loaded once when the store is created, by reading all Specs in parallel, and is then maintained
+ *    through the writes of this store. Specs written to the directory by anything else afterwards are not seen, so
+ *    this store should be the only writer of its directory.
+ * 2. Specs use the same URI based path layout as {@link FSSpecStore}, so either can read a store written by the other.
+ * 3. The latest version of a Spec is its highest version in {@link String} order.
+ */
+public class IndexedFSSpecStore extends FSSpecStore {
+
+  /**
+   * Versions of each URI. Sets are replaced rather than modified, and only by synchronized writes, so readers always
+   * see a complete, non-empty set.
+   */
+  private final ConcurrentMap<URI, ImmutableSortedSet<String>> versionIndex = new ConcurrentHashMap<>();
+
+  public IndexedFSSpecStore(GobblinInstanceEnvironment env, SpecSerDe specSerDe)
+      throws IOException {
+    this(env.getSysConfig().getConfig(), specSerDe, Optional.<Logger>absent());
+  }
+
+  public IndexedFSSpecStore(Config sysConfig, SpecSerDe specSerDe) throws IOException {
+    this(sysConfig, specSerDe, Optional.<Logger>absent());
+  }
+
+  public IndexedFSSpecStore(GobblinInstanceEnvironment env, SpecSerDe specSerDe, Optional<Logger> log)
+      throws IOException {
+    this(env.getSysConfig().getConfig(), specSerDe, log);
+  }
+
+  public IndexedFSSpecStore(Config sysConfig, SpecSerDe specSerDe, Optional<Logger> log)
+      throws IOException {
+    super(sysConfig, specSerDe, log);
+    loadIndex();
+  }
+
+  private void loadIndex() throws IOException {
+    List<Path> specPaths = Lists.newArrayList();
+    listSpecFiles(this.fsSpecStoreDirPath, specPaths);
+    for (Spec spec : readSpecsFromFiles(specPaths)) {
+      addToIndex(spec.getUri(), spec.getVersion());
+    }
+    this.log.info(String.format("Loaded %d Specs with %d URIs in IndexedFSSpecStore: %s", specPaths.size(),
+        this.versionIndex.size(), this.fsSpecStoreDirPath));
+  }
+
+  @Override
+  public boolean exists(URI specUri) throws IOException {
+    Preconditions.checkArgument(null != specUri, "Spec URI should not be null");
+
+    return this.versionIndex.containsKey(specUri);
+  }
+
+  @Override
+  public synchronized void addSpec(Spec spec) throws IOException {
+    super.addSpec(spec);
+    addToIndex(spec.getUri(), spec.getVersion());
+  }
+
+  @Override
+  public synchronized boolean deleteSpec(URI specUri, String version) throws IOException {
+    boolean deleted = super.deleteSpec(specUri, version);
+    removeFromIndex(specUri, version);
+    return deleted;
+  }
+
+  @Override
+  public synchronized Spec updateSpec(Spec spec) throws IOException, SpecNotFoundException {
+    Spec updatedSpec = super.updateSpec(spec);
+    addToIndex(spec.getUri(), spec.getVersion());
+    return updatedSpec;
+  }
+
+  @Override
+  public Spec getSpec(URI specUri) throws IOException, SpecNotFoundException {
+    Preconditions.checkArgument(null != specUri, "Spec URI should not be null");
+
+    return super.getSpec(specUri, getVersions(specUri).last());
+  }
+
+  @Override
+  public Spec getSpec(URI specUri, String version) throws IOException, SpecNotFoundException {
+    Preconditions.checkArgument(null != specUri, "Spec URI should not be null");
+    Preconditions.checkArgument(null != version, "Version should not be null");
+
+    if (!getVersions(specUri).contains(version)) {
+      throw new SpecNotFoundException(specUri);
+    }
+    return super.getSpec(specUri, version);
+  }
+
+  @Override
+  public Collection<Spec> getAllVersionsOfSpec(URI specUri) throws IOException, SpecNotFoundException {
+    Preconditions.checkArgument(null != specUri, "Spec URI should not be null");
+
+    List<Path> specPaths = Lists.newArrayList();
+    for (String version : getVersions(specUri)) {
+      specPaths.add(getPathForURI(this.fsSpecStoreDirPath, specUri, version));
+    }
+    return readSpecsFromFiles(specPaths);
+  }
+
+  @Override
+  public Collection<Spec> getSpecs() throws IOException {
+    List<Path> specPaths = Lists.newArrayList();
+    for (Map.Entry<URI, ImmutableSortedSet<String>> entry : this.versionIndex.entrySet()) {
+      for (String version : entry.getValue()) {
+        specPaths.add(getPathForURI(this.fsSpecStoreDirPath, entry.getKey(), version));
+      }
+    }
+    return readSpecsFromFiles(specPaths);
+  }
+
+  private ImmutableSortedSet<String> getVersions(URI specUri) throws SpecNotFoundException {
+    ImmutableSortedSet<String> versions = this.versionIndex.get(specUri);
+    if (null == versions) {
+      throw new SpecNotFoundException(specUri);
+    }
+    return versions;
+  }
+
+  private synchronized void addToIndex(URI specUri, String specVersion) {
+    // Specs without a version are stored without a version extension
+    String version = Strings.nullToEmpty(specVersion);
+    ImmutableSortedSet<String> versions = this.versionIndex.get(specUri);
+    if (null == versions) {
+      this.versionIndex.put(specUri, ImmutableSortedSet.of(version));
+    } else if (!versions.contains(version)) {
+      this.versionIndex.put(specUri,
+          ImmutableSortedSet.<String>naturalOrder().addAll(versions).add(version).build());
+    }
+  }
+
+  private synchronized void removeFromIndex(URI specUri, String version) {
+    ImmutableSortedSet<String> versions = this.versionIndex.get(specUri);
+    if (null == versions || !versions.contains(version)) {
+      return;
+    }
+    if (versions.size() == 1) {
+      this.versionIndex.remove(specUri);
+    } else {
+      List<String> remainingVersions = Lists.newArrayList(versions);
+      remainingVersions.remove(version);
+      this.versionIndex.put(specUri, ImmutableSortedSet.copyOf(remainingVersions));
+    }
+  }
+}
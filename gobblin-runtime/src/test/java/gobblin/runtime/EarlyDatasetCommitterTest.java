@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package gobblin.runtime;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import org.slf4j.Logger;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Queues;
+
+import gobblin.commit.DeliverySemantics;
+import gobblin.configuration.ConfigurationKeys;
+import gobblin.configuration.WorkUnitState;
+import gobblin.metrics.MetricContext;
+import gobblin.metrics.event.EventSubmitter;
+import gobblin.source.workunit.BasicWorkUnitStream;
+import gobblin.source.workunit.WorkUnit;
+import gobblin.source.workunit.WorkUnitStream;
+import gobblin.util.Either;
+
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * Unit tests for {@link EarlyDatasetCommitter}.
+ */
+@Slf4j
+public class EarlyDatasetCommitterTest {
+
+  @Test
+  public void testCommitDatasetWhenAllTasksComplete() throws Exception {
+    Properties jobProps = new Properties();
+    jobProps.setProperty(ConfigurationKeys.JOB_NAME_KEY, "test");
+    jobProps.setProperty(ConfigurationKeys.JOB_ID_KEY, "job_id_12345");
+    jobProps.setProperty(ConfigurationKeys.METRICS_ENABLED_KEY, "false");
+    jobProps.setProperty(ConfigurationKeys.EARLY_DATASET_COMMIT_ENABLED, "true");
+
+    Map<String, JobState.DatasetState> datasetStateMap = Maps.newHashMap();
+    for (String datasetUrn : ImmutableList.of("A", "B", "C")) {
+      datasetStateMap.put(datasetUrn, new JobState.DatasetState());
+    }
+    Queue<String> committedDatasetUrns = Queues.newConcurrentLinkedQueue();
+    JobContext jobContext = new RecordingCommitJobContext(jobProps, log, datasetStateMap, committedDatasetUrns);
+
+    EarlyDatasetCommitter earlyDatasetCommitter = new EarlyDatasetCommitter(jobContext,
+        new EventSubmitter.Builder(Optional.<MetricContext>absent(), "gobblin.runtime").build());
+    jobContext.setEarlyDatasetCommitter(earlyDatasetCommitter);
+
+    TaskState taskA1 = createTaskState(jobContext.getJobState(), "A", "task_1");
+    TaskState taskA2 = createTaskState(jobContext.getJobState(), "A", "task_2");
+    TaskState taskB1 = createTaskState(jobContext.getJobState(), "B", "task_3");
+
+    // Tasks that complete before all work units are created do not trigger a commit
+    completeTask(earlyDatasetCommitter, taskB1);
+    WorkUnitStream workUnitStream =
+        earlyDatasetCommitter.trackWorkUnitStream(new BasicWorkUnitStream.Builder(Lists.<WorkUnit>newArrayList()).build());
+    Assert.assertTrue(committedDatasetUrns.isEmpty());
+
+    // Dataset B has no pending task once the work unit stream is exhausted
+    Iterator<WorkUnit> workUnits = workUnitStream.getWorkUnits();
+    Assert.assertEquals(Iterators.size(workUnits), 0);
+    earlyDatasetCommitter.awaitDatasetCommits();
+    Assert.assertEquals(Lists.newArrayList(committedDatasetUrns), ImmutableList.of("B"));
+
+    completeTask(earlyDatasetCommitter, taskA1);
+    earlyDatasetCommitter.awaitDatasetCommits();
+    Assert.assertEquals(Lists.newArrayList(committedDatasetUrns), ImmutableList.of("B"));
+
+    completeTask(earlyDatasetCommitter, taskA2);
+    Map<String, Either<Void, ExecutionException>> results = earlyDatasetCommitter.awaitDatasetCommits();
+    Assert.assertEquals(Lists.newArrayList(committedDatasetUrns), ImmutableList.of("B", "A"));
+    Assert.assertEquals(results.size(), 2);
+    Assert.assertEquals(earlyDatasetCommitter.getCommittedDatasetStates().get("A").getTaskCount(), 2);
+
+    // The job commit only commits the remaining dataset
+    jobContext.commit();
+    Assert.assertEquals(Lists.newArrayList(committedDatasetUrns), ImmutableList.of("B", "A", "C"));
+    Assert.assertEquals(jobContext.getJobState().getState(), JobState.RunningState.COMMITTED);
+  }
+
+  private static TaskState createTaskState(JobState jobState, String datasetUrn, String taskId) {
+    WorkUnit workUnit = WorkUnit.createEmpty();
+    workUnit.setProp(ConfigurationKeys.DATASET_URN_KEY, datasetUrn);
+    workUnit.setProp(ConfigurationKeys.TASK_ID_KEY, taskId);
+    TaskState taskState = new TaskState(new WorkUnitState(workUnit, jobState));
+    jobState.addTaskState(taskState);
+    return taskState;
+  }
+
+  private static void completeTask(EarlyDatasetCommitter earlyDatasetCommitter, TaskState taskState) {
+    taskState.setWorkingState(WorkUnitState.WorkingState.SUCCESSFUL);
+    earlyDatasetCommitter.handleNewTaskCompletionEvent(new NewTaskCompletionEvent(ImmutableList.of(taskState)));
+  }
+
+  private class RecordingCommitJobContext extends DummyJobContext {
+
+    private final Queue<String> committedDatasetUrns;
+
+    public RecordingCommitJobContext(Properties jobProps, Logger logger,
+        Map<String, JobState.DatasetState> datasetStateMap, Queue<String> committedDatasetUrns)
+        throws Exception {
+      super(jobProps, logger, datasetStateMap);
+      this.committedDatasetUrns = committedDatasetUrns;
+    }
+
+    @Override
+    protected Callable<Void> createSafeDatasetCommit(boolean shouldCommitDataInJob, boolean isJobCancelled,
+        DeliverySemantics deliverySemantics, final String datasetUrn, JobState.DatasetState datasetState,
+        boolean isMultithreaded, JobContext jobContext) {
+      return new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          committedDatasetUrns.add(datasetUrn);
+          return null;
+        }
+      };
+    }
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package gobblin.runtime;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Lists;
+
+import gobblin.configuration.ConfigurationKeys;
+import gobblin.configuration.WorkUnitState;
+import gobblin.converter.Converter;
+import gobblin.converter.DataConversionException;
+import gobblin.converter.IdentityConverter;
+import gobblin.converter.SchemaConversionException;
+import gobblin.metrics.MetricContext;
+import gobblin.records.RecordStreamWithMetadata;
+import gobblin.source.extractor.RecordEnvelope;
+
+import io.reactivex.Flowable;
+
+
+@Test(groups = {"gobblin.runtime"})
+public class ParallelConverterStageTest {
+
+  @Test
+  public void testOrderAndAcks() throws Exception {
+    AtomicInteger acks = new AtomicInteger();
+    RecordStreamWithMetadata<Integer, String> stream = new RecordStreamWithMetadata<>(Flowable.range(0, 50)
+        .map(i -> new RecordEnvelope<>(i).withAckableWatermark(acks::incrementAndGet)), "schema");
+
+    SlowConverter converter = new SlowConverter();
+    ParallelConverterStage<String, String, Integer, Integer> stage = new ParallelConverterStage<>(converter, 4, 10);
+    MetricContext metricContext = MetricContext.builder("testOrderAndAcks").build();
+    stage.registerAll(metricContext, "test");
+
+    List<RecordEnvelope<Integer>> outputRecords =
+        stage.processStream(stream, new WorkUnitState()).getRecordStream().toList().blockingGet();
+
+    // Multiples of 5 are dropped and multiples of 7 are duplicated
+    List<Integer> expected = Lists.newArrayList();
+    for (int i = 0; i < 50; i++) {
+      if (i % 5 != 0) {
+        expected.add(i);
+        if (i % 7 == 0) {
+          expected.add(i);
+        }
+      }
+    }
+    List<Integer> actual = Lists.newArrayList();
+    for (RecordEnvelope<Integer> record : outputRecords) {
+      actual.add(record.getRecord());
+      record.ack();
+    }
+    Assert.assertEquals(actual, expected);
+    Assert.assertEquals(acks.get(), expected.size());
+
+    Assert.assertTrue(converter.maxConcurrentConversions.get() > 1);
+    Assert.assertTrue(converter.maxConcurrentConversions.get() <= 4);
+    Assert.assertTrue(converter.closed);
+    Assert.assertEquals(metricContext.getMeters().get("test." + ParallelConverterStage.CONVERTED_RECORDS).getCount(),
+        50);
+    Assert.assertEquals(metricContext.getGauges().get("test." + ParallelConverterStage.PENDING_RECORDS).getValue(), 0);
+    Assert.assertEquals(stage.getPendingRecords(), 0);
+    Assert.assertTrue(stage.getUtilization() > 0);
+  }
+
+  @Test
+  public void testFailedConversion() throws Exception {
+    RecordStreamWithMetadata<Integer, String> stream =
+        new RecordStreamWithMetadata<>(Flowable.just(1, SlowConverter.FAIL, 2).map(RecordEnvelope::new), "schema");
+    ParallelConverterStage<String, String, Integer, Integer> stage =
+        new ParallelConverterStage<>(new SlowConverter(), 2, 2);
+
+    try {
+      stage.processStream(stream, new WorkUnitState()).getRecordStream().toList().blockingGet();
+      Assert.fail("Conversion should have failed");
+    } catch (RuntimeException e) {
+      Assert.assertTrue(e.getCause() instanceof DataConversionException);
+    }
+  }
+
+  @Test
+  public void testIsParallel() {
+    WorkUnitState state = new WorkUnitState();
+    Assert.assertFalse(ParallelConverterStage.isParallel(new SlowConverter(), state));
+
+    state.setProp(ConfigurationKeys.CONVERTER_PARALLEL_CLASSES_KEY,
+        IdentityConverter.class.getName() + ", " + SlowConverter.class.getName());
+    Assert.assertTrue(ParallelConverterStage.isParallel(new SlowConverter(), state));
+  }
+
+  public static class SlowConverter extends Converter<String, String, Integer, Integer> {
+    public static final int FAIL = -1;
+
+    private final AtomicInteger concurrentConversions = new AtomicInteger();
+    private final AtomicInteger maxConcurrentConversions = new AtomicInteger();
+    private volatile boolean closed = false;
+
+    @Override
+    public String convertSchema(String inputSchema, WorkUnitState workUnit) throws SchemaConversionException {
+      return inputSchema;
+    }
+
+    @Override
+    public Iterable<Integer> convertRecord(String outputSchema, Integer inputRecord, WorkUnitState workUnit)
+        throws DataConversionException {
+      if (inputRecord == FAIL) {
+        throw new DataConversionException("injected failure");
+      }
+      int concurrent = this.concurrentConversions.incrementAndGet();
+      this.maxConcurrentConversions.accumulateAndGet(concurrent, Math::max);
+      try {
+        // Later records finish earlier
+        Thread.sleep(10 - inputRecord % 10);
+      } catch (InterruptedException e) {
+        throw new DataConversionException(e);
+      } finally {
+        this.concurrentConversions.decrementAndGet();
+      }
+
+      if (inputRecord % 5 == 0) {
+        return Collections.emptyList();
+      }
+      return inputRecord % 7 == 0 ? Lists.newArrayList(inputRecord, inputRecord) : Collections.singletonList(inputRecord);
+    }
+
+    @Override
+    public void close() {
+      this.closed = true;
+    }
+  }
+}
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gobblin.runtime;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Lists;
+
+import lombok.extern.slf4j.Slf4j;
+
+import gobblin.configuration.ConfigurationKeys;
+import gobblin.configuration.SourceState;
+import gobblin.configuration.WorkUnitState;
+import gobblin.runtime.api.JobExecutionResult;
+import gobblin.runtime.embedded.EmbeddedGobblin;
+import gobblin.runtime.template.ResourceBasedJobTemplate;
+import gobblin.source.Source;
+import gobblin.source.extractor.Extractor;
+import gobblin.source.workunit.Extract;
+import gobblin.source.workunit.WorkUnit;
+import gobblin.writer.DataWriter;
+import gobblin.writer.DataWriterBuilder;
+
+
+/**
+ * Measures the end-to-end latency of a job made of many no-op work units run with the stream model, which is
+ * dominated by how fast the completion of forks and tasks is propagated.
+ */
+@Slf4j
+@Test(groups = {"gobblin.runtime"})
+public class TaskCompletionLatencyTest {
+
+  private static final int NUM_WORK_UNITS = 200;
+  private static final int TASK_THREADS = 2;
+
+  public void testNoopJobLatency() throws Exception {
+    EmbeddedGobblin embeddedGobblin = new EmbeddedGobblin("TaskCompletionLatencyTest")
+        .setTemplate(ResourceBasedJobTemplate.forResourcePath("templates/hello-world.template"));
+    embeddedGobblin.setConfiguration(ConfigurationKeys.SOURCE_CLASS_KEY, NoopSource.class.getName());
+    embeddedGobblin.setConfiguration(ConfigurationKeys.WRITER_BUILDER_CLASS, NoopWriterBuilder.class.getName());
+    // Forks only signal their completion through a latch in the stream model
+    embeddedGobblin.setConfiguration(ConfigurationKeys.TASK_SYNCHRONOUS_EXECUTION_MODEL_KEY, Boolean.toString(false));
+    embeddedGobblin.setConfiguration(ConfigurationKeys.TASK_EXECUTOR_THREADPOOL_SIZE_KEY,
+        Integer.toString(TASK_THREADS));
+
+    long startNanos = System.nanoTime();
+    JobExecutionResult result = embeddedGobblin.run();
+    long elapsedMillis = (System.nanoTime() - startNanos) / 1000000;
+    log.info(String.format("Ran %d no-op work units in %d ms", NUM_WORK_UNITS, elapsedMillis));
+
+    Assert.assertTrue(result.isSuccessful());
+    // Polling every second for the forks of a task to finish took at least NUM_WORK_UNITS / TASK_THREADS = 100 seconds
+    Assert.assertTrue(elapsedMillis < 15000, "Job took " + elapsedMillis + " ms");
+  }
+
+  public static class NoopSource implements Source<String, String> {
+    @Override
+    public List<WorkUnit> getWorkunits(SourceState state) {
+      Extract extract = new Extract(Extract.TableType.APPEND_ONLY, "gobblin.runtime", "noop");
+      List<WorkUnit> workUnits = Lists.newArrayListWithCapacity(NUM_WORK_UNITS);
+      for (int i = 0; i < NUM_WORK_UNITS; i++) {
+        workUnits.add(new WorkUnit(extract));
+      }
+      return workUnits;
+    }
+
+    @Override
+    public Extractor<String, String> getExtractor(WorkUnitState state) {
+      return new Extractor<String, String>() {
+        @Override
+        public String getSchema() {
+          return "string";
+        }
+
+        @Override
+        public String readRecord(String reuse) {
+          return null;
+        }
+
+        @Override
+        public long getExpectedRecordCount() {
+          return 0;
+        }
+
+        @Override
+        public long getHighWatermark() {
+          return 0;
+        }
+
+        @Override
+        public void close() {
+          // Nothing to do
+        }
+      };
+    }
+
+    @Override
+    public void shutdown(SourceState state) {
+      // Nothing to do
+    }
+  }
+
+  public static class NoopWriterBuilder extends DataWriterBuilder<String, String> {
+    @Override
+    public DataWriter<String> build() throws IOException {
+      return new DataWriter<String>() {
+        @Override
+        public void write(String record) {
+          // Nothing to do
+        }
+
+        @Override
+        public void commit() {
+          // Nothing to do
+        }
+
+        @Override
+        public void cleanup() {
+          // Nothing to do
+        }
+
+        @Override
+        public long recordsWritten() {
+          return 0;
+        }
+
+        @Override
+        public long bytesWritten() {
+          return 0;
+        }
+
+        @Override
+        public void close() {
+          // Nothing to do
+        }
+      };
+    }
+  }
+}
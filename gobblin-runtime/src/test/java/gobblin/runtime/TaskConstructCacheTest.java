@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gobblin.runtime;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Optional;
+
+import gobblin.configuration.ConfigurationKeys;
+import gobblin.configuration.State;
+import gobblin.configuration.WorkUnitState;
+import gobblin.converter.IdentityConverter;
+import gobblin.source.workunit.WorkUnit;
+import gobblin.test.TestSource;
+import gobblin.util.JobLauncherUtils;
+
+
+/**
+ * Unit tests for {@link TaskConstructCache}.
+ */
+@Test(groups = {"gobblin.runtime"})
+public class TaskConstructCacheTest {
+
+  private final String jobId = JobLauncherUtils.newJobId("TaskConstructCacheTest");
+  private int taskSequence = 0;
+
+  public void testDisabledByDefault() {
+    Assert.assertFalse(TaskConstructCache.forJob(new State()).isPresent());
+  }
+
+  public void testSharesSourceAndCreatesNewConstructs() {
+    State jobState = new State();
+    jobState.setProp(TaskConfigurationKeys.TASK_CONSTRUCT_CACHE_ENABLED, true);
+    jobState.setProp(ConfigurationKeys.SOURCE_CLASS_KEY, TestSource.class.getName());
+    jobState.setProp(ConfigurationKeys.CONVERTER_CLASSES_KEY, IdentityConverter.class.getName());
+    Optional<TaskConstructCache> cache = TaskConstructCache.forJob(jobState);
+    Assert.assertTrue(cache.isPresent());
+
+    TaskContext first = new TaskContext(newWorkUnitState(jobState), cache);
+    TaskContext second = new TaskContext(newWorkUnitState(jobState), cache);
+    Assert.assertSame(first.getSource(), second.getSource());
+    Assert.assertTrue(first.getSource() instanceof TestSource);
+
+    Assert.assertEquals(first.getConverters().size(), 1);
+    Assert.assertNotSame(first.getConverters().get(0), second.getConverters().get(0));
+    Assert.assertNotSame(cache.get().newInstance(IdentityConverter.class.getName(), IdentityConverter.class),
+        cache.get().newInstance(IdentityConverter.class.getName(), IdentityConverter.class));
+  }
+
+  public void testWithoutCacheCreatesNewSources() {
+    State jobState = new State();
+    jobState.setProp(ConfigurationKeys.SOURCE_CLASS_KEY, TestSource.class.getName());
+
+    TaskContext first = new TaskContext(newWorkUnitState(jobState));
+    TaskContext second = new TaskContext(newWorkUnitState(jobState));
+    Assert.assertNotSame(first.getSource(), second.getSource());
+  }
+
+  private WorkUnitState newWorkUnitState(State jobState) {
+    WorkUnit workUnit = WorkUnit.createEmpty();
+    workUnit.addAll(jobState);
+    workUnit.setProp(ConfigurationKeys.JOB_ID_KEY, this.jobId);
+    workUnit.setProp(ConfigurationKeys.TASK_ID_KEY, JobLauncherUtils.newTaskId(this.jobId, this.taskSequence++));
+    return new WorkUnitState(workUnit);
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package gobblin.runtime;
+
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+
+import gobblin.configuration.ConfigurationKeys;
+import gobblin.metrics.MetricContext;
+
+
+/**
+ * Unit tests for the pools of {@link TaskExecutor}.
+ */
+@Test(groups = {"gobblin.runtime"})
+public class TaskExecutorTest {
+
+  @Test
+  public void testComputeExecutorUsesWorkStealingPool() throws Exception {
+    Properties properties = new Properties();
+    properties.setProperty(ConfigurationKeys.TASK_EXECUTOR_WORK_STEALING_ENABLED_KEY, "true");
+    properties.setProperty(ConfigurationKeys.TASK_EXECUTOR_COMPUTE_PARALLELISM_KEY, "2");
+    TaskExecutor taskExecutor = new TaskExecutor(properties);
+    taskExecutor.startAsync().awaitRunning();
+    try {
+      Assert.assertTrue(taskExecutor.isWorkStealingEnabled());
+
+      MetricContext metricContext = MetricContext.builder("testComputeExecutorUsesWorkStealingPool").build();
+      taskExecutor.registerAll(metricContext, TaskExecutor.METRIC_PREFIX);
+
+      final CountDownLatch release = new CountDownLatch(1);
+      final CountDownLatch done = new CountDownLatch(10);
+      final AtomicReference<String> threadName = new AtomicReference<>();
+      Executor executor = taskExecutor.getComputeExecutor();
+      for (int i = 0; i < 10; i++) {
+        executor.execute(() -> {
+          threadName.set(Thread.currentThread().getName());
+          try {
+            release.await();
+          } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+          }
+          done.countDown();
+        });
+      }
+
+      Gauge<?> utilization = metricContext.getGauges().get(MetricRegistry.name(TaskExecutor.METRIC_PREFIX,
+          TaskExecutor.COMPUTE_POOL, TaskExecutor.UTILIZATION));
+      long deadline = System.currentTimeMillis() + 10000;
+      while ((Double) utilization.getValue() < 1.0 && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+      Assert.assertEquals(utilization.getValue(), 1.0);
+
+      release.countDown();
+      Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+      Assert.assertTrue(threadName.get().startsWith("ComputeExecutor-"));
+      Assert.assertEquals(taskExecutor.getComputeQueueTimer().getCount(), 10);
+      Assert.assertEquals(metricContext.getTimers().get(MetricRegistry.name(TaskExecutor.METRIC_PREFIX,
+          TaskExecutor.COMPUTE_POOL, TaskExecutor.QUEUE_TIME)).getCount(), 10);
+      Assert.assertTrue(metricContext.getGauges().containsKey(MetricRegistry.name(TaskExecutor.METRIC_PREFIX,
+          TaskExecutor.TASK_POOL, TaskExecutor.POOL_SIZE)));
+
+      // Forks block on I/O, so they stay on the fork pool
+      final CountDownLatch forkDone = new CountDownLatch(1);
+      taskExecutor.getAsyncForkExecutor().execute(() -> {
+        threadName.set(Thread.currentThread().getName());
+        forkDone.countDown();
+      });
+      Assert.assertTrue(forkDone.await(10, TimeUnit.SECONDS));
+      Assert.assertTrue(threadName.get().startsWith("ForkExecutor-"));
+    } finally {
+      taskExecutor.stopAsync().awaitTerminated();
+    }
+  }
+
+  @Test
+  public void testComputeExecutorFallsBackToForkPool() throws Exception {
+    TaskExecutor taskExecutor = new TaskExecutor(new Properties());
+    taskExecutor.startAsync().awaitRunning();
+    try {
+      Assert.assertFalse(taskExecutor.isWorkStealingEnabled());
+      final AtomicReference<String> threadName = new AtomicReference<>();
+      final CountDownLatch done = new CountDownLatch(1);
+      taskExecutor.getComputeExecutor().execute(() -> {
+        threadName.set(Thread.currentThread().getName());
+        done.countDown();
+      });
+      Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+      Assert.assertTrue(threadName.get().startsWith("ForkExecutor-"));
+
+      MetricContext metricContext = MetricContext.builder("testComputeExecutorFallsBackToForkPool").build();
+      taskExecutor.registerAll(metricContext, TaskExecutor.METRIC_PREFIX);
+      Assert.assertTrue(metricContext.getGauges().containsKey(MetricRegistry.name(TaskExecutor.METRIC_PREFIX,
+          TaskExecutor.FORK_POOL, TaskExecutor.UTILIZATION)));
+      Assert.assertFalse(metricContext.getGauges().containsKey(MetricRegistry.name(TaskExecutor.METRIC_PREFIX,
+          TaskExecutor.COMPUTE_POOL, TaskExecutor.UTILIZATION)));
+    } finally {
+      taskExecutor.stopAsync().awaitTerminated();
+    }
+  }
+
+  @Test
+  public void testIdleTaskPoolStaysAtConfiguredSize() throws Exception {
+    Properties properties = new Properties();
+    properties.setProperty(ConfigurationKeys.TASK_EXECUTOR_THREADPOOL_SIZE_KEY, "1");
+    properties.setProperty(ConfigurationKeys.TASK_EXECUTOR_THREADPOOL_MAX_SIZE_KEY, "4");
+    TaskExecutor taskExecutor = new TaskExecutor(properties);
+    try {
+      Assert.assertEquals(taskExecutor.getTaskPoolSize(), 1);
+      taskExecutor.resizeTaskPool();
+      Assert.assertEquals(taskExecutor.getTaskPoolSize(), 1);
+      Assert.assertEquals(taskExecutor.getTaskPoolUtilization(), 0.0);
+    } finally {
+      taskExecutor.stopAsync().awaitTerminated();
+    }
+  }
+}
@@ -81,6 +81,19 @@ public class LocalJobLauncherTest {
     }
   }
 
+  @Test
+  public void testLaunchJobWithAsyncJobHistoryStore() throws Exception {
+    Properties jobProps = loadJobProps();
+    jobProps.setProperty(ConfigurationKeys.JOB_NAME_KEY,
+        jobProps.getProperty(ConfigurationKeys.JOB_NAME_KEY) + "-testLaunchJobWithAsyncJobHistoryStore");
+    jobProps.setProperty(ConfigurationKeys.JOB_HISTORY_STORE_ASYNC_ENABLED_KEY, Boolean.TRUE.toString());
+    try {
+      this.jobLauncherTestHelper.runTest(jobProps);
+    } finally {
+      this.jobLauncherTestHelper.deleteStateStore(jobProps.getProperty(ConfigurationKeys.JOB_NAME_KEY));
+    }
+  }
+
   @Test
   public void testLaunchJobWithPullLimit() throws Exception {
     int limit = 10;
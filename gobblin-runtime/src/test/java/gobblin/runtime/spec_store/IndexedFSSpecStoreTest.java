@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package gobblin.runtime.spec_store;
+
+import java.io.File;
+import java.net.URI;
+import java.util.Collection;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.SerializationUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.google.common.io.Files;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import com.typesafe.config.ConfigValueFactory;
+
+import gobblin.configuration.ConfigurationKeys;
+import gobblin.runtime.api.FlowSpec;
+import gobblin.runtime.api.Spec;
+import gobblin.runtime.api.SpecNotFoundException;
+import gobblin.runtime.api.SpecSerDe;
+
+
+@Test(groups = { "gobblin.runtime" })
+public class IndexedFSSpecStoreTest {
+
+  private static final SpecSerDe SPEC_SER_DE = new SpecSerDe() {
+    @Override
+    public byte[] serialize(Spec spec) {
+      return SerializationUtils.serialize(spec);
+    }
+
+    @Override
+    public Spec deserialize(byte[] spec) {
+      return SerializationUtils.deserialize(spec);
+    }
+  };
+
+  private File specStoreDir;
+  private Config config;
+
+  @BeforeClass
+  public void setUp() throws Exception {
+    this.specStoreDir = Files.createTempDir();
+    this.config = ConfigFactory.empty()
+        .withValue(ConfigurationKeys.SPECSTORE_FS_DIR_KEY,
+            ConfigValueFactory.fromAnyRef(this.specStoreDir.getAbsolutePath()))
+        .withValue(ConfigurationKeys.SPECSTORE_FS_LOAD_THREADS_KEY, ConfigValueFactory.fromAnyRef(4));
+  }
+
+  @AfterClass
+  public void tearDown() throws Exception {
+    FileUtils.deleteDirectory(this.specStoreDir);
+  }
+
+  @Test
+  public void testIndexedSpecStore() throws Exception {
+    IndexedFSSpecStore specStore = new IndexedFSSpecStore(this.config, SPEC_SER_DE);
+    URI flowUri = new URI("gobblin-flow:/group1/flow1");
+    URI otherFlowUri = new URI("gobblin-flow:/group1/flow10");
+
+    Assert.assertFalse(specStore.exists(flowUri));
+    specStore.addSpec(createFlowSpec(flowUri, "1"));
+    specStore.addSpec(createFlowSpec(flowUri, "2"));
+    for (int i = 0; i < 20; i++) {
+      specStore.addSpec(createFlowSpec(new URI("gobblin-flow:/group2/flow" + i), "1"));
+    }
+
+    Assert.assertTrue(specStore.exists(flowUri));
+    Assert.assertFalse(specStore.exists(otherFlowUri));
+    Assert.assertEquals(specStore.getSpec(flowUri).getVersion(), "2");
+    Assert.assertEquals(specStore.getSpec(flowUri, "1").getVersion(), "1");
+    Assert.assertEquals(specStore.getAllVersionsOfSpec(flowUri).size(), 2);
+    Assert.assertEquals(specStore.getSpecs().size(), 22);
+
+    // The index is rebuilt from the store directory
+    IndexedFSSpecStore reloadedSpecStore = new IndexedFSSpecStore(this.config, SPEC_SER_DE);
+    Assert.assertTrue(reloadedSpecStore.exists(flowUri));
+    Assert.assertEquals(reloadedSpecStore.getSpec(flowUri).getVersion(), "2");
+    Collection<Spec> specs = reloadedSpecStore.getSpecs();
+    Assert.assertEquals(specs.size(), 22);
+
+    Assert.assertTrue(reloadedSpecStore.deleteSpec(flowUri));
+    Assert.assertEquals(reloadedSpecStore.getSpec(flowUri).getVersion(), "1");
+    Assert.assertTrue(reloadedSpecStore.deleteSpec(flowUri, "1"));
+    Assert.assertFalse(reloadedSpecStore.exists(flowUri));
+    try {
+      reloadedSpecStore.getSpec(flowUri);
+      Assert.fail("Expected SpecNotFoundException");
+    } catch (SpecNotFoundException e) {
+      // Expected
+    }
+    Assert.assertEquals(reloadedSpecStore.getSpecs().size(), 20);
+    Assert.assertEquals(new FSSpecStore(this.config, SPEC_SER_DE).getSpecs().size(), 20);
+  }
+
+  private FlowSpec createFlowSpec(URI flowUri, String version) {
+    return FlowSpec.builder(flowUri).withConfig(ConfigFactory.empty()).withDescription("Test flow")
+        .withVersion(version).build();
+  }
+}
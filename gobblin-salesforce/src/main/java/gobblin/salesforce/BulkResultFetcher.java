@@ -0,0 +1,265 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gobblin.salesforce;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.io.ByteStreams;
+import com.google.gson.JsonElement;
+
+import gobblin.configuration.ConfigurationKeys;
+import gobblin.source.extractor.utils.InputStreamCSVReader;
+import gobblin.source.extractor.utils.Utils;
+import gobblin.util.ExecutorsUtils;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * Fetches the CSV result sets of a Salesforce bulk job concurrently and hands them out as chunks of JSON records.
+ *
+ * <p>
+ *   Result sets are downloaded by a pool of threads into spill files, of which at most {@code maxSpilledResults}
+ *   exist at any time. A second pool parses the spill files into {@link JsonElement} chunks, each result set into its
+ *   own small bounded queue, so parsing of the next result sets runs ahead while the current one is consumed.
+ *   {@link #next()} returns the chunks in result set order.
+ * </p>
+ */
+@Slf4j
+public class BulkResultFetcher implements Closeable {
+
+  private static final Charset CHARSET = Charset.forName(ConfigurationKeys.DEFAULT_CHARSET_ENCODING);
+  private static final List<JsonElement> END_OF_RESULT = new ArrayList<>(0);
+  private static final int CHUNKS_PER_RESULT = 2;
+  private static final long POLL_INTERVAL_MS = 100L;
+
+  /**
+   * Identifies one result set of a bulk job.
+   */
+  @AllArgsConstructor
+  @Getter
+  @EqualsAndHashCode
+  @ToString
+  public static class BulkResultId {
+    private final String batchId;
+    private final String resultId;
+  }
+
+  /**
+   * Opens the stream for a result set, e.g. through {@link com.sforce.async.BulkConnection#getQueryResultStream}.
+   */
+  public interface ResultStreamProvider {
+    InputStream open(BulkResultId resultId) throws Exception;
+  }
+
+  private final List<BulkResultId> resultIds;
+  private final ResultStreamProvider streamProvider;
+  private final File spillDir;
+  private final int chunkSize;
+  private final Semaphore spillPermits;
+  private final ExecutorService downloadExecutor;
+  private final ExecutorService parseExecutor;
+  private final List<BlockingQueue<List<JsonElement>>> resultQueues;
+  private final List<Future<?>> futures = Lists.newArrayList();
+  private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+  private int currentResult = 0;
+  private boolean started = false;
+
+  public BulkResultFetcher(List<BulkResultId> resultIds, ResultStreamProvider streamProvider, int threads,
+      int maxSpilledResults, File spillDir, int chunkSize) {
+    Preconditions.checkArgument(threads > 0, "threads must be positive");
+    Preconditions.checkArgument(maxSpilledResults > 0, "maxSpilledResults must be positive");
+    Preconditions.checkArgument(chunkSize > 0, "chunkSize must be positive");
+    this.resultIds = resultIds;
+    this.streamProvider = streamProvider;
+    this.spillDir = spillDir;
+    this.chunkSize = chunkSize;
+    // Fair, so that downloads take the spill slots in result set order and the consumer is never starved
+    this.spillPermits = new Semaphore(maxSpilledResults, true);
+    this.downloadExecutor = Executors.newFixedThreadPool(threads,
+        ExecutorsUtils.newDaemonThreadFactory(Optional.of(log), Optional.of("BulkResultDownloader-%d")));
+    this.parseExecutor = Executors.newFixedThreadPool(threads,
+        ExecutorsUtils.newDaemonThreadFactory(Optional.of(log), Optional.of("BulkResultParser-%d")));
+    this.resultQueues = Lists.newArrayListWithCapacity(resultIds.size());
+    for (int i = 0; i < resultIds.size(); i++) {
+      this.resultQueues.add(new ArrayBlockingQueue<List<JsonElement>>(CHUNKS_PER_RESULT));
+    }
+  }
+
+  private void start() {
+    // Both pools take tasks in submission order, so the result set being consumed always has a running parser
+    for (int i = 0; i < this.resultIds.size(); i++) {
+      final BulkResultId resultId = this.resultIds.get(i);
+      final BlockingQueue<List<JsonElement>> queue = this.resultQueues.get(i);
+      final Future<File> download = this.downloadExecutor.submit(new Callable<File>() {
+        @Override
+        public File call() throws Exception {
+          return download(resultId);
+        }
+      });
+      this.futures.add(download);
+      this.futures.add(this.parseExecutor.submit(new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          try {
+            parse(download.get(), queue);
+            return null;
+          } catch (Throwable t) {
+            BulkResultFetcher.this.failure.compareAndSet(null, t);
+            throw t;
+          }
+        }
+      }));
+    }
+    this.started = true;
+  }
+
+  private File download(BulkResultId resultId) throws Exception {
+    this.spillPermits.acquire();
+    File spillFile = null;
+    try {
+      log.info("Downloading bulk result set " + resultId);
+      spillFile = File.createTempFile("sfdc-bulk-" + resultId.getResultId() + "-", ".csv", this.spillDir);
+      try (InputStream in = this.streamProvider.open(resultId);
+          OutputStream out = new BufferedOutputStream(new FileOutputStream(spillFile))) {
+        long bytes = ByteStreams.copy(in, out);
+        log.info(String.format("Downloaded %d bytes for bulk result set %s", bytes, resultId));
+      }
+      return spillFile;
+    } catch (Throwable t) {
+      if (spillFile != null) {
+        spillFile.delete();
+      }
+      this.spillPermits.release();
+      throw t;
+    }
+  }
+
+  private void parse(File spillFile, BlockingQueue<List<JsonElement>> queue) throws IOException, InterruptedException {
+    try (BufferedReader bufferedReader = Files.newBufferedReader(spillFile.toPath(), CHARSET)) {
+      InputStreamCSVReader reader = new InputStreamCSVReader(bufferedReader);
+      List<String> header = reader.nextRecord();
+      if (header != null) {
+        int columnCount = header.size();
+        List<JsonElement> chunk = Lists.newArrayListWithCapacity(this.chunkSize);
+        List<String> csvRecord;
+        while ((csvRecord = reader.nextRecord()) != null) {
+          chunk.add(Utils.csvToJsonObject(header, csvRecord, columnCount));
+          if (chunk.size() >= this.chunkSize) {
+            queue.put(chunk);
+            chunk = Lists.newArrayListWithCapacity(this.chunkSize);
+          }
+        }
+        if (!chunk.isEmpty()) {
+          queue.put(chunk);
+        }
+      }
+      queue.put(END_OF_RESULT);
+    } finally {
+      if (!spillFile.delete()) {
+        log.warn("Failed to delete spill file " + spillFile);
+      }
+      this.spillPermits.release();
+    }
+  }
+
+  /**
+   * @return the next chunk of records, or null once all result sets have been consumed.
+   * @throws IOException if downloading or parsing any result set failed
+   */
+  public List<JsonElement> next() throws IOException {
+    if (!this.started) {
+      start();
+    }
+    try {
+      while (this.currentResult < this.resultQueues.size()) {
+        List<JsonElement> chunk =
+            this.resultQueues.get(this.currentResult).poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        if (chunk == null) {
+          checkFailure();
+        } else if (chunk == END_OF_RESULT) {
+          this.currentResult++;
+        } else {
+          return chunk;
+        }
+      }
+      return null;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for bulk result sets", e);
+    }
+  }
+
+  private void checkFailure() throws IOException {
+    Throwable t = this.failure.get();
+    if (t != null) {
+      throw new IOException("Failed to fetch bulk result set; error - " + t.getMessage(), t);
+    }
+  }
+
+  /**
+   * Stops all downloads and parsers. Spill files of result sets that were not fully parsed are removed.
+   */
+  @Override
+  public void close() throws IOException {
+    for (Future<?> future : this.futures) {
+      future.cancel(true);
+    }
+    ExecutorsUtils.shutdownExecutorService(this.downloadExecutor, Optional.of(log), 10, TimeUnit.SECONDS);
+    ExecutorsUtils.shutdownExecutorService(this.parseExecutor, Optional.of(log), 10, TimeUnit.SECONDS);
+    for (Future<?> future : this.futures) {
+      // A download whose parser never started leaves its spill file behind
+      if (future.isDone() && !future.isCancelled()) {
+        try {
+          Object result = future.get();
+          if (result instanceof File) {
+            ((File) result).delete();
+          }
+        } catch (Exception e) {
+          // failures have already been reported to the consumer
+        }
+      }
+    }
+  }
+}
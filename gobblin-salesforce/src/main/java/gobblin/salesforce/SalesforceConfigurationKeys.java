@@ -22,4 +22,18 @@ public class SalesforceConfigurationKeys {
       "source.querybased.salesforce.is.soft.deletes.pull.disabled";
   public static final int DEFAULT_SALESFORCE_MAX_CHARS_IN_FILE = 200000000;
   public static final int DEFAULT_SALESFORCE_MAX_ROWS_IN_FILE = 1000000;
+
+  // Bulk API result fetching
+  public static final String SALESFORCE_BULK_FETCH_THREADS = "source.querybased.salesforce.bulk.fetch.threads";
+  public static final int DEFAULT_SALESFORCE_BULK_FETCH_THREADS = 4;
+  public static final String SALESFORCE_BULK_MAX_SPILLED_RESULTS =
+      "source.querybased.salesforce.bulk.fetch.maxSpilledResults";
+  public static final int DEFAULT_SALESFORCE_BULK_MAX_SPILLED_RESULTS = 8;
+  public static final String SALESFORCE_BULK_SPILL_DIR = "source.querybased.salesforce.bulk.fetch.spillDir";
+
+  // Bulk API PK chunking
+  public static final String SALESFORCE_BULK_PK_CHUNKING_ENABLED = "source.querybased.salesforce.bulk.pkChunking.enabled";
+  public static final String SALESFORCE_BULK_PK_CHUNKING_SIZE = "source.querybased.salesforce.bulk.pkChunking.size";
+  public static final int DEFAULT_SALESFORCE_BULK_PK_CHUNKING_SIZE = 100000;
+  public static final int MAX_SALESFORCE_BULK_PK_CHUNKING_SIZE = 250000;
 }
@@ -17,10 +17,10 @@
 
 package gobblin.salesforce;
 
-import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
 import java.net.URI;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
@@ -31,6 +31,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.http.HttpEntity;
 import org.apache.http.NameValuePair;
@@ -38,6 +39,7 @@ import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.utils.URIBuilder;
 import org.apache.http.message.BasicNameValuePair;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
@@ -60,6 +62,7 @@ import com.sforce.ws.ConnectorConfig;
 import gobblin.configuration.ConfigurationKeys;
 import gobblin.configuration.WorkUnitState;
 import gobblin.password.PasswordManager;
+import gobblin.salesforce.BulkResultFetcher.BulkResultId;
 import gobblin.source.extractor.DataRecordException;
 import gobblin.source.extractor.exception.HighWatermarkException;
 import gobblin.source.extractor.exception.RecordCountException;
@@ -76,7 +79,6 @@ import gobblin.source.extractor.extract.restapi.RestApiExtractor;
 import gobblin.source.extractor.resultset.RecordSet;
 import gobblin.source.extractor.resultset.RecordSetList;
 import gobblin.source.extractor.schema.Schema;
-import gobblin.source.extractor.utils.InputStreamCSVReader;
 import gobblin.source.extractor.utils.Utils;
 import gobblin.source.extractor.watermark.Predicate;
 import gobblin.source.extractor.watermark.WatermarkType;
@@ -96,6 +98,7 @@ public class SalesforceExtractor extends RestApiExtractor {
   private static final String SALESFORCE_HOUR_FORMAT = "HH";
   private static final String SALESFORCE_SOAP_AUTH_SERVICE = "/services/Soap/u";
   private static final Gson GSON = new Gson();
+  private static final String PK_CHUNKING_HEADER = "Sforce-Enable-PKChunking";
 
   private boolean pullStatus = true;
   private String nextUrl;
@@ -104,13 +107,9 @@ public class SalesforceExtractor extends RestApiExtractor {
   private boolean bulkApiInitialRun = true;
   private JobInfo bulkJob = new JobInfo();
   private BatchInfo bulkBatchInfo = null;
-  private BufferedReader bulkBufferedReader = null;
-  private List<String> bulkResultIdList = Lists.newArrayList();
-  private int bulkResultIdCount = 0;
+  private List<BulkResultId> bulkResultIdList = Lists.newArrayList();
+  private BulkResultFetcher bulkResultFetcher = null;
   private boolean bulkJobFinished = true;
-  private List<String> bulkRecordHeader;
-  private int bulkResultColumCount;
-  private boolean newBulkResultSet = true;
   private int bulkRecordCount = 0;
 
   private final SalesforceConnector sfConnector;
@@ -147,14 +146,6 @@ public class SalesforceExtractor extends RestApiExtractor {
     this.bulkJobFinished = bulkJobFinished;
   }
 
-  public boolean isNewBulkResultSet() {
-    return this.newBulkResultSet;
-  }
-
-  public void setNewBulkResultSet(boolean newBulkResultSet) {
-    this.newBulkResultSet = newBulkResultSet;
-  }
-
   @Override
   public HttpEntity getAuthentication() throws RestApiConnectionException {
     log.debug("Authenticating salesforce");
@@ -643,29 +634,18 @@ public class SalesforceExtractor extends RestApiExtractor {
    * @param schema/databasename
    * @param entity/tablename
    * @param list of all predicate conditions
-     * @return iterator with batch of records
+     * @return ids of all result sets of the bulk job
    */
-  private List<String> getQueryResultIds(String entity, List<Predicate> predicateList) throws Exception {
+  private List<BulkResultId> getQueryResultIds(String entity, List<Predicate> predicateList) throws Exception {
     if (!bulkApiLogin()) {
       throw new IllegalArgumentException("Invalid Login");
     }
 
     try {
-      // Set bulk job attributes
-      this.bulkJob.setObject(entity);
-      this.bulkJob.setOperation(OperationEnum.query);
-      this.bulkJob.setConcurrencyMode(ConcurrencyMode.Parallel);
-
-      // Result type as CSV
-      this.bulkJob.setContentType(ContentType.CSV);
-
-      this.bulkJob = this.bulkConnection.createJob(this.bulkJob);
-      this.bulkJob = this.bulkConnection.getJobStatus(this.bulkJob.getId());
-
       // Construct query with the predicates
       String query = this.updatedQuery;
+      String limitString = getLimitFromInputQuery(query);
       if (!isNullPredicate(predicateList)) {
-        String limitString = getLimitFromInputQuery(query);
         query = query.replace(limitString, "");
 
         Iterator<Predicate> i = predicateList.listIterator();
@@ -677,6 +657,28 @@ public class SalesforceExtractor extends RestApiExtractor {
         query = query + limitString;
       }
 
+      // PK chunking splits the query into batches over ranges of record ids, which can't honor a limit
+      boolean pkChunking = this.workUnitState.getPropAsBoolean(SalesforceConfigurationKeys.SALESFORCE_BULK_PK_CHUNKING_ENABLED,
+          false) && limitString.isEmpty();
+      if (pkChunking) {
+        int chunkSize = Math.min(SalesforceConfigurationKeys.MAX_SALESFORCE_BULK_PK_CHUNKING_SIZE,
+            this.workUnitState.getPropAsInt(SalesforceConfigurationKeys.SALESFORCE_BULK_PK_CHUNKING_SIZE,
+                SalesforceConfigurationKeys.DEFAULT_SALESFORCE_BULK_PK_CHUNKING_SIZE));
+        log.info("Enabling PK chunking with chunk size " + chunkSize);
+        this.bulkConnection.addHeader(PK_CHUNKING_HEADER, "chunkSize=" + chunkSize);
+      }
+
+      // Set bulk job attributes
+      this.bulkJob.setObject(entity);
+      this.bulkJob.setOperation(OperationEnum.query);
+      this.bulkJob.setConcurrencyMode(ConcurrencyMode.Parallel);
+
+      // Result type as CSV
+      this.bulkJob.setContentType(ContentType.CSV);
+
+      this.bulkJob = this.bulkConnection.createJob(this.bulkJob);
+      this.bulkJob = this.bulkConnection.getJobStatus(this.bulkJob.getId());
+
       log.info("QUERY:" + query);
       ByteArrayInputStream bout = new ByteArrayInputStream(query.getBytes(ConfigurationKeys.DEFAULT_CHARSET_ENCODING));
 
@@ -685,36 +687,89 @@ public class SalesforceExtractor extends RestApiExtractor {
       int retryInterval = 30 + (int) Math.ceil((float) this.getExpectedRecordCount() / 10000) * 2;
       log.info("Salesforce bulk api retry interval in seconds:" + retryInterval);
 
-      // Get batch info with complete resultset (info id - refers to the resultset id corresponding to entire resultset)
-      this.bulkBatchInfo = this.bulkConnection.getBatchInfo(this.bulkJob.getId(), this.bulkBatchInfo.getId());
+      return waitForBulkResultIds(this.bulkConnection, this.bulkJob.getId(), this.bulkBatchInfo.getId(), pkChunking,
+          TimeUnit.SECONDS.toMillis(retryInterval));
 
-      while ((this.bulkBatchInfo.getState() != BatchStateEnum.Completed)
-          && (this.bulkBatchInfo.getState() != BatchStateEnum.Failed)) {
-        Thread.sleep(retryInterval * 1000);
-        this.bulkBatchInfo = this.bulkConnection.getBatchInfo(this.bulkJob.getId(), this.bulkBatchInfo.getId());
-        log.debug("Bulk Api Batch Info:" + this.bulkBatchInfo);
-        log.info("Waiting for bulk resultSetIds");
-      }
+    } catch (RuntimeException | AsyncApiException | InterruptedException e) {
+      throw new RuntimeException(
+          "Failed to get query result ids from salesforce using bulk api; error - " + e.getMessage(), e);
+    }
+  }
 
-      if (this.bulkBatchInfo.getState() == BatchStateEnum.Failed) {
-        log.error("Bulk batch failed: " + bulkBatchInfo.toString());
-        throw new RuntimeException("Failed to get bulk batch info for jobId " + this.bulkBatchInfo.getJobId()
-            + " error - " + this.bulkBatchInfo.getStateMessage());
+  /**
+   * Waits for the batches of a bulk query job to complete and returns the ids of all their result sets.
+   *
+   * <p>
+   *   With PK chunking, Salesforce moves the submitted batch to {@link BatchStateEnum#NotProcessed} and creates one
+   *   batch per chunk of record ids; their results are collected in batch order.
+   * </p>
+   */
+  @VisibleForTesting
+  static List<BulkResultId> waitForBulkResultIds(BulkConnection bulkConnection, String jobId, String batchId,
+      boolean pkChunking, long retryIntervalMillis) throws AsyncApiException, InterruptedException {
+    // Get batch info with complete resultset (info id - refers to the resultset id corresponding to entire resultset)
+    BatchInfo batchInfo = bulkConnection.getBatchInfo(jobId, batchId);
+
+    while (!isTerminal(batchInfo.getState()) && !(pkChunking && batchInfo.getState() == BatchStateEnum.NotProcessed)) {
+      Thread.sleep(retryIntervalMillis);
+      batchInfo = bulkConnection.getBatchInfo(jobId, batchId);
+      log.debug("Bulk Api Batch Info:" + batchInfo);
+      log.info("Waiting for bulk resultSetIds");
+    }
+    checkBatchNotFailed(batchInfo);
+
+    List<BatchInfo> completedBatches = Lists.newArrayList();
+    if (batchInfo.getState() == BatchStateEnum.NotProcessed) {
+      while (true) {
+        completedBatches.clear();
+        boolean allDone = true;
+        for (BatchInfo chunkBatch : bulkConnection.getBatchInfoList(jobId).getBatchInfo()) {
+          if (chunkBatch.getId().equals(batchId)) {
+            continue;
+          }
+          checkBatchNotFailed(chunkBatch);
+          if (chunkBatch.getState() == BatchStateEnum.Completed) {
+            completedBatches.add(chunkBatch);
+          } else {
+            allDone = false;
+          }
+        }
+        if (allDone) {
+          break;
+        }
+        log.info(String.format("Waiting for PK chunked batches, %d completed", completedBatches.size()));
+        Thread.sleep(retryIntervalMillis);
       }
+      log.info("Number of PK chunked batches:" + completedBatches.size());
+    } else {
+      completedBatches.add(batchInfo);
+    }
 
-      // Get resultset ids from the batch info
-      QueryResultList list = this.bulkConnection.getQueryResultList(this.bulkJob.getId(), this.bulkBatchInfo.getId());
+    // Get resultset ids from the batch info
+    List<BulkResultId> resultIds = Lists.newArrayList();
+    for (BatchInfo completedBatch : completedBatches) {
+      QueryResultList list = bulkConnection.getQueryResultList(jobId, completedBatch.getId());
+      for (String resultId : list.getResult()) {
+        resultIds.add(new BulkResultId(completedBatch.getId(), resultId));
+      }
+    }
+    return resultIds;
+  }
 
-      return Arrays.asList(list.getResult());
+  private static boolean isTerminal(BatchStateEnum state) {
+    return state == BatchStateEnum.Completed || state == BatchStateEnum.Failed;
+  }
 
-    } catch (RuntimeException | AsyncApiException | InterruptedException e) {
-      throw new RuntimeException(
-          "Failed to get query result ids from salesforce using bulk api; error - " + e.getMessage(), e);
+  private static void checkBatchNotFailed(BatchInfo batchInfo) {
+    if (batchInfo.getState() == BatchStateEnum.Failed) {
+      log.error("Bulk batch failed: " + batchInfo.toString());
+      throw new RuntimeException("Failed to get bulk batch info for jobId " + batchInfo.getJobId()
+          + " error - " + batchInfo.getStateMessage());
     }
   }
 
   /**
-   * Get data from the bulk api input stream
+   * Get data from the bulk api result sets, which are fetched and parsed in the background by {@link BulkResultFetcher}
      * @return record set with each record as a JsonObject
    */
   private RecordSet<JsonElement> getBulkData() throws DataRecordException {
@@ -722,64 +777,24 @@ public class SalesforceExtractor extends RestApiExtractor {
     RecordSetList<JsonElement> rs = new RecordSetList<>();
 
     try {
-      // if Buffer is empty then get stream for the new resultset id
-      if (this.bulkBufferedReader == null || !this.bulkBufferedReader.ready()) {
-
-        // if there is unprocessed resultset id then get result stream for that id
-        if (this.bulkResultIdCount < this.bulkResultIdList.size()) {
-          log.info("Stream resultset for resultId:" + this.bulkResultIdList.get(this.bulkResultIdCount));
-          this.setNewBulkResultSet(true);
-          this.bulkBufferedReader =
-              new BufferedReader(
-                  new InputStreamReader(
-                      this.bulkConnection.getQueryResultStream(this.bulkJob.getId(), this.bulkBatchInfo.getId(),
-                          this.bulkResultIdList.get(this.bulkResultIdCount)),
-                      ConfigurationKeys.DEFAULT_CHARSET_ENCODING));
-
-          this.bulkResultIdCount++;
-        } else {
-          // if result stream processed for all resultset ids then finish the bulk job
-          log.info("Bulk job is finished");
-          this.setBulkJobFinished(true);
-          return rs;
-        }
+      if (this.bulkResultFetcher == null) {
+        this.bulkResultFetcher = createBulkResultFetcher();
       }
 
-      // if Buffer stream has data then process the same
-
-      // Get batch size from .pull file
-      int batchSize = Utils.getAsInt(this.workUnitState.getProp(ConfigurationKeys.SOURCE_QUERYBASED_FETCH_SIZE));
-      if (batchSize == 0) {
-        batchSize = ConfigurationKeys.DEFAULT_SOURCE_FETCH_SIZE;
-      }
-
-      // Stream the resultset through CSV reader to identify columns in each record
-      InputStreamCSVReader reader = new InputStreamCSVReader(this.bulkBufferedReader);
-
-      // Get header if it is first run of a new resultset
-      if (this.isNewBulkResultSet()) {
-        this.bulkRecordHeader = reader.nextRecord();
-        this.bulkResultColumCount = this.bulkRecordHeader.size();
-        this.setNewBulkResultSet(false);
+      List<JsonElement> records = this.bulkResultFetcher.next();
+      if (records == null) {
+        // if all result sets are processed then finish the bulk job
+        log.info("Bulk job is finished");
+        this.setBulkJobFinished(true);
+        closeBulkResultFetcher();
+        return rs;
       }
 
-      List<String> csvRecord;
-      int recordCount = 0;
-
-      // Get record from CSV reader stream
-      while ((csvRecord = reader.nextRecord()) != null) {
-        // Convert CSV record to JsonObject
-        JsonObject jsonObject = Utils.csvToJsonObject(this.bulkRecordHeader, csvRecord, this.bulkResultColumCount);
-        rs.add(jsonObject);
-        recordCount++;
-        this.bulkRecordCount++;
-
-        // Insert records in record set until it reaches the batch size
-        if (recordCount >= batchSize) {
-          log.info("Total number of records processed so far: " + this.bulkRecordCount);
-          break;
-        }
+      for (JsonElement record : records) {
+        rs.add(record);
       }
+      this.bulkRecordCount += records.size();
+      log.info("Total number of records processed so far: " + this.bulkRecordCount);
 
     } catch (Exception e) {
       throw new DataRecordException("Failed to get records from salesforce; error - " + e.getMessage(), e);
@@ -788,8 +803,41 @@ public class SalesforceExtractor extends RestApiExtractor {
     return rs;
   }
 
+  private BulkResultFetcher createBulkResultFetcher() {
+    // Get batch size from .pull file
+    int batchSize = Utils.getAsInt(this.workUnitState.getProp(ConfigurationKeys.SOURCE_QUERYBASED_FETCH_SIZE));
+    if (batchSize == 0) {
+      batchSize = ConfigurationKeys.DEFAULT_SOURCE_FETCH_SIZE;
+    }
+
+    int threads = Math.max(1, this.workUnitState.getPropAsInt(SalesforceConfigurationKeys.SALESFORCE_BULK_FETCH_THREADS,
+        SalesforceConfigurationKeys.DEFAULT_SALESFORCE_BULK_FETCH_THREADS));
+    int maxSpilledResults = Math.max(threads, this.workUnitState.getPropAsInt(
+        SalesforceConfigurationKeys.SALESFORCE_BULK_MAX_SPILLED_RESULTS,
+        SalesforceConfigurationKeys.DEFAULT_SALESFORCE_BULK_MAX_SPILLED_RESULTS));
+    File spillDir = new File(this.workUnitState.getProp(SalesforceConfigurationKeys.SALESFORCE_BULK_SPILL_DIR,
+        System.getProperty("java.io.tmpdir")));
+
+    final BulkConnection connection = this.bulkConnection;
+    final String jobId = this.bulkJob.getId();
+    return new BulkResultFetcher(this.bulkResultIdList, new BulkResultFetcher.ResultStreamProvider() {
+      @Override
+      public InputStream open(BulkResultId resultId) throws Exception {
+        return connection.getQueryResultStream(jobId, resultId.getBatchId(), resultId.getResultId());
+      }
+    }, threads, maxSpilledResults, spillDir, batchSize);
+  }
+
+  private void closeBulkResultFetcher() throws IOException {
+    if (this.bulkResultFetcher != null) {
+      this.bulkResultFetcher.close();
+      this.bulkResultFetcher = null;
+    }
+  }
+
   @Override
   public void closeConnection() throws Exception {
+    closeBulkResultFetcher();
     if (this.bulkConnection != null
         && !this.bulkConnection.getJobStatus(this.bulkJob.getId()).getState().toString().equals("Closed")) {
       log.info("Closing salesforce bulk job connection");
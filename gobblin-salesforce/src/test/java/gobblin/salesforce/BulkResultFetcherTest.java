@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gobblin.salesforce;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.Files;
+import com.google.gson.JsonElement;
+import com.sforce.async.BulkConnection;
+import com.sforce.ws.ConnectorConfig;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import gobblin.salesforce.BulkResultFetcher.BulkResultId;
+
+
+/**
+ * Tests for {@link BulkResultFetcher} and the PK chunked batch handling of {@link SalesforceExtractor}, against a
+ * local HTTP stand-in for the Salesforce Bulk API.
+ */
+@Test(groups = { "gobblin.salesforce" })
+public class BulkResultFetcherTest {
+  private static final String ASYNC_PATH = "/services/async/37.0";
+  private static final String NS = "http://www.force.com/2009/06/asyncapi/dataload";
+  private static final String JOB_ID = "750000000000001";
+  private static final String ORIGINAL_BATCH = "751000000000000";
+  private static final List<String> CHUNK_BATCHES = ImmutableList.of("751000000000001", "751000000000002");
+  private static final int RECORDS_PER_RESULT = 25;
+
+  private final Map<String, String> responses = Maps.newHashMap();
+  private HttpServer server;
+  private BulkConnection bulkConnection;
+  private File spillDir;
+
+  @BeforeClass
+  public void setUp() throws Exception {
+    String jobPath = ASYNC_PATH + "/job/" + JOB_ID + "/batch";
+    this.responses.put(jobPath + "/" + ORIGINAL_BATCH, batchInfo(ORIGINAL_BATCH, "NotProcessed"));
+    StringBuilder batchList = new StringBuilder("<batchInfoList xmlns=\"" + NS + "\">")
+        .append(batchInfo(ORIGINAL_BATCH, "NotProcessed").replace(" xmlns=\"" + NS + "\"", ""));
+    int resultNum = 0;
+    for (String batch : CHUNK_BATCHES) {
+      batchList.append(batchInfo(batch, "Completed").replace(" xmlns=\"" + NS + "\"", ""));
+      StringBuilder resultList = new StringBuilder("<result-list xmlns=\"" + NS + "\">");
+      // two result sets for each chunk
+      for (int i = 0; i < 2; i++, resultNum++) {
+        String resultId = "752" + resultNum;
+        resultList.append("<result>").append(resultId).append("</result>");
+        this.responses.put(jobPath + "/" + batch + "/result/" + resultId, csv(resultNum));
+      }
+      this.responses.put(jobPath + "/" + batch + "/result", resultList.append("</result-list>").toString());
+    }
+    this.responses.put(jobPath, batchList.append("</batchInfoList>").toString());
+
+    this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    this.server.createContext("/", new HttpHandler() {
+      @Override
+      public void handle(HttpExchange exchange) throws IOException {
+        String body = BulkResultFetcherTest.this.responses.get(exchange.getRequestURI().getPath());
+        byte[] bytes = (body == null ? "not found" : body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", body != null && body.startsWith("<") ? "application/xml" : "text/csv");
+        exchange.sendResponseHeaders(body == null ? 404 : 200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+          out.write(bytes);
+        }
+      }
+    });
+    this.server.start();
+
+    ConnectorConfig config = new ConnectorConfig();
+    config.setSessionId("session");
+    config.setCompression(false);
+    config.setRestEndpoint("http://localhost:" + this.server.getAddress().getPort() + ASYNC_PATH);
+    this.bulkConnection = new BulkConnection(config);
+    this.spillDir = Files.createTempDir();
+  }
+
+  @AfterClass
+  public void tearDown() throws IOException {
+    this.server.stop(0);
+    for (File file : this.spillDir.listFiles()) {
+      file.delete();
+    }
+    this.spillDir.delete();
+  }
+
+  public void testPkChunkedResultIds() throws Exception {
+    List<BulkResultId> resultIds =
+        SalesforceExtractor.waitForBulkResultIds(this.bulkConnection, JOB_ID, ORIGINAL_BATCH, true, 0L);
+
+    Assert.assertEquals(resultIds, ImmutableList.of(new BulkResultId(CHUNK_BATCHES.get(0), "7520"),
+        new BulkResultId(CHUNK_BATCHES.get(0), "7521"), new BulkResultId(CHUNK_BATCHES.get(1), "7522"),
+        new BulkResultId(CHUNK_BATCHES.get(1), "7523")));
+  }
+
+  public void testParallelFetchKeepsResultOrder() throws Exception {
+    List<BulkResultId> resultIds =
+        SalesforceExtractor.waitForBulkResultIds(this.bulkConnection, JOB_ID, ORIGINAL_BATCH, true, 0L);
+
+    List<JsonElement> records = Lists.newArrayList();
+    try (BulkResultFetcher fetcher = new BulkResultFetcher(resultIds, new BulkResultFetcher.ResultStreamProvider() {
+      @Override
+      public InputStream open(BulkResultId resultId) throws Exception {
+        return BulkResultFetcherTest.this.bulkConnection.getQueryResultStream(JOB_ID, resultId.getBatchId(),
+            resultId.getResultId());
+      }
+    }, 3, 3, this.spillDir, 7)) {
+      List<JsonElement> chunk;
+      while ((chunk = fetcher.next()) != null) {
+        Assert.assertTrue(chunk.size() <= 7);
+        records.addAll(chunk);
+      }
+    }
+
+    Assert.assertEquals(records.size(), resultIds.size() * RECORDS_PER_RESULT);
+    for (int i = 0; i < records.size(); i++) {
+      Assert.assertEquals(records.get(i).getAsJsonObject().get("Id").getAsString(), "id" + i);
+      Assert.assertEquals(records.get(i).getAsJsonObject().get("Name").getAsString(), "name, " + i);
+    }
+    Assert.assertEquals(this.spillDir.listFiles().length, 0);
+  }
+
+  @Test(expectedExceptions = IOException.class)
+  public void testDownloadFailure() throws Exception {
+    List<BulkResultId> resultIds = ImmutableList.of(new BulkResultId("b", "ok"), new BulkResultId("b", "missing"));
+    try (BulkResultFetcher fetcher = new BulkResultFetcher(resultIds, new BulkResultFetcher.ResultStreamProvider() {
+      @Override
+      public InputStream open(BulkResultId resultId) throws Exception {
+        return BulkResultFetcherTest.this.bulkConnection.getQueryResultStream(JOB_ID, CHUNK_BATCHES.get(0),
+            resultId.getResultId().equals("ok") ? "7520" : resultId.getResultId());
+      }
+    }, 2, 2, this.spillDir, 100)) {
+      while (fetcher.next() != null) {
+        // drain
+      }
+    }
+  }
+
+  private static String batchInfo(String batchId, String state) {
+    return "<batchInfo xmlns=\"" + NS + "\"><id>" + batchId + "</id><jobId>" + JOB_ID + "</jobId><state>" + state
+        + "</state><createdDate>2017-04-07T00:00:00.000Z</createdDate>"
+        + "<systemModstamp>2017-04-07T00:00:00.000Z</systemModstamp><numberRecordsProcessed>0</numberRecordsProcessed>"
+        + "<numberRecordsFailed>0</numberRecordsFailed><totalProcessingTime>0</totalProcessingTime>"
+        + "<apiActiveProcessingTime>0</apiActiveProcessingTime><apexProcessingTime>0</apexProcessingTime></batchInfo>";
+  }
+
+  private static String csv(int resultNum) {
+    StringBuilder csv = new StringBuilder("\"Id\",\"Name\"\n");
+    for (int i = 0; i < RECORDS_PER_RESULT; i++) {
+      int id = resultNum * RECORDS_PER_RESULT + i;
+      csv.append("\"id").append(id).append("\",\"name, ").append(id).append("\"\n");
+    }
+    return csv.toString();
+  }
+}
@@ -51,9 +51,25 @@ public class ServiceConfigKeys {
   public static final String GOBBLIN_SERVICE_FLOWCOMPILER_CLASS_KEY = GOBBLIN_SERVICE_PREFIX + "flowCompiler.class";
   public static final String DEFAULT_GOBBLIN_SERVICE_FLOWCOMPILER_CLASS = IdentityFlowToJobSpecCompiler.class.getCanonicalName();
 
+  // Multi-hop Flow Compiler Keys
+  public static final String MULTI_HOP_FLOW_COMPILER_PREFIX = GOBBLIN_SERVICE_PREFIX + "multiHopFlowCompiler.";
+  public static final String MULTI_HOP_EXECUTION_ENABLED_KEY = MULTI_HOP_FLOW_COMPILER_PREFIX + "multiHop.enabled";
+  public static final boolean DEFAULT_MULTI_HOP_EXECUTION_ENABLED = false;
+  public static final String MULTI_HOP_MAX_HOPS_KEY = MULTI_HOP_FLOW_COMPILER_PREFIX + "maxHops";
+  public static final int DEFAULT_MULTI_HOP_MAX_HOPS = 3;
+  public static final String MULTI_HOP_DEFAULT_EDGE_COST_SECONDS_KEY = MULTI_HOP_FLOW_COMPILER_PREFIX + "defaultEdgeCostSeconds";
+  public static final double DEFAULT_MULTI_HOP_DEFAULT_EDGE_COST_SECONDS = 300;
+  public static final String MULTI_HOP_REFERENCE_RECORDS_KEY = MULTI_HOP_FLOW_COMPILER_PREFIX + "referenceRecords";
+  public static final long DEFAULT_MULTI_HOP_REFERENCE_RECORDS = 1000000L;
+  public static final String MULTI_HOP_PATH_CACHE_SIZE_KEY = MULTI_HOP_FLOW_COMPILER_PREFIX + "pathCache.size";
+  public static final long DEFAULT_MULTI_HOP_PATH_CACHE_SIZE = 10000L;
+  public static final String MULTI_HOP_PATH_CACHE_TTL_SECONDS_KEY = MULTI_HOP_FLOW_COMPILER_PREFIX + "pathCache.ttlSeconds";
+  public static final long DEFAULT_MULTI_HOP_PATH_CACHE_TTL_SECONDS = 300L;
+
   // Flow specific Keys
   public static final String FLOW_SOURCE_IDENTIFIER_KEY = "gobblin.flow.sourceIdentifier";
   public static final String FLOW_DESTINATION_IDENTIFIER_KEY = "gobblin.flow.destinationIdentifier";
+  public static final String FLOW_HOP_INDEX_KEY = "gobblin.flow.hopIndex";
 
   // Command line options
   public static final String SERVICE_NAME_OPTION_NAME = "service_name";
@@ -70,6 +86,7 @@ public class ServiceConfigKeys {
   public static final String TOPOLOGYSPEC_URI_KEY = "uri";
   public static final String DEFAULT_SPEC_EXECUTOR_INSTANCE_PRODUCER = InMemorySpecExecutorInstanceProducer.class.getCanonicalName();
   public static final String SPEC_EXECUTOR_INSTANCE_PRODUCER_KEY = "specExecutorInstanceProducer.class";
+  public static final String TOPOLOGYSPEC_EDGE_COST_SECONDS_KEY = "specExecInstance.edgeCostSeconds";
 
   // Template Catalog Keys
   public static final String TEMPLATE_CATALOGS_FULLY_QUALIFIED_PATH_KEY = GOBBLIN_SERVICE_PREFIX + "templateCatalogs.fullyQualifiedPath";
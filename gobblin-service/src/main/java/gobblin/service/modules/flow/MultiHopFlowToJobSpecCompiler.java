@@ -0,0 +1,402 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package gobblin.service.modules.flow;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import org.slf4j.Logger;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigValueFactory;
+
+import gobblin.annotation.Alpha;
+import gobblin.instrumented.Instrumented;
+import gobblin.runtime.api.FlowSpec;
+import gobblin.runtime.api.JobSpec;
+import gobblin.runtime.api.Spec;
+import gobblin.runtime.api.SpecExecutorInstanceProducer;
+import gobblin.runtime.api.TopologySpec;
+import gobblin.service.ServiceConfigKeys;
+import gobblin.util.ConfigUtils;
+
+
+/***
+ * Compiles a {@link FlowSpec} into {@link JobSpec}s along the lowest cost path of {@link TopologySpec}s from the flow
+ * source to the flow destination.
+ *
+ * <p>
+ *   Every source:destination capability of a {@link TopologySpec} is an edge of a topology graph, indexed by source.
+ *   The graph is rebuilt when {@link TopologySpec}s change, so compiling a flow does not look at every topology. The
+ *   lowest cost path is found with Dijkstra's algorithm, and paths are cached per source and destination for
+ *   {@value ServiceConfigKeys#MULTI_HOP_PATH_CACHE_TTL_SECONDS_KEY} seconds.
+ * </p>
+ *
+ * <p>
+ *   The cost of an edge is the estimated number of seconds a hop takes on it. Until metrics are reported for an edge
+ *   through {@link #recordHopMetrics(URI, String, String, long, double)}, it is the
+ *   {@value ServiceConfigKeys#TOPOLOGYSPEC_EDGE_COST_SECONDS_KEY} of the topology, or
+ *   {@value ServiceConfigKeys#MULTI_HOP_DEFAULT_EDGE_COST_SECONDS_KEY}. Afterwards it is the smoothed observed latency
+ *   plus the time needed to move {@value ServiceConfigKeys#MULTI_HOP_REFERENCE_RECORDS_KEY} records at the smoothed
+ *   observed throughput.
+ * </p>
+ *
+ * <p>
+ *   The {@link gobblin.service.modules.orchestration.Orchestrator} submits all {@link JobSpec}s of a flow at the same
+ *   time and does not wait for one to complete before submitting the next, so the executors of a multi-hop flow must
+ *   sequence its hops themselves. Paths of more than one hop are therefore only used when
+ *   {@value ServiceConfigKeys#MULTI_HOP_EXECUTION_ENABLED_KEY} is set; otherwise flows are compiled onto the lowest
+ *   cost single hop. With it set, paths have at most {@value ServiceConfigKeys#MULTI_HOP_MAX_HOPS_KEY} hops, and the
+ *   {@link JobSpec}s of a multi-hop flow are returned in hop order, with the source and destination identifiers and
+ *   the index of their hop, and URIs suffixed with "/hop" and the hop index.
+ * </p>
+ */
+@Alpha
+public class MultiHopFlowToJobSpecCompiler extends BaseFlowToJobSpecCompiler {
+
+  /** Weight of a new sample in the exponentially weighted moving averages of edge metrics. */
+  private static final double METRICS_SMOOTHING_FACTOR = 0.2;
+
+  private final int maxHops;
+  private final double defaultEdgeCostSeconds;
+  private final long referenceRecords;
+  private final ConcurrentMap<EdgeKey, EdgeMetrics> edgeMetrics = Maps.newConcurrentMap();
+  private final Cache<EdgeKey, Optional<List<TopologyEdge>>> pathCache;
+
+  /** Edges of the topology graph by source. Replaced as a whole when topologies change. */
+  private volatile ListMultimap<String, TopologyEdge> topologyGraph = ImmutableListMultimap.of();
+
+  public MultiHopFlowToJobSpecCompiler(Config config) {
+    this(config, true);
+  }
+
+  public MultiHopFlowToJobSpecCompiler(Config config, boolean instrumentationEnabled) {
+    this(config, Optional.<Logger>absent(), instrumentationEnabled);
+  }
+
+  public MultiHopFlowToJobSpecCompiler(Config config, Optional<Logger> log) {
+    this(config, log, true);
+  }
+
+  public MultiHopFlowToJobSpecCompiler(Config config, Optional<Logger> log, boolean instrumentationEnabled) {
+    super(config, log, instrumentationEnabled);
+    this.maxHops = ConfigUtils.getBoolean(config, ServiceConfigKeys.MULTI_HOP_EXECUTION_ENABLED_KEY,
+        ServiceConfigKeys.DEFAULT_MULTI_HOP_EXECUTION_ENABLED)
+        ? ConfigUtils.getInt(config, ServiceConfigKeys.MULTI_HOP_MAX_HOPS_KEY,
+            ServiceConfigKeys.DEFAULT_MULTI_HOP_MAX_HOPS)
+        : 1;
+    this.defaultEdgeCostSeconds = ConfigUtils.getDouble(config,
+        ServiceConfigKeys.MULTI_HOP_DEFAULT_EDGE_COST_SECONDS_KEY,
+        ServiceConfigKeys.DEFAULT_MULTI_HOP_DEFAULT_EDGE_COST_SECONDS);
+    this.referenceRecords = ConfigUtils.getLong(config, ServiceConfigKeys.MULTI_HOP_REFERENCE_RECORDS_KEY,
+        ServiceConfigKeys.DEFAULT_MULTI_HOP_REFERENCE_RECORDS);
+    this.pathCache = CacheBuilder.newBuilder()
+        .maximumSize(ConfigUtils.getLong(config, ServiceConfigKeys.MULTI_HOP_PATH_CACHE_SIZE_KEY,
+            ServiceConfigKeys.DEFAULT_MULTI_HOP_PATH_CACHE_SIZE))
+        .expireAfterWrite(ConfigUtils.getLong(config, ServiceConfigKeys.MULTI_HOP_PATH_CACHE_TTL_SECONDS_KEY,
+            ServiceConfigKeys.DEFAULT_MULTI_HOP_PATH_CACHE_TTL_SECONDS), TimeUnit.SECONDS)
+        .build();
+  }
+
+  @Override
+  public Map<Spec, SpecExecutorInstanceProducer> compileFlow(Spec spec) {
+    Preconditions.checkNotNull(spec);
+    Preconditions.checkArgument(spec instanceof FlowSpec, "MultiHopFlowToJobSpecCompiler only converts FlowSpec to JobSpec");
+
+    long startTime = System.nanoTime();
+    Map<Spec, SpecExecutorInstanceProducer> specExecutorInstanceMap = Maps.newLinkedHashMap();
+
+    FlowSpec flowSpec = (FlowSpec) spec;
+    String source = flowSpec.getConfig().getString(ServiceConfigKeys.FLOW_SOURCE_IDENTIFIER_KEY);
+    String destination = flowSpec.getConfig().getString(ServiceConfigKeys.FLOW_DESTINATION_IDENTIFIER_KEY);
+    log.info(String.format("Compiling flow for source: %s and destination: %s", source, destination));
+
+    Optional<List<TopologyEdge>> path = getLowestCostPath(source, destination);
+    if (!path.isPresent()) {
+      log.warn(String.format("No path with at most %d hops from source: %s to destination: %s", this.maxHops, source,
+          destination));
+      Instrumented.markMeter(this.flowCompilationFailedMeter);
+      return specExecutorInstanceMap;
+    }
+
+    // The flow execution id is computed once, so that all hops of a flow execution share it
+    long flowExecutionId = System.currentTimeMillis();
+    List<TopologyEdge> hops = path.get();
+    for (int i = 0; i < hops.size(); i++) {
+      TopologyEdge hop = hops.get(i);
+      Config hopConfig = flowSpec.getConfig()
+          .withValue(ServiceConfigKeys.FLOW_SOURCE_IDENTIFIER_KEY, ConfigValueFactory.fromAnyRef(hop.getSource()))
+          .withValue(ServiceConfigKeys.FLOW_DESTINATION_IDENTIFIER_KEY,
+              ConfigValueFactory.fromAnyRef(hop.getDestination()));
+      URI jobSpecUri = flowSpec.getUri();
+      if (hops.size() > 1) {
+        hopConfig = hopConfig.withValue(ServiceConfigKeys.FLOW_HOP_INDEX_KEY, ConfigValueFactory.fromAnyRef(i));
+        jobSpecUri = getHopUri(flowSpec.getUri(), i);
+      }
+      JobSpec jobSpec = jobSpecGenerator(flowSpec, jobSpecUri, hopConfig, flowExecutionId);
+      specExecutorInstanceMap.put(jobSpec, hop.getTopologySpec().getSpecExecutorInstanceProducer());
+      log.info(String.format("Hop %d of JobSpec: %s from %s to %s runs on TopologySpec: %s", i, jobSpec.getUri(),
+          hop.getSource(), hop.getDestination(), hop.getTopologySpec().getUri()));
+    }
+
+    Instrumented.markMeter(this.flowCompilationSuccessFulMeter);
+    Instrumented.updateTimer(this.flowCompilationTimer, System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+
+    return specExecutorInstanceMap;
+  }
+
+  /***
+   * Report the metrics of a hop that ran from source to destination on a topology. They update the cost of the
+   * corresponding edge; cached paths pick up the new cost when they expire.
+   * @param topologySpecUri URI of the {@link TopologySpec} the hop ran on.
+   * @param latencyMillis time from the submission to the completion of the hop.
+   * @param recordsPerSecond throughput of the hop.
+   */
+  public void recordHopMetrics(URI topologySpecUri, String source, String destination, long latencyMillis,
+      double recordsPerSecond) {
+    EdgeKey edgeKey = new EdgeKey(topologySpecUri.toString(), source, destination);
+    EdgeMetrics metrics = this.edgeMetrics.get(edgeKey);
+    if (null == metrics) {
+      this.edgeMetrics.putIfAbsent(edgeKey, new EdgeMetrics(this.referenceRecords));
+      metrics = this.edgeMetrics.get(edgeKey);
+    }
+    metrics.update(latencyMillis, recordsPerSecond);
+  }
+
+  @VisibleForTesting
+  Optional<List<TopologyEdge>> getLowestCostPath(final String source, final String destination) {
+    try {
+      return this.pathCache.get(new EdgeKey("", source, destination), new Callable<Optional<List<TopologyEdge>>>() {
+        @Override
+        public Optional<List<TopologyEdge>> call() {
+          return findLowestCostPath(MultiHopFlowToJobSpecCompiler.this.topologyGraph, source, destination,
+              MultiHopFlowToJobSpecCompiler.this.maxHops);
+        }
+      });
+    } catch (ExecutionException e) {
+      Instrumented.markMeter(this.flowCompilationFailedMeter);
+      throw new RuntimeException("Cannot compute path from " + source + " to " + destination, e.getCause());
+    }
+  }
+
+  /**
+   * Dijkstra's algorithm over (node, hops) states. A state is skipped if its node was already reached, at a lower or
+   * equal cost, in fewer or as many hops.
+   */
+  private static Optional<List<TopologyEdge>> findLowestCostPath(ListMultimap<String, TopologyEdge> graph,
+      String source, String destination, int maxHops) {
+    Map<String, Integer> settledHops = Maps.newHashMap();
+    PriorityQueue<PathNode> queue = new PriorityQueue<>();
+    queue.add(new PathNode(source, 0, 0, null, null));
+
+    while (!queue.isEmpty()) {
+      PathNode node = queue.poll();
+      Integer hops = settledHops.get(node.getName());
+      if (null != hops && hops <= node.getHops()) {
+        continue;
+      }
+      settledHops.put(node.getName(), node.getHops());
+
+      if (node.getName().equals(destination) && node.getHops() > 0) {
+        List<TopologyEdge> path = Lists.newArrayList();
+        for (PathNode current = node; null != current.getEdge(); current = current.getPrevious()) {
+          path.add(current.getEdge());
+        }
+        Collections.reverse(path);
+        return Optional.of(path);
+      }
+      if (node.getHops() >= maxHops) {
+        continue;
+      }
+      for (TopologyEdge edge : graph.get(node.getName())) {
+        queue.add(new PathNode(edge.getDestination(), node.getCost() + edge.getCost(), node.getHops() + 1, edge, node));
+      }
+    }
+    return Optional.absent();
+  }
+
+  private void rebuildTopologyGraph() {
+    ImmutableListMultimap.Builder<String, TopologyEdge> graphBuilder = ImmutableListMultimap.builder();
+    Set<EdgeKey> edgeKeys = Sets.newHashSet();
+    for (TopologySpec topologySpec : this.topologySpecMap.values()) {
+      Map<String, String> capabilities;
+      try {
+        capabilities = topologySpec.getSpecExecutorInstanceProducer().getCapabilities().get();
+      } catch (InterruptedException | ExecutionException e) {
+        log.error("Cannot determine capabilities of TopologySpec: " + topologySpec.getUri()
+            + ". It will not be used for flows.", e);
+        continue;
+      }
+
+      double staticCost = ConfigUtils.getDouble(topologySpec.getConfig(),
+          ServiceConfigKeys.TOPOLOGYSPEC_EDGE_COST_SECONDS_KEY, this.defaultEdgeCostSeconds);
+      for (Map.Entry<String, String> capability : capabilities.entrySet()) {
+        EdgeKey edgeKey = new EdgeKey(topologySpec.getUri().toString(), capability.getKey(), capability.getValue());
+        edgeKeys.add(edgeKey);
+        this.edgeMetrics.putIfAbsent(edgeKey, new EdgeMetrics(this.referenceRecords));
+        graphBuilder.put(capability.getKey(), new TopologyEdge(capability.getKey(), capability.getValue(),
+            topologySpec, staticCost, this.edgeMetrics.get(edgeKey)));
+      }
+    }
+
+    this.topologyGraph = graphBuilder.build();
+    // Forget the metrics of edges that no longer exist
+    this.edgeMetrics.keySet().retainAll(edgeKeys);
+    this.pathCache.invalidateAll();
+    log.info(String.format("Built topology graph with %d edges from %d TopologySpecs", this.topologyGraph.size(),
+        this.topologySpecMap.size()));
+  }
+
+  private static URI getHopUri(URI flowSpecUri, int hop) {
+    try {
+      return new URI(flowSpecUri.getScheme(), flowSpecUri.getAuthority(), flowSpecUri.getPath() + "/hop" + hop, null,
+          null);
+    } catch (URISyntaxException e) {
+      throw new RuntimeException("Cannot create JobSpec URI for hop " + hop + " of flow " + flowSpecUri, e);
+    }
+  }
+
+  @Override
+  public synchronized void onAddSpec(Spec addedSpec) {
+    super.onAddSpec(addedSpec);
+    rebuildTopologyGraph();
+  }
+
+  @Override
+  public synchronized void onDeleteSpec(URI deletedSpecURI, String deletedSpecVersion) {
+    super.onDeleteSpec(deletedSpecURI, deletedSpecVersion);
+    rebuildTopologyGraph();
+  }
+
+  @Override
+  public synchronized void onUpdateSpec(Spec updatedSpec) {
+    super.onUpdateSpec(updatedSpec);
+    rebuildTopologyGraph();
+  }
+
+  /**
+   * Key of an edge. The topology is empty for path cache keys.
+   */
+  @AllArgsConstructor
+  @EqualsAndHashCode
+  @ToString
+  private static class EdgeKey {
+    private final String topology;
+    private final String source;
+    private final String destination;
+  }
+
+  /**
+   * Exponentially weighted moving averages of the metrics reported for an edge.
+   */
+  @VisibleForTesting
+  static class EdgeMetrics {
+    private final long referenceRecords;
+    private boolean observed = false;
+    private double latencyMillis;
+    private double recordsPerSecond;
+
+    private EdgeMetrics(long referenceRecords) {
+      this.referenceRecords = referenceRecords;
+    }
+
+    private synchronized void update(long latencyMillis, double recordsPerSecond) {
+      if (!this.observed) {
+        this.latencyMillis = latencyMillis;
+        this.recordsPerSecond = recordsPerSecond;
+        this.observed = true;
+      } else {
+        this.latencyMillis += METRICS_SMOOTHING_FACTOR * (latencyMillis - this.latencyMillis);
+        this.recordsPerSecond += METRICS_SMOOTHING_FACTOR * (recordsPerSecond - this.recordsPerSecond);
+      }
+    }
+
+    /**
+     * Estimated seconds for a hop, or absent if no metrics were reported.
+     */
+    private synchronized Optional<Double> getCostSeconds() {
+      if (!this.observed) {
+        return Optional.absent();
+      }
+      double transferSeconds = this.recordsPerSecond > 0 ? this.referenceRecords / this.recordsPerSecond : 0;
+      return Optional.of(this.latencyMillis / 1000 + transferSeconds);
+    }
+  }
+
+  /**
+   * An edge of the topology graph: a source to destination capability of a {@link TopologySpec}.
+   */
+  @AllArgsConstructor
+  @Getter
+  @VisibleForTesting
+  static class TopologyEdge {
+    private final String source;
+    private final String destination;
+    private final TopologySpec topologySpec;
+    private final double staticCost;
+    private final EdgeMetrics metrics;
+
+    double getCost() {
+      return this.metrics.getCostSeconds().or(this.staticCost);
+    }
+
+    @Override
+    public String toString() {
+      return this.source + "->" + this.destination + " on " + this.topologySpec.getUri();
+    }
+  }
+
+  @AllArgsConstructor
+  @Getter
+  private static class PathNode implements Comparable<PathNode> {
+    private final String name;
+    private final double cost;
+    private final int hops;
+    private final TopologyEdge edge;
+    private final PathNode previous;
+
+    @Override
+    public int compareTo(PathNode other) {
+      return Double.compare(this.cost, other.cost);
+    }
+  }
+}
@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package gobblin.service.modules.core;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Lists;
+import com.typesafe.config.Config;
+
+import gobblin.configuration.ConfigurationKeys;
+import gobblin.runtime.api.FlowSpec;
+import gobblin.runtime.api.JobSpec;
+import gobblin.runtime.api.Spec;
+import gobblin.runtime.api.SpecExecutorInstanceProducer;
+import gobblin.runtime.api.TopologySpec;
+import gobblin.runtime.spec_executorInstance.InMemorySpecExecutorInstanceProducer;
+import gobblin.service.ServiceConfigKeys;
+import gobblin.service.modules.flow.MultiHopFlowToJobSpecCompiler;
+import gobblin.util.ConfigUtils;
+
+
+@Test(groups = { "gobblin.service" })
+public class MultiHopFlowToJobSpecCompilerTest {
+
+  @Test
+  public void testLowestCostTopology() throws Exception {
+    MultiHopFlowToJobSpecCompiler compiler = new MultiHopFlowToJobSpecCompiler(ConfigUtils.propertiesToConfig(new Properties()));
+    TopologySpec aToB = initTopologySpec("aToB", "a:b", 10);
+    TopologySpec bToC = initTopologySpec("bToC", "b:c", 10);
+    TopologySpec aToC = initTopologySpec("aToC", "a:c", 100);
+    TopologySpec cheapAToC = initTopologySpec("cheapAToC", "a:c", 50);
+    for (TopologySpec topologySpec : Lists.newArrayList(aToB, bToC, aToC, cheapAToC)) {
+      compiler.onAddSpec(topologySpec);
+    }
+
+    // The cheapest single hop is used, even though two hops are cheaper
+    List<JobSpec> jobSpecs = compile(compiler, "a", "c", cheapAToC);
+    Assert.assertEquals(jobSpecs.get(0).getUri(), new URI("gobblin-flow:/group/flow"));
+    Assert.assertEquals(jobSpecs.get(0).getConfig().getString(ServiceConfigKeys.FLOW_SOURCE_IDENTIFIER_KEY), "a");
+    Assert.assertEquals(jobSpecs.get(0).getConfig().getString(ServiceConfigKeys.FLOW_DESTINATION_IDENTIFIER_KEY), "c");
+    Assert.assertEquals(jobSpecs.get(0).getConfig().getString(ConfigurationKeys.JOB_NAME_KEY), "flow");
+    Assert.assertTrue(jobSpecs.get(0).getConfig().hasPath(ConfigurationKeys.FLOW_EXECUTION_ID_KEY));
+
+    // Removing a topology invalidates cached paths
+    compiler.onDeleteSpec(cheapAToC.getUri(), cheapAToC.getVersion());
+    compile(compiler, "a", "c", aToC);
+  }
+
+  @Test
+  public void testMultiHopFlowsAreRejectedByDefault() throws Exception {
+    MultiHopFlowToJobSpecCompiler compiler = new MultiHopFlowToJobSpecCompiler(ConfigUtils.propertiesToConfig(new Properties()));
+    TopologySpec aToB = initTopologySpec("aToB", "a:b", 10);
+    TopologySpec bToC = initTopologySpec("bToC", "b:c", 10);
+    for (TopologySpec topologySpec : Lists.newArrayList(aToB, bToC)) {
+      compiler.onAddSpec(topologySpec);
+    }
+
+    // The executors must sequence hops, so flows that need more than one hop fail to compile unless enabled
+    compile(compiler, "a", "c");
+    Assert.assertEquals(compiler.getFlowCompilationFailedMeter().get().getCount(), 1);
+    compile(compiler, "b", "c", bToC);
+    Assert.assertEquals(compiler.getFlowCompilationSuccessFulMeter().get().getCount(), 1);
+  }
+
+  @Test
+  public void testMultiHopFlows() throws Exception {
+    Properties properties = new Properties();
+    properties.setProperty(ServiceConfigKeys.MULTI_HOP_EXECUTION_ENABLED_KEY, "true");
+    properties.setProperty(ServiceConfigKeys.MULTI_HOP_MAX_HOPS_KEY, "2");
+    MultiHopFlowToJobSpecCompiler compiler = new MultiHopFlowToJobSpecCompiler(ConfigUtils.propertiesToConfig(properties));
+    TopologySpec aToB = initTopologySpec("aToB", "a:b", 10);
+    TopologySpec bToC = initTopologySpec("bToC", "b:c", 10);
+    TopologySpec cToD = initTopologySpec("cToD", "c:d", 10);
+    TopologySpec aToC = initTopologySpec("aToC", "a:c", 100);
+    for (TopologySpec topologySpec : Lists.newArrayList(aToB, bToC, cToD, aToC)) {
+      compiler.onAddSpec(topologySpec);
+    }
+
+    // Two cheap hops are preferred over one expensive hop, and are returned in order
+    List<JobSpec> jobSpecs = compile(compiler, "a", "c", aToB, bToC);
+    Assert.assertEquals(jobSpecs.get(0).getUri(), new URI("gobblin-flow:/group/flow/hop0"));
+    Assert.assertEquals(jobSpecs.get(0).getConfig().getString(ServiceConfigKeys.FLOW_DESTINATION_IDENTIFIER_KEY), "b");
+    Assert.assertEquals(jobSpecs.get(1).getUri(), new URI("gobblin-flow:/group/flow/hop1"));
+    Assert.assertEquals(jobSpecs.get(1).getConfig().getString(ServiceConfigKeys.FLOW_SOURCE_IDENTIFIER_KEY), "b");
+    Assert.assertEquals(jobSpecs.get(1).getConfig().getInt(ServiceConfigKeys.FLOW_HOP_INDEX_KEY), 1);
+    Assert.assertEquals(jobSpecs.get(0).getConfig().getLong(ConfigurationKeys.FLOW_EXECUTION_ID_KEY),
+        jobSpecs.get(1).getConfig().getLong(ConfigurationKeys.FLOW_EXECUTION_ID_KEY));
+
+    // No path within the maximum number of hops
+    compile(compiler, "a", "d");
+    Assert.assertEquals(compiler.getFlowCompilationFailedMeter().get().getCount(), 1);
+  }
+
+  @Test
+  public void testObservedEdgeCost() throws Exception {
+    Properties properties = new Properties();
+    properties.setProperty(ServiceConfigKeys.MULTI_HOP_PATH_CACHE_TTL_SECONDS_KEY, "0");
+    properties.setProperty(ServiceConfigKeys.MULTI_HOP_REFERENCE_RECORDS_KEY, "1000");
+    MultiHopFlowToJobSpecCompiler compiler = new MultiHopFlowToJobSpecCompiler(ConfigUtils.propertiesToConfig(properties));
+    TopologySpec fast = initTopologySpec("fast", "a:b", 10);
+    TopologySpec slow = initTopologySpec("slow", "a:b", 50);
+    compiler.onAddSpec(fast);
+    compiler.onAddSpec(slow);
+    compile(compiler, "a", "b", fast);
+
+    // 1s latency + 1000 records at 10 records/s is slower than the 50s configured for the other topology
+    compiler.recordHopMetrics(fast.getUri(), "a", "b", 1000, 10);
+    compile(compiler, "a", "b", slow);
+    // Observed metrics are smoothed, so one run at 25 records/s (41s) does not make the topology the cheapest again
+    compiler.recordHopMetrics(fast.getUri(), "a", "b", 1000, 25);
+    compile(compiler, "a", "b", slow);
+  }
+
+  private List<JobSpec> compile(MultiHopFlowToJobSpecCompiler compiler, String source, String destination,
+      TopologySpec... expectedHops) {
+    Map<Spec, SpecExecutorInstanceProducer> specExecutorMapping = compiler.compileFlow(initFlowSpec(source, destination));
+    Assert.assertEquals(specExecutorMapping.size(), expectedHops.length);
+
+    List<JobSpec> jobSpecs = Lists.newArrayList();
+    int hop = 0;
+    for (Map.Entry<Spec, SpecExecutorInstanceProducer> entry : specExecutorMapping.entrySet()) {
+      Assert.assertSame(entry.getValue(), expectedHops[hop++].getSpecExecutorInstanceProducer());
+      jobSpecs.add((JobSpec) entry.getKey());
+    }
+    return jobSpecs;
+  }
+
+  private TopologySpec initTopologySpec(String name, String capabilities, double edgeCostSeconds) throws Exception {
+    Properties properties = new Properties();
+    properties.put(ConfigurationKeys.SPECEXECUTOR_INSTANCE_CAPABILITIES_KEY, capabilities);
+    properties.put(ServiceConfigKeys.TOPOLOGYSPEC_EDGE_COST_SECONDS_KEY, Double.toString(edgeCostSeconds));
+    Config config = ConfigUtils.propertiesToConfig(properties);
+
+    return TopologySpec.builder(new URI("topology/" + name))
+        .withConfig(config)
+        .withDescription("Test topology " + name)
+        .withVersion("1")
+        .withSpecExecutorInstanceProducer(new InMemorySpecExecutorInstanceProducer(config))
+        .build();
+  }
+
+  private FlowSpec initFlowSpec(String source, String destination) {
+    Properties properties = new Properties();
+    properties.put(ConfigurationKeys.JOB_SCHEDULE_KEY, "* * * * *");
+    properties.put(ConfigurationKeys.FLOW_GROUP_KEY, "group");
+    properties.put(ConfigurationKeys.FLOW_NAME_KEY, "flow");
+    properties.put(ServiceConfigKeys.FLOW_SOURCE_IDENTIFIER_KEY, source);
+    properties.put(ServiceConfigKeys.FLOW_DESTINATION_IDENTIFIER_KEY, destination);
+
+    return FlowSpec.builder("gobblin-flow:/group/flow")
+        .withConfig(ConfigUtils.propertiesToConfig(properties))
+        .withDescription("Test flow")
+        .withVersion("1")
+        .build();
+  }
+}
@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package gobblin.tunnel;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Measures round trips of a payload through a {@link Tunnel} over local sockets, with one connection per benchmark
+ * thread. The proxy answers the CONNECT request itself and then echoes the bytes it receives, so the tunnel is the only
+ * component under test besides the loopback interface.
+ *
+ * {@code selectorThreads} 0 is the default single-selector tunnel with per-connection heap buffers; other values build
+ * a tunnel with that many selector threads and pooled direct buffers.
+ */
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 3)
+@BenchmarkMode(value = Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(16)
+public class TunnelBenchmark {
+
+  @State(value = Scope.Benchmark)
+  public static class TunnelState {
+    @Param({"0", "1", "4"})
+    public int selectorThreads;
+
+    private EchoProxy proxy;
+    private Tunnel tunnel;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+      this.proxy = new EchoProxy();
+      this.tunnel = this.selectorThreads == 0
+          ? Tunnel.build("localhost", 1, "localhost", this.proxy.getPort())
+          : Tunnel.build("localhost", 1, "localhost", this.proxy.getPort(), this.selectorThreads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+      this.tunnel.close();
+      this.proxy.close();
+    }
+  }
+
+  @State(value = Scope.Thread)
+  public static class ConnectionState {
+    @Param({"1024", "65536"})
+    public int payloadSize;
+
+    private Socket socket;
+    private byte[] payload;
+    private byte[] response;
+
+    @Setup(Level.Trial)
+    public void setup(TunnelState tunnelState) throws IOException {
+      this.payload = new byte[this.payloadSize];
+      Arrays.fill(this.payload, (byte) 'x');
+      this.response = new byte[this.payloadSize];
+      this.socket = new Socket("localhost", tunnelState.tunnel.getPort());
+      this.socket.setTcpNoDelay(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+      this.socket.close();
+    }
+  }
+
+  @Benchmark
+  public byte[] roundTrip(ConnectionState connection) throws IOException {
+    connection.socket.getOutputStream().write(connection.payload);
+    readFully(connection.socket.getInputStream(), connection.response);
+    return connection.response;
+  }
+
+  private static void readFully(InputStream in, byte[] bytes) throws IOException {
+    int offset = 0;
+    while (offset < bytes.length) {
+      int read = in.read(bytes, offset, bytes.length - offset);
+      if (read < 0) {
+        throw new IOException("Connection closed after " + offset + " bytes");
+      }
+      offset += read;
+    }
+  }
+
+  /**
+   * A CONNECT proxy that accepts every CONNECT request and then echoes back what it receives.
+   */
+  private static class EchoProxy implements AutoCloseable {
+    private static final byte[] CONNECT_REPLY =
+        "HTTP/1.1 200 Connection established\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    EchoProxy() throws IOException {
+      this.serverSocket = new ServerSocket();
+      this.serverSocket.bind(new InetSocketAddress("localhost", 0));
+      this.executor.submit(() -> {
+        while (!this.serverSocket.isClosed()) {
+          try {
+            Socket socket = this.serverSocket.accept();
+            this.executor.submit(() -> echo(socket));
+          } catch (IOException e) {
+            // Closed
+          }
+        }
+      });
+    }
+
+    int getPort() {
+      return this.serverSocket.getLocalPort();
+    }
+
+    private static void echo(Socket socket) {
+      try (Socket s = socket) {
+        s.setTcpNoDelay(true);
+        InputStream in = s.getInputStream();
+        OutputStream out = s.getOutputStream();
+
+        // Skip the CONNECT request, which ends with an empty line
+        int matched = 0;
+        while (matched < 4) {
+          int b = in.read();
+          if (b < 0) {
+            return;
+          }
+          matched = (b == (matched % 2 == 0 ? '\r' : '\n')) ? matched + 1 : (b == '\r' ? 1 : 0);
+        }
+        out.write(CONNECT_REPLY);
+        out.flush();
+
+        byte[] buffer = new byte[64 * 1024];
+        int read;
+        while ((read = in.read(buffer)) >= 0) {
+          out.write(buffer, 0, read);
+          out.flush();
+        }
+      } catch (SocketException e) {
+        // Connection closed by the tunnel
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      this.serverSocket.close();
+      this.executor.shutdownNow();
+    }
+  }
+}
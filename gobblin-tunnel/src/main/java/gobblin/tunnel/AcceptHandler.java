@@ -21,6 +21,8 @@ import java.io.IOException;
 import java.nio.channels.Selector;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.Callable;
 
 import org.slf4j.Logger;
@@ -28,6 +30,8 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Handler for accepting connections from the client on the socket the Tunnel listens on.
+ *
+ * Accepted connections are handed round-robin to the selector threads of the Tunnel.
  */
 class AcceptHandler implements Callable<HandlerState> {
   private static final Logger LOG = LoggerFactory.getLogger(Tunnel.class);
@@ -35,24 +39,58 @@ class AcceptHandler implements Callable<HandlerState> {
   private final ServerSocketChannel server;
   private final Selector selector;
   private final Config config;
+  private final List<Tunnel.Dispatcher> dispatchers;
+  private final Set<ConnectionStats> connectionStats;
+  private int nextDispatcher = 0;
 
-  AcceptHandler(ServerSocketChannel server, Selector selector, Config config) {
+  AcceptHandler(ServerSocketChannel server, Selector selector, Config config, List<Tunnel.Dispatcher> dispatchers,
+      Set<ConnectionStats> connectionStats) {
     this.config = config;
     this.server = server;
     this.selector = selector;
+    this.dispatchers = dispatchers;
+    this.connectionStats = connectionStats;
   }
 
   @Override
   public HandlerState call()
       throws Exception {
-    SocketChannel client = this.server.accept();
+    final SocketChannel client = this.server.accept();
+    if (client == null) {
+      return HandlerState.ACCEPTING;
+    }
+
+    String clientAddress = String.valueOf(client.getRemoteAddress());
+    LOG.info("Accepted connection from {}", clientAddress);
+    final ConnectionStats stats = new ConnectionStats(client, clientAddress, this.connectionStats);
+    this.connectionStats.add(stats);
+
+    Tunnel.Dispatcher dispatcher = this.dispatchers.get(this.nextDispatcher);
+    this.nextDispatcher = (this.nextDispatcher + 1) % this.dispatchers.size();
+    final Selector clientSelector = dispatcher.getSelector();
+    if (clientSelector == this.selector) {
+      setUpProxyConnection(client, clientSelector, stats);
+    } else {
+      dispatcher.execute(new Runnable() {
+        @Override
+        public void run() {
+          setUpProxyConnection(client, clientSelector, stats);
+        }
+      });
+    }
+    return HandlerState.ACCEPTING;
+  }
 
-    LOG.info("Accepted connection from {}", client.getRemoteAddress());
+  private void setUpProxyConnection(SocketChannel client, Selector clientSelector, ConnectionStats stats) {
     try {
-      new ProxySetupHandler(client, selector, config);
+      new ProxySetupHandler(client, clientSelector, this.config, stats);
     } catch (IOException ioe) {
-      client.close();
+      stats.close();
+      try {
+        client.close();
+      } catch (IOException e) {
+        LOG.warn("Failed to close client channel {}", client, e);
+      }
     }
-    return HandlerState.ACCEPTING;
   }
 }
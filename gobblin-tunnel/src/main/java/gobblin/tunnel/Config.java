@@ -17,18 +17,32 @@
 
 package gobblin.tunnel;
 
+import com.google.common.base.Optional;
+
+
 class Config {
   public static final int PROXY_CONNECT_TIMEOUT_MS = 5000;
   private final String remoteHost;
   private final int remotePort;
   private final String proxyHost;
   private final int proxyPort;
+  private final Optional<DirectBufferPool> bufferPool;
 
   public Config(String remoteHost, int remotePort, String proxyHost, int proxyPort) {
+    this(remoteHost, remotePort, proxyHost, proxyPort, Optional.<DirectBufferPool>absent());
+  }
+
+  /**
+   * @param bufferPool the pool connections take their relay buffers from, or absent to give each connection its own
+   *                   heap buffer
+   */
+  public Config(String remoteHost, int remotePort, String proxyHost, int proxyPort,
+      Optional<DirectBufferPool> bufferPool) {
     this.remoteHost = remoteHost;
     this.remotePort = remotePort;
     this.proxyHost = proxyHost;
     this.proxyPort = proxyPort;
+    this.bufferPool = bufferPool;
   }
 
   public String getRemoteHost() {
@@ -46,4 +60,8 @@ class Config {
   public int getProxyPort() {
     return this.proxyPort;
   }
+
+  public Optional<DirectBufferPool> getBufferPool() {
+    return this.bufferPool;
+  }
 }
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package gobblin.tunnel;
+
+import java.nio.channels.SocketChannel;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Byte counts and latencies of a connection through a {@link Tunnel}.
+ *
+ * Updated by the selector thread of the connection and safe to read from any thread.
+ */
+public class ConnectionStats {
+  private final SocketChannel client;
+  private final String clientAddress;
+  private final Set<ConnectionStats> openConnections;
+  private final long openedAtMillis = System.currentTimeMillis();
+  private volatile long proxySetupMillis = -1;
+  private final AtomicLong bytesFromClient = new AtomicLong();
+  private final AtomicLong bytesToClient = new AtomicLong();
+  private final AtomicLong relayCount = new AtomicLong();
+  private final AtomicLong totalRelayNanos = new AtomicLong();
+  private volatile long maxRelayNanos = 0;
+
+  /**
+   * @param openConnections stats of the open connections of the tunnel, which {@link #close()} removes these from
+   */
+  ConnectionStats(SocketChannel client, String clientAddress, Set<ConnectionStats> openConnections) {
+    this.client = client;
+    this.clientAddress = clientAddress;
+    this.openConnections = openConnections;
+  }
+
+  /**
+   * Called when the connection is closed, so the tunnel does not keep the stats and the channel of every connection
+   * it has served.
+   */
+  void close() {
+    this.openConnections.remove(this);
+  }
+
+  void setProxySetupMillis(long proxySetupMillis) {
+    this.proxySetupMillis = proxySetupMillis;
+  }
+
+  void addBytesFromClient(long bytes) {
+    this.bytesFromClient.addAndGet(bytes);
+  }
+
+  void addBytesToClient(long bytes) {
+    this.bytesToClient.addAndGet(bytes);
+  }
+
+  /**
+   * Record the time between reading data from one side of the connection and finishing writing it to the other side.
+   */
+  void recordRelay(long nanos) {
+    this.relayCount.incrementAndGet();
+    this.totalRelayNanos.addAndGet(nanos);
+    if (nanos > this.maxRelayNanos) {
+      this.maxRelayNanos = nanos;
+    }
+  }
+
+  public boolean isOpen() {
+    return this.client.isOpen();
+  }
+
+  public String getClientAddress() {
+    return this.clientAddress;
+  }
+
+  public long getOpenedAtMillis() {
+    return this.openedAtMillis;
+  }
+
+  /**
+   * @return the time to connect to the proxy and establish the tunnel through it, or -1 if it is not established yet
+   */
+  public long getProxySetupMillis() {
+    return this.proxySetupMillis;
+  }
+
+  public long getBytesFromClient() {
+    return this.bytesFromClient.get();
+  }
+
+  public long getBytesToClient() {
+    return this.bytesToClient.get();
+  }
+
+  public long getRelayCount() {
+    return this.relayCount.get();
+  }
+
+  public double getMeanRelayMillis() {
+    long count = this.relayCount.get();
+    return count == 0 ? 0 : (double) this.totalRelayNanos.get() / count / TimeUnit.MILLISECONDS.toNanos(1);
+  }
+
+  public double getMaxRelayMillis() {
+    return (double) this.maxRelayNanos / TimeUnit.MILLISECONDS.toNanos(1);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("ConnectionStats{client=%s, proxySetupMillis=%d, bytesFromClient=%d, bytesToClient=%d, "
+            + "relays=%d, meanRelayMillis=%.3f, maxRelayMillis=%.3f}", this.clientAddress, this.proxySetupMillis,
+        getBytesFromClient(), getBytesToClient(), getRelayCount(), getMeanRelayMillis(), getMaxRelayMillis());
+  }
+}
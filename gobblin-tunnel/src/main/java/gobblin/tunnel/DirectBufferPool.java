@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package gobblin.tunnel;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * A pool of direct {@link ByteBuffer}s shared by the connections of all tunnels that use pooled buffers.
+ *
+ * A connection only holds a buffer while it has data in flight, so the number of buffers in use is bounded by the
+ * number of active connections rather than the number of open ones. At most {@code maxPooledBuffers} released buffers
+ * are kept for reuse; others are left to the garbage collector. This class is thread safe.
+ */
+class DirectBufferPool {
+  static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+  static final int DEFAULT_MAX_POOLED_BUFFERS = 256;
+
+  static final DirectBufferPool SHARED = new DirectBufferPool(DEFAULT_BUFFER_SIZE, DEFAULT_MAX_POOLED_BUFFERS);
+
+  private final int bufferSize;
+  private final int maxPooledBuffers;
+  private final Queue<ByteBuffer> pooledBuffers = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger pooledBufferCount = new AtomicInteger();
+  private final AtomicInteger allocatedBufferCount = new AtomicInteger();
+
+  DirectBufferPool(int bufferSize, int maxPooledBuffers) {
+    this.bufferSize = bufferSize;
+    this.maxPooledBuffers = maxPooledBuffers;
+  }
+
+  /**
+   * @return a cleared buffer, taken from the pool or newly allocated if the pool is empty
+   */
+  ByteBuffer acquire() {
+    ByteBuffer buffer = this.pooledBuffers.poll();
+    if (buffer != null) {
+      this.pooledBufferCount.decrementAndGet();
+      return buffer;
+    }
+    this.allocatedBufferCount.incrementAndGet();
+    return ByteBuffer.allocateDirect(this.bufferSize);
+  }
+
+  /**
+   * Return a buffer acquired from this pool. The caller must not use the buffer afterwards.
+   */
+  void release(ByteBuffer buffer) {
+    buffer.clear();
+    if (this.pooledBufferCount.incrementAndGet() <= this.maxPooledBuffers) {
+      this.pooledBuffers.offer(buffer);
+    } else {
+      this.pooledBufferCount.decrementAndGet();
+    }
+  }
+
+  int getBufferSize() {
+    return this.bufferSize;
+  }
+
+  int getPooledBufferCount() {
+    return this.pooledBufferCount.get();
+  }
+
+  int getAllocatedBufferCount() {
+    return this.allocatedBufferCount.get();
+  }
+}
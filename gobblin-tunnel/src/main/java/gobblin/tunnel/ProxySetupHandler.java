@@ -56,9 +56,12 @@ class ProxySetupHandler implements Callable<HandlerState> {
   private final long connectStartTime;
   private int totalBytesRead = 0;
   private final Config config;
+  private final ConnectionStats stats;
 
-  ProxySetupHandler(SocketChannel client, Selector selector, Config config) throws IOException {
+  ProxySetupHandler(SocketChannel client, Selector selector, Config config, ConnectionStats stats)
+      throws IOException {
     this.config = config;
+    this.stats = stats;
     this.client = client;
     this.selector = selector;
     this.buffer =
@@ -156,7 +159,8 @@ class ProxySetupHandler implements Callable<HandlerState> {
               || ((temp[i] == '\r') && (temp[i + 1] == '\n') && (temp[i + 2] == '\r') && (temp[i + 3] == '\n'))) {
             this.state = null;
             this.buffer.position(i + 4);
-            new ReadWriteHandler(this.proxy, this.buffer, this.client, this.selector);
+            this.stats.setProxySetupMillis(System.currentTimeMillis() - this.connectStartTime);
+            new ReadWriteHandler(this.proxy, this.buffer, this.client, this.selector, this.config, this.stats);
             return;
           }
         }
@@ -170,6 +174,7 @@ class ProxySetupHandler implements Callable<HandlerState> {
   }
 
   private void closeChannels() {
+    this.stats.close();
     if (this.proxy.isOpen()) {
       try {
         this.proxy.close();
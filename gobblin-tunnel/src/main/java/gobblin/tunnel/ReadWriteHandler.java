@@ -31,23 +31,38 @@ import static java.nio.channels.SelectionKey.OP_READ;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Optional;
+
 /**
  * This class handles the relaying of data back and forth between the Client-to-Tunnel and Tunnel-to-Proxy
  * socket connections. This class is not thread safe.
+ *
+ * If the {@link Config} has a {@link DirectBufferPool}, the buffer is taken from the pool when data is read and
+ * returned once all of it is written, so that idle connections hold no buffer. Otherwise the connection keeps its own
+ * heap buffer.
  */
 class ReadWriteHandler implements Callable<HandlerState> {
   static final Logger LOG = LoggerFactory.getLogger(Tunnel.class);
   private final SocketChannel proxy;
   private final SocketChannel client;
   private final Selector selector;
-  private final ByteBuffer buffer = ByteBuffer.allocate(1000000);
+  private final Optional<DirectBufferPool> bufferPool;
+  private final ConnectionStats stats;
+  private ByteBuffer buffer;
+  private long relayStartNanos;
   private HandlerState state = HandlerState.READING;
 
-  ReadWriteHandler(SocketChannel proxy, ByteBuffer mixedServerResponseBuffer, SocketChannel client, Selector selector)
+  ReadWriteHandler(SocketChannel proxy, ByteBuffer mixedServerResponseBuffer, SocketChannel client, Selector selector,
+      Config config, ConnectionStats stats)
       throws IOException {
     this.proxy = proxy;
     this.client = client;
     this.selector = selector;
+    this.bufferPool = config.getBufferPool();
+    this.stats = stats;
+    if (!this.bufferPool.isPresent()) {
+      this.buffer = ByteBuffer.allocate(1000000);
+    }
 
     // drain response that is not part of proxy's 200 OK and is part of data pushed from server, and push to client
     if (mixedServerResponseBuffer.limit() > mixedServerResponseBuffer.position()) {
@@ -56,6 +71,7 @@ class ReadWriteHandler implements Callable<HandlerState> {
       clientOut.write(mixedServerResponseBuffer.array(), mixedServerResponseBuffer.position(),
           mixedServerResponseBuffer.limit() - mixedServerResponseBuffer.position());
       clientOut.flush();
+      this.stats.addBytesToClient(mixedServerResponseBuffer.limit() - mixedServerResponseBuffer.position());
     }
     this.proxy.configureBlocking(false);
     this.client.configureBlocking(false);
@@ -128,12 +144,14 @@ class ReadWriteHandler implements Callable<HandlerState> {
 
       if (totalWrite == available) {
         this.buffer.clear();
+        releaseBuffer();
+        this.stats.recordRelay(System.nanoTime() - this.relayStartNanos);
         if(readChannel.isOpen()) {
           readChannel.register(this.selector, SelectionKey.OP_READ, this);
           writeChannel.register(this.selector, SelectionKey.OP_READ, this);
         }
         else{
-          writeChannel.close();
+          closeChannels();
         }
         this.state = HandlerState.READING;
       } else {
@@ -166,6 +184,10 @@ class ReadWriteHandler implements Callable<HandlerState> {
 
     if (readKey != null) {
 
+      if (this.buffer == null) {
+        this.buffer = this.bufferPool.get().acquire();
+      }
+
       int lastRead, totalRead = 0;
 
       while ((lastRead = readChannel.read(this.buffer)) > 0) {
@@ -175,17 +197,42 @@ class ReadWriteHandler implements Callable<HandlerState> {
       LOG.debug("{} bytes read from {}", totalRead, readChannel == this.proxy ? "proxy":"client");
 
       if (totalRead > 0) {
+        if (readChannel == this.client) {
+          this.stats.addBytesFromClient(totalRead);
+        } else {
+          this.stats.addBytesToClient(totalRead);
+        }
+        this.relayStartNanos = System.nanoTime();
         readKey.cancel();
         writeChannel.register(this.selector, SelectionKey.OP_WRITE, this);
         this.state = HandlerState.WRITING;
       }
       if (lastRead == -1) {
         readChannel.close();
+        if (this.state == HandlerState.READING) {
+          // Nothing left to relay, so close the other side too instead of waiting for its peer to close it
+          closeChannels();
+        }
+      }
+      if (this.state == HandlerState.READING) {
+        releaseBuffer();
       }
     }
   }
 
+  /**
+   * Return the buffer to the pool, if it is pooled. Must only be called when the buffer is empty.
+   */
+  private void releaseBuffer() {
+    if (this.bufferPool.isPresent() && this.buffer != null) {
+      this.bufferPool.get().release(this.buffer);
+      this.buffer = null;
+    }
+  }
+
   private void closeChannels() {
+    releaseBuffer();
+    this.stats.close();
     if (this.proxy.isOpen()) {
       try {
         this.proxy.close();
@@ -23,12 +23,21 @@ import java.net.SocketAddress;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.ServerSocketChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+
 import gobblin.util.ExecutorsUtils;
 
 
@@ -62,6 +71,11 @@ import gobblin.util.ExecutorsUtils;
  *
  * The Tunnel can accept as many connections as the JdbcExtractor opens. It uses NIO to minimize resource usage.
  *
+ * By default all connections are served by one selector thread, and each connection has its own heap buffer. A tunnel
+ * built with {@link #build(String, int, String, int, int)} spreads connections round-robin over several selector
+ * threads instead, and connections take direct buffers from a pool shared by all such tunnels only while they have data
+ * in flight. Byte counts and latencies of the open connections are available from {@link #getConnectionStats()}.
+ *
  * @author navteniev@linkedin.com
  * @author kkandekar@linkedin.com
  */
@@ -71,11 +85,16 @@ public class Tunnel {
   private static final Logger LOG = LoggerFactory.getLogger(Tunnel.class);
 
   private ServerSocketChannel server;
-  private Thread thread;
+  private final List<Dispatcher> dispatchers = new ArrayList<>();
+  private final Set<ConnectionStats> connectionStats =
+      Collections.newSetFromMap(new ConcurrentHashMap<ConnectionStats, Boolean>());
   private final Config config;
+  private final int selectorThreads;
 
-  private Tunnel(String remoteHost, int remotePort, String proxyHost, int proxyPort) {
-    this.config = new Config(remoteHost, remotePort, proxyHost, proxyPort);
+  private Tunnel(String remoteHost, int remotePort, String proxyHost, int proxyPort, int selectorThreads,
+      Optional<DirectBufferPool> bufferPool) {
+    this.config = new Config(remoteHost, remotePort, proxyHost, proxyPort, bufferPool);
+    this.selectorThreads = selectorThreads;
   }
 
   private Tunnel open() throws IOException {
@@ -83,8 +102,12 @@ public class Tunnel {
       this.server = ServerSocketChannel.open().bind(null);
       this.server.configureBlocking(false);
 
-      Selector selector = Selector.open();
-      startTunnelThread(selector);
+      for (int i = 0; i < this.selectorThreads; i++) {
+        this.dispatchers.add(new Dispatcher(Selector.open()));
+      }
+      for (int i = 0; i < this.dispatchers.size(); i++) {
+        startTunnelThread(this.dispatchers.get(i), i == 0 ? "Tunnel Listener" : "Tunnel Selector-" + i);
+      }
       return this;
     } catch (IOException ioe) {
       LOG.error("Failed to open the tunnel", ioe);
@@ -109,40 +132,75 @@ public class Tunnel {
     return NON_EXISTENT_PORT;
   }
 
-  private void startTunnelThread(Selector selector) {
-    this.thread = new Thread(new Dispatcher(selector), "Tunnel Listener");
-    this.thread.setUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+  private void startTunnelThread(Dispatcher dispatcher, String name) {
+    dispatcher.thread = new Thread(dispatcher, name);
+    dispatcher.thread.setUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
       @Override
       public void uncaughtException(Thread t, Throwable e) {
         LOG.error("Uncaught exception in thread " + t.getName(), e);
       }
     });
     //so we don't prevent the JVM from shutting down, just in case
-    this.thread.setDaemon(true);
-    this.thread.start();
+    dispatcher.thread.setDaemon(true);
+    dispatcher.thread.start();
   }
 
   public boolean isTunnelThreadAlive() {
-    return (this.thread != null && this.thread.isAlive());
+    for (Dispatcher dispatcher : this.dispatchers) {
+      if (dispatcher.thread != null && dispatcher.thread.isAlive()) {
+        return true;
+      }
+    }
+    return false;
   }
 
-  private class Dispatcher implements Runnable {
+  /**
+   * @return the stats of the connections currently open through this tunnel. Connections are removed as soon as the
+   *         tunnel closes them.
+   */
+  public List<ConnectionStats> getConnectionStats() {
+    return new ArrayList<>(this.connectionStats);
+  }
+
+  /**
+   * Runs the event loop of one {@link Selector}. Channels must only be registered with the selector from its own
+   * thread, so other threads hand work to it through {@link #execute(Runnable)}.
+   */
+  class Dispatcher implements Runnable {
 
     private final Selector selector;
+    private final Queue<Runnable> pendingTasks = new ConcurrentLinkedQueue<>();
+    private Thread thread;
 
     public Dispatcher(Selector selector) {
       this.selector = selector;
     }
 
+    Selector getSelector() {
+      return this.selector;
+    }
+
+    /**
+     * Run a task on the selector thread of this dispatcher.
+     */
+    void execute(Runnable task) {
+      this.pendingTasks.add(task);
+      this.selector.wakeup();
+    }
+
     @Override
     public void run() {
       try {
-        Tunnel.this.server.register(this.selector, SelectionKey.OP_ACCEPT,
-            ExecutorsUtils.loggingDecorator(new AcceptHandler(Tunnel.this.server, this.selector, Tunnel.this.config)));
+        if (this == Tunnel.this.dispatchers.get(0)) {
+          Tunnel.this.server.register(this.selector, SelectionKey.OP_ACCEPT, ExecutorsUtils.loggingDecorator(
+              new AcceptHandler(Tunnel.this.server, this.selector, Tunnel.this.config, Tunnel.this.dispatchers,
+                  Tunnel.this.connectionStats)));
+        }
 
         while (!Thread.interrupted()) {
 
           this.selector.select();
+          runPendingTasks();
           Set<SelectionKey> selectionKeys = this.selector.selectedKeys();
 
           for (SelectionKey selectionKey : selectionKeys) {
@@ -157,6 +215,17 @@ public class Tunnel {
       LOG.info("Closing tunnel");
     }
 
+    private void runPendingTasks() {
+      Runnable task;
+      while ((task = this.pendingTasks.poll()) != null) {
+        try {
+          task.run();
+        } catch (RuntimeException e) {
+          LOG.error("exception running task on {}", Thread.currentThread().getName(), e);
+        }
+      }
+    }
+
     private void dispatch(SelectionKey selectionKey) {
       Callable<?> attachment = (Callable<?>) selectionKey.attachment();
 
@@ -176,8 +245,12 @@ public class Tunnel {
       LOG.warn("Exception during shutdown of tunnel", ioe);
     } finally {
       try {
-        this.thread.interrupt();
-        this.thread.join();
+        for (Dispatcher dispatcher : this.dispatchers) {
+          dispatcher.thread.interrupt();
+        }
+        for (Dispatcher dispatcher : this.dispatchers) {
+          dispatcher.thread.join();
+        }
       } catch (InterruptedException e) {
         throw new RuntimeException(e);
       }
@@ -185,6 +258,17 @@ public class Tunnel {
   }
 
   public static Tunnel build(String remoteHost, int remotePort, String proxyHost, int proxyPort) throws IOException {
-    return new Tunnel(remoteHost, remotePort, proxyHost, proxyPort).open();
+    return new Tunnel(remoteHost, remotePort, proxyHost, proxyPort, 1, Optional.<DirectBufferPool>absent()).open();
+  }
+
+  /**
+   * Build a tunnel that serves its connections with {@code selectorThreads} selector threads and relays their data
+   * through direct buffers from a pool shared by all tunnels built this way.
+   */
+  public static Tunnel build(String remoteHost, int remotePort, String proxyHost, int proxyPort, int selectorThreads)
+      throws IOException {
+    Preconditions.checkArgument(selectorThreads > 0, "selectorThreads must be positive");
+    return new Tunnel(remoteHost, remotePort, proxyHost, proxyPort, selectorThreads,
+        Optional.of(DirectBufferPool.SHARED)).open();
   }
 }
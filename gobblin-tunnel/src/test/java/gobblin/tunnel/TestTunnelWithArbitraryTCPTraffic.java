@@ -330,6 +330,14 @@ public class TestTunnelWithArbitraryTCPTraffic {
 
   private void runSimultaneousDataExchange(boolean useTunnel, int nclients)
       throws IOException, InterruptedException, NoSuchAlgorithmException {
+    runSimultaneousDataExchange(useTunnel, nclients, 0);
+  }
+
+  /**
+   * @param selectorThreads number of selector threads of a tunnel with pooled buffers, or 0 for a default tunnel
+   */
+  private void runSimultaneousDataExchange(boolean useTunnel, int nclients, int selectorThreads)
+      throws IOException, InterruptedException, NoSuchAlgorithmException {
     long t0 = System.currentTimeMillis();
     final int nMsgs = 50;
     final Map<String, MessageDigest> digestMsgsRecvdAtServer = new HashMap<String, MessageDigest>();
@@ -353,8 +361,11 @@ public class TestTunnelWithArbitraryTCPTraffic {
     MockServer proxyServer = null;
     if (useTunnel) {
       proxyServer = startConnectProxyServer();
-      tunnel = Tunnel.build("localhost", talkPastServer.getServerSocketPort(),
-          "localhost", proxyServer.getServerSocketPort());
+      tunnel = selectorThreads > 0
+          ? Tunnel.build("localhost", talkPastServer.getServerSocketPort(), "localhost",
+              proxyServer.getServerSocketPort(), selectorThreads)
+          : Tunnel.build("localhost", talkPastServer.getServerSocketPort(), "localhost",
+              proxyServer.getServerSocketPort());
       targetPort = tunnel.getPort();
     }
 
@@ -489,6 +500,84 @@ public class TestTunnelWithArbitraryTCPTraffic {
     runSimultaneousDataExchange(true, 3);
   }
 
+  @Test(timeOut = 20000)
+  public void testSimultaneousDataExchangeWithMultiSelectorTunnelAndMultipleClients()
+      throws IOException, InterruptedException, NoSuchAlgorithmException {
+    runSimultaneousDataExchange(true, 3, 2);
+  }
+
+  @Test(timeOut = 15000)
+  public void testMultiSelectorTunnelToEchoServerWithMultipleClients() throws IOException, InterruptedException {
+    MockServer proxyServer = startConnectProxyServer(true, true);
+    Tunnel tunnel = Tunnel.build("localhost", talkFirstEchoServer.getServerSocketPort(),
+        "localhost", proxyServer.getServerSocketPort(), 3);
+
+    try {
+      final int tunnelPort = tunnel.getPort();
+      List<EasyThread> threads = new ArrayList<EasyThread>();
+      for (int i = 0; i < 5; i++) {
+        threads.add(new EasyThread() {
+          @Override
+          void runQuietly() throws Exception {
+            runClientToTalkFirstServer(tunnelPort);
+          }
+        }.startThread());
+      }
+      for (Thread t : threads) {
+        t.join();
+      }
+      assertEquals(proxyServer.getNumConnects(), 5);
+    } finally {
+      proxyServer.stopServer();
+      tunnel.close();
+      assertFalse(tunnel.isTunnelThreadAlive());
+    }
+  }
+
+  @Test(timeOut = 15000)
+  public void testConnectionStats() throws IOException, InterruptedException {
+    MockServer proxyServer = startConnectProxyServer();
+    Tunnel tunnel = Tunnel.build("localhost", doubleEchoServer.getServerSocketPort(),
+        "localhost", proxyServer.getServerSocketPort(), 2);
+    Tunnel defaultTunnel = Tunnel.build("localhost", doubleEchoServer.getServerSocketPort(),
+        "localhost", proxyServer.getServerSocketPort());
+
+    try {
+      runClientAndCheckConnectionStats(tunnel);
+      runClientAndCheckConnectionStats(defaultTunnel);
+    } finally {
+      proxyServer.stopServer();
+      tunnel.close();
+      defaultTunnel.close();
+      assertFalse(tunnel.isTunnelThreadAlive());
+      assertFalse(defaultTunnel.isTunnelThreadAlive());
+    }
+  }
+
+  private void runClientAndCheckConnectionStats(Tunnel tunnel) throws IOException, InterruptedException {
+    SocketChannel client = SocketChannel.open();
+    client.connect(new InetSocketAddress("localhost", tunnel.getPort()));
+    client.write(ByteBuffer.wrap("Knock\n".getBytes()));
+    assertEquals(readFromSocket(client), "Knock Knock\n");
+
+    List<ConnectionStats> stats = tunnel.getConnectionStats();
+    assertEquals(stats.size(), 1);
+    assertEquals(stats.get(0).getBytesFromClient(), "Knock\n".length());
+    assertEquals(stats.get(0).getBytesToClient(), "Knock Knock\n".length());
+    assertTrue(stats.get(0).getProxySetupMillis() >= 0);
+
+    client.close();
+
+    // Relays are recorded after the tunnel finishes writing, and the stats are removed once the tunnel sees the close
+    long deadline = System.currentTimeMillis() + 5000;
+    while (!tunnel.getConnectionStats().isEmpty() && System.currentTimeMillis() < deadline) {
+      Thread.sleep(50);
+    }
+    assertTrue(tunnel.getConnectionStats().isEmpty());
+    assertTrue(stats.get(0).getRelayCount() >= 2);
+    assertFalse(stats.get(0).isOpen());
+  }
+
   @Test(expectedExceptions = IOException.class)
   public void testTunnelWhereProxyConnectionToServerFailsWithWriteFirstClient() throws IOException, InterruptedException {
     MockServer proxyServer = startConnectProxyServer();